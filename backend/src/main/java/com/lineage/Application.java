@@ -7,6 +7,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -26,7 +27,8 @@ import java.net.UnknownHostException;
 @Slf4j
 @SpringBootApplication
 @EnableAsync
-@MapperScan("com.lineage.mapper")
+@EnableScheduling
+@MapperScan("com.lineage.**.mapper")
 public class Application {
 
     /**
@@ -0,0 +1,60 @@
+package com.lineage.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程池配置
+ */
+@Slf4j
+@Configuration
+public class AnalysisExecutorConfig {
+
+    /**
+     * 有界分析线程池：线程数和队列容量取自 lineage.batch.*，队列满时直接拒绝
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor lineageAnalysisExecutor(LineageProperties properties) {
+        LineageProperties.Batch batch = properties.getBatch();
+        int poolSize = Math.max(1, batch.getPoolSize());
+        int queueCapacity = Math.max(1, batch.getQueueCapacity());
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "lineage-analysis-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        log.info("Lineage analysis executor: poolSize={}, queueCapacity={}", poolSize, queueCapacity);
+        return new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Kettle 仓库导入线程池：队列满时由提交线程自行执行，读取速度随解析速度回落
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor kettleImportExecutor(LineageProperties properties) {
+        LineageProperties.Kettle kettle = properties.getKettle();
+        int poolSize = Math.max(1, kettle.getImportPoolSize());
+        int queueCapacity = Math.max(1, kettle.getImportQueueCapacity());
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "kettle-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,275 @@
+package com.lineage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 血缘分析业务配置（lineage.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "lineage")
+public class LineageProperties {
+
+    /**
+     * SQL 解析配置
+     */
+    private Parser parser = new Parser();
+
+    /**
+     * 批量处理配置
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 导出配置
+     */
+    private Export export = new Export();
+
+    /**
+     * 血缘图配置
+     */
+    private Graph graph = new Graph();
+
+    /**
+     * Kettle 文件处理配置
+     */
+    private Kettle kettle = new Kettle();
+
+    /**
+     * 重新分析队列配置
+     */
+    private Reanalysis reanalysis = new Reanalysis();
+
+    @Data
+    public static class Parser {
+
+        /**
+         * SQL 最大长度（字符数）
+         */
+        private int maxSqlLength = 100000;
+
+        /**
+         * 单次分析超时时间（秒）
+         */
+        private int timeoutSeconds = 600;
+
+        /**
+         * 是否缓存分析结果
+         */
+        private boolean enableCache = true;
+
+        /**
+         * 缓存过期时间（小时）
+         */
+        private int cacheExpireHours = 24;
+
+        /**
+         * 缓存最大条目数
+         */
+        private int cacheMaxSize = 1000;
+
+        /**
+         * 查询块最大嵌套深度（子查询层数）
+         */
+        private int maxRecursionDepth = 50;
+
+        /**
+         * 是否采集间接血缘（WHERE / JOIN ON / GROUP BY / HAVING）
+         */
+        private boolean captureIndirect = true;
+
+        /**
+         * dbType=auto 时最多试探解析的方言数
+         */
+        private int autoDetectMaxAttempts = 5;
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * 分析线程数
+         */
+        private int poolSize = 10;
+
+        /**
+         * 等待队列容量，队列满时拒绝新任务
+         */
+        private int queueCapacity = 1000;
+    }
+
+    @Data
+    public static class Export {
+
+        /**
+         * 启用的导出格式（excel / json / csv）
+         */
+        private List<String> formats = new ArrayList<>(Arrays.asList("excel", "json", "csv"));
+
+        /**
+         * 临时文件目录（大文件导出落盘）
+         */
+        private String tempDir = "./temp/export";
+
+        /**
+         * 单次导出最大行数
+         */
+        private int maxRows = 100000;
+
+        /**
+         * 超过该行数的 Excel 导出先写入临时文件再传输
+         */
+        private int spillThresholdRows = 5000;
+
+        /**
+         * 单个工作表最大数据行数（Excel 上限 1048576 行，含表头）
+         */
+        private int sheetMaxRows = 1048575;
+
+        /**
+         * 临时文件保留时间（分钟），超时由清理任务删除
+         */
+        private int tempFileTtlMinutes = 60;
+
+        /**
+         * 是否启用指定导出格式
+         */
+        public boolean isFormatEnabled(String format) {
+            for (String enabled : formats) {
+                if (enabled.equalsIgnoreCase(format)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @Data
+    public static class Graph {
+
+        /**
+         * 遍历最大跳数（请求的跳数超过时取该值）
+         */
+        private int maxDepth = 10;
+
+        /**
+         * 单次遍历最多访问的节点数
+         */
+        private int maxNodes = 100000;
+
+        /**
+         * 每跳 IN 查询的节点批大小
+         */
+        private int queryBatchSize = 1000;
+
+        /**
+         * 批量插入边的批大小
+         */
+        private int insertBatchSize = 500;
+
+        /**
+         * 是否启用可达性索引（启动时从 lineage_edge 构建，写入新边时增量更新）
+         */
+        private boolean reachabilityIndexEnabled = false;
+
+        /**
+         * 构建可达性索引时每次读取的边数
+         */
+        private int indexLoadPageSize = 10000;
+    }
+
+    @Data
+    public static class Kettle {
+
+        /**
+         * 上传文件保存目录（内容按哈希保存在其下的 blobs 分片目录中）
+         */
+        private String uploadDir = "./uploads/kettle";
+
+        /**
+         * 允许上传的文件扩展名
+         */
+        private List<String> allowedExtensions = new ArrayList<>(Arrays.asList("ktr", "kjb"));
+
+        /**
+         * 单个文件最大大小（MB）
+         */
+        private int maxFileSizeMb = 50;
+
+        /**
+         * 同名文件内容哈希未变化时跳过解析，复用已有记录
+         */
+        private boolean skipUnchanged = true;
+
+        /**
+         * 允许按服务器目录导入仓库的根目录，为空时禁用目录导入
+         */
+        private List<String> importRoots = new ArrayList<>();
+
+        /**
+         * 仓库导入的解析线程数
+         */
+        private int importPoolSize = 4;
+
+        /**
+         * 仓库导入等待解析的条目数上限，满时由读取线程自行解析（反压）
+         */
+        private int importQueueCapacity = 16;
+
+        /**
+         * 文件记录每批写入条数（每批一个事务）
+         */
+        private int insertBatchSize = 200;
+
+        /**
+         * 无引用文件内容的回收宽限期（分钟），新写入或被复用的内容在此期间不回收
+         */
+        private int blobGcGraceMinutes = 30;
+
+        /**
+         * 仓库级 shared.xml 路径，启动时加载其中的共享数据库连接，为空时不加载
+         */
+        private String sharedObjectsFile = "";
+
+        /**
+         * 连接匹配数据源时缓存已登记数据源列表的秒数
+         */
+        private int datasourceCacheSeconds = 60;
+    }
+
+    @Data
+    public static class Reanalysis {
+
+        /**
+         * 是否在元数据变化、Kettle 文件更新后自动重新分析受影响的出处
+         */
+        private boolean enabled = true;
+
+        /**
+         * 字段元数据变化（改名、改类型、删除）时是否重新分析引用该字段的出处；
+         * 分析器目前不读取字段元数据，重新分析的结果不会变化，默认关闭
+         */
+        private boolean metadataTriggers = false;
+
+        /**
+         * 同时执行的重新分析任务数
+         */
+        private int concurrency = 2;
+
+        /**
+         * 单个任务最多执行次数（含首次）
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * 失败任务的重试间隔（秒）
+         */
+        private int retryDelaySeconds = 60;
+    }
+}
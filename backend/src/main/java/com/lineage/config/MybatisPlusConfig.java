@@ -1,8 +1,11 @@
 package com.lineage.config;
 
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ibatis.reflection.MetaObject;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.LocalDateTime;
@@ -14,6 +17,24 @@ import java.time.LocalDateTime;
 @Configuration
 public class MybatisPlusConfig implements MetaObjectHandler {
     
+    /**
+     * 单页最大条数
+     */
+    public static final long MAX_PAGE_SIZE = 1000L;
+    
+    /**
+     * 分页插件：selectPage 改写为数据库端 LIMIT/OFFSET（方言按连接 URL 自动识别），
+     * Page#setSearchCount(false) 时不执行 COUNT
+     */
+    @Bean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        PaginationInnerInterceptor pagination = new PaginationInnerInterceptor();
+        pagination.setMaxLimit(MAX_PAGE_SIZE);
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(pagination);
+        return interceptor;
+    }
+    
     /**
      * 插入时自动填充
      */
@@ -1,7 +1,9 @@
 package com.lineage.controller;
 
+import com.lineage.config.LineageProperties;
 import com.lineage.core.tracker.LineageResult;
 import com.lineage.service.ExcelExportService;
+import com.lineage.service.StreamingExportService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
@@ -9,9 +11,19 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
@@ -27,21 +39,25 @@ public class ExportController {
     @Autowired
     private ExcelExportService excelExportService;
     
+    @Autowired
+    private StreamingExportService streamingExportService;
+    
+    @Autowired
+    private LineageProperties properties;
+    
     /**
      * 导出血缘分析结果为 Excel
      *
      * @param lineageResult 血缘分析结果
-     * @return Excel 文件流
+     * @return Excel 文件流（超过落盘阈值时从临时文件传输）
      */
     @PostMapping("/excel")
-    public ResponseEntity<byte[]> exportExcel(@Valid @RequestBody LineageResult lineageResult) {
+    public ResponseEntity<StreamingResponseBody> exportExcel(@Valid @RequestBody LineageResult lineageResult) {
         log.info("Received excel export request: {} dependencies", 
                  lineageResult.getFieldDependencies().size());
         
         try {
-            // 生成 Excel 文件
-            ByteArrayOutputStream outputStream = excelExportService.exportToExcel(lineageResult);
-            byte[] bytes = outputStream.toByteArray();
+            excelExportService.checkRowLimit(lineageResult);
             
             // 生成文件名
             String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
@@ -51,17 +67,116 @@ public class ExportController {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
             headers.setContentDispositionFormData("attachment", filename);
+            
+            // 大结果先落盘，再从文件通道传输并删除
+            if (excelExportService.shouldSpill(lineageResult)) {
+                Path file = excelExportService.exportToTempFile(lineageResult);
+                headers.setContentLength(Files.size(file));
+                log.info("Excel export spilled to disk: {} bytes, filename={}", Files.size(file), filename);
+                
+                StreamingResponseBody body = out -> transferAndDelete(file, out);
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .body(body);
+            }
+            
+            // 生成 Excel 文件
+            ByteArrayOutputStream outputStream = excelExportService.exportToExcel(lineageResult);
+            byte[] bytes = outputStream.toByteArray();
             headers.setContentLength(bytes.length);
             
             log.info("Excel export successful: {} bytes, filename={}", bytes.length, filename);
             
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(bytes);
+                    .body(out -> out.write(bytes));
             
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected excel export: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to export excel", e);
             return ResponseEntity.internalServerError().build();
         }
     }
+    
+    /**
+     * 导出血缘分析结果为 CSV（流式写出）
+     *
+     * @param lineageResult 血缘分析结果
+     * @return CSV 文件流
+     */
+    @PostMapping("/csv")
+    public ResponseEntity<StreamingResponseBody> exportCsv(@Valid @RequestBody LineageResult lineageResult) {
+        log.info("Received csv export request: {} dependencies", 
+                 lineageResult.getFieldDependencies().size());
+        
+        if (!properties.getExport().isFormatEnabled("csv") || exceedsRowLimit(lineageResult)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StreamingResponseBody body = out -> streamingExportService.writeCsv(lineageResult, out);
+        return ResponseEntity.ok()
+                .headers(attachmentHeaders(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"))
+                .body(body);
+    }
+    
+    /**
+     * 导出血缘分析结果为 NDJSON（每行一个 JSON 对象，流式写出）
+     *
+     * @param lineageResult 血缘分析结果
+     * @return NDJSON 文件流
+     */
+    @PostMapping("/json")
+    public ResponseEntity<StreamingResponseBody> exportJson(@Valid @RequestBody LineageResult lineageResult) {
+        log.info("Received json export request: {} dependencies", 
+                 lineageResult.getFieldDependencies().size());
+        
+        if (!properties.getExport().isFormatEnabled("json") || exceedsRowLimit(lineageResult)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StreamingResponseBody body = out -> streamingExportService.writeNdjson(lineageResult, out);
+        return ResponseEntity.ok()
+                .headers(attachmentHeaders(MediaType.parseMediaType("application/x-ndjson"), "ndjson"))
+                .body(body);
+    }
+    
+    /**
+     * 从临时文件通道传输到响应流，完成后删除文件
+     */
+    private void transferAndDelete(Path file, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            out.flush();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    private boolean exceedsRowLimit(LineageResult lineageResult) {
+        try {
+            excelExportService.checkRowLimit(lineageResult);
+            return false;
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected export: {}", e.getMessage());
+            return true;
+        }
+    }
+    
+    /**
+     * 构造附件下载响应头
+     */
+    private HttpHeaders attachmentHeaders(MediaType contentType, String extension) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        headers.setContentDispositionFormData("attachment", "lineage_analysis_" + timestamp + "." + extension);
+        return headers;
+    }
 }
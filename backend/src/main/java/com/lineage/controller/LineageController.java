@@ -1,15 +1,20 @@
 package com.lineage.controller;
 
-import com.lineage.core.LineageAnalyzer;
+import com.lineage.core.dialect.DialectDetector;
 import com.lineage.core.tracker.LineageResult;
 import com.lineage.dto.request.AnalyzeRequest;
 import com.lineage.dto.response.ApiResponse;
+import com.lineage.service.LineageAnalysisService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * SQL血缘分析控制器
@@ -21,37 +26,59 @@ import javax.validation.Valid;
 public class LineageController {
     
     @Autowired
-    private LineageAnalyzer analyzer;
+    private LineageAnalysisService analysisService;
+    
+    @Autowired
+    private DialectDetector dialectDetector;
     
     /**
      * 分析SQL血缘关系
      *
      * @param request 分析请求
-     * @return 血缘分析结果
+     * @return 血缘分析结果；分析队列已满时返回 429
      */
     @PostMapping("/analyze")
-    public ApiResponse<LineageResult> analyze(@Valid @RequestBody AnalyzeRequest request) {
+    public ResponseEntity<ApiResponse<LineageResult>> analyze(@Valid @RequestBody AnalyzeRequest request) {
         log.info("Received lineage analyze request: dbType={}, sql={}", 
                  request.getDbType(), request.getSql());
         
         try {
-            LineageResult result = analyzer.analyze(request.getSql(), request.getDbType());
+            LineageResult result = request.getIncludeIndirect() == null
+                    ? analysisService.analyze(request.getSql(), request.getDbType())
+                    : analysisService.analyze(request.getSql(), request.getDbType(), request.getIncludeIndirect());
+            
+            // 结果可能来自缓存，不能原地修改
+            if (Boolean.FALSE.equals(request.getIncludeExpressions())) {
+                result = result.withoutExpressions();
+            }
             
             if (result.isSuccess()) {
                 log.info("Analysis successful: {} tables, {} dependencies", 
                          result.getTables().size(), result.getFieldDependencies().size());
-                return ApiResponse.success(result);
+                return ResponseEntity.ok(ApiResponse.success(result));
             } else {
                 log.warn("Analysis failed: {}", result.getErrorMessage());
-                return ApiResponse.error(400, result.getErrorMessage());
+                return ResponseEntity.ok(ApiResponse.error(400, result.getErrorMessage()));
             }
             
+        } catch (RejectedExecutionException e) {
+            log.warn("Analysis queue is full, rejecting request");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ApiResponse.error(429, "Too many analysis requests, please retry later"));
         } catch (Exception e) {
             log.error("Failed to analyze SQL", e);
-            return ApiResponse.error("Internal server error: " + e.getMessage());
+            return ResponseEntity.ok(ApiResponse.error("Internal server error: " + e.getMessage()));
         }
     }
     
+    /**
+     * 方言自动识别统计（命中率、解析次数及节省的解析次数）
+     */
+    @GetMapping("/dialect-detection/stats")
+    public ApiResponse<Map<String, Object>> dialectDetectionStats() {
+        return ApiResponse.success(dialectDetector.getStats());
+    }
+    
     /**
      * 健康检查
      */
@@ -2,6 +2,8 @@ package com.lineage.core;
 
 import com.alibaba.druid.sql.ast.SQLStatement;
 import com.alibaba.druid.sql.ast.statement.SQLSelectStatement;
+import com.lineage.config.LineageProperties;
+import com.lineage.core.dialect.DialectDetector;
 import com.lineage.core.tracker.FieldDependencyTracker;
 import com.lineage.core.tracker.LineageResult;
 import com.lineage.core.visitor.LineageVisitor;
@@ -10,10 +12,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * SQL 血缘分析器
  * 
- * 核心功能：分析 SQL 语句，提取字段级血缘关系
+ * 核心功能：分析 SQL 语句，提取字段级血缘关系。
+ * 每次分析使用独立的追踪器和访问者，可在多个线程中并发调用
  */
 @Slf4j
 @Component
@@ -23,7 +28,10 @@ public class LineageAnalyzer {
     private DruidParserService parserService;
     
     @Autowired
-    private FieldDependencyTracker tracker;
+    private LineageProperties properties;
+    
+    @Autowired
+    private DialectDetector dialectDetector;
     
     /**
      * 分析 SQL 血缘关系
@@ -33,6 +41,29 @@ public class LineageAnalyzer {
      * @return 血缘分析结果
      */
     public LineageResult analyze(String sql, String dbType) {
+        return analyze(sql, dbType, properties.getParser().isCaptureIndirect());
+    }
+    
+    /**
+     * 分析 SQL 血缘关系
+     *
+     * @param sql             SQL 语句
+     * @param dbType          数据库类型，auto 表示自动识别（结果中的 dbType 为识别出的方言）
+     * @param captureIndirect 是否采集间接血缘
+     * @return 血缘分析结果
+     */
+    public LineageResult analyze(String sql, String dbType, boolean captureIndirect) {
+        return analyze(sql, dbType, captureIndirect, 0L);
+    }
+    
+    /**
+     * 分析 SQL 血缘关系，超过截止时间后终止遍历并返回错误结果
+     *
+     * 截止时间在解析完成后和遍历过程中检查，解析本身不可中断，仅受 lineage.parser.max-sql-length 限制
+     *
+     * @param deadlineNanos 截止时间（System.nanoTime），0 表示不限
+     */
+    public LineageResult analyze(String sql, String dbType, boolean captureIndirect, long deadlineNanos) {
         LineageResult result = new LineageResult();
         result.setSql(sql);
         result.setDbType(dbType);
@@ -40,7 +71,10 @@ public class LineageAnalyzer {
         try {
             // 1. 解析 SQL
             log.info("Analyzing SQL: {}", sql);
-            SQLStatement statement = parserService.parseSingleSQL(sql, dbType);
+            SQLStatement statement = DialectDetector.isAuto(dbType)
+                    ? parseWithDetectedDialect(sql, result)
+                    : parserService.parseSingleSQL(sql, dbType);
+            LineageVisitor.checkDeadline(deadlineNanos);
             
             // 2. 检查是否为 SELECT 语句
             if (!(statement instanceof SQLSelectStatement)) {
@@ -49,15 +83,15 @@ public class LineageAnalyzer {
                 return result;
             }
             
-            // 3. 清空追踪器
-            tracker.clear();
-            
-            // 4. 创建访问者并遍历 AST
-            LineageVisitor visitor = new LineageVisitor(result, tracker);
+            // 3. 创建本次分析的追踪器和访问者，遍历 AST
+            FieldDependencyTracker tracker = new FieldDependencyTracker();
+            LineageVisitor visitor = new LineageVisitor(result, tracker, captureIndirect);
+            visitor.setMaxQueryDepth(properties.getParser().getMaxRecursionDepth());
+            visitor.setDeadline(deadlineNanos);
             statement.accept(visitor);
             
-            log.info("Successfully analyzed SQL with {} field dependencies", 
-                     result.getFieldDependencies().size());
+            log.info("Successfully analyzed SQL with {} field dependencies, {} indirect dependencies", 
+                     result.getFieldDependencies().size(), result.getIndirectDependencies().size());
             
         } catch (Exception e) {
             log.error("Failed to analyze SQL: {}", sql, e);
@@ -67,6 +101,29 @@ public class LineageAnalyzer {
         return result;
     }
     
+    /**
+     * 按识别出的候选方言顺序试探解析，第一个成功的方言写入结果
+     */
+    private SQLStatement parseWithDetectedDialect(String sql, LineageResult result) {
+        List<String> candidates = dialectDetector.rank(sql);
+        int maxAttempts = properties.getParser().getAutoDetectMaxAttempts();
+        int limit = maxAttempts > 0 ? Math.min(maxAttempts, candidates.size()) : candidates.size();
+        
+        for (int i = 0; i < limit; i++) {
+            String candidate = candidates.get(i);
+            SQLStatement statement = parserService.tryParseSingleSQL(sql, candidate);
+            if (statement != null) {
+                dialectDetector.recordSuccess(candidate, i + 1);
+                result.setDbType(candidate);
+                log.debug("Detected dialect {} after {} attempt(s)", candidate, i + 1);
+                return statement;
+            }
+        }
+        
+        dialectDetector.recordFailure(limit);
+        throw new IllegalArgumentException("SQL parsing failed: no dialect matched, tried " + candidates.subList(0, limit));
+    }
+    
     /**
      * 批量分析 SQL 列表
      *
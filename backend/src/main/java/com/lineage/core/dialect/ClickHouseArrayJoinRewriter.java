@@ -0,0 +1,253 @@
+package com.lineage.core.dialect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ClickHouse ARRAY JOIN 改写
+ *
+ * Druid 无法解析 ARRAY JOIN，这里把
+ * {@code [LEFT] ARRAY JOIN expr1 AS a, expr2 AS b} 改写为语义等价（按位置展开）的
+ * {@code CROSS JOIN UNNEST(expr1, expr2) AS __array_join_1 (a, b)}，
+ * LEFT ARRAY JOIN 改写为 {@code LEFT JOIN UNNEST(...) ... ON 1 = 1}。
+ * 字符串、引用标识符和注释中的内容不做改写
+ */
+public final class ClickHouseArrayJoinRewriter {
+
+    /**
+     * 生成的 UNNEST 表别名前缀
+     */
+    public static final String ALIAS_PREFIX = "__array_join_";
+
+    /**
+     * ARRAY JOIN 列表结束的关键字
+     */
+    private static final String[] STOP_KEYWORDS = {
+            "WHERE", "PREWHERE", "GROUP", "ORDER", "LIMIT", "HAVING", "SETTINGS", "FORMAT", "UNION",
+            "JOIN", "LEFT", "RIGHT", "INNER", "FULL", "CROSS", "ARRAY", "WINDOW", "QUALIFY"
+    };
+
+    private static final Pattern ITEM_WITH_ALIAS =
+            Pattern.compile("(?is)^(.+?)\\s+AS\\s+([A-Za-z_][A-Za-z0-9_]*|`[^`]+`)$");
+
+    private static final Pattern SIMPLE_NAME =
+            Pattern.compile("^(?:[A-Za-z_][A-Za-z0-9_]*\\.)*([A-Za-z_][A-Za-z0-9_]*)$");
+
+    private ClickHouseArrayJoinRewriter() {
+    }
+
+    /**
+     * 改写 SQL 中的 ARRAY JOIN 子句，不含 ARRAY JOIN 时原样返回
+     */
+    public static String rewrite(String sql) {
+        if (sql == null || sql.toUpperCase(Locale.ROOT).indexOf("ARRAY") < 0) {
+            return sql;
+        }
+
+        StringBuilder out = new StringBuilder(sql.length() + 32);
+        int length = sql.length();
+        int aliasCounter = 0;
+        int i = 0;
+        while (i < length) {
+            int skipped = skipQuotedOrComment(sql, i);
+            if (skipped > i) {
+                out.append(sql, i, skipped);
+                i = skipped;
+                continue;
+            }
+
+            int joinEnd = matchArrayJoin(sql, i);
+            if (joinEnd < 0) {
+                out.append(sql.charAt(i++));
+                continue;
+            }
+
+            boolean leftJoin = removeTrailingLeft(out);
+            int listEnd = findListEnd(sql, joinEnd);
+            List<String> items = splitTopLevel(sql.substring(joinEnd, listEnd));
+
+            List<String> exprs = new ArrayList<>();
+            List<String> aliases = new ArrayList<>();
+            for (String item : items) {
+                String trimmed = item.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                Matcher withAlias = ITEM_WITH_ALIAS.matcher(trimmed);
+                if (withAlias.matches()) {
+                    exprs.add(withAlias.group(1).trim());
+                    aliases.add(withAlias.group(2));
+                } else {
+                    Matcher simple = SIMPLE_NAME.matcher(trimmed);
+                    exprs.add(trimmed);
+                    aliases.add(simple.matches() ? simple.group(1) : "__array_join_col_" + (aliases.size() + 1));
+                }
+            }
+
+            aliasCounter++;
+            out.append(leftJoin ? "LEFT JOIN UNNEST(" : "CROSS JOIN UNNEST(")
+               .append(String.join(", ", exprs))
+               .append(") AS ").append(ALIAS_PREFIX).append(aliasCounter)
+               .append(" (").append(String.join(", ", aliases)).append(')');
+            if (leftJoin) {
+                out.append(" ON 1 = 1");
+            }
+            out.append(' ');
+            i = listEnd;
+        }
+        return out.toString();
+    }
+
+    /**
+     * 在 start 处匹配 "ARRAY JOIN"（单词边界），返回 JOIN 之后的位置，不匹配返回 -1
+     */
+    private static int matchArrayJoin(String sql, int start) {
+        if (!matchWord(sql, start, "ARRAY")) {
+            return -1;
+        }
+        int pos = start + 5;
+        int afterSpace = skipWhitespace(sql, pos);
+        if (afterSpace == pos || !matchWord(sql, afterSpace, "JOIN")) {
+            return -1;
+        }
+        return afterSpace + 4;
+    }
+
+    /**
+     * 输出末尾为 "LEFT " 时移除并返回 true
+     */
+    private static boolean removeTrailingLeft(StringBuilder out) {
+        int end = out.length();
+        while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) {
+            end--;
+        }
+        int start = end - 4;
+        if (start >= 0 && out.substring(start, end).equalsIgnoreCase("LEFT")
+                && (start == 0 || !isIdentifierPart(out.charAt(start - 1)))) {
+            out.setLength(start);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 找到 ARRAY JOIN 列表的结束位置（同层的结束关键字、右括号、分号或末尾）
+     */
+    private static int findListEnd(String sql, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < sql.length()) {
+            int skipped = skipQuotedOrComment(sql, i);
+            if (skipped > i) {
+                i = skipped;
+                continue;
+            }
+            char c = sql.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            } else if (c == ';' && depth == 0) {
+                return i;
+            } else if (depth == 0 && isStopKeyword(sql, i)) {
+                return i;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 按同层逗号切分
+     */
+    private static List<String> splitTopLevel(String list) {
+        List<String> items = new ArrayList<>();
+        int depth = 0;
+        int itemStart = 0;
+        int i = 0;
+        while (i < list.length()) {
+            int skipped = skipQuotedOrComment(list, i);
+            if (skipped > i) {
+                i = skipped;
+                continue;
+            }
+            char c = list.charAt(i);
+            if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                items.add(list.substring(itemStart, i));
+                itemStart = i + 1;
+            }
+            i++;
+        }
+        items.add(list.substring(itemStart));
+        return items;
+    }
+
+    private static boolean isStopKeyword(String sql, int pos) {
+        for (String keyword : STOP_KEYWORDS) {
+            if (matchWord(sql, pos, keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchWord(String sql, int pos, String word) {
+        int end = pos + word.length();
+        return end <= sql.length()
+                && sql.regionMatches(true, pos, word, 0, word.length())
+                && (pos == 0 || !isIdentifierPart(sql.charAt(pos - 1)))
+                && (end == sql.length() || !isIdentifierPart(sql.charAt(end)));
+    }
+
+    /**
+     * 跳过从 pos 开始的字符串、引用标识符或注释，返回其后的位置；不是则返回 pos
+     */
+    private static int skipQuotedOrComment(String sql, int pos) {
+        char c = sql.charAt(pos);
+        if (c == '\'' || c == '"' || c == '`') {
+            int i = pos + 1;
+            while (i < sql.length()) {
+                char ch = sql.charAt(i);
+                if (ch == '\\') {
+                    i += 2;
+                    continue;
+                }
+                if (ch == c) {
+                    return i + 1;
+                }
+                i++;
+            }
+            return sql.length();
+        }
+        if (c == '-' && pos + 1 < sql.length() && sql.charAt(pos + 1) == '-') {
+            int newline = sql.indexOf('\n', pos);
+            return newline < 0 ? sql.length() : newline + 1;
+        }
+        if (c == '/' && pos + 1 < sql.length() && sql.charAt(pos + 1) == '*') {
+            int close = sql.indexOf("*/", pos + 2);
+            return close < 0 ? sql.length() : close + 2;
+        }
+        return pos;
+    }
+
+    private static int skipWhitespace(String sql, int pos) {
+        while (pos < sql.length() && Character.isWhitespace(sql.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
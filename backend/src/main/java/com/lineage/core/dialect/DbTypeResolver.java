@@ -1,28 +1,56 @@
 package com.lineage.core.dialect;
 
 import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.parser.SQLParserFeature;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 数据库方言解析器
  * 
- * 根据数据库类型字符串解析为 Druid DbType
+ * 根据数据库类型字符串解析为 Druid DbType 及对应的方言解析配置；
+ * 调用方传入的原始字符串（含大小写、空白差异）解析结果会被缓存
  */
 @Component
 public class DbTypeResolver {
 
     private static final Map<String, DbType> DB_TYPE_MAP = new HashMap<>();
 
+    private static final Map<String, DialectProfile> PROFILE_MAP = new HashMap<>();
+
+    /**
+     * 原始输入缓存上限，防止任意输入撑大缓存
+     */
+    private static final int RESOLVE_CACHE_LIMIT = 256;
+
     static {
-        DB_TYPE_MAP.put("mysql", DbType.mysql);
-        DB_TYPE_MAP.put("hive", DbType.hive);
-        DB_TYPE_MAP.put("postgresql", DbType.postgresql);
-        DB_TYPE_MAP.put("oracle", DbType.oracle);
-        DB_TYPE_MAP.put("sqlserver", DbType.sqlserver);
+        register(new DialectProfile("mysql", DbType.mysql));
+        register(new DialectProfile("hive", DbType.hive));
+        register(new DialectProfile("postgresql", DbType.postgresql));
+        register(new DialectProfile("oracle", DbType.oracle));
+        register(new DialectProfile("sqlserver", DbType.sqlserver));
+        // Spark SQL 基于 Hive 语法，开启 Spark 扩展
+        register(new DialectProfile("spark", DbType.hive, SQLParserFeature.Spark));
+        register(new DialectProfile("presto", DbType.presto, SQLParserFeature.Presto));
+        register(new DialectProfile("trino", DbType.trino, SQLParserFeature.Presto));
+        // ARRAY JOIN 不被 Druid 支持，改写为 UNNEST 后解析
+        register(new DialectProfile("clickhouse", DbType.clickhouse, ClickHouseArrayJoinRewriter::rewrite));
+        // Flink SQL 使用 Blink 语法
+        register(new DialectProfile("flink", DbType.blink));
+    }
+
+    /**
+     * 原始输入 -> 方言配置
+     */
+    private final Map<String, DialectProfile> resolveCache = new ConcurrentHashMap<>();
+
+    private static void register(DialectProfile profile) {
+        DB_TYPE_MAP.put(profile.getName(), profile.getDbType());
+        PROFILE_MAP.put(profile.getName(), profile);
     }
 
     /**
@@ -33,21 +61,42 @@ public class DbTypeResolver {
      * @throws IllegalArgumentException 不支持的数据库类型
      */
     public DbType resolve(String dbTypeStr) {
+        return resolveProfile(dbTypeStr).getDbType();
+    }
+
+    /**
+     * 解析数据库类型字符串为方言解析配置
+     *
+     * @param dbTypeStr 数据库类型字符串（不区分大小写）
+     * @return 方言解析配置
+     * @throws IllegalArgumentException 不支持的数据库类型
+     */
+    public DialectProfile resolveProfile(String dbTypeStr) {
+        if (dbTypeStr != null) {
+            DialectProfile cached = resolveCache.get(dbTypeStr);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         if (StringUtils.isBlank(dbTypeStr)) {
             throw new IllegalArgumentException("Database type cannot be blank");
         }
 
         String normalizedType = dbTypeStr.trim().toLowerCase();
-        DbType dbType = DB_TYPE_MAP.get(normalizedType);
+        DialectProfile profile = PROFILE_MAP.get(normalizedType);
 
-        if (dbType == null) {
+        if (profile == null) {
             throw new IllegalArgumentException(
                 String.format("Unsupported database type: %s. Supported types: %s", 
                     dbTypeStr, DB_TYPE_MAP.keySet())
             );
         }
 
-        return dbType;
+        if (resolveCache.size() < RESOLVE_CACHE_LIMIT) {
+            resolveCache.put(dbTypeStr, profile);
+        }
+        return profile;
     }
 
     /**
@@ -0,0 +1,324 @@
+package com.lineage.core.dialect;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 方言自动识别
+ *
+ * 对 SQL 做一次词法扫描，按方言特征（反引号、INSERT OVERWRITE、TOP、:: 类型转换、
+ * NVL、LATERAL VIEW 等）给候选方言打分，输出试探解析的顺序；
+ * 调用方按顺序试探解析，第一个成功的方言即识别结果。
+ * Hive 与 Spark 共有的特征给两者同样的分数，同分时 Hive 在前；只有 Spark 独有的特征
+ * （CREATE TABLE ... USING 数据源格式、CACHE TABLE、BROADCAST 等 Spark 提示）使 Spark 排第一。
+ * 同时统计识别命中率和相对固定顺序试探节省的解析次数
+ */
+@Slf4j
+@Component
+public class DialectDetector {
+
+    /**
+     * 自动识别使用的 dbType
+     */
+    public static final String AUTO = "auto";
+
+    /**
+     * 无特征时的试探顺序（也是统计节省次数的基准）
+     */
+    static final List<String> DEFAULT_ORDER =
+            Collections.unmodifiableList(Arrays.asList("mysql", "hive", "postgresql", "oracle", "sqlserver"));
+
+    /**
+     * 参与打分的方言，下标即分数数组下标；只有命中特征的非默认方言才会加入候选
+     */
+    private static final String[] DIALECTS = {
+            "mysql", "hive", "postgresql", "oracle", "sqlserver", "spark", "trino", "clickhouse", "flink"
+    };
+
+    private static final int MYSQL = 0;
+    private static final int HIVE = 1;
+    private static final int POSTGRESQL = 2;
+    private static final int ORACLE = 3;
+    private static final int SQLSERVER = 4;
+    private static final int SPARK = 5;
+    private static final int TRINO = 6;
+    private static final int CLICKHOUSE = 7;
+    private static final int FLINK = 8;
+
+    /**
+     * CREATE TABLE ... USING 之后的 Spark 数据源格式
+     */
+    private static final Set<String> SPARK_FORMATS = new HashSet<>(Arrays.asList(
+            "PARQUET", "ORC", "DELTA", "ICEBERG", "HUDI", "CSV", "JSON", "AVRO", "TEXT", "JDBC"));
+
+    /**
+     * Spark 独有的查询提示名
+     */
+    private static final Set<String> SPARK_HINTS = new HashSet<>(Arrays.asList(
+            "BROADCAST", "BROADCASTJOIN", "SHUFFLE_HASH", "SHUFFLE_MERGE", "SHUFFLE_REPLICATE_NL",
+            "REPARTITION", "REPARTITION_BY_RANGE", "REBALANCE"));
+
+    private final LongAdder detections = new LongAdder();
+    private final LongAdder signalHits = new LongAdder();
+    private final LongAdder firstCandidateHits = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder parseAttempts = new LongAdder();
+    private final LongAdder parseAttemptsSaved = new LongAdder();
+
+    /**
+     * 判断 dbType 是否为自动识别
+     */
+    public static boolean isAuto(String dbType) {
+        return dbType != null && AUTO.equalsIgnoreCase(dbType.trim());
+    }
+
+    /**
+     * 按词法特征给出试探解析顺序
+     *
+     * @param sql SQL 语句
+     * @return 候选方言，可能性高的在前
+     */
+    public List<String> rank(String sql) {
+        int[] scores = score(sql);
+
+        List<Integer> order = new ArrayList<>(DIALECTS.length);
+        boolean signalled = false;
+        for (int i = 0; i < DIALECTS.length; i++) {
+            if (i < DEFAULT_ORDER.size() || scores[i] > 0) {
+                order.add(i);
+            }
+            signalled |= scores[i] > 0;
+        }
+        // 稳定排序：同分时保持默认顺序
+        order.sort((a, b) -> Integer.compare(scores[b], scores[a]));
+
+        if (signalled) {
+            signalHits.increment();
+        }
+        List<String> candidates = new ArrayList<>(order.size());
+        for (int i : order) {
+            candidates.add(DIALECTS[i]);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Dialect candidates: {}", candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * 记录一次识别成功
+     *
+     * @param dialect  解析成功的方言
+     * @param attempts 实际解析次数（含成功的一次）
+     */
+    public void recordSuccess(String dialect, int attempts) {
+        detections.increment();
+        parseAttempts.add(attempts);
+        if (attempts == 1) {
+            firstCandidateHits.increment();
+        }
+        int baseline = DEFAULT_ORDER.indexOf(dialect) + 1;
+        if (baseline == 0) {
+            baseline = DEFAULT_ORDER.size();
+        }
+        parseAttemptsSaved.add(baseline - attempts);
+    }
+
+    /**
+     * 记录一次识别失败（所有候选均无法解析）
+     *
+     * @param attempts 实际解析次数
+     */
+    public void recordFailure(int attempts) {
+        detections.increment();
+        failures.increment();
+        parseAttempts.add(attempts);
+        parseAttemptsSaved.add(DEFAULT_ORDER.size() - attempts);
+    }
+
+    /**
+     * 识别统计
+     *
+     * accuracy 为排名第一的候选即解析成功的比例；
+     * parseAttemptsSaved 为相对按默认顺序逐个试探所节省的解析次数
+     */
+    public Map<String, Object> getStats() {
+        long total = detections.sum();
+        long firstHits = firstCandidateHits.sum();
+        long attempts = parseAttempts.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("detections", total);
+        stats.put("signalHits", signalHits.sum());
+        stats.put("firstCandidateHits", firstHits);
+        stats.put("failures", failures.sum());
+        stats.put("accuracy", total == 0 ? 0.0 : (double) firstHits / total);
+        stats.put("parseAttempts", attempts);
+        stats.put("avgParseAttempts", total == 0 ? 0.0 : (double) attempts / total);
+        stats.put("parseAttemptsSaved", parseAttemptsSaved.sum());
+        return stats;
+    }
+
+    /**
+     * 单次扫描计算各方言得分，跳过字符串和注释
+     */
+    private int[] score(String sql) {
+        int[] scores = new int[DIALECTS.length];
+        int length = sql.length();
+        String previousWord = null;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+
+            if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                continue;
+            }
+            if (c == '`') {
+                scores[MYSQL] += 2;
+                scores[HIVE] += 2;
+                scores[SPARK] += 2;
+                scores[FLINK] += 1;
+                i = skipQuoted(sql, i, '`');
+                continue;
+            }
+            if (c == '"') {
+                i = skipQuoted(sql, i, '"');
+                continue;
+            }
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int newline = sql.indexOf('\n', i);
+                i = newline < 0 ? length : newline + 1;
+                continue;
+            }
+            if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int close = sql.indexOf("*/", i + 2);
+                int end = close < 0 ? length : close;
+                if (i + 2 < end && sql.charAt(i + 2) == '+') {
+                    scoreHint(scores, sql.substring(i + 3, end));
+                }
+                i = close < 0 ? length : close + 2;
+                continue;
+            }
+            if (c == ':' && i + 1 < length && sql.charAt(i + 1) == ':') {
+                scores[POSTGRESQL] += 4;
+                i += 2;
+                continue;
+            }
+
+            if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                    i++;
+                }
+                String word = sql.substring(start, i).toUpperCase(Locale.ROOT);
+                scoreWord(scores, previousWord, word);
+                previousWord = word;
+                continue;
+            }
+            // 相邻两词之间只允许空白，JOIN ... USING (json) 等不算作特征
+            if (!Character.isWhitespace(c)) {
+                previousWord = null;
+            }
+            i++;
+        }
+        return scores;
+    }
+
+    /**
+     * 查询提示中的 Spark 独有提示
+     */
+    private static void scoreHint(int[] scores, String hint) {
+        for (String name : hint.toUpperCase(Locale.ROOT).split("[^A-Z0-9_]+")) {
+            if (SPARK_HINTS.contains(name)) {
+                scores[SPARK] += 5;
+                return;
+            }
+        }
+    }
+
+    private static void scoreWord(int[] scores, String previousWord, String word) {
+        switch (word) {
+            case "OVERWRITE":
+                if ("INSERT".equals(previousWord)) {
+                    scores[SPARK] += 4;
+                    scores[HIVE] += 4;
+                }
+                break;
+            case "VIEW":
+                if ("LATERAL".equals(previousWord)) {
+                    scores[SPARK] += 4;
+                    scores[HIVE] += 4;
+                }
+                break;
+            case "TABLE":
+            case "LAZY":
+                if ("CACHE".equals(previousWord)) {
+                    scores[SPARK] += 5;
+                }
+                break;
+            case "UNCACHE":
+                scores[SPARK] += 5;
+                break;
+            case "TOP":
+                if ("SELECT".equals(previousWord) || "DISTINCT".equals(previousWord)) {
+                    scores[SQLSERVER] += 4;
+                }
+                break;
+            case "NVL":
+            case "NVL2":
+            case "ROWNUM":
+            case "DECODE":
+                scores[ORACLE] += 3;
+                break;
+            case "ILIKE":
+                scores[POSTGRESQL] += 3;
+                break;
+            case "JOIN":
+                if ("ARRAY".equals(previousWord)) {
+                    scores[CLICKHOUSE] += 5;
+                }
+                break;
+            case "UNNEST":
+                scores[TRINO] += 2;
+                scores[POSTGRESQL] += 1;
+                break;
+            case "TUMBLE":
+            case "HOP":
+                scores[FLINK] += 4;
+                break;
+            default:
+                if ("USING".equals(previousWord) && SPARK_FORMATS.contains(word)) {
+                    scores[SPARK] += 5;
+                }
+                break;
+        }
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+}
@@ -0,0 +1,78 @@
+package com.lineage.core.dialect;
+
+import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.parser.SQLParserFeature;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * 方言解析配置
+ *
+ * 每种方言预先计算好解析特性，避免每次解析时重新组装：
+ * 血缘分析跳过注释、保留位置信息，并把长 AND/OR 链合并为一个节点以降低递归深度；
+ * 格式化保留注释，与 SQLUtils.format 的默认行为一致。
+ * Druid 不支持的方言语法可以通过预处理改写为等价的可解析形式（仅用于血缘分析）
+ */
+@Getter
+public class DialectProfile {
+
+    /**
+     * 方言名称（对外使用的 dbType）
+     */
+    private final String name;
+
+    /**
+     * Druid 数据库类型
+     */
+    private final DbType dbType;
+
+    /**
+     * 血缘分析使用的解析特性（调用方不应修改）
+     */
+    private final SQLParserFeature[] lineageFeatures;
+
+    /**
+     * 格式化使用的解析特性（调用方不应修改）
+     */
+    private final SQLParserFeature[] formatFeatures;
+
+    /**
+     * 血缘分析前的 SQL 预处理，null 表示不处理
+     */
+    @Getter(AccessLevel.NONE)
+    private final UnaryOperator<String> preprocessor;
+
+    public DialectProfile(String name, DbType dbType, SQLParserFeature... dialectFeatures) {
+        this(name, dbType, null, dialectFeatures);
+    }
+
+    public DialectProfile(String name, DbType dbType, UnaryOperator<String> preprocessor,
+                          SQLParserFeature... dialectFeatures) {
+        this.name = name;
+        this.dbType = dbType;
+        this.preprocessor = preprocessor;
+        this.lineageFeatures = concat(dialectFeatures,
+                SQLParserFeature.SkipComments,
+                SQLParserFeature.KeepSourceLocation,
+                SQLParserFeature.EnableSQLBinaryOpExprGroup);
+        this.formatFeatures = concat(dialectFeatures,
+                SQLParserFeature.KeepComments,
+                SQLParserFeature.EnableSQLBinaryOpExprGroup);
+    }
+
+    /**
+     * 血缘分析前预处理 SQL
+     */
+    public String preprocess(String sql) {
+        return preprocessor == null ? sql : preprocessor.apply(sql);
+    }
+
+    private static SQLParserFeature[] concat(SQLParserFeature[] dialectFeatures, SQLParserFeature... common) {
+        SQLParserFeature[] features = new SQLParserFeature[dialectFeatures.length + common.length];
+        System.arraycopy(common, 0, features, 0, common.length);
+        System.arraycopy(dialectFeatures, 0, features, common.length, dialectFeatures.length);
+        return features;
+    }
+}
@@ -1,65 +1,292 @@
 package com.lineage.core.tracker;
 
+import com.alibaba.druid.sql.ast.SQLObject;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * 字段依赖关系
+ *
+ * 标识符通过所属分析的 {@link SymbolTable} 驻留，来源字段以符号编号保存，
+ * 表达式和无别名计算字段的目标名在首次读取时才从 AST 渲染；对外 JSON 结构保持不变
  */
 @Data
 public class FieldDependency {
-    
+
     /**
      * 目标字段名
      */
     private String targetField;
-    
+
+    /**
+     * 无别名计算字段的 AST 节点，首次读取 targetField 时渲染并释放
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private SQLObject targetFieldNode;
+
     /**
      * 目标字段别名
      */
     private String targetAlias;
-    
+
     /**
      * 来源表名
      */
     private String sourceTable;
-    
+
     /**
      * 来源表别名
      */
     private String sourceTableAlias;
-    
+
     /**
-     * 来源字段列表
+     * 来源字段编号（按首次出现顺序）
      */
-    private List<String> sourceFields;
-    
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final IntArraySet sourceFieldIds = new IntArraySet();
+
+    /**
+     * 符号表（同一次分析的依赖共享）
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private SymbolTable symbols;
+
     /**
      * 表达式（如果是计算字段）
      */
     private String expression;
-    
+
+    /**
+     * 表达式 AST 节点，首次读取 expression 时渲染并释放
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private SQLObject expressionNode;
+
     /**
      * 是否为聚合函数
      */
     private boolean isAggregation;
-    
+
+    /**
+     * 转换类型
+     */
+    private TransformationType transformationType;
+
+    /**
+     * 其他 UNION 分支的来源（与主来源表不同的分支，按出现顺序）
+     */
+    private List<FieldSource> unionSources;
+
+    /**
+     * 来源表 -> 附加来源，合并分支时避免扫描 unionSources
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private Map<String, FieldSource> unionSourceIndex;
+
     public FieldDependency() {
-        this.sourceFields = new ArrayList<>();
     }
-    
+
     public FieldDependency(String targetField) {
         this();
-        this.targetField = targetField;
+        setTargetField(targetField);
+    }
+
+    public FieldDependency(SymbolTable symbols) {
+        this.symbols = symbols;
     }
-    
+
     /**
      * 添加来源字段
      */
     public void addSourceField(String field) {
-        if (field != null && !sourceFields.contains(field)) {
-            sourceFields.add(field);
+        if (field != null) {
+            sourceFieldIds.add(symbols().intern(field));
+        }
+    }
+
+    /**
+     * 来源字段列表（符号编号的只读视图）
+     */
+    @ToString.Include
+    @EqualsAndHashCode.Include
+    public List<String> getSourceFields() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return symbols.symbol(sourceFieldIds.get(index));
+            }
+
+            @Override
+            public int size() {
+                return sourceFieldIds.size();
+            }
+        };
+    }
+
+    /**
+     * 替换来源字段列表（用于 JSON 反序列化）
+     */
+    public void setSourceFields(List<String> fields) {
+        sourceFieldIds.clear();
+        if (fields != null) {
+            for (String field : fields) {
+                addSourceField(field);
+            }
+        }
+    }
+
+    /**
+     * 获取表达式文本，必要时从 AST 渲染
+     */
+    public String getExpression() {
+        if (expression == null && expressionNode != null) {
+            expression = expressionNode.toString();
+            expressionNode = null;
+        }
+        return expression;
+    }
+
+    /**
+     * 合并子表达式的转换类型（保留优先级更高者）
+     */
+    public void mergeTransformationType(TransformationType type) {
+        this.transformationType = transformationType == null ? type : transformationType.merge(type);
+    }
+
+    /**
+     * 合并同一输出位置上另一个 UNION 分支的依赖
+     *
+     * 目标字段沿用第一个分支；来源表相同则并入主来源，否则记为附加来源
+     */
+    public void mergeUnionBranch(FieldDependency branch) {
+        addBranchSource(branch.getSourceTable(), branch.getSourceTableAlias(), branch.getSourceFields());
+        if (branch.getUnionSources() != null) {
+            for (FieldSource nested : branch.getUnionSources()) {
+                addBranchSource(nested.getSourceTable(), nested.getSourceTableAlias(), nested.getSourceFields());
+            }
+        }
+
+        isAggregation |= branch.isAggregation();
+        if (branch.getTransformationType() != null) {
+            mergeTransformationType(branch.getTransformationType());
+        }
+        if (!hasExpression() && branch.hasExpression()) {
+            if (branch.getExpressionNode() != null) {
+                expressionNode = branch.getExpressionNode();
+            } else {
+                expression = branch.getExpression();
+            }
+        }
+    }
+
+    /**
+     * 复制依赖但不带表达式（共享同一符号表）
+     */
+    FieldDependency copyWithoutExpression() {
+        FieldDependency copy = new FieldDependency(symbols());
+        copy.targetField = getTargetField();
+        copy.targetAlias = targetAlias;
+        copy.sourceTable = sourceTable;
+        copy.sourceTableAlias = sourceTableAlias;
+        for (int i = 0; i < sourceFieldIds.size(); i++) {
+            copy.sourceFieldIds.add(sourceFieldIds.get(i));
+        }
+        copy.isAggregation = isAggregation;
+        copy.transformationType = transformationType;
+        copy.unionSources = unionSources;
+        return copy;
+    }
+
+    private void addBranchSource(String table, String alias, List<String> fields) {
+        if (Objects.equals(table, sourceTable)) {
+            for (String field : fields) {
+                addSourceField(field);
+            }
+            return;
+        }
+
+        if (unionSources == null) {
+            unionSources = new ArrayList<>();
+        }
+        if (unionSourceIndex == null) {
+            unionSourceIndex = new HashMap<>();
+            for (FieldSource existing : unionSources) {
+                unionSourceIndex.put(existing.getSourceTable(), existing);
+            }
+        }
+        FieldSource source = unionSourceIndex.get(table);
+        if (source == null) {
+            source = new FieldSource(symbols(), table, alias);
+            unionSources.add(source);
+            unionSourceIndex.put(source.getSourceTable(), source);
+        }
+        for (String field : fields) {
+            source.addSourceField(field);
+        }
+    }
+
+    /**
+     * 获取目标字段名，必要时从 AST 渲染
+     */
+    public String getTargetField() {
+        if (targetField == null && targetFieldNode != null) {
+            targetField = symbols().canonical(targetFieldNode.toString());
+            targetFieldNode = null;
+        }
+        return targetField;
+    }
+
+    /**
+     * 是否带有表达式（不触发渲染）
+     */
+    public boolean hasExpression() {
+        return expression != null || expressionNode != null;
+    }
+
+    public void setTargetField(String targetField) {
+        this.targetField = symbols().canonical(targetField);
+        this.targetFieldNode = null;
+    }
+
+    public void setTargetAlias(String targetAlias) {
+        this.targetAlias = symbols().canonical(targetAlias);
+    }
+
+    public void setSourceTable(String sourceTable) {
+        this.sourceTable = symbols().canonical(sourceTable);
+    }
+
+    public void setSourceTableAlias(String sourceTableAlias) {
+        this.sourceTableAlias = symbols().canonical(sourceTableAlias);
+    }
+
+    private SymbolTable symbols() {
+        if (symbols == null) {
+            symbols = new SymbolTable();
         }
+        return symbols;
     }
 }
@@ -1,7 +1,7 @@
 package com.lineage.core.tracker;
 
+import com.alibaba.druid.sql.ast.SQLObject;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -9,10 +9,9 @@ import java.util.Map;
 /**
  * 字段依赖追踪器
  * 
- * 负责管理字段别名和依赖关系
+ * 负责管理字段别名和依赖关系；持有单次分析的状态，每次分析新建实例
  */
 @Slf4j
-@Component
 public class FieldDependencyTracker {
     
     /**
@@ -20,6 +19,11 @@ public class FieldDependencyTracker {
      */
     private Map<String, String> fieldAliasMap;
     
+    /**
+     * 尚未渲染的字段别名表达式 (alias -> AST 节点)，解析时才转为文本
+     */
+    private Map<String, SQLObject> pendingFieldAliasMap;
+    
     /**
      * 表别名映射 (alias -> original table)
      */
@@ -27,6 +31,7 @@ public class FieldDependencyTracker {
     
     public FieldDependencyTracker() {
         this.fieldAliasMap = new HashMap<>();
+        this.pendingFieldAliasMap = new HashMap<>();
         this.tableAliasMap = new HashMap<>();
     }
     
@@ -35,11 +40,25 @@ public class FieldDependencyTracker {
      */
     public void registerFieldAlias(String alias, String originalField) {
         if (alias != null && originalField != null) {
-            fieldAliasMap.put(alias.toLowerCase(), originalField);
+            String key = alias.toLowerCase();
+            fieldAliasMap.put(key, originalField);
+            pendingFieldAliasMap.remove(key);
             log.debug("Registered field alias: {} -> {}", alias, originalField);
         }
     }
     
+    /**
+     * 注册字段别名（原始表达式延迟渲染）
+     */
+    public void registerFieldAlias(String alias, SQLObject originalExpr) {
+        if (alias != null && originalExpr != null) {
+            String key = alias.toLowerCase();
+            fieldAliasMap.remove(key);
+            pendingFieldAliasMap.put(key, originalExpr);
+            log.debug("Registered field alias: {}", alias);
+        }
+    }
+    
     /**
      * 注册表别名
      */
@@ -57,7 +76,12 @@ public class FieldDependencyTracker {
         if (alias == null) {
             return null;
         }
-        return fieldAliasMap.getOrDefault(alias.toLowerCase(), alias);
+        String key = alias.toLowerCase();
+        SQLObject pending = pendingFieldAliasMap.remove(key);
+        if (pending != null) {
+            fieldAliasMap.put(key, pending.toString());
+        }
+        return fieldAliasMap.getOrDefault(key, alias);
     }
     
     /**
@@ -75,6 +99,7 @@ public class FieldDependencyTracker {
      */
     public void clear() {
         fieldAliasMap.clear();
+        pendingFieldAliasMap.clear();
         tableAliasMap.clear();
         log.debug("Tracker cleared");
     }
@@ -0,0 +1,109 @@
+package com.lineage.core.tracker;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * 字段的附加来源
+ *
+ * 用于 UNION 合并后同一输出列来自多个分支表的情况；来源字段与 {@link FieldDependency}
+ * 一样以符号编号保存，去重为常数时间
+ */
+@Data
+public class FieldSource {
+
+    /**
+     * 来源表名
+     */
+    private String sourceTable;
+
+    /**
+     * 来源表别名
+     */
+    private String sourceTableAlias;
+
+    /**
+     * 来源字段编号（按首次出现顺序）
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final IntArraySet sourceFieldIds = new IntArraySet();
+
+    /**
+     * 符号表（与所属依赖共享）
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private SymbolTable symbols;
+
+    public FieldSource() {
+    }
+
+    public FieldSource(String sourceTable, String sourceTableAlias) {
+        this.sourceTable = sourceTable;
+        this.sourceTableAlias = sourceTableAlias;
+    }
+
+    FieldSource(SymbolTable symbols, String sourceTable, String sourceTableAlias) {
+        this.symbols = symbols;
+        this.sourceTable = symbols.canonical(sourceTable);
+        this.sourceTableAlias = symbols.canonical(sourceTableAlias);
+    }
+
+    /**
+     * 添加来源字段（去重）
+     */
+    public void addSourceField(String field) {
+        if (field != null) {
+            sourceFieldIds.add(symbols().intern(field));
+        }
+    }
+
+    /**
+     * 来源字段列表（符号编号的只读视图）
+     */
+    @ToString.Include
+    @EqualsAndHashCode.Include
+    public List<String> getSourceFields() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return symbols.symbol(sourceFieldIds.get(index));
+            }
+
+            @Override
+            public int size() {
+                return sourceFieldIds.size();
+            }
+        };
+    }
+
+    /**
+     * 替换来源字段列表（用于 JSON 反序列化）
+     */
+    public void setSourceFields(List<String> fields) {
+        sourceFieldIds.clear();
+        if (fields != null) {
+            for (String field : fields) {
+                addSourceField(field);
+            }
+        }
+    }
+
+    private SymbolTable symbols() {
+        if (symbols == null) {
+            symbols = new SymbolTable();
+        }
+        return symbols;
+    }
+}
@@ -0,0 +1,125 @@
+package com.lineage.core.tracker;
+
+import java.util.Arrays;
+
+/**
+ * 基于 int 数组的有序去重集合
+ *
+ * 按插入顺序保存符号编号。元素较少时线性查重；
+ * 超过阈值后建立开放寻址索引，避免宽表达式下 List.contains 的 O(n²) 查重
+ */
+public class IntArraySet {
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * 线性查重的元素上限，超过后建立哈希索引
+     */
+    private static final int LINEAR_SCAN_LIMIT = 8;
+
+    private int[] elements = EMPTY;
+
+    private int size;
+
+    /**
+     * 开放寻址索引，槽位存放 元素+1，0 表示空槽
+     */
+    private int[] slots;
+
+    /**
+     * 添加元素
+     *
+     * @return true 如果元素之前不存在
+     */
+    public boolean add(int value) {
+        if (contains(value)) {
+            return false;
+        }
+
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(4, size << 1));
+        }
+        elements[size++] = value;
+
+        if (slots != null) {
+            if (size * 2 > slots.length) {
+                rehash(slots.length << 1);
+            } else {
+                insertSlot(slots, value);
+            }
+        } else if (size > LINEAR_SCAN_LIMIT) {
+            rehash(Integer.highestOneBit(size) << 2);
+        }
+        return true;
+    }
+
+    /**
+     * 是否包含元素
+     */
+    public boolean contains(int value) {
+        if (slots == null) {
+            for (int i = 0; i < size; i++) {
+                if (elements[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int mask = slots.length - 1;
+        int slot = mix(value) & mask;
+        while (slots[slot] != 0) {
+            if (slots[slot] == value + 1) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * 按插入顺序获取元素
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return elements[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        elements = EMPTY;
+        slots = null;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] newSlots = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            insertSlot(newSlots, elements[i]);
+        }
+        slots = newSlots;
+    }
+
+    private static void insertSlot(int[] table, int value) {
+        int mask = table.length - 1;
+        int slot = mix(value) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value + 1;
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,6 +1,10 @@
 package com.lineage.core.tracker;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +34,11 @@ public class LineageResult {
      */
     private List<FieldDependency> fieldDependencies;
     
+    /**
+     * 间接依赖列表（WHERE / JOIN ON / GROUP BY / HAVING 引用的字段）
+     */
+    private List<FieldDependency> indirectDependencies;
+    
     /**
      * 是否成功
      */
@@ -40,9 +49,18 @@ public class LineageResult {
      */
     private String errorMessage;
     
+    /**
+     * 本次分析的符号表（字段依赖共享）
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final transient SymbolTable symbolTable = new SymbolTable();
+    
     public LineageResult() {
         this.tables = new ArrayList<>();
         this.fieldDependencies = new ArrayList<>();
+        this.indirectDependencies = new ArrayList<>();
         this.success = true;
     }
     
@@ -55,6 +73,13 @@ public class LineageResult {
         }
     }
     
+    /**
+     * 创建共享本次分析符号表的字段依赖
+     */
+    public FieldDependency newFieldDependency() {
+        return new FieldDependency(symbolTable);
+    }
+    
     /**
      * 添加字段依赖
      */
@@ -64,6 +89,47 @@ public class LineageResult {
         }
     }
     
+    /**
+     * 添加间接依赖
+     */
+    public void addIndirectDependency(FieldDependency dependency) {
+        if (dependency != null) {
+            indirectDependencies.add(dependency);
+        }
+    }
+    
+    /**
+     * 渲染所有延迟的目标字段和表达式，释放 AST 引用（用于缓存或跨线程共享）
+     */
+    public void materialize() {
+        for (FieldDependency dependency : fieldDependencies) {
+            dependency.getTargetField();
+            dependency.getExpression();
+        }
+        for (FieldDependency dependency : indirectDependencies) {
+            dependency.getExpression();
+        }
+    }
+    
+    /**
+     * 复制一份不含表达式的结果（尚未渲染的不再渲染），原结果不受影响
+     */
+    public LineageResult withoutExpressions() {
+        LineageResult copy = new LineageResult();
+        copy.setSql(sql);
+        copy.setDbType(dbType);
+        copy.setSuccess(success);
+        copy.setErrorMessage(errorMessage);
+        copy.getTables().addAll(tables);
+        for (FieldDependency dependency : fieldDependencies) {
+            copy.addFieldDependency(dependency.copyWithoutExpression());
+        }
+        for (FieldDependency dependency : indirectDependencies) {
+            copy.addIndirectDependency(dependency.copyWithoutExpression());
+        }
+        return copy;
+    }
+    
     /**
      * 设置错误
      */
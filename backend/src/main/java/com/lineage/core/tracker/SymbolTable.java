@@ -0,0 +1,81 @@
+package com.lineage.core.tracker;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 标识符符号表
+ *
+ * 单次分析内共享，将表名、字段名等标识符驻留为 int 编号，
+ * 同名标识符在整个结果中只保留一份字符串实例
+ */
+public class SymbolTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 标识符 -> 编号
+     */
+    private final Map<String, Integer> index;
+
+    /**
+     * 编号 -> 标识符
+     */
+    private String[] symbols;
+
+    private int size;
+
+    public SymbolTable() {
+        this.index = new HashMap<>();
+        this.symbols = new String[INITIAL_CAPACITY];
+    }
+
+    /**
+     * 驻留标识符并返回编号
+     *
+     * @param name 标识符，不能为 null
+     * @return 符号编号（从 0 开始）
+     */
+    public int intern(String name) {
+        Integer id = index.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size << 1);
+        }
+        symbols[size] = name;
+        index.put(name, size);
+        return size++;
+    }
+
+    /**
+     * 返回标识符的规范实例（同名标识符共享同一个 String 对象）
+     */
+    public String canonical(String name) {
+        if (name == null) {
+            return null;
+        }
+        int id = intern(name);
+        return symbols[id];
+    }
+
+    /**
+     * 根据编号获取标识符
+     */
+    public String symbol(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown symbol id: " + id);
+        }
+        return symbols[id];
+    }
+
+    /**
+     * 已驻留的标识符数量
+     */
+    public int size() {
+        return size;
+    }
+}
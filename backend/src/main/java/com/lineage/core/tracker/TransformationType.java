@@ -0,0 +1,100 @@
+package com.lineage.core.tracker;
+
+/**
+ * 血缘边的转换类型
+ *
+ * 声明顺序即优先级：同一字段的子表达式命中更高优先级的类型时会覆盖外层分类
+ * （例如 SUM(a) + 1 归为 AGGREGATE）
+ */
+public enum TransformationType {
+
+    /**
+     * 直接引用
+     */
+    DIRECT("直接映射", 1),
+
+    /**
+     * 重命名
+     */
+    RENAME("重命名", 1),
+
+    /**
+     * 常量（无来源字段）
+     */
+    CONSTANT("常量", 1),
+
+    /**
+     * 类型转换
+     */
+    CAST("类型转换", 2),
+
+    /**
+     * 算术/二元运算
+     */
+    ARITHMETIC("算术运算", 2),
+
+    /**
+     * 普通函数
+     */
+    FUNCTION("函数", 2),
+
+    /**
+     * CASE 表达式
+     */
+    CASE("条件表达式", 2),
+
+    /**
+     * 聚合函数
+     */
+    AGGREGATE("聚合函数", 3),
+
+    /**
+     * 窗口函数
+     */
+    WINDOW("窗口函数", 3),
+
+    /**
+     * 分组键（GROUP BY）
+     */
+    GROUP_BY("分组键", 1),
+
+    /**
+     * 仅用于过滤（WHERE/HAVING）
+     */
+    FILTER("过滤条件", 1),
+
+    /**
+     * 连接键（JOIN ON）
+     */
+    JOIN_KEY("连接键", 1);
+
+    private final String description;
+
+    private final int dependencyLevel;
+
+    TransformationType(String description, int dependencyLevel) {
+        this.description = description;
+        this.dependencyLevel = dependencyLevel;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 依赖层级（用于导出展示）
+     */
+    public int getDependencyLevel() {
+        return dependencyLevel;
+    }
+
+    /**
+     * 与子表达式的分类合并，保留优先级更高者
+     */
+    public TransformationType merge(TransformationType other) {
+        if (other == null || other.ordinal() <= this.ordinal()) {
+            return this;
+        }
+        return other;
+    }
+}
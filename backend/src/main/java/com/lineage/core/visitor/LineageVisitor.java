@@ -1,32 +1,150 @@
 package com.lineage.core.visitor;
 
 import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.SQLName;
+import com.alibaba.druid.sql.ast.SQLObject;
 import com.alibaba.druid.sql.ast.expr.*;
 import com.alibaba.druid.sql.ast.statement.*;
 import com.alibaba.druid.sql.visitor.SQLASTVisitorAdapter;
 import com.lineage.core.tracker.FieldDependency;
 import com.lineage.core.tracker.FieldDependencyTracker;
 import com.lineage.core.tracker.LineageResult;
+import com.lineage.core.tracker.TransformationType;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * SQL AST 访问者
  * 
- * 遍历 SQL AST 提取字段血缘关系
+ * 遍历 SQL AST 提取字段血缘关系；开启间接血缘时，在同一次遍历中
+ * 把 WHERE / JOIN ON / GROUP BY / HAVING 引用的字段记录为间接依赖
  */
 @Slf4j
 public class LineageVisitor extends SQLASTVisitorAdapter {
     
+    /**
+     * 截止时间检查间隔（节点数，2 的幂）
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+    
     private final LineageResult result;
     private final FieldDependencyTracker tracker;
     
+    /**
+     * 是否采集间接血缘
+     */
+    private final boolean captureIndirect;
+    
+    /**
+     * 查询最大嵌套深度，0 表示不限制
+     */
+    private int maxQueryDepth;
+    
+    /**
+     * 当前查询嵌套深度
+     */
+    private int queryDepth;
+    
+    /**
+     * 分析截止时间（System.nanoTime），0 表示不限
+     */
+    private long deadlineNanos;
+    
+    /**
+     * 已访问节点数，每 {@link #DEADLINE_CHECK_INTERVAL} 个节点检查一次截止时间
+     */
+    private int visitedNodes;
+    
     private FieldDependency currentDependency;
     private String currentTableName;
     private String currentTableAlias;
     
+    /**
+     * 当前采集的间接依赖类型，null 表示正在处理直接血缘
+     */
+    private TransformationType indirectType;
+    
+    /**
+     * 当前条件子句的 AST 节点（作为间接依赖的表达式）
+     */
+    private SQLObject indirectNode;
+    
+    /**
+     * 当前子句内按来源表归并的间接依赖
+     */
+    private Map<String, FieldDependency> indirectEdges;
+    
+    /**
+     * 当前查询块的 LATERAL VIEW / UNNEST 生成列（小写列名 -> 生成表达式），首次注册时创建
+     */
+    private Map<String, SQLExpr> generatedColumns = Collections.emptyMap();
+    
+    /**
+     * 当前查询块的 LATERAL VIEW / UNNEST 生成表别名（小写），首次注册时创建
+     */
+    private Set<String> generatedTableAliases = Collections.emptySet();
+    
     public LineageVisitor(LineageResult result, FieldDependencyTracker tracker) {
+        this(result, tracker, false);
+    }
+    
+    public LineageVisitor(LineageResult result, FieldDependencyTracker tracker, boolean captureIndirect) {
         this.result = result;
         this.tracker = tracker;
+        this.captureIndirect = captureIndirect;
+    }
+    
+    /**
+     * 设置查询块最大嵌套深度（子查询层数，UNION 分支不计入），超过时终止分析
+     */
+    public void setMaxQueryDepth(int maxQueryDepth) {
+        this.maxQueryDepth = maxQueryDepth;
+    }
+    
+    /**
+     * 设置分析截止时间（System.nanoTime），超过后或线程被中断时终止遍历；0 表示不限
+     */
+    public void setDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+    
+    @Override
+    public void preVisit(SQLObject x) {
+        if ((++visitedNodes & (DEADLINE_CHECK_INTERVAL - 1)) == 0) {
+            checkDeadline(deadlineNanos);
+        }
+        if (x instanceof SQLSelectQueryBlock && ++queryDepth > maxQueryDepth && maxQueryDepth > 0) {
+            throw new IllegalStateException("Query nesting depth exceeds limit " + maxQueryDepth);
+        }
+    }
+    
+    /**
+     * 超时或被取消时抛出异常，使 future.cancel 之后工作线程尽快释放
+     *
+     * @param deadlineNanos 截止时间（System.nanoTime），0 表示不限
+     */
+    public static void checkDeadline(long deadlineNanos) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new IllegalStateException("Analysis cancelled");
+        }
+        if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) {
+            throw new IllegalStateException("Analysis deadline exceeded");
+        }
+    }
+    
+    @Override
+    public void postVisit(SQLObject x) {
+        if (x instanceof SQLSelectQueryBlock) {
+            queryDepth--;
+        }
     }
     
     /**
@@ -45,6 +163,27 @@ public class LineageVisitor extends SQLASTVisitorAdapter {
     public boolean visit(SQLSelectQueryBlock x) {
         log.debug("Visiting SELECT query block");
         
+        // 生成列只在声明它的查询块内可见，子查询和 UNION 其他分支的同名真实列不受影响
+        Map<String, SQLExpr> outerColumns = generatedColumns;
+        Set<String> outerAliases = generatedTableAliases;
+        generatedColumns = Collections.emptyMap();
+        generatedTableAliases = Collections.emptySet();
+        try {
+            visitQueryBlock(x);
+        } finally {
+            generatedColumns = outerColumns;
+            generatedTableAliases = outerAliases;
+        }
+        return false; // 不再递归访问子节点
+    }
+    
+    private void visitQueryBlock(SQLSelectQueryBlock x) {
+        if (indirectType != null) {
+            // 条件中的子查询（IN / EXISTS 等）：其字段均作为间接依赖
+            visitConditionSubquery(x);
+            return;
+        }
+        
         // 1. 先处理 FROM 子句（表信息）
         SQLTableSource from = x.getFrom();
         if (from != null) {
@@ -56,32 +195,98 @@ public class LineageVisitor extends SQLASTVisitorAdapter {
             item.accept(this);
         }
         
-        return false; // 不再递归访问子节点
+        // 3. 间接血缘：WHERE / GROUP BY / HAVING
+        if (captureIndirect) {
+            captureIndirect(x.getWhere(), x.getWhere(), TransformationType.FILTER);
+            
+            SQLSelectGroupByClause groupBy = x.getGroupBy();
+            if (groupBy != null) {
+                captureIndirect(groupBy.getItems(), groupBy, TransformationType.GROUP_BY);
+                captureIndirect(groupBy.getHaving(), groupBy.getHaving(), TransformationType.FILTER);
+            }
+        }
     }
     
     /**
      * 访问 UNION 查询
      * 例如: SELECT id FROM users UNION SELECT id FROM customers
+     *
+     * 各分支按输出列位置合并：目标字段取第一个分支，其余分支的来源并入同一依赖
      */
     @Override
     public boolean visit(SQLUnionQuery x) {
         log.debug("Visiting UNION query");
         
-        // UNION 会合并多个查询的结果
-        // 递归访问所有查询分支
-        SQLSelectQuery left = x.getLeft();
-        if (left != null) {
-            left.accept(this);
+        if (indirectType != null) {
+            // 条件中的 UNION 子查询：各分支字段直接记为间接依赖
+            for (SQLSelectQuery relation : x.getRelations()) {
+                relation.accept(this);
+            }
+            return false;
         }
         
-        SQLSelectQuery right = x.getRight();
-        if (right != null) {
-            right.accept(this);
+        List<FieldDependency> dependencies = result.getFieldDependencies();
+        int start = dependencies.size();
+        FieldDependency[] merged = null;
+        Map<String, FieldDependency> mergedIndirect = new HashMap<>();
+        
+        for (SQLSelectQuery relation : x.getRelations()) {
+            int branchStart = dependencies.size();
+            int indirectStart = result.getIndirectDependencies().size();
+            relation.accept(this);
+            mergeUnionIndirect(mergedIndirect, indirectStart);
+            int branchSize = dependencies.size() - branchStart;
+            
+            if (merged == null) {
+                // 第一个分支决定输出列
+                merged = new FieldDependency[branchSize];
+                for (int i = 0; i < branchSize; i++) {
+                    merged[i] = dependencies.get(branchStart + i);
+                }
+                continue;
+            }
+            
+            int width = Math.min(branchSize, merged.length);
+            for (int i = 0; i < width; i++) {
+                merged[i].mergeUnionBranch(dependencies.get(branchStart + i));
+            }
+            // 从尾部截断，避免 ArrayList 中间删除的搬移
+            dependencies.subList(branchStart, dependencies.size()).clear();
+        }
+        
+        if (merged != null && log.isDebugEnabled()) {
+            log.debug("Merged UNION into {} output columns starting at {}", merged.length, start);
         }
         
         return false;
     }
     
+    /**
+     * 把 UNION 分支新增的间接依赖并入之前分支中（来源表, 目标字段, 类型）相同的依赖，
+     * 避免同一过滤或分组字段按分支数重复出现
+     */
+    private void mergeUnionIndirect(Map<String, FieldDependency> merged, int branchStart) {
+        List<FieldDependency> indirect = result.getIndirectDependencies();
+        Map<String, FieldDependency> branch = new HashMap<>();
+        int kept = branchStart;
+        for (int i = branchStart; i < indirect.size(); i++) {
+            FieldDependency dependency = indirect.get(i);
+            String key = dependency.getSourceTable() + "|" + dependency.getTargetField()
+                    + "|" + dependency.getTransformationType();
+            FieldDependency existing = merged.get(key);
+            if (existing != null) {
+                for (String field : dependency.getSourceFields()) {
+                    existing.addSourceField(field);
+                }
+                continue;
+            }
+            branch.putIfAbsent(key, dependency);
+            indirect.set(kept++, dependency);
+        }
+        indirect.subList(kept, indirect.size()).clear();
+        merged.putAll(branch);
+    }
+    
     /**
      * 访问表引用
      */
@@ -126,9 +331,50 @@ public class LineageVisitor extends SQLASTVisitorAdapter {
             right.accept(this);
         }
         
-        // ON 条件不影响字段血缘，只是连接条件
-        // 如果需要分析 ON 条件中的字段关系，可以在这里处理
+        // ON / USING 条件不影响直接血缘，作为连接键记录为间接依赖
+        if (captureIndirect) {
+            captureIndirect(x.getCondition(), x.getCondition(), TransformationType.JOIN_KEY);
+            if (!x.getUsing().isEmpty()) {
+                captureIndirect(x.getUsing(), x, TransformationType.JOIN_KEY);
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * 访问 LATERAL VIEW（Hive / Spark）
+     * 例如: FROM t LATERAL VIEW explode(t.items) v AS item
+     */
+    @Override
+    public boolean visit(SQLLateralViewTableSource x) {
+        SQLTableSource base = x.getTableSource();
+        if (base != null) {
+            base.accept(this);
+        }
+        
+        registerGeneratedTable(x.getAlias());
+        for (SQLName column : x.getColumns()) {
+            registerGeneratedColumn(column.getSimpleName(), x.getMethod());
+        }
+        return false;
+    }
+    
+    /**
+     * 访问 UNNEST（Presto / Trino，ClickHouse ARRAY JOIN 改写后同样走这里）
+     * 例如: CROSS JOIN UNNEST(o.items) AS u (item)
+     *
+     * 生成列按位置对应 UNNEST 参数；单参数展开为多列（如 ROW 数组）时各列都来自该参数
+     */
+    @Override
+    public boolean visit(SQLUnnestTableSource x) {
+        List<SQLExpr> items = x.getItems();
+        registerGeneratedTable(x.getAlias());
         
+        List<SQLName> columns = x.getColumns();
+        for (int i = 0; i < columns.size() && !items.isEmpty(); i++) {
+            registerGeneratedColumn(columns.get(i).getSimpleName(), items.get(Math.min(i, items.size() - 1)));
+        }
         return false;
     }
     
@@ -184,13 +430,13 @@ public class LineageVisitor extends SQLASTVisitorAdapter {
         SQLExpr expr = x.getExpr();
         String alias = x.getAlias();
         
-        currentDependency = new FieldDependency();
+        currentDependency = result.newFieldDependency();
         
         // 设置目标字段名和别名
         if (alias != null) {
             currentDependency.setTargetAlias(alias);
             currentDependency.setTargetField(alias);
-            tracker.registerFieldAlias(alias, expr.toString());
+            tracker.registerFieldAlias(alias, expr);
         } else if (expr instanceof SQLIdentifierExpr) {
             String fieldName = ((SQLIdentifierExpr) expr).getName();
             currentDependency.setTargetField(fieldName);
@@ -200,7 +446,15 @@ public class LineageVisitor extends SQLASTVisitorAdapter {
         } else if (expr instanceof SQLAllColumnExpr) {
             currentDependency.setTargetField("*");
         } else {
-            currentDependency.setTargetField(expr.toString());
+            // 计算字段的目标名延迟到读取时渲染，避免遍历期间重复格式化子树
+            currentDependency.setTargetFieldNode(expr);
+        }
+        
+        // 按顶层表达式分类，子表达式中的聚合/窗口函数在遍历时提升分类
+        TransformationType type = classify(expr, alias);
+        currentDependency.setTransformationType(type);
+        if (type != TransformationType.DIRECT && type != TransformationType.RENAME) {
+            currentDependency.setExpressionNode(expr);
         }
         
         // 访问表达式提取来源字段
@@ -215,7 +469,9 @@ public class LineageVisitor extends SQLASTVisitorAdapter {
         }
         
         result.addFieldDependency(currentDependency);
-        log.debug("Added field dependency: {}", currentDependency.getTargetField());
+        if (log.isDebugEnabled()) {
+            log.debug("Added field dependency: {}", currentDependency.getTargetField());
+        }
         
         return false;
     }
@@ -226,7 +482,12 @@ public class LineageVisitor extends SQLASTVisitorAdapter {
     @Override
     public boolean visit(SQLIdentifierExpr x) {
         String fieldName = x.getName();
-        if (currentDependency != null) {
+        if (resolveGenerated(fieldName)) {
+            return false;
+        }
+        if (indirectType != null) {
+            addIndirectSource(currentTableName, currentTableAlias, fieldName);
+        } else if (currentDependency != null) {
             currentDependency.addSourceField(fieldName);
             log.debug("Found source field: {}", fieldName);
         }
@@ -241,7 +502,14 @@ public class LineageVisitor extends SQLASTVisitorAdapter {
         String tableName = x.getOwnernName();
         String fieldName = x.getName();
         
-        if (currentDependency != null) {
+        if (tableName != null && generatedTableAliases.contains(tableName.toLowerCase(Locale.ROOT))
+                && resolveGenerated(fieldName)) {
+            return false;
+        }
+        
+        if (indirectType != null) {
+            addIndirectSource(tracker.resolveTableAlias(tableName), tableName, fieldName);
+        } else if (currentDependency != null) {
             currentDependency.addSourceField(fieldName);
             
             // 解析表别名
@@ -262,7 +530,12 @@ public class LineageVisitor extends SQLASTVisitorAdapter {
     public boolean visit(SQLAggregateExpr x) {
         if (currentDependency != null) {
             currentDependency.setAggregation(true);
-            currentDependency.setExpression(x.toString());
+            currentDependency.mergeTransformationType(
+                    x.getOver() != null ? TransformationType.WINDOW : TransformationType.AGGREGATE);
+            // 嵌套聚合只保留最外层表达式，文本在读取时才渲染
+            if (!currentDependency.hasExpression()) {
+                currentDependency.setExpressionNode(x);
+            }
             
             // 检查是否为窗口函数
             if (x.getOver() != null) {
@@ -305,4 +578,171 @@ public class LineageVisitor extends SQLASTVisitorAdapter {
         }
         return false;
     }
+    
+    private void registerGeneratedTable(String alias) {
+        if (alias != null) {
+            if (generatedTableAliases.isEmpty()) {
+                generatedTableAliases = new HashSet<>();
+            }
+            generatedTableAliases.add(alias.toLowerCase(Locale.ROOT));
+        }
+    }
+    
+    private void registerGeneratedColumn(String column, SQLExpr source) {
+        if (column != null && source != null) {
+            if (generatedColumns.isEmpty()) {
+                generatedColumns = new HashMap<>();
+            }
+            generatedColumns.put(column.toLowerCase(Locale.ROOT), source);
+            log.debug("Registered generated column: {}", column);
+        }
+    }
+    
+    /**
+     * 引用生成列时改为访问其生成表达式，来源字段落到被展开的原始列上
+     *
+     * @return 是否为生成列
+     */
+    private boolean resolveGenerated(String fieldName) {
+        if (generatedColumns.isEmpty() || fieldName == null) {
+            return false;
+        }
+        String key = fieldName.toLowerCase(Locale.ROOT);
+        SQLExpr source = generatedColumns.get(key);
+        if (source == null) {
+            return false;
+        }
+        
+        if (indirectType == null && currentDependency != null) {
+            currentDependency.mergeTransformationType(TransformationType.FUNCTION);
+            if (!currentDependency.hasExpression()) {
+                currentDependency.setExpressionNode(source);
+            }
+        }
+        
+        // 暂时移除，避免 ARRAY JOIN arr 这类同名展开时递归
+        generatedColumns.remove(key);
+        try {
+            source.accept(this);
+        } finally {
+            generatedColumns.put(key, source);
+        }
+        return true;
+    }
+    
+    /**
+     * 采集条件表达式中的间接依赖
+     *
+     * @param condition 条件表达式
+     * @param node      作为依赖表达式的子句节点
+     * @param type      间接依赖类型
+     */
+    private void captureIndirect(SQLExpr condition, SQLObject node, TransformationType type) {
+        if (condition != null) {
+            captureIndirect(Collections.singletonList(condition), node, type);
+        }
+    }
+    
+    private void captureIndirect(List<? extends SQLObject> conditions, SQLObject node, TransformationType type) {
+        if (conditions == null || conditions.isEmpty()) {
+            return;
+        }
+        
+        TransformationType previousType = indirectType;
+        SQLObject previousNode = indirectNode;
+        Map<String, FieldDependency> previousEdges = indirectEdges;
+        FieldDependency previousDependency = currentDependency;
+        
+        indirectType = type;
+        indirectNode = node;
+        indirectEdges = new LinkedHashMap<>();
+        currentDependency = null;
+        try {
+            for (SQLObject condition : conditions) {
+                condition.accept(this);
+            }
+        } finally {
+            indirectType = previousType;
+            indirectNode = previousNode;
+            indirectEdges = previousEdges;
+            currentDependency = previousDependency;
+        }
+    }
+    
+    /**
+     * 记录一个间接来源字段，同一子句内同一来源表的字段归并为一条依赖
+     */
+    private void addIndirectSource(String tableName, String tableAlias, String fieldName) {
+        String key = tableName == null ? "" : tableName;
+        FieldDependency edge = indirectEdges.get(key);
+        if (edge == null) {
+            edge = result.newFieldDependency();
+            edge.setTargetField("*");
+            edge.setSourceTable(tableName);
+            edge.setSourceTableAlias(tableAlias);
+            edge.setTransformationType(indirectType);
+            edge.setExpressionNode(indirectNode);
+            indirectEdges.put(key, edge);
+            result.addIndirectDependency(edge);
+        }
+        edge.addSourceField(fieldName);
+        log.debug("Found indirect {} field: {}.{}", indirectType, tableAlias, fieldName);
+    }
+    
+    /**
+     * 访问条件中的子查询，保持外层的当前表不变
+     */
+    private void visitConditionSubquery(SQLSelectQueryBlock x) {
+        String outerTableName = currentTableName;
+        String outerTableAlias = currentTableAlias;
+        
+        if (x.getFrom() != null) {
+            x.getFrom().accept(this);
+        }
+        for (SQLSelectItem item : x.getSelectList()) {
+            if (item.getExpr() != null) {
+                item.getExpr().accept(this);
+            }
+        }
+        if (x.getWhere() != null) {
+            x.getWhere().accept(this);
+        }
+        if (x.getGroupBy() != null) {
+            x.getGroupBy().accept(this);
+        }
+        
+        currentTableName = outerTableName;
+        currentTableAlias = outerTableAlias;
+    }
+    
+    /**
+     * 根据顶层表达式确定转换类型
+     */
+    private TransformationType classify(SQLExpr expr, String alias) {
+        if (expr instanceof SQLIdentifierExpr || expr instanceof SQLPropertyExpr) {
+            String name = expr instanceof SQLIdentifierExpr
+                    ? ((SQLIdentifierExpr) expr).getName()
+                    : ((SQLPropertyExpr) expr).getName();
+            return alias == null || alias.equalsIgnoreCase(name)
+                    ? TransformationType.DIRECT
+                    : TransformationType.RENAME;
+        }
+        if (expr instanceof SQLAllColumnExpr) {
+            return TransformationType.DIRECT;
+        }
+        if (expr instanceof SQLCastExpr) {
+            return TransformationType.CAST;
+        }
+        if (expr instanceof SQLCaseExpr) {
+            return TransformationType.CASE;
+        }
+        if (expr instanceof SQLBinaryOpExpr || expr instanceof SQLBinaryOpExprGroup
+                || expr instanceof SQLUnaryExpr) {
+            return TransformationType.ARITHMETIC;
+        }
+        if (expr instanceof SQLLiteralExpr) {
+            return TransformationType.CONSTANT;
+        }
+        return TransformationType.FUNCTION;
+    }
 }
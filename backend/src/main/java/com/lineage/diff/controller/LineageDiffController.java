@@ -0,0 +1,92 @@
+package com.lineage.diff.controller;
+
+import com.lineage.diff.dto.LineageDiffResult;
+import com.lineage.diff.dto.SqlDiffRequest;
+import com.lineage.diff.service.LineageDiffService;
+import com.lineage.dto.response.ApiResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.annotation.Resource;
+import javax.validation.Valid;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 血缘差异控制器
+ *
+ * failOnImpact=true 且变更影响已有下游字段时返回 409（响应体仍带差异明细），供 CI 直接判定失败
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/lineage/diff")
+@Validated
+public class LineageDiffController {
+
+    @Resource
+    private LineageDiffService lineageDiffService;
+
+    /**
+     * 比较两个版本 SQL 的字段级血缘
+     */
+    @PostMapping("/sql")
+    public ResponseEntity<ApiResponse<LineageDiffResult>> diffSql(
+            @Valid @RequestBody SqlDiffRequest request,
+            @RequestParam(defaultValue = "false") boolean failOnImpact) {
+        log.info("比较SQL血缘: dbType={}, targetTable={}", request.getDbType(), request.getTargetTable());
+        return respond(() -> lineageDiffService.diffSql(request.getBaseSql(), request.getHeadSql(),
+                request.getDbType(), request.getTargetTable()), failOnImpact);
+    }
+
+    /**
+     * 比较两个已上传的 Kettle 文件版本
+     *
+     * @param baseId 旧版本文件记录ID
+     * @param headId 新版本文件记录ID
+     */
+    @GetMapping("/kettle")
+    public ResponseEntity<ApiResponse<LineageDiffResult>> diffKettleFiles(
+            @RequestParam Long baseId,
+            @RequestParam Long headId,
+            @RequestParam(defaultValue = "false") boolean failOnImpact) {
+        log.info("比较Kettle文件血缘: baseId={}, headId={}", baseId, headId);
+        return respond(() -> lineageDiffService.diffKettleFiles(baseId, headId), failOnImpact);
+    }
+
+    /**
+     * 比较同名 Kettle 文件最近两个版本
+     */
+    @GetMapping("/kettle/latest")
+    public ResponseEntity<ApiResponse<LineageDiffResult>> diffKettleLatest(
+            @RequestParam String fileName,
+            @RequestParam(defaultValue = "false") boolean failOnImpact) {
+        log.info("比较Kettle文件最近两个版本: fileName={}", fileName);
+        return respond(() -> lineageDiffService.diffKettleLatest(fileName), failOnImpact);
+    }
+
+    private ResponseEntity<ApiResponse<LineageDiffResult>> respond(Callable<LineageDiffResult> diff,
+                                                                   boolean failOnImpact) {
+        try {
+            LineageDiffResult result = diff.call();
+            if (failOnImpact && result.isImpactful()) {
+                ApiResponse<LineageDiffResult> response = ApiResponse.error(409,
+                        "血缘变更影响下游字段: " + result.getImpactedNodes().size() + "个");
+                response.setData(result);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+            return ResponseEntity.ok(ApiResponse.success(result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.ok(ApiResponse.error(400, e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Analysis queue is full, rejecting diff request");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ApiResponse.error(429, "Too many analysis requests, please retry later"));
+        } catch (Exception e) {
+            log.error("比较血缘失败", e);
+            return ResponseEntity.ok(ApiResponse.error(500, "比较失败: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.lineage.diff.dto;
+
+import com.lineage.core.tracker.TransformationType;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 两个版本之间的字段级血缘差异
+ *
+ * 边按（来源节点, 目标节点）比较，转换类型不同记为变更；各列表均按来源、目标节点排序
+ */
+@Data
+public class LineageDiffResult {
+
+    /**
+     * 新版本新增的边
+     */
+    private List<EdgeChange> added = new ArrayList<>();
+
+    /**
+     * 新版本删除的边
+     */
+    private List<EdgeChange> removed = new ArrayList<>();
+
+    /**
+     * 转换类型变化的边
+     */
+    private List<EdgeChange> changed = new ArrayList<>();
+
+    /**
+     * 未变化的边数
+     */
+    private int unchangedCount;
+
+    /**
+     * 受影响的已有目标节点（删除或变更的边，以及已有目标上新增的边），新增的目标字段不计入
+     */
+    private List<String> impactedNodes = new ArrayList<>();
+
+    /**
+     * 是否影响已有下游字段
+     */
+    private boolean impactful;
+
+    /**
+     * 比较耗时（毫秒，不含 SQL 分析和文件解析）
+     */
+    private long elapsedMillis;
+
+    /**
+     * 单条边的差异
+     */
+    @Data
+    public static class EdgeChange {
+
+        /**
+         * 来源节点（表名.字段名）
+         */
+        private String sourceNode;
+
+        /**
+         * 目标节点（表名.字段名，未指定目标表时为字段名；间接血缘的字段名为 *）
+         */
+        private String targetNode;
+
+        /**
+         * 旧版本的转换类型（新增时为空）
+         */
+        private TransformationType baseType;
+
+        /**
+         * 新版本的转换类型（删除时为空）
+         */
+        private TransformationType headType;
+    }
+}
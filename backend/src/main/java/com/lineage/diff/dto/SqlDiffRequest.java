@@ -0,0 +1,34 @@
+package com.lineage.diff.dto;
+
+import lombok.Data;
+import javax.validation.constraints.NotBlank;
+
+/**
+ * 比较两个版本 SQL 血缘的请求
+ */
+@Data
+public class SqlDiffRequest {
+
+    /**
+     * 旧版本 SQL
+     */
+    @NotBlank(message = "Base SQL cannot be blank")
+    private String baseSql;
+
+    /**
+     * 新版本 SQL
+     */
+    @NotBlank(message = "Head SQL cannot be blank")
+    private String headSql;
+
+    /**
+     * 数据库类型，auto 表示自动识别
+     */
+    @NotBlank(message = "Database type cannot be blank")
+    private String dbType;
+
+    /**
+     * 查询结果写入的目标表，为空时目标节点只取字段名
+     */
+    private String targetTable;
+}
@@ -0,0 +1,293 @@
+package com.lineage.diff.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lineage.core.tracker.FieldDependency;
+import com.lineage.core.tracker.FieldSource;
+import com.lineage.core.tracker.LineageResult;
+import com.lineage.core.tracker.TransformationType;
+import com.lineage.diff.dto.LineageDiffResult;
+import com.lineage.kettle.entity.KettleFileRecord;
+import com.lineage.kettle.mapper.KettleFileRecordMapper;
+import com.lineage.kettle.model.KettleFieldLineage;
+import com.lineage.kettle.model.KettleTransformation;
+import com.lineage.kettle.service.KettleService;
+import com.lineage.service.LineageAnalysisService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 血缘差异服务
+ *
+ * 两个版本各自展开为（来源节点, 目标节点, 转换类型）边，排序去重后一次归并得出
+ * 新增、删除和变更，复杂度 O(n log n)，结果顺序稳定，便于在 CI 中比对。
+ * 间接血缘（WHERE/JOIN ON/GROUP BY 等）作用于整个目标，展开为指向“目标表.*”的边，
+ * 以 FILTER/JOIN_KEY/GROUP_BY 区分
+ */
+@Slf4j
+@Service
+public class LineageDiffService {
+
+    private static final String WILDCARD = "*";
+
+    @Resource
+    private LineageAnalysisService analysisService;
+
+    @Resource
+    private KettleService kettleService;
+
+    @Resource
+    private KettleFileRecordMapper kettleFileRecordMapper;
+
+    /**
+     * 分析并比较两个版本的 SQL
+     *
+     * @param targetTable 查询结果写入的目标表，可为空
+     */
+    public LineageDiffResult diffSql(String baseSql, String headSql, String dbType, String targetTable) {
+        LineageResult base = analysisService.analyze(baseSql, dbType);
+        if (!base.isSuccess()) {
+            throw new IllegalArgumentException("旧版本 SQL 分析失败: " + base.getErrorMessage());
+        }
+        LineageResult head = analysisService.analyze(headSql, dbType);
+        if (!head.isSuccess()) {
+            throw new IllegalArgumentException("新版本 SQL 分析失败: " + head.getErrorMessage());
+        }
+        return diff(base, head, targetTable);
+    }
+
+    /**
+     * 比较两个血缘分析结果
+     */
+    public LineageDiffResult diff(LineageResult base, LineageResult head, String targetTable) {
+        return diff(edges(base, targetTable), edges(head, targetTable));
+    }
+
+    /**
+     * 比较两个已上传的 Kettle 文件版本（字段级血缘），内容相同时只解析一次，全部边计为未变化
+     */
+    public LineageDiffResult diffKettleFiles(Long baseId, Long headId) throws Exception {
+        KettleFileRecord base = requireRecord(baseId);
+        KettleFileRecord head = requireRecord(headId);
+        if (Objects.equals(base.getContentHash(), head.getContentHash()) && base.getContentHash() != null) {
+            LineageDiffResult result = new LineageDiffResult();
+            result.setUnchangedCount(edges(fieldLineage(head)).size());
+            return result;
+        }
+        return diff(edges(fieldLineage(base)), edges(fieldLineage(head)));
+    }
+
+    /**
+     * 比较同名 Kettle 文件最近两次解析成功的版本
+     */
+    public LineageDiffResult diffKettleLatest(String fileName) throws Exception {
+        if (StringUtils.isBlank(fileName)) {
+            throw new IllegalArgumentException("文件名不能为空");
+        }
+        List<KettleFileRecord> versions = kettleFileRecordMapper.selectList(new LambdaQueryWrapper<KettleFileRecord>()
+                .eq(KettleFileRecord::getFileName, fileName)
+                .eq(KettleFileRecord::getParseStatus, "success")
+                .orderByDesc(KettleFileRecord::getId)
+                .last("LIMIT 2"));
+        if (versions.size() < 2) {
+            throw new IllegalArgumentException("文件不足两个版本: " + fileName);
+        }
+        return diffKettleFiles(versions.get(1).getId(), versions.get(0).getId());
+    }
+
+    /**
+     * 归并两个有序边列表
+     */
+    private LineageDiffResult diff(List<Edge> base, List<Edge> head) {
+        long start = System.nanoTime();
+        LineageDiffResult result = new LineageDiffResult();
+
+        int i = 0;
+        int j = 0;
+        while (i < base.size() || j < head.size()) {
+            int cmp = i == base.size() ? 1 : j == head.size() ? -1 : base.get(i).compareTo(head.get(j));
+            if (cmp < 0) {
+                result.getRemoved().add(change(base.get(i), base.get(i).type, null));
+                i++;
+            } else if (cmp > 0) {
+                result.getAdded().add(change(head.get(j), null, head.get(j).type));
+                j++;
+            } else {
+                if (base.get(i).type != head.get(j).type) {
+                    result.getChanged().add(change(base.get(i), base.get(i).type, head.get(j).type));
+                } else {
+                    result.setUnchangedCount(result.getUnchangedCount() + 1);
+                }
+                i++;
+                j++;
+            }
+        }
+
+        // 新增的边只有落在已有目标上才影响下游
+        Set<String> baseTargets = new HashSet<>();
+        for (Edge edge : base) {
+            baseTargets.add(edge.target);
+        }
+        Set<String> impacted = new TreeSet<>();
+        for (LineageDiffResult.EdgeChange change : result.getRemoved()) {
+            impacted.add(change.getTargetNode());
+        }
+        for (LineageDiffResult.EdgeChange change : result.getChanged()) {
+            impacted.add(change.getTargetNode());
+        }
+        for (LineageDiffResult.EdgeChange change : result.getAdded()) {
+            if (baseTargets.contains(change.getTargetNode())) {
+                impacted.add(change.getTargetNode());
+            }
+        }
+        result.setImpactedNodes(new ArrayList<>(impacted));
+        result.setImpactful(!impacted.isEmpty());
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+
+        log.debug("血缘差异: base={}, head={}, added={}, removed={}, changed={}", base.size(), head.size(),
+                result.getAdded().size(), result.getRemoved().size(), result.getChanged().size());
+        return result;
+    }
+
+    private KettleFileRecord requireRecord(Long id) {
+        KettleFileRecord record = id == null ? null : kettleFileRecordMapper.selectById(id);
+        if (record == null) {
+            throw new IllegalArgumentException("文件记录不存在: " + id);
+        }
+        if (!"success".equals(record.getParseStatus())) {
+            throw new IllegalArgumentException("文件未解析成功: " + id);
+        }
+        return record;
+    }
+
+    private List<KettleFieldLineage> fieldLineage(KettleFileRecord record) throws Exception {
+        File file = new File(record.getFilePath());
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("文件内容已不存在: " + record.getId());
+        }
+        KettleTransformation transformation = kettleService.parseKettleFile(file);
+        return kettleService.extractFieldLineage(transformation);
+    }
+
+    /**
+     * SQL 血缘展开为边：来源字段（含 UNION 其余分支）-> 目标字段，间接来源字段 -> 目标表.*
+     */
+    private static List<Edge> edges(LineageResult result, String targetTable) {
+        List<Edge> edges = new ArrayList<>();
+        String prefix = StringUtils.isBlank(targetTable) ? "" : normalize(targetTable) + ".";
+        for (FieldDependency dependency : result.getFieldDependencies()) {
+            String targetField = dependency.getTargetField();
+            if (targetField == null || WILDCARD.equals(targetField)) {
+                continue;
+            }
+            String target = prefix + normalize(targetField);
+            addEdges(edges, dependency.getSourceTable(), dependency.getSourceFields(),
+                    target, dependency.getTransformationType());
+            if (dependency.getUnionSources() != null) {
+                for (FieldSource source : dependency.getUnionSources()) {
+                    addEdges(edges, source.getSourceTable(), source.getSourceFields(),
+                            target, dependency.getTransformationType());
+                }
+            }
+        }
+        if (result.getIndirectDependencies() != null) {
+            for (FieldDependency dependency : result.getIndirectDependencies()) {
+                addEdges(edges, dependency.getSourceTable(), dependency.getSourceFields(),
+                        prefix + WILDCARD, dependency.getTransformationType());
+            }
+        }
+        return sorted(edges);
+    }
+
+    /**
+     * Kettle 字段级血缘展开为边（来源字段已带表名）
+     */
+    private static List<Edge> edges(List<KettleFieldLineage> lineages) {
+        List<Edge> edges = new ArrayList<>();
+        for (KettleFieldLineage lineage : lineages) {
+            if (lineage.getTargetTable() == null || lineage.getTargetField() == null) {
+                continue;
+            }
+            String target = normalize(lineage.getTargetTable()) + "." + normalize(lineage.getTargetField());
+            for (String source : lineage.getSourceFields()) {
+                edges.add(new Edge(normalize(source), target, lineage.getTransformationType()));
+            }
+        }
+        return sorted(edges);
+    }
+
+    private static void addEdges(List<Edge> edges, String sourceTable, List<String> sourceFields,
+                                 String target, TransformationType type) {
+        if (sourceTable == null || sourceFields == null) {
+            return;
+        }
+        for (String field : sourceFields) {
+            if (!WILDCARD.equals(field)) {
+                edges.add(new Edge(normalize(sourceTable) + "." + normalize(field), target, type));
+            }
+        }
+    }
+
+    /**
+     * 排序并合并重复边（保留优先级更高的转换类型）
+     */
+    private static List<Edge> sorted(List<Edge> edges) {
+        Collections.sort(edges);
+        List<Edge> unique = new ArrayList<>(edges.size());
+        for (Edge edge : edges) {
+            Edge last = unique.isEmpty() ? null : unique.get(unique.size() - 1);
+            if (last != null && last.compareTo(edge) == 0) {
+                last.type = last.type.merge(edge.type);
+            } else {
+                unique.add(edge);
+            }
+        }
+        return unique;
+    }
+
+    private static LineageDiffResult.EdgeChange change(Edge edge, TransformationType baseType,
+                                                       TransformationType headType) {
+        LineageDiffResult.EdgeChange change = new LineageDiffResult.EdgeChange();
+        change.setSourceNode(edge.source);
+        change.setTargetNode(edge.target);
+        change.setBaseType(baseType);
+        change.setHeadType(headType);
+        return change;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 血缘边，按来源、目标节点排序
+     */
+    private static final class Edge implements Comparable<Edge> {
+        private final String source;
+        private final String target;
+        private TransformationType type;
+
+        private Edge(String source, String target, TransformationType type) {
+            this.source = source;
+            this.target = target;
+            this.type = type == null ? TransformationType.DIRECT : type;
+        }
+
+        @Override
+        public int compareTo(Edge other) {
+            int cmp = source.compareTo(other.source);
+            return cmp != 0 ? cmp : target.compareTo(other.target);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.alibaba.excel.annotation.ExcelProperty;
 import com.alibaba.excel.annotation.write.style.ColumnWidth;
 import com.alibaba.excel.annotation.write.style.HeadFontStyle;
 import com.alibaba.excel.annotation.write.style.HeadStyle;
+import com.alibaba.excel.enums.BooleanEnum;
 import lombok.Data;
 
 /**
@@ -11,7 +12,7 @@ import lombok.Data;
  */
 @Data
 @HeadStyle(fillForegroundColor = 22)
-@HeadFontStyle(bold = true, fontHeightInPoints = 11)
+@HeadFontStyle(bold = BooleanEnum.TRUE, fontHeightInPoints = 11)
 public class LineageExcelRow {
     
     @ExcelProperty(value = "序号", index = 0)
@@ -16,8 +16,18 @@ public class AnalyzeRequest {
     private String sql;
     
     /**
-     * 数据库类型 (mysql, hive, postgresql等)
+     * 数据库类型 (mysql, hive, postgresql等)，auto 表示自动识别
      */
     @NotBlank(message = "Database type cannot be blank")
     private String dbType;
+    
+    /**
+     * 是否返回表达式文本（默认返回；关闭时不渲染表达式）
+     */
+    private Boolean includeExpressions;
+    
+    /**
+     * 是否采集间接血缘（默认按 lineage.parser.capture-indirect 配置）
+     */
+    private Boolean includeIndirect;
 }
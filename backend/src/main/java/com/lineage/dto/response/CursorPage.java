@@ -0,0 +1,33 @@
+package com.lineage.dto.response;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 键集分页结果
+ */
+@Data
+public class CursorPage<T> {
+
+    /**
+     * 当前页记录
+     */
+    private List<T> records = new ArrayList<>();
+
+    /**
+     * 每页条数
+     */
+    private int size;
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+
+    /**
+     * 下一页游标（传给下次请求的 cursor 参数），没有下一页时为空
+     */
+    private String nextCursor;
+}
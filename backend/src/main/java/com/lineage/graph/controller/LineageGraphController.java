@@ -0,0 +1,114 @@
+package com.lineage.graph.controller;
+
+import com.lineage.core.tracker.LineageResult;
+import com.lineage.dto.response.ApiResponse;
+import com.lineage.graph.dto.LineageTraversalResult;
+import com.lineage.graph.dto.ReachabilityResult;
+import com.lineage.graph.dto.SaveLineageRequest;
+import com.lineage.graph.model.TraversalDirection;
+import com.lineage.graph.service.LineageGraphService;
+import com.lineage.graph.service.ReachabilityIndexService;
+import com.lineage.graph.service.ReanalysisQueueService;
+import com.lineage.service.LineageAnalysisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.annotation.Resource;
+import javax.validation.Valid;
+import java.util.Map;
+
+/**
+ * 血缘图控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/lineage/graph")
+@Validated
+public class LineageGraphController {
+
+    @Resource
+    private LineageGraphService lineageGraphService;
+
+    @Resource
+    private LineageAnalysisService analysisService;
+
+    @Resource
+    private ReachabilityIndexService reachabilityIndexService;
+
+    @Resource
+    private ReanalysisQueueService reanalysisQueueService;
+
+    /**
+     * 分析 SQL 并保存血缘边
+     */
+    @PostMapping("/edges")
+    public ApiResponse<Integer> saveLineage(@Valid @RequestBody SaveLineageRequest request) {
+        log.info("保存血缘边: targetTable={}, sourceRef={}", request.getTargetTable(), request.getSourceRef());
+        LineageResult result = analysisService.analyze(request.getSql(), request.getDbType());
+        if (!result.isSuccess()) {
+            return ApiResponse.error(400, result.getErrorMessage());
+        }
+        int count = lineageGraphService.saveLineage(request.getTargetTable(), result, request.getSourceRef());
+        return ApiResponse.success("保存血缘边成功", count);
+    }
+
+    /**
+     * 下游影响分析
+     *
+     * @param node  起始节点（表名.字段名）
+     * @param depth 最大跳数，默认取配置上限
+     */
+    @GetMapping("/downstream")
+    public ApiResponse<LineageTraversalResult> downstream(
+            @RequestParam String node,
+            @RequestParam(defaultValue = "0") int depth) {
+        return ApiResponse.success(lineageGraphService.downstream(node, depth));
+    }
+
+    /**
+     * 上游溯源分析
+     *
+     * @param node  起始节点（表名.字段名）
+     * @param depth 最大跳数，默认取配置上限
+     */
+    @GetMapping("/upstream")
+    public ApiResponse<LineageTraversalResult> upstream(
+            @RequestParam String node,
+            @RequestParam(defaultValue = "0") int depth) {
+        return ApiResponse.success(lineageGraphService.upstream(node, depth));
+    }
+
+    /**
+     * 全部可达节点（不限跳数），可达性索引就绪时直接查索引
+     *
+     * @param node      起始节点（表名.字段名）
+     * @param direction DOWNSTREAM / UPSTREAM
+     */
+    @GetMapping("/reachable")
+    public ApiResponse<ReachabilityResult> reachable(
+            @RequestParam String node,
+            @RequestParam(defaultValue = "DOWNSTREAM") TraversalDirection direction) {
+        return ApiResponse.success(lineageGraphService.reachable(node, direction));
+    }
+
+    /**
+     * 提交可达性索引后台重建
+     */
+    @PostMapping("/index/rebuild")
+    public ApiResponse<Void> rebuildIndex() {
+        if (!reachabilityIndexService.isEnabled()) {
+            return ApiResponse.error(400, "可达性索引未启用");
+        }
+        reachabilityIndexService.scheduleRebuild();
+        return ApiResponse.success("已提交可达性索引重建", null);
+    }
+
+    /**
+     * 重新分析队列各状态的任务数
+     */
+    @GetMapping("/reanalysis/stats")
+    public ApiResponse<Map<String, Long>> reanalysisStats() {
+        return ApiResponse.success(reanalysisQueueService.stats());
+    }
+}
@@ -0,0 +1,67 @@
+package com.lineage.graph.dto;
+
+import com.lineage.graph.entity.LineageEdge;
+import com.lineage.graph.model.TraversalDirection;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 血缘遍历结果
+ */
+@Data
+public class LineageTraversalResult {
+    
+    /**
+     * 起始节点
+     */
+    private String startNode;
+    
+    /**
+     * 遍历方向
+     */
+    private TraversalDirection direction;
+    
+    /**
+     * 生效的最大跳数
+     */
+    private int maxDepth;
+    
+    /**
+     * 实际到达的最大跳数
+     */
+    private int depthReached;
+    
+    /**
+     * 节点 -> 首次到达的跳数（起始节点为 0）
+     */
+    private Map<String, Integer> nodes = new LinkedHashMap<>();
+    
+    /**
+     * 遍历经过的边（仅含来源/目标节点）
+     */
+    private List<LineageEdge> edges = new ArrayList<>();
+    
+    /**
+     * 指向已访问节点的边数（环路或汇合路径），这些节点不再重复展开
+     */
+    private int revisitedEdgeCount;
+    
+    /**
+     * 是否存在回到起始节点的环路
+     */
+    private boolean cycleDetected;
+    
+    /**
+     * 是否因节点数上限而提前终止
+     */
+    private boolean truncated;
+    
+    /**
+     * 执行的查询次数
+     */
+    private int queryCount;
+}
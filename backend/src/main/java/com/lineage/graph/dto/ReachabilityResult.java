@@ -0,0 +1,38 @@
+package com.lineage.graph.dto;
+
+import com.lineage.graph.model.TraversalDirection;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 可达节点查询结果（不限跳数）
+ */
+@Data
+public class ReachabilityResult {
+    
+    /**
+     * 起始节点
+     */
+    private String node;
+    
+    /**
+     * 查询方向
+     */
+    private TraversalDirection direction;
+    
+    /**
+     * 可达节点（不含起始节点）
+     */
+    private List<String> nodes;
+    
+    /**
+     * 是否由可达性索引直接给出（false 表示回退为逐跳遍历）
+     */
+    private boolean indexed;
+    
+    /**
+     * 查询耗时（毫秒）
+     */
+    private long elapsedMillis;
+}
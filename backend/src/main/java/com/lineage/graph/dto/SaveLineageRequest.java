@@ -0,0 +1,34 @@
+package com.lineage.graph.dto;
+
+import lombok.Data;
+import javax.validation.constraints.NotBlank;
+
+/**
+ * 分析 SQL 并保存血缘边的请求
+ */
+@Data
+public class SaveLineageRequest {
+    
+    /**
+     * SQL语句（SELECT）
+     */
+    @NotBlank(message = "SQL cannot be blank")
+    private String sql;
+    
+    /**
+     * 数据库类型
+     */
+    @NotBlank(message = "Database type cannot be blank")
+    private String dbType;
+    
+    /**
+     * 查询结果写入的目标表
+     */
+    @NotBlank(message = "Target table cannot be blank")
+    private String targetTable;
+    
+    /**
+     * 血缘出处，相同出处的边整体替换；为空时按目标表
+     */
+    private String sourceRef;
+}
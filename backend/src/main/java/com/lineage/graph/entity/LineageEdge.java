@@ -0,0 +1,44 @@
+package com.lineage.graph.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 字段级血缘边
+ *
+ * 边按出处（source_ref）整体替换，不做逻辑删除，遍历查询只走组合索引
+ */
+@Data
+@TableName("lineage_edge")
+public class LineageEdge {
+    
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 来源节点（表名.字段名）
+     */
+    private String sourceNode;
+    
+    /**
+     * 目标节点（表名.字段名）
+     */
+    private String targetNode;
+    
+    /**
+     * 转换类型（TransformationType 名称）
+     */
+    private String edgeType;
+    
+    /**
+     * 血缘出处
+     */
+    private String sourceRef;
+    
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
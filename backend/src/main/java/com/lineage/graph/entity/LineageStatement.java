@@ -0,0 +1,50 @@
+package com.lineage.graph.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 血缘语句
+ *
+ * 保存写入血缘边的 SQL（每个出处一条），元数据变化后据此重新分析
+ */
+@Data
+@TableName("lineage_statement")
+public class LineageStatement {
+    
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 血缘出处
+     */
+    private String sourceRef;
+    
+    /**
+     * 查询结果写入的目标表
+     */
+    private String targetTable;
+    
+    /**
+     * SQL语句
+     */
+    private String sqlText;
+    
+    /**
+     * 数据库类型
+     */
+    private String dbType;
+    
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+    
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
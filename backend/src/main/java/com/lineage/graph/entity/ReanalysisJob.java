@@ -0,0 +1,60 @@
+package com.lineage.graph.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 重新分析任务
+ *
+ * 执行成功后删除；失败超过重试次数时保留为 failed
+ */
+@Data
+@TableName("reanalysis_job")
+public class ReanalysisJob {
+    
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 血缘出处（kettle:文件名 或 SQL 出处）
+     */
+    private String sourceRef;
+    
+    /**
+     * 待执行时等于 sourceRef，领取后置空（唯一索引合并重复任务）
+     */
+    private String pendingRef;
+    
+    /**
+     * 状态（pending/running/failed）
+     */
+    private String status;
+    
+    /**
+     * 触发原因
+     */
+    private String reason;
+    
+    /**
+     * 已执行次数
+     */
+    private Integer attempts;
+    
+    /**
+     * 错误信息
+     */
+    private String errorMessage;
+    
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+    
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,161 @@
+package com.lineage.graph.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存中的字段血缘图（CSR 邻接表）
+ *
+ * 节点名映射为连续整数，出边/入边各用一对 offset + target 数组保存，
+ * 作为可达性索引的构建输入，也用于与索引对比的内存 BFS
+ */
+public final class ColumnGraph {
+
+    private final Map<String, Integer> ids;
+    private final String[] names;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inTargets;
+
+    private ColumnGraph(Map<String, Integer> ids, String[] names, int[] sources, int[] targets, int edgeCount) {
+        this.ids = ids;
+        this.names = names;
+        this.outOffsets = new int[names.length + 1];
+        this.outTargets = new int[edgeCount];
+        this.inOffsets = new int[names.length + 1];
+        this.inTargets = new int[edgeCount];
+        fill(sources, targets, edgeCount, outOffsets, outTargets);
+        fill(targets, sources, edgeCount, inOffsets, inTargets);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int nodeCount() {
+        return names.length;
+    }
+
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * 节点编号，不存在时返回 -1
+     */
+    public int id(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    int outDegree(int node) {
+        return outOffsets[node + 1] - outOffsets[node];
+    }
+
+    int outTarget(int node, int i) {
+        return outTargets[outOffsets[node] + i];
+    }
+
+    int inDegree(int node) {
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+    int inTarget(int node, int i) {
+        return inTargets[inOffsets[node] + i];
+    }
+
+    /**
+     * 广度优先求全部下游/上游节点（不含起点）
+     */
+    public List<String> bfs(String start, boolean downstream) {
+        int startId = id(start);
+        List<String> reached = new ArrayList<>();
+        if (startId < 0) {
+            return reached;
+        }
+
+        boolean[] visited = new boolean[names.length];
+        int[] queue = new int[names.length];
+        int head = 0;
+        int tail = 0;
+        visited[startId] = true;
+        queue[tail++] = startId;
+        while (head < tail) {
+            int node = queue[head++];
+            int[] offsets = downstream ? outOffsets : inOffsets;
+            int[] targets = downstream ? outTargets : inTargets;
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int next = targets[i];
+                if (!visited[next]) {
+                    visited[next] = true;
+                    queue[tail++] = next;
+                    reached.add(names[next]);
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * 计数排序生成 CSR
+     */
+    private static void fill(int[] from, int[] to, int edgeCount, int[] offsets, int[] targets) {
+        for (int i = 0; i < edgeCount; i++) {
+            offsets[from[i] + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] cursor = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < edgeCount; i++) {
+            targets[cursor[from[i]]++] = to[i];
+        }
+    }
+
+    /**
+     * 逐条加边构建
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private int[] sources = new int[1024];
+        private int[] targets = new int[1024];
+        private int edgeCount;
+
+        public Builder addEdge(String source, String target) {
+            int s = intern(source);
+            int t = intern(target);
+            if (edgeCount == sources.length) {
+                sources = Arrays.copyOf(sources, edgeCount * 2);
+                targets = Arrays.copyOf(targets, edgeCount * 2);
+            }
+            sources[edgeCount] = s;
+            targets[edgeCount] = t;
+            edgeCount++;
+            return this;
+        }
+
+        public ColumnGraph build() {
+            return new ColumnGraph(ids, names.toArray(new String[0]), sources, targets, edgeCount);
+        }
+
+        private int intern(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,559 @@
+package com.lineage.graph.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 字段血缘可达性索引（区间标号）
+ *
+ * 先用 Tarjan 算法把环收缩为强连通分量，分量编号即 DFS 后序号：
+ * DFS 树上一个分量的全部后代编号连续，所以每个分量的后代集合可以压缩成少量
+ * [start, end] 区间，非树边只会多出几个区间。祖先方向在反向图上另做一次后序编号。
+ * 查询只需展开区间（或二分判断单点），不再逐跳遍历。
+ *
+ * 新增边可以增量合并区间；会形成新环的边返回 false，由调用方整体重建。
+ * 读写通过读写锁隔离
+ */
+public final class ReachabilityIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ids;
+    private final List<String> names;
+
+    /**
+     * 节点 -> 分量
+     */
+    private int[] nodeComp;
+
+    /**
+     * 单成员分量的节点；多成员分量见 compMembers
+     */
+    private int[] compNode;
+    private final Map<Integer, int[]> compMembers = new HashMap<>();
+
+    /**
+     * 分量内有环（多成员或自环）
+     */
+    private final BitSet cyclic = new BitSet();
+
+    /**
+     * 后代区间（分量编号空间）
+     */
+    private int[][] desc;
+
+    /**
+     * 祖先区间（反向后序编号空间）
+     */
+    private int[][] anc;
+    private int[] ancNum;
+    private int[] ancComp;
+
+    private int compCount;
+
+    /**
+     * 合并区间用的缓冲
+     */
+    private long[] scratch = new long[64];
+
+    private ReachabilityIndex(Map<String, Integer> ids, List<String> names, int compCount) {
+        this.ids = ids;
+        this.names = names;
+        this.compCount = compCount;
+        int capacity = Math.max(16, names.size());
+        this.nodeComp = new int[capacity];
+        this.compNode = new int[Math.max(16, compCount)];
+        this.desc = new int[compNode.length][];
+        this.anc = new int[compNode.length][];
+        this.ancNum = new int[compNode.length];
+        this.ancComp = new int[compNode.length];
+    }
+
+    /**
+     * 由血缘图构建索引
+     */
+    public static ReachabilityIndex build(ColumnGraph graph) {
+        int n = graph.nodeCount();
+        Map<String, Integer> ids = new HashMap<>(Math.max(16, n * 4 / 3 + 1));
+        List<String> names = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            names.add(graph.name(i));
+            ids.put(graph.name(i), i);
+        }
+
+        int[] nodeComp = new int[n];
+        int compCount = tarjan(graph, nodeComp);
+
+        ReachabilityIndex index = new ReachabilityIndex(ids, names, compCount);
+        System.arraycopy(nodeComp, 0, index.nodeComp, 0, n);
+        index.buildComponents(graph);
+        return index;
+    }
+
+    /**
+     * 全部下游节点（不含自身）
+     */
+    public List<String> descendants(String node) {
+        lock.readLock().lock();
+        try {
+            Integer id = ids.get(node);
+            if (id == null) {
+                return new ArrayList<>();
+            }
+            return expand(desc[nodeComp[id]], id, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 全部上游节点（不含自身）
+     */
+    public List<String> ancestors(String node) {
+        lock.readLock().lock();
+        try {
+            Integer id = ids.get(node);
+            if (id == null) {
+                return new ArrayList<>();
+            }
+            return expand(anc[nodeComp[id]], id, true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * from 是否可以到达 to
+     */
+    public boolean reaches(String from, String to) {
+        lock.readLock().lock();
+        try {
+            Integer f = ids.get(from);
+            Integer t = ids.get(to);
+            if (f == null || t == null) {
+                return false;
+            }
+            int cf = nodeComp[f];
+            int ct = nodeComp[t];
+            if (cf == ct) {
+                return cyclic.get(cf);
+            }
+            return contains(desc[cf], ct);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 增量加边
+     *
+     * @return false 表示该边会形成新的环，索引未修改，需要整体重建
+     */
+    public boolean addEdge(String source, String target) {
+        lock.writeLock().lock();
+        try {
+            // 先检查是否成环（只可能发生在两个已有节点之间），拒绝时不驻留任何节点
+            Integer known = ids.get(source);
+            Integer knownTarget = ids.get(target);
+            if (known != null && knownTarget != null) {
+                int cs = nodeComp[known];
+                int ct = nodeComp[knownTarget];
+                if (cs != ct && contains(desc[ct], cs)) {
+                    return false;
+                }
+            }
+
+            int s = intern(source);
+            int t = intern(target);
+            int cs = nodeComp[s];
+            int ct = nodeComp[t];
+            if (cs == ct) {
+                if (s == t) {
+                    cyclic.set(cs);
+                }
+                return true;
+            }
+            if (contains(desc[cs], ct)) {
+                return true;
+            }
+
+            int[] reachable = merge(desc[ct], ct);
+            int[] reaching = merge(anc[cs], ancNum[cs]);
+            for (int i = 0; i < reaching.length; i += 2) {
+                for (int k = reaching[i]; k <= reaching[i + 1]; k++) {
+                    int comp = ancComp[k];
+                    desc[comp] = merge(desc[comp], reachable);
+                }
+            }
+            for (int i = 0; i < reachable.length; i += 2) {
+                for (int comp = reachable[i]; comp <= reachable[i + 1]; comp++) {
+                    anc[comp] = merge(anc[comp], reaching);
+                }
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int componentCount() {
+        lock.readLock().lock();
+        try {
+            return compCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引中保存的区间总数（衡量压缩效果）
+     */
+    public long intervalCount() {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (int c = 0; c < compCount; c++) {
+                total += (desc[c].length + anc[c].length) / 2;
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 迭代式 Tarjan 强连通分量；分量按完成顺序编号，后继分量编号总是更小
+     *
+     * @return 分量数
+     */
+    private static int tarjan(ColumnGraph graph, int[] nodeComp) {
+        int n = graph.nodeCount();
+        int[] order = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(order, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        int[] edgePos = new int[n];
+        int sp = 0;
+        int counter = 0;
+        int comp = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] >= 0) {
+                continue;
+            }
+            int csp = 0;
+            order[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            callStack[csp] = root;
+            edgePos[csp++] = 0;
+
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                if (edgePos[csp - 1] < graph.outDegree(v)) {
+                    int w = graph.outTarget(v, edgePos[csp - 1]++);
+                    if (order[w] < 0) {
+                        order[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callStack[csp] = w;
+                        edgePos[csp++] = 0;
+                    } else if (onStack[w] && order[w] < low[v]) {
+                        low[v] = order[w];
+                    }
+                    continue;
+                }
+
+                if (low[v] == order[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        nodeComp[w] = comp;
+                    } while (w != v);
+                    comp++;
+                }
+                csp--;
+                if (csp > 0) {
+                    int parent = callStack[csp - 1];
+                    if (low[v] < low[parent]) {
+                        low[parent] = low[v];
+                    }
+                }
+            }
+        }
+        return comp;
+    }
+
+    /**
+     * 收缩图上计算分量成员、后代区间和祖先区间
+     */
+    private void buildComponents(ColumnGraph graph) {
+        int n = graph.nodeCount();
+        int[] memberCount = new int[compCount];
+        for (int v = 0; v < n; v++) {
+            int c = nodeComp[v];
+            memberCount[c]++;
+            compNode[c] = v;
+        }
+        int[] filled = new int[compCount];
+        for (int v = 0; v < n; v++) {
+            int c = nodeComp[v];
+            if (memberCount[c] > 1) {
+                cyclic.set(c);
+                compMembers.computeIfAbsent(c, key -> new int[memberCount[key]])[filled[c]++] = v;
+            }
+        }
+
+        // 收缩图的出边 / 入边（CSR）
+        int[] outOffsets = new int[compCount + 1];
+        int[] inOffsets = new int[compCount + 1];
+        int edges = 0;
+        for (int v = 0; v < n; v++) {
+            for (int i = 0; i < graph.outDegree(v); i++) {
+                int cu = nodeComp[v];
+                int cv = nodeComp[graph.outTarget(v, i)];
+                if (cu == cv) {
+                    cyclic.set(cu);
+                } else {
+                    outOffsets[cu + 1]++;
+                    inOffsets[cv + 1]++;
+                    edges++;
+                }
+            }
+        }
+        for (int c = 0; c < compCount; c++) {
+            outOffsets[c + 1] += outOffsets[c];
+            inOffsets[c + 1] += inOffsets[c];
+        }
+        int[] outTargets = new int[edges];
+        int[] inTargets = new int[edges];
+        int[] outCursor = Arrays.copyOf(outOffsets, compCount);
+        int[] inCursor = Arrays.copyOf(inOffsets, compCount);
+        for (int v = 0; v < n; v++) {
+            for (int i = 0; i < graph.outDegree(v); i++) {
+                int cu = nodeComp[v];
+                int cv = nodeComp[graph.outTarget(v, i)];
+                if (cu != cv) {
+                    outTargets[outCursor[cu]++] = cv;
+                    inTargets[inCursor[cv]++] = cu;
+                }
+            }
+        }
+
+        // 后代：后继分量编号更小，按编号升序即可保证后继先算完
+        for (int c = 0; c < compCount; c++) {
+            int[] own = cyclic.get(c) ? new int[]{c, c} : EMPTY;
+            desc[c] = mergeAll(own, desc, outTargets, outOffsets[c], outOffsets[c + 1], null);
+        }
+
+        // 祖先：在反向图上做后序编号，使祖先集合同样聚成区间
+        numberAncestors(inOffsets, inTargets);
+        for (int c = compCount - 1; c >= 0; c--) {
+            int[] own = cyclic.get(c) ? new int[]{ancNum[c], ancNum[c]} : EMPTY;
+            anc[c] = mergeAll(own, anc, inTargets, inOffsets[c], inOffsets[c + 1], ancNum);
+        }
+    }
+
+    /**
+     * 反向图迭代 DFS 后序编号
+     */
+    private void numberAncestors(int[] inOffsets, int[] inTargets) {
+        boolean[] visited = new boolean[compCount];
+        int[] callStack = new int[compCount];
+        int[] edgePos = new int[compCount];
+        int counter = 0;
+        for (int root = 0; root < compCount; root++) {
+            if (visited[root]) {
+                continue;
+            }
+            int csp = 0;
+            visited[root] = true;
+            callStack[csp] = root;
+            edgePos[csp++] = inOffsets[root];
+            while (csp > 0) {
+                int c = callStack[csp - 1];
+                if (edgePos[csp - 1] < inOffsets[c + 1]) {
+                    int p = inTargets[edgePos[csp - 1]++];
+                    if (!visited[p]) {
+                        visited[p] = true;
+                        callStack[csp] = p;
+                        edgePos[csp++] = inOffsets[p];
+                    }
+                    continue;
+                }
+                ancNum[c] = counter;
+                ancComp[counter++] = c;
+                csp--;
+            }
+        }
+    }
+
+    /**
+     * 合并自身区间与所有邻接分量的 {邻接分量} ∪ 其区间
+     *
+     * @param numbering 邻接分量在区间空间中的编号，null 表示直接使用分量编号
+     */
+    private int[] mergeAll(int[] own, int[][] intervals, int[] neighbors, int from, int to, int[] numbering) {
+        if (from == to) {
+            return own;
+        }
+        int size = 0;
+        size = append(own, size);
+        for (int i = from; i < to; i++) {
+            int neighbor = neighbors[i];
+            int number = numbering == null ? neighbor : numbering[neighbor];
+            size = appendInterval(number, number, size);
+            size = append(intervals[neighbor], size);
+        }
+        return coalesce(size);
+    }
+
+    private int[] merge(int[] intervals, int single) {
+        int size = append(intervals, 0);
+        size = appendInterval(single, single, size);
+        return coalesce(size);
+    }
+
+    private int[] merge(int[] a, int[] b) {
+        int size = append(a, 0);
+        size = append(b, size);
+        return coalesce(size);
+    }
+
+    private int append(int[] intervals, int size) {
+        for (int i = 0; i < intervals.length; i += 2) {
+            size = appendInterval(intervals[i], intervals[i + 1], size);
+        }
+        return size;
+    }
+
+    private int appendInterval(int start, int end, int size) {
+        if (size == scratch.length) {
+            scratch = Arrays.copyOf(scratch, size * 2);
+        }
+        scratch[size] = ((long) start << 32) | (end & 0xFFFFFFFFL);
+        return size + 1;
+    }
+
+    /**
+     * 排序并合并相交或相邻的区间
+     */
+    private int[] coalesce(int size) {
+        if (size == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(scratch, 0, size);
+        int[] out = new int[size * 2];
+        int count = 0;
+        int start = (int) (scratch[0] >>> 32);
+        int end = (int) scratch[0];
+        for (int i = 1; i < size; i++) {
+            int s = (int) (scratch[i] >>> 32);
+            int e = (int) scratch[i];
+            if (s <= end + 1) {
+                end = Math.max(end, e);
+            } else {
+                out[count++] = start;
+                out[count++] = end;
+                start = s;
+                end = e;
+            }
+        }
+        out[count++] = start;
+        out[count++] = end;
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    private static boolean contains(int[] intervals, int value) {
+        int low = 0;
+        int high = intervals.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (intervals[mid * 2 + 1] < value) {
+                low = mid + 1;
+            } else if (intervals[mid * 2] > value) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 展开区间为节点名
+     */
+    private List<String> expand(int[] intervals, int self, boolean ancestorSpace) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < intervals.length; i += 2) {
+            for (int k = intervals[i]; k <= intervals[i + 1]; k++) {
+                int comp = ancestorSpace ? ancComp[k] : k;
+                int[] members = compMembers.get(comp);
+                if (members == null) {
+                    if (compNode[comp] != self) {
+                        result.add(names.get(compNode[comp]));
+                    }
+                    continue;
+                }
+                for (int member : members) {
+                    if (member != self) {
+                        result.add(names.get(member));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 取节点编号，新节点作为新的单成员分量加入
+     */
+    private int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int node = names.size();
+        int comp = compCount++;
+        if (node == nodeComp.length) {
+            nodeComp = Arrays.copyOf(nodeComp, node * 2);
+        }
+        if (comp == compNode.length) {
+            int capacity = comp * 2;
+            compNode = Arrays.copyOf(compNode, capacity);
+            desc = Arrays.copyOf(desc, capacity);
+            anc = Arrays.copyOf(anc, capacity);
+            ancNum = Arrays.copyOf(ancNum, capacity);
+            ancComp = Arrays.copyOf(ancComp, capacity);
+        }
+        names.add(name);
+        ids.put(name, node);
+        nodeComp[node] = comp;
+        compNode[comp] = node;
+        desc[comp] = EMPTY;
+        anc[comp] = EMPTY;
+        ancNum[comp] = comp;
+        ancComp[comp] = comp;
+        return node;
+    }
+}
@@ -0,0 +1,58 @@
+package com.lineage.graph.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lineage.graph.entity.LineageEdge;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 血缘边 Mapper
+ *
+ * 遍历查询只取 (source_node, target_node)，由组合索引直接覆盖
+ */
+@Mapper
+public interface LineageEdgeMapper extends BaseMapper<LineageEdge> {
+    
+    /**
+     * 查询一批来源节点的出边（下游一跳）
+     */
+    @Select("<script>SELECT DISTINCT source_node, target_node FROM lineage_edge WHERE source_node IN "
+            + "<foreach collection='nodes' item='node' open='(' separator=',' close=')'>#{node}</foreach></script>")
+    List<LineageEdge> selectBySourceNodes(@Param("nodes") Collection<String> nodes);
+    
+    /**
+     * 查询一批目标节点的入边（上游一跳）
+     */
+    @Select("<script>SELECT DISTINCT source_node, target_node FROM lineage_edge WHERE target_node IN "
+            + "<foreach collection='nodes' item='node' open='(' separator=',' close=')'>#{node}</foreach></script>")
+    List<LineageEdge> selectByTargetNodes(@Param("nodes") Collection<String> nodes);
+    
+    /**
+     * 与一批节点相连（作为来源或目标）的边的出处
+     */
+    @Select("<script>SELECT source_ref FROM lineage_edge WHERE source_node IN "
+            + "<foreach collection='nodes' item='node' open='(' separator=',' close=')'>#{node}</foreach>"
+            + " UNION SELECT source_ref FROM lineage_edge WHERE target_node IN "
+            + "<foreach collection='nodes' item='node' open='(' separator=',' close=')'>#{node}</foreach></script>")
+    List<String> selectSourceRefsByNodes(@Param("nodes") Collection<String> nodes);
+    
+    /**
+     * 按主键游标分页读取边（构建可达性索引）
+     */
+    @Select("SELECT id, source_node, target_node FROM lineage_edge WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<LineageEdge> selectEdgePage(@Param("afterId") long afterId, @Param("limit") int limit);
+    
+    /**
+     * 多行 VALUES 批量插入
+     */
+    @Insert("<script>INSERT INTO lineage_edge (source_node, target_node, edge_type, source_ref, create_time) VALUES "
+            + "<foreach collection='edges' item='e' separator=','>"
+            + "(#{e.sourceNode}, #{e.targetNode}, #{e.edgeType}, #{e.sourceRef}, #{e.createTime})"
+            + "</foreach></script>")
+    int insertBatch(@Param("edges") List<LineageEdge> edges);
+}
@@ -0,0 +1,12 @@
+package com.lineage.graph.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lineage.graph.entity.LineageStatement;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 血缘语句 Mapper
+ */
+@Mapper
+public interface LineageStatementMapper extends BaseMapper<LineageStatement> {
+}
@@ -0,0 +1,71 @@
+package com.lineage.graph.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lineage.graph.entity.ReanalysisJob;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 重新分析任务 Mapper
+ */
+@Mapper
+public interface ReanalysisJobMapper extends BaseMapper<ReanalysisJob> {
+    
+    /**
+     * 已有待执行任务的出处
+     */
+    @Select("<script>SELECT pending_ref FROM reanalysis_job WHERE pending_ref IN "
+            + "<foreach collection='refs' item='ref' open='(' separator=',' close=')'>#{ref}</foreach></script>")
+    List<String> selectPendingRefs(@Param("refs") Collection<String> refs);
+    
+    /**
+     * 多行 VALUES 批量入队
+     */
+    @Insert("<script>INSERT INTO reanalysis_job (source_ref, pending_ref, status, reason, attempts, create_time, update_time) "
+            + "VALUES <foreach collection='refs' item='ref' separator=','>"
+            + "(#{ref}, #{ref}, 'pending', #{reason}, 0, #{now}, #{now})"
+            + "</foreach></script>")
+    int insertPending(@Param("refs") Collection<String> refs, @Param("reason") String reason,
+                      @Param("now") LocalDateTime now);
+    
+    /**
+     * 可执行的待执行任务（重试的任务须等到 retryBefore 之后）
+     */
+    @Select("SELECT id, source_ref, attempts FROM reanalysis_job WHERE status = 'pending' "
+            + "AND (attempts = 0 OR update_time < #{retryBefore}) ORDER BY id LIMIT #{limit}")
+    List<ReanalysisJob> selectRunnable(@Param("retryBefore") LocalDateTime retryBefore, @Param("limit") int limit);
+    
+    /**
+     * 领取任务：仅当仍为待执行时成功，领取后释放 pending_ref
+     */
+    @Update("UPDATE reanalysis_job SET status = 'running', pending_ref = NULL, attempts = attempts + 1, "
+            + "update_time = #{now} WHERE id = #{id} AND status = 'pending'")
+    int claim(@Param("id") long id, @Param("now") LocalDateTime now);
+    
+    /**
+     * 撤销领取：恢复为待执行并退回领取时计入的执行次数（同一出处已有待执行任务时违反唯一索引）
+     */
+    @Update("UPDATE reanalysis_job SET status = 'pending', pending_ref = source_ref, attempts = attempts - 1, "
+            + "update_time = #{now} WHERE id = #{id} AND status = 'running'")
+    int unclaim(@Param("id") long id, @Param("now") LocalDateTime now);
+    
+    /**
+     * 任务重新置为待执行（同一出处已有待执行任务时违反唯一索引）
+     */
+    @Update("UPDATE reanalysis_job SET status = 'pending', pending_ref = source_ref, error_message = #{error}, "
+            + "update_time = #{now} WHERE id = #{id}")
+    int requeue(@Param("id") long id, @Param("error") String error, @Param("now") LocalDateTime now);
+    
+    /**
+     * 标记任务失败
+     */
+    @Update("UPDATE reanalysis_job SET status = 'failed', error_message = #{error}, update_time = #{now} WHERE id = #{id}")
+    int markFailed(@Param("id") long id, @Param("error") String error, @Param("now") LocalDateTime now);
+}
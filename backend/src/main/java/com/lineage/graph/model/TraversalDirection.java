@@ -0,0 +1,17 @@
+package com.lineage.graph.model;
+
+/**
+ * 血缘遍历方向
+ */
+public enum TraversalDirection {
+    
+    /**
+     * 下游（影响分析）：沿来源 -> 目标方向展开
+     */
+    DOWNSTREAM,
+    
+    /**
+     * 上游（溯源分析）：沿目标 -> 来源方向展开
+     */
+    UPSTREAM
+}
@@ -0,0 +1,325 @@
+package com.lineage.graph.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.google.common.collect.Lists;
+import com.lineage.config.LineageProperties;
+import com.lineage.core.tracker.FieldDependency;
+import com.lineage.core.tracker.FieldSource;
+import com.lineage.core.tracker.LineageResult;
+import com.lineage.graph.dto.LineageTraversalResult;
+import com.lineage.graph.dto.ReachabilityResult;
+import com.lineage.graph.entity.LineageEdge;
+import com.lineage.graph.entity.LineageStatement;
+import com.lineage.graph.mapper.LineageEdgeMapper;
+import com.lineage.graph.mapper.LineageStatementMapper;
+import com.lineage.graph.model.TraversalDirection;
+import com.lineage.kettle.model.KettleFieldLineage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 血缘图服务
+ *
+ * 持久化字段级血缘边，并按跳广度优先遍历上下游：
+ * 每跳把当前层节点分批放入 IN 查询（一跳一次或数次往返），
+ * 已访问节点不再展开，保证有环时也能终止
+ */
+@Slf4j
+@Service
+public class LineageGraphService {
+
+    private static final String WILDCARD = "*";
+
+    @Resource
+    private LineageEdgeMapper lineageEdgeMapper;
+
+    @Resource
+    private LineageStatementMapper lineageStatementMapper;
+
+    @Resource
+    private LineageProperties properties;
+
+    @Resource
+    private ReachabilityIndexService reachabilityIndexService;
+
+    /**
+     * 保存一条 SQL 的血缘边（替换同一出处已有的边），同时保存 SQL 供重新分析
+     *
+     * @param targetTable 查询结果写入的目标表
+     * @param result      血缘分析结果
+     * @param sourceRef   血缘出处，为空时使用目标表名
+     * @return 保存的边数
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int saveLineage(String targetTable, LineageResult result, String sourceRef) {
+        if (StringUtils.isBlank(targetTable)) {
+            throw new IllegalArgumentException("Target table cannot be blank");
+        }
+        String ref = StringUtils.isBlank(sourceRef) ? normalize(targetTable) : sourceRef.trim();
+
+        List<LineageEdge> edges = buildEdges(targetTable, result, ref);
+        replaceEdges(ref, edges);
+        if (result.getSql() != null) {
+            saveStatement(ref, targetTable, result);
+        }
+        log.info("保存血缘边成功, sourceRef={}, edges={}", ref, edges.size());
+        return edges.size();
+    }
+
+    /**
+     * 保存 Kettle 文件的字段级血缘边（替换同一出处已有的边）
+     *
+     * @param sourceRef 血缘出处（如 kettle:文件名）
+     * @param lineages  字段级血缘，为空时只删除已有的边
+     * @return 保存的边数
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int saveKettleLineage(String sourceRef, List<KettleFieldLineage> lineages) {
+        Map<String, LineageEdge> edges = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (KettleFieldLineage lineage : lineages) {
+            if (lineage.getTargetTable() == null || lineage.getTargetField() == null) {
+                continue;
+            }
+            String targetNode = node(lineage.getTargetTable(), lineage.getTargetField());
+            String edgeType = lineage.getTransformationType() == null
+                    ? null : lineage.getTransformationType().name();
+            for (String source : lineage.getSourceFields()) {
+                addEdge(edges, normalize(source), targetNode, edgeType, sourceRef, now);
+            }
+        }
+        replaceEdges(sourceRef, new ArrayList<>(edges.values()));
+        log.info("保存Kettle血缘边成功, sourceRef={}, edges={}", sourceRef, edges.size());
+        return edges.size();
+    }
+
+    /**
+     * 查询出处保存的 SQL
+     */
+    public LineageStatement getStatement(String sourceRef) {
+        return lineageStatementMapper.selectOne(new LambdaQueryWrapper<LineageStatement>()
+                .eq(LineageStatement::getSourceRef, sourceRef));
+    }
+
+    private void saveStatement(String sourceRef, String targetTable, LineageResult result) {
+        LineageStatement statement = getStatement(sourceRef);
+        if (statement == null) {
+            statement = new LineageStatement();
+            statement.setSourceRef(sourceRef);
+        }
+        statement.setTargetTable(targetTable.trim());
+        statement.setSqlText(result.getSql());
+        statement.setDbType(result.getDbType());
+        statement.setUpdateTime(LocalDateTime.now());
+        if (statement.getId() == null) {
+            lineageStatementMapper.insert(statement);
+        } else {
+            lineageStatementMapper.updateById(statement);
+        }
+    }
+
+    /**
+     * 整体替换同一出处的边，提交后同步到可达性索引
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void replaceEdges(String sourceRef, List<LineageEdge> edges) {
+        int removed = lineageEdgeMapper.delete(
+                new LambdaQueryWrapper<LineageEdge>().eq(LineageEdge::getSourceRef, sourceRef));
+
+        int batchSize = Math.max(1, properties.getGraph().getInsertBatchSize());
+        for (List<LineageEdge> batch : Lists.partition(edges, batchSize)) {
+            lineageEdgeMapper.insertBatch(batch);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reachabilityIndexService.onEdgesReplaced(edges, removed > 0);
+                }
+            });
+        } else {
+            reachabilityIndexService.onEdgesReplaced(edges, removed > 0);
+        }
+    }
+
+    /**
+     * 查询全部可达节点（不限跳数）：索引就绪时直接查索引，否则回退为逐跳遍历（受最大跳数限制）
+     */
+    public ReachabilityResult reachable(String node, TraversalDirection direction) {
+        if (StringUtils.isBlank(node)) {
+            throw new IllegalArgumentException("Node cannot be blank");
+        }
+        long start = System.currentTimeMillis();
+        String normalized = normalize(node);
+
+        ReachabilityResult result = new ReachabilityResult();
+        result.setNode(normalized);
+        result.setDirection(direction);
+
+        List<String> nodes = reachabilityIndexService.lookup(normalized, direction);
+        if (nodes != null) {
+            result.setIndexed(true);
+        } else {
+            Map<String, Integer> visited = traverse(normalized, direction, 0).getNodes();
+            nodes = new ArrayList<>(visited.keySet());
+            nodes.remove(normalized);
+        }
+        result.setNodes(nodes);
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 下游影响分析
+     */
+    public LineageTraversalResult downstream(String node, int depth) {
+        return traverse(node, TraversalDirection.DOWNSTREAM, depth);
+    }
+
+    /**
+     * 上游溯源分析
+     */
+    public LineageTraversalResult upstream(String node, int depth) {
+        return traverse(node, TraversalDirection.UPSTREAM, depth);
+    }
+
+    /**
+     * 广度优先遍历
+     *
+     * @param startNode 起始节点（表名.字段名）
+     * @param direction 遍历方向
+     * @param depth     跳数，小于等于 0 或超过配置上限时取配置上限
+     * @return 遍历结果
+     */
+    public LineageTraversalResult traverse(String startNode, TraversalDirection direction, int depth) {
+        if (StringUtils.isBlank(startNode)) {
+            throw new IllegalArgumentException("Start node cannot be blank");
+        }
+        LineageProperties.Graph config = properties.getGraph();
+        int maxDepth = depth <= 0 ? config.getMaxDepth() : Math.min(depth, config.getMaxDepth());
+        int batchSize = Math.max(1, config.getQueryBatchSize());
+        boolean downstream = direction == TraversalDirection.DOWNSTREAM;
+
+        String start = normalize(startNode);
+        LineageTraversalResult result = new LineageTraversalResult();
+        result.setStartNode(start);
+        result.setDirection(direction);
+        result.setMaxDepth(maxDepth);
+
+        Map<String, Integer> visited = result.getNodes();
+        visited.put(start, 0);
+        List<String> frontier = Collections.singletonList(start);
+
+        hops:
+        for (int hop = 1; hop <= maxDepth && !frontier.isEmpty(); hop++) {
+            List<String> next = new ArrayList<>();
+            for (List<String> batch : Lists.partition(frontier, batchSize)) {
+                List<LineageEdge> edges = downstream
+                        ? lineageEdgeMapper.selectBySourceNodes(batch)
+                        : lineageEdgeMapper.selectByTargetNodes(batch);
+                result.setQueryCount(result.getQueryCount() + 1);
+
+                for (LineageEdge edge : edges) {
+                    result.getEdges().add(edge);
+                    String neighbor = downstream ? edge.getTargetNode() : edge.getSourceNode();
+                    if (visited.containsKey(neighbor)) {
+                        result.setRevisitedEdgeCount(result.getRevisitedEdgeCount() + 1);
+                        if (start.equals(neighbor)) {
+                            result.setCycleDetected(true);
+                        }
+                        continue;
+                    }
+
+                    visited.put(neighbor, hop);
+                    next.add(neighbor);
+                    result.setDepthReached(hop);
+                    if (visited.size() >= config.getMaxNodes()) {
+                        result.setTruncated(true);
+                        break hops;
+                    }
+                }
+            }
+            frontier = next;
+        }
+
+        log.debug("Traversed {} from {}: {} nodes, {} edges, {} queries",
+                direction, start, visited.size(), result.getEdges().size(), result.getQueryCount());
+        return result;
+    }
+
+    /**
+     * 由血缘分析结果生成边：来源字段（含 UNION 其余分支）-> 目标表.目标字段
+     */
+    private List<LineageEdge> buildEdges(String targetTable, LineageResult result, String sourceRef) {
+        Map<String, LineageEdge> edges = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (FieldDependency dependency : result.getFieldDependencies()) {
+            String targetField = dependency.getTargetField();
+            if (targetField == null || WILDCARD.equals(targetField)) {
+                continue;
+            }
+            String targetNode = node(targetTable, targetField);
+            String edgeType = dependency.getTransformationType() == null
+                    ? null : dependency.getTransformationType().name();
+
+            addEdges(edges, dependency.getSourceTable(), dependency.getSourceFields(),
+                    targetNode, edgeType, sourceRef, now);
+            if (dependency.getUnionSources() != null) {
+                for (FieldSource source : dependency.getUnionSources()) {
+                    addEdges(edges, source.getSourceTable(), source.getSourceFields(),
+                            targetNode, edgeType, sourceRef, now);
+                }
+            }
+        }
+        return new ArrayList<>(edges.values());
+    }
+
+    private void addEdges(Map<String, LineageEdge> edges, String sourceTable, List<String> sourceFields,
+                          String targetNode, String edgeType, String sourceRef, LocalDateTime now) {
+        if (sourceTable == null || sourceFields == null) {
+            return;
+        }
+        for (String field : sourceFields) {
+            if (WILDCARD.equals(field)) {
+                continue;
+            }
+            addEdge(edges, node(sourceTable, field), targetNode, edgeType, sourceRef, now);
+        }
+    }
+
+    private void addEdge(Map<String, LineageEdge> edges, String sourceNode, String targetNode,
+                         String edgeType, String sourceRef, LocalDateTime now) {
+        edges.computeIfAbsent(sourceNode + "\u0000" + targetNode, key -> {
+            LineageEdge edge = new LineageEdge();
+            edge.setSourceNode(sourceNode);
+            edge.setTargetNode(targetNode);
+            edge.setEdgeType(edgeType == null ? "DIRECT" : edgeType);
+            edge.setSourceRef(sourceRef);
+            edge.setCreateTime(now);
+            return edge;
+        });
+    }
+
+    private static String node(String table, String field) {
+        return normalize(table) + "." + normalize(field);
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
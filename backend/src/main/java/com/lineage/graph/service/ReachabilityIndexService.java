@@ -0,0 +1,154 @@
+package com.lineage.graph.service;
+
+import com.lineage.config.LineageProperties;
+import com.lineage.graph.entity.LineageEdge;
+import com.lineage.graph.index.ColumnGraph;
+import com.lineage.graph.index.ReachabilityIndex;
+import com.lineage.graph.mapper.LineageEdgeMapper;
+import com.lineage.graph.model.TraversalDirection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 可达性索引服务
+ *
+ * 启用后在应用启动时从 lineage_edge 构建索引；新写入的边在事务提交后增量合并，
+ * 出处替换删除了旧边或新边形成环时改为后台整体重建（重建请求会合并）。
+ * 索引未就绪时查询返回 null，由调用方回退为逐跳遍历
+ */
+@Slf4j
+@Service
+public class ReachabilityIndexService {
+
+    @Resource
+    private LineageEdgeMapper lineageEdgeMapper;
+
+    @Resource
+    private LineageProperties properties;
+
+    private volatile ReachabilityIndex index;
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reachability-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (isEnabled()) {
+            scheduleRebuild();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.getGraph().isReachabilityIndexEnabled();
+    }
+
+    public boolean isReady() {
+        return isEnabled() && index != null;
+    }
+
+    /**
+     * 通过索引查询全部可达节点
+     *
+     * @return 可达节点（不含自身）；索引未启用或未就绪时返回 null
+     */
+    public List<String> lookup(String node, TraversalDirection direction) {
+        ReachabilityIndex current = isEnabled() ? index : null;
+        if (current == null) {
+            return null;
+        }
+        return direction == TraversalDirection.DOWNSTREAM ? current.descendants(node) : current.ancestors(node);
+    }
+
+    /**
+     * 边写入提交后更新索引
+     *
+     * @param added   新写入的边
+     * @param removed 是否删除了旧边
+     */
+    public void onEdgesReplaced(List<LineageEdge> added, boolean removed) {
+        if (!isEnabled()) {
+            return;
+        }
+        ReachabilityIndex current = index;
+        if (current == null || removed || rebuilding.get()) {
+            scheduleRebuild();
+            return;
+        }
+        for (LineageEdge edge : added) {
+            if (!current.addEdge(edge.getSourceNode(), edge.getTargetNode())) {
+                log.debug("Edge {} -> {} closes a cycle, rebuilding reachability index",
+                        edge.getSourceNode(), edge.getTargetNode());
+                scheduleRebuild();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 提交后台重建；已有待执行的重建时合并
+     */
+    public void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    log.error("可达性索引重建失败", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 从 lineage_edge 全量构建索引并替换当前索引
+     */
+    public synchronized ReachabilityIndex rebuild() {
+        rebuilding.set(true);
+        try {
+            long start = System.currentTimeMillis();
+            int pageSize = Math.max(1, properties.getGraph().getIndexLoadPageSize());
+            ColumnGraph.Builder builder = ColumnGraph.builder();
+            long afterId = 0;
+            List<LineageEdge> page;
+            do {
+                page = lineageEdgeMapper.selectEdgePage(afterId, pageSize);
+                for (LineageEdge edge : page) {
+                    builder.addEdge(edge.getSourceNode(), edge.getTargetNode());
+                    afterId = edge.getId();
+                }
+            } while (page.size() == pageSize);
+
+            ColumnGraph graph = builder.build();
+            ReachabilityIndex built = ReachabilityIndex.build(graph);
+            index = built;
+            log.info("可达性索引构建完成, nodes={}, edges={}, components={}, intervals={}, 耗时={}ms",
+                    graph.nodeCount(), graph.edgeCount(), built.componentCount(), built.intervalCount(),
+                    System.currentTimeMillis() - start);
+            return built;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,374 @@
+package com.lineage.graph.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lineage.config.LineageProperties;
+import com.lineage.core.tracker.LineageResult;
+import com.lineage.graph.entity.LineageStatement;
+import com.lineage.graph.entity.ReanalysisJob;
+import com.lineage.graph.mapper.LineageEdgeMapper;
+import com.lineage.graph.mapper.ReanalysisJobMapper;
+import com.lineage.kettle.entity.KettleFileRecord;
+import com.lineage.kettle.mapper.KettleFileRecordMapper;
+import com.lineage.kettle.model.KettleFieldLineage;
+import com.lineage.kettle.service.KettleService;
+import com.lineage.service.LineageAnalysisService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 重新分析队列
+ *
+ * 元数据变化或 Kettle 文件更新时，按血缘出处把任务写入 reanalysis_job（与触发变更同一事务），
+ * 提交后由有界线程池重新分析并整体替换该出处的边；同一出处的待执行任务由唯一索引合并，
+ * 同一出处同时只执行一个任务。启动时恢复中断的任务，并定期扫描遗漏或待重试的任务
+ */
+@Slf4j
+@Service
+public class ReanalysisQueueService {
+
+    /**
+     * Kettle 文件的血缘出处前缀（后接文件名）
+     */
+    public static final String KETTLE_REF_PREFIX = "kettle:";
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    @Resource
+    private ReanalysisJobMapper reanalysisJobMapper;
+
+    @Resource
+    private LineageEdgeMapper lineageEdgeMapper;
+
+    @Resource
+    private LineageGraphService lineageGraphService;
+
+    @Resource
+    private LineageAnalysisService analysisService;
+
+    @Resource
+    private KettleService kettleService;
+
+    @Resource
+    private KettleFileRecordMapper kettleFileRecordMapper;
+
+    @Resource
+    private LineageProperties properties;
+
+    /**
+     * 正在执行的出处
+     */
+    private final Set<String> runningRefs = ConcurrentHashMap.newKeySet();
+
+    private final Object dispatchLock = new Object();
+
+    private ExecutorService workers;
+
+    private int concurrency;
+
+    /**
+     * 已关闭：定期扫描和提交后的调度不再领取任务
+     */
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void init() {
+        concurrency = Math.max(1, properties.getReanalysis().getConcurrency());
+        AtomicInteger counter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "lineage-reanalysis-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        workers.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return properties.getReanalysis().isEnabled();
+    }
+
+    /**
+     * 字段元数据变化是否触发重新分析
+     */
+    public boolean isMetadataTriggersEnabled() {
+        return isEnabled() && properties.getReanalysis().isMetadataTriggers();
+    }
+
+    /**
+     * 启动时把上次中断的任务恢复为待执行
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (!isEnabled()) {
+            return;
+        }
+        List<ReanalysisJob> interrupted = reanalysisJobMapper.selectList(new LambdaQueryWrapper<ReanalysisJob>()
+                .eq(ReanalysisJob::getStatus, "running"));
+        for (ReanalysisJob job : interrupted) {
+            requeueOrDrop(job.getId(), "执行中断");
+        }
+        if (!interrupted.isEmpty()) {
+            log.info("恢复中断的重新分析任务: count={}", interrupted.size());
+        }
+        dispatch();
+    }
+
+    /**
+     * 定期扫描待执行任务（提交后未能立即执行的、待重试的）
+     */
+    @Scheduled(fixedDelayString = "${lineage.reanalysis.poll-interval-ms:10000}")
+    public void scheduledDispatch() {
+        if (isEnabled()) {
+            dispatch();
+        }
+    }
+
+    /**
+     * 元数据字段变化：与该字段相连的边所属出处全部入队
+     *
+     * @param nodes 字段节点（表名.字段名，可含 schema 前缀）
+     * @return 新入队的任务数
+     */
+    public int enqueueForNodes(Collection<String> nodes, String reason) {
+        if (!isEnabled() || nodes.isEmpty()) {
+            return 0;
+        }
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String node : nodes) {
+            normalized.add(node.trim().toLowerCase(Locale.ROOT));
+        }
+        List<String> refs = lineageEdgeMapper.selectSourceRefsByNodes(normalized);
+        refs.removeIf(Objects::isNull);
+        return enqueue(refs, reason);
+    }
+
+    /**
+     * Kettle 文件更新或删除：按文件名入队
+     */
+    public int enqueueKettleFiles(Collection<String> fileNames, String reason) {
+        List<String> refs = new ArrayList<>(fileNames.size());
+        for (String fileName : fileNames) {
+            refs.add(kettleRef(fileName));
+        }
+        return enqueue(refs, reason);
+    }
+
+    /**
+     * 按出处入队，已有待执行任务的出处直接合并；在事务中调用时随事务提交，提交后立即调度
+     *
+     * @return 新入队的任务数
+     */
+    public int enqueue(Collection<String> sourceRefs, String reason) {
+        if (!isEnabled() || sourceRefs.isEmpty()) {
+            return 0;
+        }
+        Set<String> refs = new LinkedHashSet<>(sourceRefs);
+        refs.removeAll(reanalysisJobMapper.selectPendingRefs(refs));
+        if (refs.isEmpty()) {
+            return 0;
+        }
+
+        String trimmedReason = StringUtils.abbreviate(reason, 200);
+        int inserted;
+        try {
+            inserted = reanalysisJobMapper.insertPending(refs, trimmedReason, LocalDateTime.now());
+        } catch (DuplicateKeyException e) {
+            // 并发入队的同一出处：逐条插入，重复的视为已合并
+            inserted = 0;
+            for (String ref : refs) {
+                try {
+                    inserted += reanalysisJobMapper.insertPending(
+                            Collections.singletonList(ref), trimmedReason, LocalDateTime.now());
+                } catch (DuplicateKeyException ignored) {
+                    log.debug("重新分析任务已合并: sourceRef={}", ref);
+                }
+            }
+        }
+        log.debug("重新分析任务入队: count={}, reason={}", inserted, trimmedReason);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch();
+                }
+            });
+        } else {
+            dispatch();
+        }
+        return inserted;
+    }
+
+    /**
+     * 领取待执行任务交给线程池，正在执行的出处暂不领取；线程池拒绝时撤销领取，留待下次扫描
+     */
+    public void dispatch() {
+        synchronized (dispatchLock) {
+            if (stopped) {
+                return;
+            }
+            int free = concurrency - runningRefs.size();
+            if (free <= 0) {
+                return;
+            }
+            LocalDateTime retryBefore = LocalDateTime.now()
+                    .minusSeconds(properties.getReanalysis().getRetryDelaySeconds());
+            List<ReanalysisJob> runnable = reanalysisJobMapper.selectRunnable(retryBefore, free + runningRefs.size());
+            for (ReanalysisJob job : runnable) {
+                if (free <= 0) {
+                    break;
+                }
+                String ref = job.getSourceRef();
+                if (runningRefs.contains(ref) || reanalysisJobMapper.claim(job.getId(), LocalDateTime.now()) == 0) {
+                    continue;
+                }
+                runningRefs.add(ref);
+                int attempt = job.getAttempts() == null ? 1 : job.getAttempts() + 1;
+                try {
+                    workers.execute(() -> run(job.getId(), ref, attempt));
+                } catch (RejectedExecutionException e) {
+                    log.warn("重新分析线程池拒绝任务，撤销领取: sourceRef={}", ref);
+                    unclaimOrDrop(job.getId());
+                    runningRefs.remove(ref);
+                    break;
+                }
+                free--;
+            }
+        }
+    }
+
+    /**
+     * 重新分析一个出处并替换其血缘边
+     *
+     * @return 保存的边数
+     */
+    public int reanalyze(String sourceRef) throws Exception {
+        if (sourceRef.startsWith(KETTLE_REF_PREFIX)) {
+            return reanalyzeKettle(sourceRef, sourceRef.substring(KETTLE_REF_PREFIX.length()));
+        }
+        LineageStatement statement = lineageGraphService.getStatement(sourceRef);
+        if (statement == null) {
+            log.debug("出处没有保存的 SQL，跳过重新分析: sourceRef={}", sourceRef);
+            return 0;
+        }
+        LineageResult result = analysisService.analyze(statement.getSqlText(), statement.getDbType());
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("SQL 分析失败: " + result.getErrorMessage());
+        }
+        return lineageGraphService.saveLineage(statement.getTargetTable(), result, sourceRef);
+    }
+
+    /**
+     * 各状态的任务数（pending/running/failed）
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (String status : Arrays.asList("pending", "running", "failed")) {
+            stats.put(status, reanalysisJobMapper.selectCount(
+                    new LambdaQueryWrapper<ReanalysisJob>().eq(ReanalysisJob::getStatus, status)));
+        }
+        return stats;
+    }
+
+    public static String kettleRef(String fileName) {
+        return KETTLE_REF_PREFIX + fileName;
+    }
+
+    /**
+     * 按同名文件最新一次解析成功的版本重建边；文件已全部删除时清除边
+     */
+    private int reanalyzeKettle(String sourceRef, String fileName) throws Exception {
+        KettleFileRecord record = kettleFileRecordMapper.selectOne(new LambdaQueryWrapper<KettleFileRecord>()
+                .eq(KettleFileRecord::getFileName, fileName)
+                .eq(KettleFileRecord::getParseStatus, "success")
+                .orderByDesc(KettleFileRecord::getId)
+                .last("LIMIT 1"));
+        List<KettleFieldLineage> lineages = Collections.emptyList();
+        if (record != null) {
+            lineages = kettleService.extractFieldLineage(kettleService.parseKettleFile(new File(record.getFilePath())));
+        }
+        return lineageGraphService.saveKettleLineage(sourceRef, lineages);
+    }
+
+    private void run(long jobId, String sourceRef, int attempt) {
+        boolean succeeded = false;
+        try {
+            long start = System.currentTimeMillis();
+            int edges = reanalyze(sourceRef);
+            reanalysisJobMapper.deleteById(jobId);
+            succeeded = true;
+            log.info("重新分析完成: sourceRef={}, edges={}, elapsed={}ms",
+                    sourceRef, edges, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            String error = StringUtils.abbreviate(String.valueOf(e.getMessage()), MAX_ERROR_LENGTH);
+            if (attempt < properties.getReanalysis().getMaxAttempts()) {
+                log.warn("重新分析失败，稍后重试: sourceRef={}, attempt={}", sourceRef, attempt, e);
+                requeueOrDrop(jobId, error);
+            } else {
+                log.error("重新分析失败: sourceRef={}, attempt={}", sourceRef, attempt, e);
+                reanalysisJobMapper.markFailed(jobId, error, LocalDateTime.now());
+            }
+        } finally {
+            runningRefs.remove(sourceRef);
+        }
+        // 失败的任务等到重试间隔之后由定期扫描领取
+        if (succeeded) {
+            dispatch();
+        }
+    }
+
+    /**
+     * 撤销领取；同一出处已有新的待执行任务时由它代替，删除本任务
+     */
+    private void unclaimOrDrop(long jobId) {
+        try {
+            reanalysisJobMapper.unclaim(jobId, LocalDateTime.now());
+        } catch (DuplicateKeyException e) {
+            reanalysisJobMapper.deleteById(jobId);
+        }
+    }
+
+    /**
+     * 重新置为待执行；同一出处已有新的待执行任务时由它代替，删除本任务
+     */
+    private void requeueOrDrop(long jobId, String error) {
+        try {
+            reanalysisJobMapper.requeue(jobId, error, LocalDateTime.now());
+        } catch (DuplicateKeyException e) {
+            reanalysisJobMapper.deleteById(jobId);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.lineage.kettle.connection;
+
+import com.lineage.config.LineageProperties;
+import com.lineage.core.dialect.DbTypeResolver;
+import com.lineage.kettle.model.KettleConnection;
+import com.lineage.kettle.model.KettleStep;
+import com.lineage.kettle.model.KettleTransformation;
+import com.lineage.kettle.step.KettleXml;
+import com.lineage.metadata.entity.DataSource;
+import com.lineage.metadata.mapper.DataSourceMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.dom4j.Document;
+import org.dom4j.DocumentException;
+import org.dom4j.Element;
+import org.dom4j.io.SAXReader;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Kettle数据库连接解析
+ *
+ * 读取转换内的 &lt;connection&gt; 与仓库级 shared.xml 中的共享连接，
+ * 把 Kettle 数据库类型映射为 {@link DbTypeResolver} 支持的方言，
+ * 并按连接名称（其次按库名与主机）匹配已登记的数据源，
+ * 使步骤 SQL 首次即按正确方言解析，无需自动识别试探。
+ * 仓库导入自带的 shared.xml 只作用于该次导入，由调用方读取后随解析传入；
+ * 已登记的数据源列表按 lineage.kettle.datasource-cache-seconds 缓存，不必每次解析都查询
+ */
+@Slf4j
+@Component
+public class KettleConnectionResolver {
+
+    /**
+     * Kettle 数据库类型 -> 方言
+     */
+    private static final Map<String, String> DIALECTS = new HashMap<>();
+
+    static {
+        DIALECTS.put("MYSQL", "mysql");
+        DIALECTS.put("MARIADB", "mysql");
+        DIALECTS.put("ORACLE", "oracle");
+        DIALECTS.put("ORACLERDB", "oracle");
+        DIALECTS.put("POSTGRESQL", "postgresql");
+        DIALECTS.put("GREENPLUM", "postgresql");
+        DIALECTS.put("REDSHIFT", "postgresql");
+        DIALECTS.put("MSSQL", "sqlserver");
+        DIALECTS.put("MSSQLNATIVE", "sqlserver");
+        DIALECTS.put("HIVE", "hive");
+        DIALECTS.put("HIVE2", "hive");
+        DIALECTS.put("IMPALA", "hive");
+        DIALECTS.put("SPARKSIMBA", "spark");
+        DIALECTS.put("SPARKSQL", "spark");
+        DIALECTS.put("PRESTO", "presto");
+        DIALECTS.put("TRINO", "trino");
+        DIALECTS.put("CLICKHOUSE", "clickhouse");
+    }
+
+    @Resource
+    private DbTypeResolver dbTypeResolver;
+
+    @Resource
+    private DataSourceMapper dataSourceMapper;
+
+    @Resource
+    private LineageProperties properties;
+
+    /**
+     * 全局默认共享连接（连接名称 -> 连接），来自启动配置或接口上传，加载时整体替换
+     */
+    private volatile Map<String, KettleConnection> sharedConnections = Collections.emptyMap();
+
+    /**
+     * 已登记数据源的缓存快照
+     */
+    private volatile DataSourceSnapshot dataSources;
+
+    @PostConstruct
+    public void init() {
+        String file = properties.getKettle().getSharedObjectsFile();
+        if (StringUtils.isBlank(file)) {
+            return;
+        }
+        Path path = Paths.get(file);
+        if (!Files.isRegularFile(path)) {
+            log.warn("共享连接文件不存在: {}", path.toAbsolutePath());
+            return;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            loadShared(in);
+        } catch (Exception e) {
+            log.warn("加载共享连接失败: file={}", path.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * 加载 shared.xml 作为全局默认共享连接，替换此前加载的默认共享连接
+     *
+     * @param in shared.xml 数据流（调用方负责关闭）
+     * @return 共享连接数
+     */
+    public int loadShared(InputStream in) throws DocumentException {
+        Map<String, KettleConnection> connections = readShared(in);
+        sharedConnections = connections;
+        log.info("加载共享连接: count={}", connections.size());
+        return connections.size();
+    }
+
+    /**
+     * 读取 shared.xml 中的共享连接，不影响全局默认共享连接
+     *
+     * @param in shared.xml 数据流（调用方负责关闭）
+     * @return 连接名称 -> 连接（只读）
+     */
+    public static Map<String, KettleConnection> readShared(InputStream in) throws DocumentException {
+        Document document = new SAXReader().read(in);
+        Map<String, KettleConnection> connections = new LinkedHashMap<>();
+        for (KettleConnection connection : parseConnections(document.getRootElement())) {
+            connection.setShared(true);
+            connections.put(connection.getName(), connection);
+        }
+        return Collections.unmodifiableMap(connections);
+    }
+
+    /**
+     * 当前全局默认共享连接
+     */
+    public List<KettleConnection> getSharedConnections() {
+        return new ArrayList<>(sharedConnections.values());
+    }
+
+    /**
+     * 读取元素下的 &lt;connection&gt; 子元素（.ktr 根元素或 shared.xml 的 &lt;sharedobjects&gt;）
+     */
+    public static List<KettleConnection> parseConnections(Element parent) {
+        List<KettleConnection> connections = new ArrayList<>();
+        for (Element element : parent.elements("connection")) {
+            String name = KettleXml.text(element, "name");
+            if (name == null) {
+                continue;
+            }
+            KettleConnection connection = new KettleConnection();
+            connection.setName(name);
+            connection.setType(KettleXml.text(element, "type"));
+            connection.setAccess(KettleXml.text(element, "access"));
+            connection.setServer(KettleXml.text(element, "server"));
+            connection.setPort(KettleXml.text(element, "port"));
+            connection.setDatabase(KettleXml.text(element, "database"));
+            connections.add(connection);
+        }
+        return connections;
+    }
+
+    /**
+     * 按全局默认共享连接补全并解析连接
+     */
+    public void resolve(KettleTransformation transformation) {
+        resolve(transformation, Collections.emptyMap());
+    }
+
+    /**
+     * 补全步骤引用、转换内未定义的共享连接，并为全部连接解析方言和已登记数据源
+     *
+     * @param scoped 本次导入的共享连接，同名时优先于全局默认共享连接
+     */
+    public void resolve(KettleTransformation transformation, Map<String, KettleConnection> scoped) {
+        Map<String, KettleConnection> shared = sharedConnections;
+        for (KettleStep step : transformation.getSteps()) {
+            String name = step.getConnection();
+            if (name == null || transformation.getConnection(name) != null) {
+                continue;
+            }
+            KettleConnection connection = scoped.containsKey(name) ? scoped.get(name) : shared.get(name);
+            if (connection != null) {
+                transformation.addConnection(copy(connection));
+            }
+        }
+
+        Collection<KettleConnection> connections = transformation.getConnections().values();
+        if (connections.isEmpty()) {
+            return;
+        }
+        for (KettleConnection connection : connections) {
+            connection.setDbType(dialect(connection.getType()));
+        }
+        try {
+            matchDataSources(connections);
+        } catch (RuntimeException e) {
+            log.warn("匹配数据源失败: transformation={}", transformation.getName(), e);
+        }
+    }
+
+    /**
+     * Kettle 数据库类型映射为方言，无法识别时返回 null
+     */
+    public String dialect(String kettleType) {
+        if (StringUtils.isBlank(kettleType)) {
+            return null;
+        }
+        String normalized = kettleType.trim().toUpperCase(Locale.ROOT);
+        String dialect = DIALECTS.get(normalized);
+        if (dialect == null && dbTypeResolver.isSupported(normalized)) {
+            dialect = normalized.toLowerCase(Locale.ROOT);
+        }
+        return dialect;
+    }
+
+    /**
+     * 数据源变更后丢弃缓存；在事务中调用时提交后再丢弃一次，避免提交前重新加载到旧数据
+     */
+    public void invalidateDataSources() {
+        dataSources = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dataSources = null;
+                }
+            });
+        }
+    }
+
+    /**
+     * 已登记的数据源（数据源数量有限，整体缓存，过期后重新加载）
+     */
+    private List<DataSource> dataSources() {
+        DataSourceSnapshot snapshot = dataSources;
+        long ttl = TimeUnit.SECONDS.toNanos(Math.max(0, properties.getKettle().getDatasourceCacheSeconds()));
+        if (snapshot == null || System.nanoTime() - snapshot.loadedAt >= ttl) {
+            snapshot = new DataSourceSnapshot(dataSourceMapper.selectList(null));
+            dataSources = snapshot;
+        }
+        return snapshot.items;
+    }
+
+    /**
+     * 名称相同优先；否则库名相同、方言一致且 URL 含主机名的唯一数据源
+     */
+    private void matchDataSources(Collection<KettleConnection> connections) {
+        List<DataSource> candidates = dataSources();
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        for (KettleConnection connection : connections) {
+            DataSource match = candidates.stream()
+                    .filter(ds -> connection.getName().equalsIgnoreCase(ds.getName()))
+                    .findFirst()
+                    .orElse(null);
+            if (match == null) {
+                List<DataSource> sameDatabase = candidates.stream()
+                        .filter(ds -> sameDatabase(connection, ds))
+                        .collect(Collectors.toList());
+                match = sameDatabase.size() == 1 ? sameDatabase.get(0) : null;
+            }
+            if (match == null) {
+                continue;
+            }
+            connection.setDatasourceId(match.getId());
+            if (connection.getDbType() == null && dbTypeResolver.isSupported(match.getType())) {
+                connection.setDbType(match.getType().trim().toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    private static boolean sameDatabase(KettleConnection connection, DataSource dataSource) {
+        String database = connection.getDatabase();
+        if (!isLiteral(database) || !database.equalsIgnoreCase(dataSource.getDatabaseName())) {
+            return false;
+        }
+        if (connection.getDbType() != null && dataSource.getType() != null
+                && !connection.getDbType().equalsIgnoreCase(dataSource.getType().trim())) {
+            return false;
+        }
+        String server = connection.getServer();
+        return !isLiteral(server) || StringUtils.containsIgnoreCase(dataSource.getUrl(), server);
+    }
+
+    /**
+     * 非空且不含 Kettle 变量
+     */
+    private static boolean isLiteral(String value) {
+        return StringUtils.isNotBlank(value) && !value.contains("${") && !value.contains("%%");
+    }
+
+    private static final class DataSourceSnapshot {
+        private final List<DataSource> items;
+        private final long loadedAt = System.nanoTime();
+
+        private DataSourceSnapshot(List<DataSource> items) {
+            this.items = items;
+        }
+    }
+
+    private static KettleConnection copy(KettleConnection source) {
+        KettleConnection connection = new KettleConnection();
+        connection.setName(source.getName());
+        connection.setType(source.getType());
+        connection.setAccess(source.getAccess());
+        connection.setServer(source.getServer());
+        connection.setPort(source.getPort());
+        connection.setDatabase(source.getDatabase());
+        connection.setShared(true);
+        return connection;
+    }
+}
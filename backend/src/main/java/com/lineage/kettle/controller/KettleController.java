@@ -2,9 +2,13 @@ package com.lineage.kettle.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.lineage.dto.response.ApiResponse;
+import com.lineage.dto.response.CursorPage;
+import com.lineage.kettle.connection.KettleConnectionResolver;
 import com.lineage.kettle.dto.BatchUploadResponse;
 import com.lineage.kettle.dto.KettleParseResponse;
 import com.lineage.kettle.entity.KettleFileRecord;
+import com.lineage.kettle.model.KettleConnection;
+import com.lineage.kettle.model.KettleFieldLineage;
 import com.lineage.kettle.model.KettleSqlInfo;
 import com.lineage.kettle.model.KettleTransformation;
 import com.lineage.kettle.service.KettleFileService;
@@ -14,6 +18,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 
@@ -31,6 +37,9 @@ public class KettleController {
     @Resource
     private KettleFileService kettleFileService;
     
+    @Resource
+    private KettleConnectionResolver connectionResolver;
+    
     /**
      * 解析Kettle文件
      */
@@ -75,6 +84,7 @@ public class KettleController {
             List<KettleSqlInfo> sqls = kettleService.extractSqls(transformation);
             
             KettleParseResponse response = KettleParseResponse.of(transformation, sqls);
+            response.setFieldLineages(kettleService.extractFieldLineage(transformation));
             return ApiResponse.success("解析成功", response);
             
         } catch (Exception e) {
@@ -83,6 +93,30 @@ public class KettleController {
         }
     }
     
+    /**
+     * 解析字段级血缘（TableInput 字段经各步骤传递到输出表字段）
+     */
+    @PostMapping("/field-lineage")
+    public ApiResponse<List<KettleFieldLineage>> extractFieldLineage(@RequestParam("file") MultipartFile file) {
+        try {
+            log.info("解析字段级血缘: {}", file.getOriginalFilename());
+            
+            // 验证文件类型
+            String filename = file.getOriginalFilename();
+            if (filename == null || !filename.endsWith(".ktr")) {
+                return ApiResponse.error(400, "文件格式错误，仅支持.ktr文件");
+            }
+            
+            KettleTransformation transformation = kettleService.parseKettleFile(file);
+            List<KettleFieldLineage> lineages = kettleService.extractFieldLineage(transformation);
+            return ApiResponse.success("解析成功，共" + lineages.size() + "条字段血缘", lineages);
+            
+        } catch (Exception e) {
+            log.error("解析字段级血缘失败", e);
+            return ApiResponse.error(500, "解析失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 仅提取SQL（不返回完整转换信息）
      */
@@ -170,6 +204,65 @@ public class KettleController {
         }
     }
     
+    /**
+     * 导入 zip 格式的 Kettle 仓库
+     *
+     * 请求体直接为 zip 数据（非 multipart），服务端边接收边解压、解析，不先缓冲整个归档
+     */
+    @PostMapping(value = "/import/zip", consumes = {"application/zip", "application/x-zip-compressed", "application/octet-stream"})
+    public ApiResponse<BatchUploadResponse> importZip(HttpServletRequest request) {
+        try (InputStream in = request.getInputStream()) {
+            log.info("导入Kettle仓库(zip): contentLength={}", request.getContentLengthLong());
+            BatchUploadResponse response = kettleFileService.importZip(in);
+            return ApiResponse.success("导入完成", response);
+        } catch (Exception e) {
+            log.error("导入Kettle仓库失败", e);
+            return ApiResponse.error(500, "导入失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 导入服务器目录中的 Kettle 仓库
+     *
+     * @param path 仓库目录，须位于 lineage.kettle.import-roots 之下
+     */
+    @PostMapping("/import/directory")
+    public ApiResponse<BatchUploadResponse> importDirectory(@RequestParam String path) {
+        try {
+            log.info("导入Kettle仓库(目录): path={}", path);
+            BatchUploadResponse response = kettleFileService.importDirectory(path);
+            return ApiResponse.success("导入完成", response);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("导入Kettle仓库失败", e);
+            return ApiResponse.error(500, "导入失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 上传全局默认 shared.xml，替换当前默认共享数据库连接（仓库导入自带的 shared.xml 只作用于该次导入）
+     */
+    @PostMapping("/shared-connections")
+    public ApiResponse<Integer> uploadSharedConnections(@RequestParam("file") MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            log.info("加载共享连接: {}", file.getOriginalFilename());
+            int count = connectionResolver.loadShared(in);
+            return ApiResponse.success("加载共享连接成功", count);
+        } catch (Exception e) {
+            log.error("加载共享连接失败", e);
+            return ApiResponse.error(500, "加载失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 查询当前默认共享数据库连接
+     */
+    @GetMapping("/shared-connections")
+    public ApiResponse<List<KettleConnection>> listSharedConnections() {
+        return ApiResponse.success(connectionResolver.getSharedConnections());
+    }
+    
     /**
      * 查询文件记录列表
      */
@@ -177,11 +270,27 @@ public class KettleController {
     public ApiResponse<IPage<KettleFileRecord>> listFiles(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String status) {
-        IPage<KettleFileRecord> result = kettleFileService.listFileRecords(page, size, status);
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "true") boolean count) {
+        IPage<KettleFileRecord> result = kettleFileService.listFileRecords(page, size, status, count);
         return ApiResponse.success(result);
     }
     
+    /**
+     * 键集分页查询文件记录（深翻页，不返回总数）
+     */
+    @GetMapping("/files/seek")
+    public ApiResponse<CursorPage<KettleFileRecord>> seekFiles(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String status) {
+        try {
+            return ApiResponse.success(kettleFileService.seekFileRecords(cursor, size, status));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+    
     /**
      * 查询文件记录详情
      */
@@ -29,6 +29,21 @@ public class BatchUploadResponse {
      */
     private int failedCount;
     
+    /**
+     * 内容未变化、复用已有解析结果的数量（计入成功数量）
+     */
+    private int unchangedCount;
+    
+    /**
+     * 记录写入的批次数（每批一个事务）
+     */
+    private int persistBatches;
+    
+    /**
+     * 记录写入事务累计占用数据库连接的时间（毫秒），不含解析
+     */
+    private long connectionHoldMillis;
+    
     /**
      * 处理状态
      */
@@ -46,5 +61,10 @@ public class BatchUploadResponse {
         private String status;
         private String errorMessage;
         private Integer sqlCount;
+        
+        /**
+         * 内容与已有记录相同，未重新解析
+         */
+        private boolean unchanged;
     }
 }
@@ -1,5 +1,6 @@
 package com.lineage.kettle.dto;
 
+import com.lineage.kettle.model.KettleFieldLineage;
 import com.lineage.kettle.model.KettleSqlInfo;
 import com.lineage.kettle.model.KettleTransformation;
 import lombok.Data;
@@ -22,6 +23,11 @@ public class KettleParseResponse {
      */
     private List<KettleSqlInfo> sqls;
     
+    /**
+     * 字段级血缘
+     */
+    private List<KettleFieldLineage> fieldLineages;
+    
     /**
      * 步骤数量
      */
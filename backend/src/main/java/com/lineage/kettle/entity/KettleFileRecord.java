@@ -29,6 +29,11 @@ public class KettleFileRecord {
      */
     private Long fileSize;
     
+    /**
+     * 文件内容 SHA-256（十六进制）
+     */
+    private String contentHash;
+    
     /**
      * 转换名称
      */
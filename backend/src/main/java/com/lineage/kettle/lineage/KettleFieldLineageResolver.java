@@ -0,0 +1,476 @@
+package com.lineage.kettle.lineage;
+
+import com.lineage.core.LineageAnalyzer;
+import com.lineage.core.dialect.DialectDetector;
+import com.lineage.core.tracker.FieldDependency;
+import com.lineage.core.tracker.FieldSource;
+import com.lineage.core.tracker.LineageResult;
+import com.lineage.core.tracker.TransformationType;
+import com.lineage.kettle.model.KettleCalculation;
+import com.lineage.kettle.model.KettleConnection;
+import com.lineage.kettle.model.KettleField;
+import com.lineage.kettle.model.KettleFieldLineage;
+import com.lineage.kettle.model.KettleFieldMapping;
+import com.lineage.kettle.model.KettleHop;
+import com.lineage.kettle.model.KettleStep;
+import com.lineage.kettle.model.KettleTransformation;
+import com.lineage.kettle.model.step.CalculatorStep;
+import com.lineage.kettle.model.step.DatabaseJoinStep;
+import com.lineage.kettle.model.step.DatabaseLookupStep;
+import com.lineage.kettle.model.step.DynamicSqlRowStep;
+import com.lineage.kettle.model.step.InsertUpdateStep;
+import com.lineage.kettle.model.step.SelectValuesStep;
+import com.lineage.kettle.model.step.StreamLookupStep;
+import com.lineage.kettle.model.step.TableInputStep;
+import com.lineage.kettle.model.step.TableOutputStep;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Kettle转换内字段级血缘解析
+ *
+ * 按启用的连接对步骤做一次拓扑遍历：每个步骤由上游输出行推导自己的输出行
+ * （字段名 -> 来源表字段），输出步骤按字段映射生成血缘。
+ * 未改变行结构的步骤直接复用上游的行，不做复制
+ */
+@Slf4j
+@Component
+public class KettleFieldLineageResolver {
+
+    private static final String WILDCARD = "*";
+
+    /**
+     * Kettle 变量（${VAR} / %%VAR%%），解析 SQL 前替换为变量名
+     */
+    private static final Pattern VARIABLE = Pattern.compile("\\$\\{([^}]+)}|%%([^%]+)%%");
+
+    private static final Set<String> ARITHMETIC_CALCULATIONS = new LinkedHashSet<>(Arrays.asList(
+            "ADD", "SUBTRACT", "MULTIPLY", "DIVIDE", "SQUARE", "SQUARE_ROOT",
+            "PERCENT_1", "PERCENT_2", "PERCENT_3", "COMBINATION_1", "COMBINATION_2", "ABS", "ROUND_1", "ROUND_2"));
+
+    @Resource
+    private LineageAnalyzer lineageAnalyzer;
+
+    /**
+     * 解析转换的字段级血缘
+     */
+    public List<KettleFieldLineage> resolve(KettleTransformation transformation) {
+        Map<String, KettleStep> steps = new LinkedHashMap<>();
+        for (KettleStep step : transformation.getSteps()) {
+            steps.put(step.getName(), step);
+        }
+
+        // 入度与后继
+        Map<String, List<String>> successors = new HashMap<>();
+        Map<String, List<String>> predecessors = new HashMap<>();
+        Map<String, Integer> inDegree = new HashMap<>();
+        for (String name : steps.keySet()) {
+            inDegree.put(name, 0);
+        }
+        for (KettleHop hop : transformation.getHops()) {
+            if (!hop.isEnabled() || !steps.containsKey(hop.getFromStep()) || !steps.containsKey(hop.getToStep())) {
+                continue;
+            }
+            successors.computeIfAbsent(hop.getFromStep(), k -> new ArrayList<>()).add(hop.getToStep());
+            predecessors.computeIfAbsent(hop.getToStep(), k -> new ArrayList<>()).add(hop.getFromStep());
+            inDegree.merge(hop.getToStep(), 1, Integer::sum);
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        inDegree.forEach((name, degree) -> {
+            if (degree == 0) {
+                ready.add(name);
+            }
+        });
+
+        List<KettleFieldLineage> lineages = new ArrayList<>();
+        Map<String, Map<String, FieldOrigin>> outputs = new HashMap<>();
+        while (!ready.isEmpty()) {
+            String name = ready.poll();
+            KettleStep step = steps.get(name);
+            Map<String, FieldOrigin> input = mergeInputs(mainInputs(step, predecessors.get(name)), outputs);
+            outputs.put(name, process(transformation, step, input, outputs, lineages));
+
+            for (String next : successors.getOrDefault(name, Collections.emptyList())) {
+                if (inDegree.merge(next, -1, Integer::sum) == 0) {
+                    ready.add(next);
+                }
+            }
+        }
+
+        if (outputs.size() < steps.size()) {
+            log.warn("转换中存在环路，{}个步骤未参与字段血缘解析: transformation={}",
+                    steps.size() - outputs.size(), transformation.getName());
+        }
+        log.debug("字段血缘解析完成: transformation={}, lineages={}", transformation.getName(), lineages.size());
+        return lineages;
+    }
+
+    /**
+     * 计算步骤的输出行，输出步骤同时生成血缘
+     */
+    private Map<String, FieldOrigin> process(KettleTransformation transformation, KettleStep step,
+                                             Map<String, FieldOrigin> input,
+                                             Map<String, Map<String, FieldOrigin>> outputs,
+                                             List<KettleFieldLineage> lineages) {
+        KettleConnection connection = transformation.getConnection(step.getConnection());
+        if (step instanceof TableInputStep) {
+            return queryFields(step, ((TableInputStep) step).getSql(), connection);
+        } else if (step instanceof DatabaseJoinStep) {
+            return appendFields(input, queryFields(step, ((DatabaseJoinStep) step).getSql(), connection));
+        } else if (step instanceof DynamicSqlRowStep) {
+            return appendFields(input, queryFields(step, ((DynamicSqlRowStep) step).getSql(), connection));
+        } else if (step instanceof DatabaseLookupStep) {
+            return databaseLookup((DatabaseLookupStep) step, input);
+        } else if (step instanceof StreamLookupStep) {
+            StreamLookupStep lookup = (StreamLookupStep) step;
+            return streamLookup(lookup, input, outputs.getOrDefault(lookup.getLookupStep(), Collections.emptyMap()));
+        } else if (step instanceof SelectValuesStep) {
+            return selectValues((SelectValuesStep) step, input);
+        } else if (step instanceof CalculatorStep) {
+            return calculator((CalculatorStep) step, input);
+        } else if (step instanceof TableOutputStep) {
+            tableOutput((TableOutputStep) step, input, lineages);
+        } else if (step instanceof InsertUpdateStep) {
+            updateValues((InsertUpdateStep) step, input, lineages);
+        }
+        return input;
+    }
+
+    /**
+     * TableInput / DBJoin / DynamicSQLRow：用 SQL 血缘确定查询字段的来源，连接方言未知时自动识别
+     */
+    private Map<String, FieldOrigin> queryFields(KettleStep step, String sql, KettleConnection connection) {
+        Map<String, FieldOrigin> row = new LinkedHashMap<>();
+        if (sql == null) {
+            return row;
+        }
+
+        String dbType = connection == null || connection.getDbType() == null
+                ? DialectDetector.AUTO : connection.getDbType();
+        LineageResult result = lineageAnalyzer.analyze(replaceVariables(sql), dbType, false);
+        if (!result.isSuccess()) {
+            log.warn("{} SQL解析失败, 字段血缘中断: step={}, error={}",
+                    step.getType(), step.getName(), result.getErrorMessage());
+            return row;
+        }
+
+        for (FieldDependency dependency : result.getFieldDependencies()) {
+            String field = dependency.getTargetField();
+            if (field == null || WILDCARD.equals(field)) {
+                continue;
+            }
+            Set<String> sources = new LinkedHashSet<>();
+            addSources(sources, dependency.getSourceTable(), dependency.getSourceFields());
+            if (dependency.getUnionSources() != null) {
+                for (FieldSource source : dependency.getUnionSources()) {
+                    addSources(sources, source.getSourceTable(), source.getSourceFields());
+                }
+            }
+            TransformationType fieldType = dependency.getTransformationType() == null
+                    ? TransformationType.DIRECT : dependency.getTransformationType();
+            put(row, new FieldOrigin(field, sources, fieldType));
+        }
+        return row;
+    }
+
+    /**
+     * 查询结果字段追加到输入行之后
+     */
+    private Map<String, FieldOrigin> appendFields(Map<String, FieldOrigin> input, Map<String, FieldOrigin> fields) {
+        if (fields.isEmpty()) {
+            return input;
+        }
+        Map<String, FieldOrigin> row = new LinkedHashMap<>(input);
+        row.putAll(fields);
+        return row;
+    }
+
+    /**
+     * DBLookup：返回字段来源为查询表的同名字段
+     */
+    private Map<String, FieldOrigin> databaseLookup(DatabaseLookupStep step, Map<String, FieldOrigin> input) {
+        String table = step.getQualifiedTable();
+        if (table == null || step.getReturnFields().isEmpty()) {
+            return input;
+        }
+        Map<String, FieldOrigin> row = new LinkedHashMap<>(input);
+        for (KettleField field : step.getReturnFields()) {
+            FieldOrigin origin = new FieldOrigin(field.getName(),
+                    Collections.singleton(table + "." + field.getName()), TransformationType.DIRECT);
+            String rename = field.getRename();
+            put(row, rename == null || rename.equalsIgnoreCase(field.getName()) ? origin : origin.renamed(rename));
+        }
+        return row;
+    }
+
+    /**
+     * StreamLookup：返回字段来源取自查询步骤的输出行
+     */
+    private Map<String, FieldOrigin> streamLookup(StreamLookupStep step, Map<String, FieldOrigin> input,
+                                                  Map<String, FieldOrigin> lookupRow) {
+        if (step.getReturnFields().isEmpty()) {
+            return input;
+        }
+        Map<String, FieldOrigin> row = new LinkedHashMap<>(input);
+        for (KettleField field : step.getReturnFields()) {
+            FieldOrigin origin = lookupRow.get(key(field.getName()));
+            if (origin == null) {
+                continue;
+            }
+            String rename = field.getRename();
+            put(row, rename == null || rename.equalsIgnoreCase(field.getName())
+                    ? origin.withName(field.getName())
+                    : origin.renamed(rename));
+        }
+        return row;
+    }
+
+    /**
+     * SelectValues：按字段选择/重命名，select_unspecified=Y 时保留其余字段，最后移除指定字段
+     */
+    private Map<String, FieldOrigin> selectValues(SelectValuesStep step, Map<String, FieldOrigin> input) {
+        if (step.getFields().isEmpty() && step.getRemovedFields().isEmpty()) {
+            return input;
+        }
+
+        Map<String, FieldOrigin> row = new LinkedHashMap<>();
+        if (step.getFields().isEmpty()) {
+            row.putAll(input);
+        } else {
+            Set<String> selected = new LinkedHashSet<>();
+            for (KettleField field : step.getFields()) {
+                String name = field.getName();
+                FieldOrigin origin = input.get(key(name));
+                if (origin == null) {
+                    continue;
+                }
+                selected.add(key(name));
+                String rename = field.getRename();
+                put(row, rename == null || rename.equalsIgnoreCase(name)
+                        ? origin.withName(name)
+                        : origin.renamed(rename));
+            }
+            if (step.isSelectUnspecified()) {
+                input.forEach((key, origin) -> {
+                    if (!selected.contains(key)) {
+                        row.putIfAbsent(key, origin);
+                    }
+                });
+            }
+        }
+        for (String removed : step.getRemovedFields()) {
+            row.remove(key(removed));
+        }
+        return row;
+    }
+
+    /**
+     * Calculator：新字段来源为参与计算的字段 A/B/C，remove=Y 的临时字段不输出
+     */
+    private Map<String, FieldOrigin> calculator(CalculatorStep step, Map<String, FieldOrigin> input) {
+        if (step.getCalculations().isEmpty()) {
+            return input;
+        }
+
+        Map<String, FieldOrigin> row = new LinkedHashMap<>(input);
+        List<String> temporary = new ArrayList<>();
+        for (KettleCalculation calculation : step.getCalculations()) {
+            String name = calculation.getFieldName();
+            Set<String> sources = new LinkedHashSet<>();
+            TransformationType fieldType = calculationType(calculation.getCalcType());
+            String[] operands = {calculation.getFieldA(), calculation.getFieldB(), calculation.getFieldC()};
+            for (String operandName : operands) {
+                FieldOrigin origin = operandName == null ? null : row.get(key(operandName));
+                if (origin != null) {
+                    sources.addAll(origin.sources);
+                    fieldType = fieldType.merge(origin.type);
+                }
+            }
+            put(row, new FieldOrigin(name, sources, fieldType));
+            if (calculation.isRemove()) {
+                temporary.add(key(name));
+            }
+        }
+        for (String name : temporary) {
+            row.remove(name);
+        }
+        return row;
+    }
+
+    /**
+     * TableOutput：specify_fields=Y 时按 column_name <- stream_name 映射，否则按流字段同名写入
+     */
+    private void tableOutput(TableOutputStep step, Map<String, FieldOrigin> input, List<KettleFieldLineage> lineages) {
+        String targetTable = step.getQualifiedTable();
+        if (targetTable == null) {
+            return;
+        }
+        if (step.isSpecifyFields()) {
+            for (KettleFieldMapping mapping : step.getFields()) {
+                emit(step, targetTable, mapping.getColumn(), mapping.getStream(), input, lineages);
+            }
+        } else {
+            for (FieldOrigin origin : input.values()) {
+                emit(step, targetTable, origin.name, origin.name, input, lineages);
+            }
+        }
+    }
+
+    /**
+     * InsertUpdate/Update：更新字段（表字段 <- 流字段）
+     */
+    private void updateValues(InsertUpdateStep step, Map<String, FieldOrigin> input, List<KettleFieldLineage> lineages) {
+        String targetTable = step.getQualifiedTable();
+        if (targetTable == null) {
+            return;
+        }
+        for (KettleFieldMapping mapping : step.getUpdateFields()) {
+            emit(step, targetTable, mapping.getColumn(), mapping.getStream(), input, lineages);
+        }
+    }
+
+    private void emit(KettleStep step, String targetTable, String column, String streamField,
+                      Map<String, FieldOrigin> input, List<KettleFieldLineage> lineages) {
+        if (column == null) {
+            return;
+        }
+        FieldOrigin origin = input.get(key(streamField == null ? column : streamField));
+        if (origin == null) {
+            return;
+        }
+        KettleFieldLineage lineage = new KettleFieldLineage();
+        lineage.setStepName(step.getName());
+        lineage.setTargetTable(targetTable);
+        lineage.setTargetField(column);
+        lineage.setSourceFields(new ArrayList<>(origin.sources));
+        lineage.setTransformationType(column.equalsIgnoreCase(origin.name)
+                ? origin.type : origin.type.merge(TransformationType.RENAME));
+        lineages.add(lineage);
+    }
+
+    /**
+     * 主输入步骤：StreamLookup 的查询步骤只提供查询数据，不并入输入行
+     */
+    private static List<String> mainInputs(KettleStep step, List<String> from) {
+        if (!(step instanceof StreamLookupStep) || from == null) {
+            return from;
+        }
+        String lookupStep = ((StreamLookupStep) step).getLookupStep();
+        List<String> main = new ArrayList<>(from);
+        main.remove(lookupStep);
+        return main;
+    }
+
+    /**
+     * 合并上游输出行；只有一个上游时直接复用其输出
+     */
+    private Map<String, FieldOrigin> mergeInputs(List<String> from, Map<String, Map<String, FieldOrigin>> outputs) {
+        if (from == null || from.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (from.size() == 1) {
+            return outputs.getOrDefault(from.get(0), Collections.emptyMap());
+        }
+        Map<String, FieldOrigin> merged = new LinkedHashMap<>();
+        for (String name : from) {
+            outputs.getOrDefault(name, Collections.emptyMap())
+                    .forEach((key, origin) -> merged.merge(key, origin, FieldOrigin::union));
+        }
+        return merged;
+    }
+
+    private static TransformationType calculationType(String calcType) {
+        if (calcType == null) {
+            return TransformationType.FUNCTION;
+        }
+        if ("CONSTANT".equals(calcType)) {
+            return TransformationType.CONSTANT;
+        }
+        if ("COPY_FIELD".equals(calcType)) {
+            return TransformationType.DIRECT;
+        }
+        return ARITHMETIC_CALCULATIONS.contains(calcType) ? TransformationType.ARITHMETIC : TransformationType.FUNCTION;
+    }
+
+    private static void addSources(Set<String> sources, String table, List<String> fields) {
+        if (table == null || fields == null) {
+            return;
+        }
+        for (String field : fields) {
+            if (!WILDCARD.equals(field)) {
+                sources.add(table + "." + field);
+            }
+        }
+    }
+
+    static String replaceVariables(String sql) {
+        Matcher matcher = VARIABLE.matcher(sql);
+        if (!matcher.find()) {
+            return sql;
+        }
+        StringBuffer replaced = new StringBuffer();
+        do {
+            String name = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            matcher.appendReplacement(replaced, Matcher.quoteReplacement(name));
+        } while (matcher.find());
+        matcher.appendTail(replaced);
+        return replaced.toString();
+    }
+
+    private static void put(Map<String, FieldOrigin> row, FieldOrigin origin) {
+        row.put(key(origin.name), origin);
+    }
+
+    /**
+     * Kettle 行内字段名不区分大小写
+     */
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 行内字段：显示名、来源表字段、累计转换类型（不可变，可在步骤间共享）
+     */
+    private static final class FieldOrigin {
+        private final String name;
+        private final Set<String> sources;
+        private final TransformationType type;
+
+        private FieldOrigin(String name, Set<String> sources, TransformationType type) {
+            this.name = name;
+            this.sources = sources;
+            this.type = type;
+        }
+
+        FieldOrigin withName(String newName) {
+            return newName.equals(name) ? this : new FieldOrigin(newName, sources, type);
+        }
+
+        FieldOrigin renamed(String newName) {
+            return new FieldOrigin(newName, sources, type.merge(TransformationType.RENAME));
+        }
+
+        FieldOrigin union(FieldOrigin other) {
+            Set<String> merged = new LinkedHashSet<>(sources);
+            merged.addAll(other.sources);
+            return new FieldOrigin(name, merged, type.merge(other.type));
+        }
+    }
+}
@@ -2,11 +2,30 @@ package com.lineage.kettle.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lineage.kettle.entity.KettleFileRecord;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * Kettle文件记录 Mapper
  */
 @Mapper
 public interface KettleFileRecordMapper extends BaseMapper<KettleFileRecord> {
+    
+    /**
+     * 多行 VALUES 批量插入，回填自增主键
+     */
+    @Insert("<script>INSERT INTO kettle_file_record (file_name, file_path, file_size, content_hash, "
+            + "transformation_name, transformation_desc, step_count, sql_count, hop_count, parse_status, "
+            + "error_message, create_time, update_time) VALUES "
+            + "<foreach collection='records' item='r' separator=','>"
+            + "(#{r.fileName}, #{r.filePath}, #{r.fileSize}, #{r.contentHash}, #{r.transformationName}, "
+            + "#{r.transformationDesc}, #{r.stepCount}, #{r.sqlCount}, #{r.hopCount}, #{r.parseStatus}, "
+            + "#{r.errorMessage}, #{r.createTime}, #{r.updateTime})"
+            + "</foreach></script>")
+    @Options(useGeneratedKeys = true, keyProperty = "records.id", keyColumn = "id")
+    int insertBatch(@Param("records") List<KettleFileRecord> records);
 }
@@ -0,0 +1,34 @@
+package com.lineage.kettle.model;
+
+import lombok.Data;
+
+/**
+ * Calculator计算项
+ */
+@Data
+public class KettleCalculation {
+    
+    /**
+     * 新字段名
+     */
+    private String fieldName;
+    
+    /**
+     * 计算类型（ADD / CONSTANT / COPY_FIELD 等）
+     */
+    private String calcType;
+    
+    /**
+     * 参与计算的字段 A/B/C
+     */
+    private String fieldA;
+    
+    private String fieldB;
+    
+    private String fieldC;
+    
+    /**
+     * 是否为临时字段（不输出到下游）
+     */
+    private boolean remove;
+}
@@ -0,0 +1,55 @@
+package com.lineage.kettle.model;
+
+import lombok.Data;
+
+/**
+ * Kettle数据库连接模型（转换内 &lt;connection&gt; 或 shared.xml 中的共享连接）
+ */
+@Data
+public class KettleConnection {
+    
+    /**
+     * 连接名称（步骤通过名称引用）
+     */
+    private String name;
+    
+    /**
+     * Kettle数据库类型（MYSQL / ORACLE / HIVE2 ...）
+     */
+    private String type;
+    
+    /**
+     * 访问方式（Native / JNDI / ODBC）
+     */
+    private String access;
+    
+    /**
+     * 主机
+     */
+    private String server;
+    
+    /**
+     * 端口
+     */
+    private String port;
+    
+    /**
+     * 数据库名称
+     */
+    private String database;
+    
+    /**
+     * 是否来自共享连接（shared.xml）
+     */
+    private boolean shared;
+    
+    /**
+     * 解析出的SQL方言，无法识别时为空
+     */
+    private String dbType;
+    
+    /**
+     * 匹配到的已登记数据源ID，未匹配时为空
+     */
+    private Long datasourceId;
+}
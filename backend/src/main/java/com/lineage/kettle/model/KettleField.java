@@ -0,0 +1,24 @@
+package com.lineage.kettle.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 步骤中的字段（字段名及可选的新名称）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KettleField {
+    
+    /**
+     * 字段名
+     */
+    private String name;
+    
+    /**
+     * 重命名后的字段名，未重命名时为空
+     */
+    private String rename;
+}
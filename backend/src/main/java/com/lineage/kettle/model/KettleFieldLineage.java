@@ -0,0 +1,39 @@
+package com.lineage.kettle.model;
+
+import com.lineage.core.tracker.TransformationType;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kettle字段级血缘（输出步骤写入的目标字段 -> 来源表字段）
+ */
+@Data
+public class KettleFieldLineage {
+    
+    /**
+     * 写入目标字段的步骤名称
+     */
+    private String stepName;
+    
+    /**
+     * 目标表（含Schema时为 schema.table）
+     */
+    private String targetTable;
+    
+    /**
+     * 目标字段
+     */
+    private String targetField;
+    
+    /**
+     * 来源字段（表名.字段名）
+     */
+    private List<String> sourceFields = new ArrayList<>();
+    
+    /**
+     * 转换类型（沿途各步骤中优先级最高者）
+     */
+    private TransformationType transformationType;
+}
@@ -0,0 +1,24 @@
+package com.lineage.kettle.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 表字段与流字段的映射
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KettleFieldMapping {
+    
+    /**
+     * 表字段
+     */
+    private String column;
+    
+    /**
+     * 流字段
+     */
+    private String stream;
+}
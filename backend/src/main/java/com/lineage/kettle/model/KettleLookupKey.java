@@ -0,0 +1,34 @@
+package com.lineage.kettle.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 数据库查询步骤的查询条件（表字段 比较符 流字段）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KettleLookupKey {
+
+    /**
+     * 表字段
+     */
+    private String column;
+
+    /**
+     * 流字段
+     */
+    private String stream;
+
+    /**
+     * 比较符（=、&lt;&gt;、&lt;、&lt;=、&gt;、&gt;=、LIKE、BETWEEN、IS NULL、IS NOT NULL），缺省为 =
+     */
+    private String condition;
+
+    /**
+     * BETWEEN 上界的流字段
+     */
+    private String stream2;
+}
@@ -42,4 +42,14 @@ public class KettleSqlInfo {
      * 数据库连接名称
      */
     private String connectionName;
+    
+    /**
+     * 由数据库连接解析出的SQL方言，无法识别时为空
+     */
+    private String dbType;
+    
+    /**
+     * 数据库连接对应的已登记数据源ID
+     */
+    private Long datasourceId;
 }
@@ -1,11 +1,12 @@
 package com.lineage.kettle.model;
 
 import lombok.Data;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Kettle步骤模型
+ *
+ * 未注册类型的步骤只保留名称、类型和连接；已注册类型由对应的
+ * {@link com.lineage.kettle.step.KettleStepHandler} 解析为带类型化属性的子类
  */
 @Data
 public class KettleStep {
@@ -21,21 +22,14 @@ public class KettleStep {
     private String type;
     
     /**
-     * 步骤属性（SQL、表名、字段等）
+     * 数据库连接名称
      */
-    private Map<String, String> attributes = new HashMap<>();
+    private String connection;
     
     /**
-     * 添加属性
-     */
-    public void addAttribute(String key, String value) {
-        this.attributes.put(key, value);
-    }
-    
-    /**
-     * 获取属性
+     * 按名称读取属性（sql / table / schema / connection），兼容旧的属性表读取方式
      */
     public String getAttribute(String key) {
-        return this.attributes.get(key);
+        return "connection".equals(key) ? connection : null;
     }
 }
@@ -2,7 +2,9 @@ package com.lineage.kettle.model;
 
 import lombok.Data;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Kettle转换文件模型
@@ -30,6 +32,11 @@ public class KettleTransformation {
      */
     private List<KettleHop> hops = new ArrayList<>();
     
+    /**
+     * 数据库连接（连接名称 -> 连接），含引用到的共享连接
+     */
+    private Map<String, KettleConnection> connections = new LinkedHashMap<>();
+    
     /**
      * 添加步骤
      */
@@ -43,4 +50,18 @@ public class KettleTransformation {
     public void addHop(KettleHop hop) {
         this.hops.add(hop);
     }
+    
+    /**
+     * 添加数据库连接，同名时覆盖
+     */
+    public void addConnection(KettleConnection connection) {
+        this.connections.put(connection.getName(), connection);
+    }
+    
+    /**
+     * 按名称查找数据库连接
+     */
+    public KettleConnection getConnection(String name) {
+        return name == null ? null : this.connections.get(name);
+    }
 }
@@ -0,0 +1,22 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleCalculation;
+import com.lineage.kettle.model.KettleStep;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calculator 计算器
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CalculatorStep extends KettleStep {
+    
+    /**
+     * 计算项（按顺序执行，后面的计算可引用前面的结果）
+     */
+    private List<KettleCalculation> calculations = new ArrayList<>();
+}
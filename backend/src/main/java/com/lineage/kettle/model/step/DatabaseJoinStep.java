@@ -0,0 +1,36 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleStep;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DBJoin 数据库连接（按输入行参数执行查询）
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class DatabaseJoinStep extends KettleStep {
+    
+    /**
+     * 带 ? 参数的查询语句
+     */
+    private String sql;
+    
+    /**
+     * 查询无结果时是否保留输入行
+     */
+    private boolean outerJoin;
+    
+    /**
+     * 依次绑定到 ? 的流字段
+     */
+    private List<String> parameters = new ArrayList<>();
+    
+    @Override
+    public String getAttribute(String key) {
+        return "sql".equals(key) ? sql : super.getAttribute(key);
+    }
+}
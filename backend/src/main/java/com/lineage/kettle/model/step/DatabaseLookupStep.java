@@ -0,0 +1,27 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleField;
+import com.lineage.kettle.model.KettleLookupKey;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DBLookup 数据库查询
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class DatabaseLookupStep extends DatabaseTableStep {
+    
+    /**
+     * 查询条件（表字段 比较符 流字段）
+     */
+    private List<KettleLookupKey> keys = new ArrayList<>();
+    
+    /**
+     * 返回字段（表字段，rename 为输出到流中的名称）
+     */
+    private List<KettleField> returnFields = new ArrayList<>();
+}
@@ -0,0 +1,44 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleStep;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 读写数据库表的步骤
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public abstract class DatabaseTableStep extends KettleStep {
+    
+    /**
+     * Schema名称
+     */
+    private String schema;
+    
+    /**
+     * 表名
+     */
+    private String table;
+    
+    /**
+     * 含Schema的表名
+     */
+    public String getQualifiedTable() {
+        if (table == null) {
+            return null;
+        }
+        return schema == null || schema.isEmpty() ? table : schema + "." + table;
+    }
+    
+    @Override
+    public String getAttribute(String key) {
+        if ("table".equals(key)) {
+            return table;
+        }
+        if ("schema".equals(key)) {
+            return schema;
+        }
+        return super.getAttribute(key);
+    }
+}
@@ -0,0 +1,21 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleFieldMapping;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delete 删除
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class DeleteStep extends DatabaseTableStep {
+    
+    /**
+     * 删除条件（表字段 = 流字段）
+     */
+    private List<KettleFieldMapping> keys = new ArrayList<>();
+}
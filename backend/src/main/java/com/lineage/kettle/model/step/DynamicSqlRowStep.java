@@ -0,0 +1,33 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleStep;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * DynamicSQLRow 动态SQL（SQL 取自输入行字段）
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class DynamicSqlRowStep extends KettleStep {
+    
+    /**
+     * 模板SQL（确定输出字段结构）
+     */
+    private String sql;
+    
+    /**
+     * 运行时提供SQL的流字段
+     */
+    private String sqlField;
+    
+    /**
+     * 查询无结果时是否保留输入行
+     */
+    private boolean outerJoin;
+    
+    @Override
+    public String getAttribute(String key) {
+        return "sql".equals(key) ? sql : super.getAttribute(key);
+    }
+}
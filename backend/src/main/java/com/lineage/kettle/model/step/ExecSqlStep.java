@@ -0,0 +1,23 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleStep;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * ExecSQL 执行SQL脚本
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ExecSqlStep extends KettleStep {
+    
+    /**
+     * SQL语句
+     */
+    private String sql;
+    
+    @Override
+    public String getAttribute(String key) {
+        return "sql".equals(key) ? sql : super.getAttribute(key);
+    }
+}
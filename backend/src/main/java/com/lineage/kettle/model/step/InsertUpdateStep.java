@@ -0,0 +1,26 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleFieldMapping;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * InsertUpdate 插入/更新、Update 更新
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class InsertUpdateStep extends DatabaseTableStep {
+    
+    /**
+     * 查询关键字（表字段 = 流字段）
+     */
+    private List<KettleFieldMapping> keys = new ArrayList<>();
+    
+    /**
+     * 更新字段（表字段 <- 流字段）
+     */
+    private List<KettleFieldMapping> updateFields = new ArrayList<>();
+}
@@ -0,0 +1,41 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleStep;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MergeJoin 记录集连接
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class MergeJoinStep extends KettleStep {
+    
+    /**
+     * 连接类型（INNER / LEFT OUTER / RIGHT OUTER / FULL OUTER）
+     */
+    private String joinType;
+    
+    /**
+     * 第一个（左）输入步骤
+     */
+    private String leftStep;
+    
+    /**
+     * 第二个（右）输入步骤
+     */
+    private String rightStep;
+    
+    /**
+     * 左侧连接字段
+     */
+    private List<String> leftKeys = new ArrayList<>();
+    
+    /**
+     * 右侧连接字段
+     */
+    private List<String> rightKeys = new ArrayList<>();
+}
@@ -0,0 +1,32 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleField;
+import com.lineage.kettle.model.KettleStep;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SelectValues 字段选择
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class SelectValuesStep extends KettleStep {
+    
+    /**
+     * 选择的字段（可重命名）
+     */
+    private List<KettleField> fields = new ArrayList<>();
+    
+    /**
+     * 移除的字段
+     */
+    private List<String> removedFields = new ArrayList<>();
+    
+    /**
+     * 是否保留未选择的字段
+     */
+    private boolean selectUnspecified;
+}
@@ -0,0 +1,33 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleField;
+import com.lineage.kettle.model.KettleFieldMapping;
+import com.lineage.kettle.model.KettleStep;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StreamLookup 流查询（在另一步骤的输出中查询）
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class StreamLookupStep extends KettleStep {
+    
+    /**
+     * 提供查询数据的步骤
+     */
+    private String lookupStep;
+    
+    /**
+     * 查询条件（查询步骤字段 = 流字段）
+     */
+    private List<KettleFieldMapping> keys = new ArrayList<>();
+    
+    /**
+     * 返回字段（查询步骤字段，rename 为输出到流中的名称）
+     */
+    private List<KettleField> returnFields = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package com.lineage.kettle.model.step;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * SynchronizeAfterMerge 合并后同步（按操作标识字段插入/更新/删除）
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class SynchronizeAfterMergeStep extends InsertUpdateStep {
+    
+    /**
+     * 操作标识字段
+     */
+    private String operationOrderField;
+    
+    /**
+     * 目标表名取自流字段时的字段名（此时表名在运行时确定）
+     */
+    private String tableNameField;
+}
@@ -0,0 +1,23 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleStep;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * TableInput 表输入
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class TableInputStep extends KettleStep {
+    
+    /**
+     * SQL语句
+     */
+    private String sql;
+    
+    @Override
+    public String getAttribute(String key) {
+        return "sql".equals(key) ? sql : super.getAttribute(key);
+    }
+}
@@ -0,0 +1,26 @@
+package com.lineage.kettle.model.step;
+
+import com.lineage.kettle.model.KettleFieldMapping;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TableOutput 表输出
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class TableOutputStep extends DatabaseTableStep {
+    
+    /**
+     * 是否显式指定字段映射，否则按流字段同名写入
+     */
+    private boolean specifyFields;
+    
+    /**
+     * 字段映射
+     */
+    private List<KettleFieldMapping> fields = new ArrayList<>();
+}
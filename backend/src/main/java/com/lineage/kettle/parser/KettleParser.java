@@ -1,53 +1,88 @@
 package com.lineage.kettle.parser;
 
+import com.lineage.kettle.connection.KettleConnectionResolver;
+import com.lineage.kettle.model.KettleConnection;
 import com.lineage.kettle.model.KettleHop;
 import com.lineage.kettle.model.KettleStep;
 import com.lineage.kettle.model.KettleTransformation;
+import com.lineage.kettle.step.KettleStepRegistry;
+import com.lineage.kettle.step.KettleXml;
 import lombok.extern.slf4j.Slf4j;
 import org.dom4j.Document;
 import org.dom4j.Element;
 import org.dom4j.io.SAXReader;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Resource;
 import java.io.File;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Kettle转换文件解析器
+ *
+ * 步骤按类型交给 {@link KettleStepRegistry} 中的处理器解析为类型化模型；
+ * 数据库连接由 {@link KettleConnectionResolver} 补全共享连接并解析方言和数据源
  */
 @Slf4j
 @Component
 public class KettleParser {
     
+    @Resource
+    private KettleStepRegistry stepRegistry;
+    
+    @Resource
+    private KettleConnectionResolver connectionResolver;
+    
     /**
      * 解析.ktr文件
      */
     public KettleTransformation parse(File file) throws Exception {
+        return parse(file, Collections.emptyMap());
+    }
+    
+    /**
+     * 解析.ktr文件
+     *
+     * @param sharedConnections 本次导入的共享连接（连接名称 -> 连接）
+     */
+    public KettleTransformation parse(File file, Map<String, KettleConnection> sharedConnections) throws Exception {
         log.info("开始解析Kettle文件: {}", file.getAbsolutePath());
         
         SAXReader reader = new SAXReader();
         Document document = reader.read(file);
         
-        return parseDocument(document);
+        return parseDocument(document, sharedConnections);
     }
     
     /**
      * 解析.ktr文件（InputStream）
      */
     public KettleTransformation parse(InputStream inputStream) throws Exception {
+        return parse(inputStream, Collections.emptyMap());
+    }
+    
+    /**
+     * 解析.ktr文件（InputStream）
+     *
+     * @param sharedConnections 本次导入的共享连接（连接名称 -> 连接）
+     */
+    public KettleTransformation parse(InputStream inputStream,
+                                      Map<String, KettleConnection> sharedConnections) throws Exception {
         log.info("开始解析Kettle文件流");
         
         SAXReader reader = new SAXReader();
         Document document = reader.read(inputStream);
         
-        return parseDocument(document);
+        return parseDocument(document, sharedConnections);
     }
     
     /**
      * 解析XML文档
      */
-    private KettleTransformation parseDocument(Document document) {
+    private KettleTransformation parseDocument(Document document, Map<String, KettleConnection> sharedConnections) {
         KettleTransformation transformation = new KettleTransformation();
         
         Element root = document.getRootElement();
@@ -55,14 +90,19 @@ public class KettleParser {
         // 解析transformation基本信息
         Element infoElement = root.element("info");
         if (infoElement != null) {
-            transformation.setName(getElementText(infoElement, "name"));
-            transformation.setDescription(getElementText(infoElement, "description"));
+            transformation.setName(KettleXml.text(infoElement, "name"));
+            transformation.setDescription(KettleXml.text(infoElement, "description"));
+        }
+        
+        // 解析数据库连接（connection）
+        for (KettleConnection connection : KettleConnectionResolver.parseConnections(root)) {
+            transformation.addConnection(connection);
         }
         
         // 解析步骤（steps）
         List<Element> stepElements = root.elements("step");
         for (Element stepElement : stepElements) {
-            KettleStep step = parseStep(stepElement);
+            KettleStep step = stepRegistry.parse(stepElement);
             transformation.addStep(step);
         }
         
@@ -76,113 +116,31 @@ public class KettleParser {
             }
         }
         
-        log.info("解析完成: name={}, steps={}, hops={}", 
+        connectionResolver.resolve(transformation, sharedConnections);
+        
+        log.info("解析完成: name={}, steps={}, hops={}, connections={}", 
                 transformation.getName(), 
                 transformation.getSteps().size(), 
-                transformation.getHops().size());
+                transformation.getHops().size(),
+                transformation.getConnections().size());
         
         return transformation;
     }
     
-    /**
-     * 解析步骤
-     */
-    private KettleStep parseStep(Element stepElement) {
-        KettleStep step = new KettleStep();
-        
-        step.setName(getElementText(stepElement, "name"));
-        step.setType(getElementText(stepElement, "type"));
-        
-        // 解析SQL（TableInput）
-        String sql = getElementText(stepElement, "sql");
-        if (sql != null && !sql.isEmpty()) {
-            step.addAttribute("sql", sql);
-        }
-        
-        // 解析表名和Schema（TableOutput）
-        String tableName = getElementText(stepElement, "table");
-        if (tableName != null && !tableName.isEmpty()) {
-            step.addAttribute("table", tableName);
-        }
-        
-        String schemaName = getElementText(stepElement, "schema");
-        if (schemaName != null && !schemaName.isEmpty()) {
-            step.addAttribute("schema", schemaName);
-        }
-        
-        // 解析数据库连接
-        String connection = getElementText(stepElement, "connection");
-        if (connection != null && !connection.isEmpty()) {
-            step.addAttribute("connection", connection);
-        }
-        
-        // 解析其他常用属性
-        parseCommonAttributes(stepElement, step);
-        
-        return step;
-    }
-    
-    /**
-     * 解析常用属性
-     */
-    private void parseCommonAttributes(Element stepElement, KettleStep step) {
-        // lookup表名（用于lookup步骤）
-        String lookup = getElementText(stepElement, "lookup");
-        if (lookup != null && !lookup.isEmpty()) {
-            step.addAttribute("lookup", lookup);
-        }
-        
-        // 字段列表
-        Element fieldsElement = stepElement.element("fields");
-        if (fieldsElement != null) {
-            List<Element> fieldElements = fieldsElement.elements("field");
-            StringBuilder fields = new StringBuilder();
-            for (Element fieldElement : fieldElements) {
-                String fieldName = getElementText(fieldElement, "name");
-                if (fieldName != null && !fieldName.isEmpty()) {
-                    if (fields.length() > 0) {
-                        fields.append(",");
-                    }
-                    fields.append(fieldName);
-                }
-            }
-            if (fields.length() > 0) {
-                step.addAttribute("fields", fields.toString());
-            }
-        }
-    }
-    
     /**
      * 解析连接
      */
     private KettleHop parseHop(Element hopElement) {
         KettleHop hop = new KettleHop();
         
-        hop.setFromStep(getElementText(hopElement, "from"));
-        hop.setToStep(getElementText(hopElement, "to"));
+        hop.setFromStep(KettleXml.text(hopElement, "from"));
+        hop.setToStep(KettleXml.text(hopElement, "to"));
         
-        String enabled = getElementText(hopElement, "enabled");
+        String enabled = KettleXml.text(hopElement, "enabled");
         if (enabled != null) {
             hop.setEnabled("Y".equalsIgnoreCase(enabled) || "true".equalsIgnoreCase(enabled));
         }
         
         return hop;
     }
-    
-    /**
-     * 获取元素文本（处理CDATA）
-     */
-    private String getElementText(Element parent, String elementName) {
-        if (parent == null) {
-            return null;
-        }
-        
-        Element element = parent.element(elementName);
-        if (element == null) {
-            return null;
-        }
-        
-        String text = element.getTextTrim();
-        return text.isEmpty() ? null : text;
-    }
 }
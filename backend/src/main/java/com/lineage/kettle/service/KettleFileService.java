@@ -3,112 +3,461 @@ package com.lineage.kettle.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.google.common.collect.Lists;
+import com.lineage.config.LineageProperties;
+import com.lineage.dto.response.CursorPage;
+import com.lineage.graph.service.ReanalysisQueueService;
+import com.lineage.kettle.connection.KettleConnectionResolver;
 import com.lineage.kettle.dto.BatchUploadResponse;
 import com.lineage.kettle.entity.KettleFileRecord;
 import com.lineage.kettle.mapper.KettleFileRecordMapper;
+import com.lineage.kettle.model.KettleConnection;
 import com.lineage.kettle.model.KettleSqlInfo;
 import com.lineage.kettle.model.KettleTransformation;
+import com.lineage.kettle.storage.KettleBlobStore;
+import com.lineage.kettle.storage.KettleBlobStore.StoredBlob;
+import com.lineage.kettle.storage.KettleBlobStore.TeeResult;
+import com.lineage.service.KeysetPagination;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 /**
  * Kettle文件管理服务
+ *
+ * 文件内容保存在内容寻址存储中（见 {@link KettleBlobStore}），相同内容只存一份；
+ * 没有同名记录的文件（不可能未变化）在同一遍读取中保存、计算哈希并解析；
+ * 已有同名记录的文件先保存并计算哈希，内容未变化时直接复用已有记录，不再解析和提取 SQL，
+ * 变化了才从已保存的内容解析。
+ * 仓库导入（zip 流 / 服务器目录）按条目流水线处理：zip 由读取线程逐个落盘，每个条目落盘后
+ * 立即交给有界线程池解析与提取，与后续条目的读取重叠，队列满时由读取线程自己处理，
+ * 内存占用与仓库大小无关；仓库中的 shared.xml 读取为本次导入的共享数据库连接，不影响其他导入。
+ * 解析在事务外进行，全部解析完成后按块批量写入记录，每块一个短事务，
+ * 只有写入期间占用数据库连接；新写入或删除的文件按文件名进入重新分析队列刷新血缘边
+ * （见 {@link ReanalysisQueueService}）
  */
 @Slf4j
 @Service
 public class KettleFileService {
     
+    /**
+     * Kettle 共享对象文件名
+     */
+    private static final String SHARED_OBJECTS = "shared.xml";
+    
     @Resource
     private KettleService kettleService;
     
     @Resource
     private KettleFileRecordMapper kettleFileRecordMapper;
     
-    @Value("${lineage.kettle.upload-dir:./uploads/kettle}")
-    private String uploadDir;
+    @Resource
+    private ReanalysisQueueService reanalysisQueueService;
+    
+    @Resource
+    private LineageProperties properties;
+    
+    @Resource(name = "kettleImportExecutor")
+    private ThreadPoolExecutor importExecutor;
+    
+    @Resource
+    private TransactionTemplate transactionTemplate;
+    
+    @Resource
+    private KettleBlobStore blobStore;
     
     /**
      * 上传单个文件
      */
-    @Transactional(rollbackFor = Exception.class)
     public BatchUploadResponse.FileUploadResult uploadFile(MultipartFile file) {
-        BatchUploadResponse.FileUploadResult result = new BatchUploadResponse.FileUploadResult();
-        result.setFileName(file.getOriginalFilename());
+        Ingested ingested = prepareUpload(file);
+        persist(Collections.singletonList(ingested));
+        return ingested.result;
+    }
+    
+    /**
+     * 批量上传文件：逐个保存并解析后，按块批量写入记录
+     */
+    public BatchUploadResponse batchUpload(List<MultipartFile> files) {
+        String taskId = UUID.randomUUID().toString();
         
-        try {
-            // 保存文件
-            File savedFile = saveFile(file);
-            
-            // 解析文件
-            KettleTransformation transformation = kettleService.parseKettleFile(savedFile);
-            List<KettleSqlInfo> sqls = kettleService.extractSqls(transformation);
-            
-            // 记录到数据库
-            KettleFileRecord record = new KettleFileRecord();
-            record.setFileName(file.getOriginalFilename());
-            record.setFilePath(savedFile.getAbsolutePath());
-            record.setFileSize(file.getSize());
-            record.setTransformationName(transformation.getName());
-            record.setTransformationDesc(transformation.getDescription());
-            record.setStepCount(transformation.getSteps().size());
-            record.setSqlCount(sqls.size());
-            record.setHopCount(transformation.getHops().size());
-            record.setParseStatus("success");
-            
-            kettleFileRecordMapper.insert(record);
-            
-            result.setFileId(record.getId());
-            result.setStatus("success");
-            result.setSqlCount(sqls.size());
-            
-            log.info("文件上传成功: fileName={}, sqlCount={}", file.getOriginalFilename(), sqls.size());
-            
+        log.info("批量上传开始: taskId={}, fileCount={}", taskId, files.size());
+        
+        List<Ingested> items = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            items.add(prepareUpload(file));
+        }
+        
+        return summarize(taskId, items, persist(items));
+    }
+    
+    private Ingested prepareUpload(MultipartFile file) {
+        String fileName = file.getOriginalFilename();
+        try (InputStream in = file.getInputStream()) {
+            return saveAndPrepare(fileName, in, Collections.emptyMap());
         } catch (Exception e) {
-            log.error("文件上传失败: fileName={}", file.getOriginalFilename(), e);
-            result.setStatus("failed");
-            result.setErrorMessage(e.getMessage());
+            return failed(fileName, e);
+        }
+    }
+    
+    /**
+     * 保存并解析一个文件：没有同名记录时在同一遍读取中保存、计算哈希并解析；
+     * 已有同名记录时只保存并计算哈希，内容变化了才从已保存的内容解析
+     */
+    private Ingested saveAndPrepare(String fileName, InputStream in,
+                                    Map<String, KettleConnection> sharedConnections) throws Exception {
+        if (mayBeUnchanged(fileName)) {
+            return prepareQuietly(fileName, blobStore.store(in), null, sharedConnections);
+        }
+        TeeResult<KettleTransformation> saved =
+                blobStore.store(in, input -> kettleService.parseKettleFile(input, sharedConnections));
+        return prepareQuietly(fileName, saved.getBlob(), saved.getValue(), sharedConnections);
+    }
+    
+    /**
+     * 导入 zip 格式的 Kettle 仓库
+     *
+     * 边读边保存，不先解压整个归档；每个条目独立提交，部分失败不影响其余条目。
+     * 条目名（仓库内相对路径）作为文件名，用于识别未变化的文件。
+     * 条目落盘后立即交给线程池解析。归档中的 shared.xml 只作用于本次导入，不论在归档中的位置：
+     * 读到 shared.xml 之后的条目推迟到归档读完再解析；读完时有共享连接的，
+     * 此前已开始解析的条目按完整的共享连接重新解析
+     *
+     * @param zipStream zip 数据流（调用方负责关闭）
+     */
+    public BatchUploadResponse importZip(InputStream zipStream) throws IOException {
+        String taskId = UUID.randomUUID().toString();
+        log.info("导入Kettle仓库(zip)开始: taskId={}", taskId);
+        
+        Map<String, KettleConnection> sharedConnections = new LinkedHashMap<>();
+        // 按完整共享连接解析的任务（保存失败的条目为空），与 futures 一一对应
+        List<Callable<Ingested>> tasks = new ArrayList<>();
+        List<Future<Ingested>> futures = new ArrayList<>();
+        List<StoredBlob> stored = new ArrayList<>();
+        boolean sharedSeen = false;
+        ZipInputStream zip = new ZipInputStream(zipStream);
+        ZipEntry entry;
+        try {
+            while ((entry = zip.getNextEntry()) != null) {
+                String fileName = entry.getName();
+                if (!entry.isDirectory() && isSharedObjects(fileName)) {
+                    sharedConnections.putAll(readSharedQuietly(fileName, CloseShieldInputStream.wrap(zip)));
+                    sharedSeen = true;
+                    continue;
+                }
+                if (entry.isDirectory() || !isKettleFile(fileName)) {
+                    continue;
+                }
+                
+                try {
+                    StoredBlob saved = blobStore.store(zip);
+                    stored.add(saved);
+                    tasks.add(() -> prepareQuietly(fileName, saved, null, sharedConnections));
+                    futures.add(sharedSeen ? null : importExecutor.submit(
+                            () -> prepareQuietly(fileName, saved, null, Collections.emptyMap())));
+                } catch (IOException e) {
+                    tasks.add(null);
+                    futures.add(CompletableFuture.completedFuture(failed(fileName, e)));
+                }
+            }
+        } catch (IOException e) {
+            // 归档读取失败：已保存的条目不再写入记录
+            stored.forEach(blob -> blobStore.unpin(blob.getContentHash()));
+            throw e;
         }
         
-        return result;
+        for (int i = 0; i < futures.size(); i++) {
+            Callable<Ingested> task = tasks.get(i);
+            if (task != null && (futures.get(i) == null || !sharedConnections.isEmpty())) {
+                futures.set(i, importExecutor.submit(task));
+            }
+        }
+        List<Ingested> items = collect(futures);
+        return summarize(taskId, items, persist(items));
     }
     
     /**
-     * 批量上传文件
+     * 导入服务器目录中的 Kettle 仓库（目录须位于 lineage.kettle.import-roots 之下）
+     *
+     * 根目录下有 shared.xml 时先读取为本次导入的共享连接；每个文件在线程池中保存并解析（见 {@link #saveAndPrepare}）
+     *
+     * @param directory 仓库目录
      */
-    @Transactional(rollbackFor = Exception.class)
-    public BatchUploadResponse batchUpload(List<MultipartFile> files) {
+    public BatchUploadResponse importDirectory(String directory) throws IOException {
+        Path root = resolveImportDirectory(directory);
         String taskId = UUID.randomUUID().toString();
+        log.info("导入Kettle仓库(目录)开始: taskId={}, directory={}", taskId, root);
         
-        log.info("批量上传开始: taskId={}, fileCount={}", taskId, files.size());
+        Map<String, KettleConnection> sharedConnections = Collections.emptyMap();
+        Path sharedObjects = root.resolve(SHARED_OBJECTS);
+        if (Files.isRegularFile(sharedObjects, LinkOption.NOFOLLOW_LINKS)) {
+            try (InputStream in = Files.newInputStream(sharedObjects, LinkOption.NOFOLLOW_LINKS)) {
+                sharedConnections = readSharedQuietly(SHARED_OBJECTS, in);
+            }
+        }
+        Map<String, KettleConnection> shared = sharedConnections;
+        
+        List<Future<Ingested>> futures = new ArrayList<>();
+        // 不跟随符号链接，避免读取到允许导入的根目录之外
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.filter(p -> Files.isRegularFile(p, LinkOption.NOFOLLOW_LINKS))
+                    .collect(Collectors.toList())) {
+                String fileName = root.relativize(path).toString().replace(File.separatorChar, '/');
+                if (!isKettleFile(fileName)) {
+                    continue;
+                }
+                futures.add(importExecutor.submit(() -> {
+                    try (InputStream in = Files.newInputStream(path, LinkOption.NOFOLLOW_LINKS)) {
+                        return saveAndPrepare(fileName, in, shared);
+                    } catch (Exception e) {
+                        return failed(fileName, e);
+                    }
+                }));
+            }
+        }
+        
+        List<Ingested> items = collect(futures);
+        return summarize(taskId, items, persist(items));
+    }
+    
+    /**
+     * 生成待写入的记录（不写库）；同名且内容未变化时复用已有记录，不解析
+     *
+     * @param saved             已保存的文件
+     * @param transformation    保存时已解析出的转换，为空时从已保存的文件解析
+     * @param sharedConnections 本次导入的共享连接
+     */
+    private Ingested prepare(String fileName, StoredBlob saved, KettleTransformation transformation,
+                             Map<String, KettleConnection> sharedConnections) throws Exception {
+        BatchUploadResponse.FileUploadResult result = new BatchUploadResponse.FileUploadResult();
+        result.setFileName(fileName);
+        File savedFile = saved.getFile();
+        
+        // 内容未变化时复用已有记录
+        KettleFileRecord existing = findUnchanged(fileName, saved.getContentHash());
+        if (existing != null) {
+            result.setFileId(existing.getId());
+            result.setStatus("success");
+            result.setSqlCount(existing.getSqlCount());
+            result.setUnchanged(true);
+            log.info("文件内容未变化，跳过解析: fileName={}, fileId={}", fileName, existing.getId());
+            return new Ingested(result, null, saved);
+        }
+        
+        // 解析文件
+        if (transformation == null) {
+            transformation = kettleService.parseKettleFile(savedFile, sharedConnections);
+        }
+        List<KettleSqlInfo> sqls = kettleService.extractSqls(transformation);
+        
+        // 待写入的记录
+        LocalDateTime now = LocalDateTime.now();
+        KettleFileRecord record = new KettleFileRecord();
+        record.setFileName(fileName);
+        record.setFilePath(savedFile.getAbsolutePath());
+        record.setFileSize(saved.getSize());
+        record.setContentHash(saved.getContentHash());
+        record.setTransformationName(transformation.getName());
+        record.setTransformationDesc(transformation.getDescription());
+        record.setStepCount(transformation.getSteps().size());
+        record.setSqlCount(sqls.size());
+        record.setHopCount(transformation.getHops().size());
+        record.setParseStatus("success");
+        record.setCreateTime(now);
+        record.setUpdateTime(now);
+        
+        result.setStatus("success");
+        result.setSqlCount(sqls.size());
         
+        log.info("文件解析成功: fileName={}, sqlCount={}", fileName, sqls.size());
+        return new Ingested(result, record, saved);
+    }
+    
+    private Ingested prepareQuietly(String fileName, StoredBlob saved, KettleTransformation transformation,
+                                    Map<String, KettleConnection> sharedConnections) {
+        try {
+            return prepare(fileName, saved, transformation, sharedConnections);
+        } catch (Exception e) {
+            return failed(fileName, saved, e);
+        }
+    }
+    
+    private Ingested failed(String fileName, Exception e) {
+        return failed(fileName, null, e);
+    }
+    
+    private Ingested failed(String fileName, StoredBlob saved, Exception e) {
+        log.error("文件上传失败: fileName={}", fileName, e);
+        BatchUploadResponse.FileUploadResult result = new BatchUploadResponse.FileUploadResult();
+        result.setFileName(fileName);
+        result.setStatus("failed");
+        result.setErrorMessage(e.getMessage());
+        return new Ingested(result, null, saved);
+    }
+    
+    /**
+     * 按块批量写入待写入的记录，每块一个事务（同一事务内把文件的血缘刷新任务入队）；
+     * 同一批中文件名和内容都相同的只写入一条，其余视为未变化；
+     * 某块失败时只把该块的文件标记为失败，并丢弃这些文件新写入的内容。
+     * 结束后本批保存的内容不再视为导入中
+     *
+     * @return 写入统计（块数、事务内占用连接的累计时间）
+     */
+    private PersistStats persist(List<Ingested> items) {
+        List<Ingested> pending = new ArrayList<>();
+        Map<String, Ingested> firsts = new HashMap<>();
+        Map<Ingested, Ingested> duplicates = new LinkedHashMap<>();
+        for (Ingested item : items) {
+            if (item.record == null) {
+                continue;
+            }
+            Ingested first = firsts.putIfAbsent(item.record.getFileName() + '\u0000' + item.record.getContentHash(), item);
+            if (first == null) {
+                pending.add(item);
+            } else {
+                duplicates.put(item, first);
+            }
+        }
+        
+        PersistStats stats = new PersistStats();
+        List<StoredBlob> discarded = new ArrayList<>();
+        int batchSize = Math.max(1, properties.getKettle().getInsertBatchSize());
+        try {
+            insertChunks(pending, batchSize, stats, discarded);
+        } finally {
+            for (Ingested item : items) {
+                if (item.blob != null) {
+                    blobStore.unpin(item.blob.getContentHash());
+                }
+            }
+            discarded.forEach(this::discardQuietly);
+        }
+        
+        for (Map.Entry<Ingested, Ingested> entry : duplicates.entrySet()) {
+            BatchUploadResponse.FileUploadResult duplicate = entry.getKey().result;
+            BatchUploadResponse.FileUploadResult first = entry.getValue().result;
+            duplicate.setStatus(first.getStatus());
+            duplicate.setErrorMessage(first.getErrorMessage());
+            duplicate.setFileId(first.getFileId());
+            duplicate.setUnchanged("success".equals(first.getStatus()));
+        }
+        if (stats.batches > 0) {
+            log.info("文件记录写入完成: records={}, batches={}, connectionHoldMillis={}",
+                    pending.size(), stats.batches, TimeUnit.NANOSECONDS.toMillis(stats.holdNanos));
+        }
+        return stats;
+    }
+    
+    /**
+     * 逐块写入，失败块中新写入的内容加入 discarded
+     */
+    private void insertChunks(List<Ingested> pending, int batchSize, PersistStats stats, List<StoredBlob> discarded) {
+        for (List<Ingested> chunk : Lists.partition(pending, batchSize)) {
+            List<KettleFileRecord> records = chunk.stream().map(item -> item.record).collect(Collectors.toList());
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    kettleFileRecordMapper.insertBatch(records);
+                    reanalysisQueueService.enqueueKettleFiles(
+                            records.stream().map(KettleFileRecord::getFileName).collect(Collectors.toList()),
+                            "Kettle文件更新");
+                });
+                for (Ingested item : chunk) {
+                    item.result.setFileId(item.record.getId());
+                }
+            } catch (RuntimeException e) {
+                log.error("文件记录写入失败: count={}", chunk.size(), e);
+                for (Ingested item : chunk) {
+                    item.result.setStatus("failed");
+                    item.result.setErrorMessage("记录写入失败: " + e.getMessage());
+                    discarded.add(item.blob);
+                }
+            } finally {
+                stats.batches++;
+                stats.holdNanos += System.nanoTime() - start;
+            }
+        }
+    }
+    
+    /**
+     * 丢弃本次新写入的内容（复用的已有内容不动，仍被其他记录引用时不删除）
+     */
+    private void discardQuietly(StoredBlob blob) {
+        if (blob == null || blob.isDeduplicated()) {
+            return;
+        }
+        try {
+            blobStore.discard(blob.getContentHash());
+        } catch (IOException e) {
+            log.warn("丢弃文件内容失败: {}", blob.getFile(), e);
+        }
+    }
+    
+    private List<Ingested> collect(List<Future<Ingested>> futures) throws IOException {
+        List<Ingested> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<Ingested> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("导入被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("导入失败", e.getCause());
+        }
+        return results;
+    }
+    
+    private BatchUploadResponse summarize(String taskId, List<Ingested> items, PersistStats stats) {
+        List<BatchUploadResponse.FileUploadResult> results =
+                items.stream().map(item -> item.result).collect(Collectors.toList());
         BatchUploadResponse response = new BatchUploadResponse();
         response.setTaskId(taskId);
-        response.setTotalFiles(files.size());
+        response.setTotalFiles(results.size());
         response.setStatus("completed");
         
-        List<BatchUploadResponse.FileUploadResult> results = new ArrayList<>();
         int successCount = 0;
         int failedCount = 0;
-        
-        for (MultipartFile file : files) {
-            BatchUploadResponse.FileUploadResult result = uploadFile(file);
-            results.add(result);
-            
+        int unchangedCount = 0;
+        for (BatchUploadResponse.FileUploadResult result : results) {
             if ("success".equals(result.getStatus())) {
                 successCount++;
+                if (result.isUnchanged()) {
+                    unchangedCount++;
+                }
             } else {
                 failedCount++;
             }
@@ -117,49 +466,141 @@ public class KettleFileService {
         response.setResults(results);
         response.setSuccessCount(successCount);
         response.setFailedCount(failedCount);
+        response.setUnchangedCount(unchangedCount);
+        response.setPersistBatches(stats.batches);
+        response.setConnectionHoldMillis(TimeUnit.NANOSECONDS.toMillis(stats.holdNanos));
         
-        log.info("批量上传完成: taskId={}, success={}, failed={}", taskId, successCount, failedCount);
+        log.info("批量上传完成: taskId={}, success={}, unchanged={}, failed={}, connectionHoldMillis={}",
+                taskId, successCount, unchangedCount, failedCount, response.getConnectionHoldMillis());
         
         return response;
     }
     
     /**
-     * 保存上传的文件
+     * 读取导入中的 shared.xml，失败时按没有共享连接处理
      */
-    private File saveFile(MultipartFile file) throws IOException {
-        // 确保上传目录存在
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+    private static Map<String, KettleConnection> readSharedQuietly(String fileName, InputStream in) {
+        try {
+            Map<String, KettleConnection> connections = KettleConnectionResolver.readShared(in);
+            log.info("读取导入的共享连接: fileName={}, count={}", fileName, connections.size());
+            return connections;
+        } catch (Exception e) {
+            log.warn("共享连接读取失败: fileName={}", fileName, e);
+            return Collections.emptyMap();
         }
+    }
+    
+    private static boolean isSharedObjects(String fileName) {
+        String name = fileName.substring(fileName.lastIndexOf('/') + 1);
+        return SHARED_OBJECTS.equalsIgnoreCase(name);
+    }
+    
+    private static boolean isKettleFile(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".ktr");
+    }
+    
+    /**
+     * 校验导入目录位于允许的根目录之下
+     */
+    private Path resolveImportDirectory(String directory) throws IOException {
+        List<String> roots = properties.getKettle().getImportRoots();
+        if (roots == null || roots.isEmpty()) {
+            throw new IllegalArgumentException("未配置允许导入的目录（lineage.kettle.import-roots）");
+        }
+        Path path = Paths.get(directory);
+        if (!Files.isDirectory(path)) {
+            throw new IllegalArgumentException("目录不存在: " + directory);
+        }
+        Path real = path.toRealPath();
+        for (String root : roots) {
+            Path allowed = Paths.get(root);
+            if (Files.isDirectory(allowed) && real.startsWith(allowed.toRealPath())) {
+                return real;
+            }
+        }
+        throw new IllegalArgumentException("目录不在允许导入的范围内: " + directory);
+    }
+    
+    /**
+     * 是否可能未变化：开启跳过且已有同名的解析成功记录
+     */
+    private boolean mayBeUnchanged(String fileName) {
+        return properties.getKettle().isSkipUnchanged()
+                && kettleFileRecordMapper.exists(new LambdaQueryWrapper<KettleFileRecord>()
+                        .eq(KettleFileRecord::getFileName, fileName)
+                        .eq(KettleFileRecord::getParseStatus, "success"));
+    }
+    
+    /**
+     * 查找同名、同内容且解析成功的已有记录
+     */
+    private KettleFileRecord findUnchanged(String fileName, String contentHash) {
+        if (!properties.getKettle().isSkipUnchanged()) {
+            return null;
+        }
+        return kettleFileRecordMapper.selectOne(new LambdaQueryWrapper<KettleFileRecord>()
+                .eq(KettleFileRecord::getFileName, fileName)
+                .eq(KettleFileRecord::getContentHash, contentHash)
+                .eq(KettleFileRecord::getParseStatus, "success")
+                .orderByDesc(KettleFileRecord::getId)
+                .last("LIMIT 1"));
+    }
+    
+    /**
+     * 单个文件的处理结果，record 为待写入的新记录（未变化或失败时为空），blob 为保存的内容（未能保存时为空）
+     */
+    private static final class Ingested {
+        private final BatchUploadResponse.FileUploadResult result;
+        private final KettleFileRecord record;
+        private final StoredBlob blob;
         
-        // 生成唯一文件名
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        String newFilename = System.currentTimeMillis() + "_" + UUID.randomUUID().toString().substring(0, 8) + extension;
-        
-        // 保存文件
-        Path targetPath = uploadPath.resolve(newFilename);
-        file.transferTo(targetPath.toFile());
-        
-        log.info("文件保存成功: {}", targetPath);
-        
-        return targetPath.toFile();
+        private Ingested(BatchUploadResponse.FileUploadResult result, KettleFileRecord record, StoredBlob blob) {
+            this.result = result;
+            this.record = record;
+            this.blob = blob;
+        }
+    }
+    
+    private static final class PersistStats {
+        private int batches;
+        private long holdNanos;
     }
     
     /**
      * 查询文件记录列表
      */
     public IPage<KettleFileRecord> listFileRecords(int page, int size, String status) {
-        Page<KettleFileRecord> pageParam = new Page<>(page, size);
+        return listFileRecords(page, size, status, true);
+    }
+    
+    /**
+     * 查询文件记录列表
+     *
+     * @param searchCount 是否查询总数，不需要总数时省去 COUNT
+     */
+    public IPage<KettleFileRecord> listFileRecords(int page, int size, String status, boolean searchCount) {
+        Page<KettleFileRecord> pageParam = new Page<>(page, size, searchCount);
+        LambdaQueryWrapper<KettleFileRecord> wrapper = statusFilter(status);
+        wrapper.orderByDesc(KettleFileRecord::getCreateTime).orderByDesc(KettleFileRecord::getId);
+        return kettleFileRecordMapper.selectPage(pageParam, wrapper);
+    }
+    
+    /**
+     * 键集分页查询文件记录（深翻页）
+     *
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     */
+    public CursorPage<KettleFileRecord> seekFileRecords(String cursor, int size, String status) {
+        return KeysetPagination.seek(kettleFileRecordMapper, statusFilter(status),
+                KettleFileRecord::getCreateTime, KettleFileRecord::getId, cursor, size);
+    }
+    
+    private static LambdaQueryWrapper<KettleFileRecord> statusFilter(String status) {
         LambdaQueryWrapper<KettleFileRecord> wrapper = new LambdaQueryWrapper<>();
-        
         if (status != null && !status.isEmpty()) {
             wrapper.eq(KettleFileRecord::getParseStatus, status);
         }
-        
-        wrapper.orderByDesc(KettleFileRecord::getCreateTime);
-        return kettleFileRecordMapper.selectPage(pageParam, wrapper);
+        return wrapper;
     }
     
     /**
@@ -170,25 +611,27 @@ public class KettleFileService {
     }
     
     /**
-     * 删除文件记录
+     * 删除文件记录，文件内容在事务提交后异步释放
      */
     @Transactional(rollbackFor = Exception.class)
     public void deleteFileRecord(Long id) {
         KettleFileRecord record = kettleFileRecordMapper.selectById(id);
         if (record != null) {
-            // 删除物理文件
-            try {
-                File file = new File(record.getFilePath());
-                if (file.exists()) {
-                    file.delete();
-                }
-            } catch (Exception e) {
-                log.warn("删除物理文件失败: {}", record.getFilePath(), e);
-            }
-            
-            // 删除数据库记录
             kettleFileRecordMapper.deleteById(id);
             log.info("删除文件记录成功: id={}", id);
+            reanalysisQueueService.enqueueKettleFiles(Collections.singletonList(record.getFileName()), "Kettle文件删除");
+            
+            // 提交后异步释放文件内容（无其他引用时回收）
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        blobStore.release(record.getContentHash(), record.getFilePath());
+                    }
+                });
+            } else {
+                blobStore.release(record.getContentHash(), record.getFilePath());
+            }
         }
     }
 }
@@ -1,6 +1,9 @@
 package com.lineage.kettle.service;
 
 import com.lineage.kettle.extractor.KettleSqlExtractor;
+import com.lineage.kettle.lineage.KettleFieldLineageResolver;
+import com.lineage.kettle.model.KettleConnection;
+import com.lineage.kettle.model.KettleFieldLineage;
 import com.lineage.kettle.model.KettleSqlInfo;
 import com.lineage.kettle.model.KettleTransformation;
 import com.lineage.kettle.parser.KettleParser;
@@ -10,7 +13,9 @@ import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
 import java.io.File;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Kettle服务
@@ -25,6 +30,9 @@ public class KettleService {
     @Resource
     private KettleSqlExtractor kettleSqlExtractor;
     
+    @Resource
+    private KettleFieldLineageResolver fieldLineageResolver;
+    
     /**
      * 解析Kettle文件
      */
@@ -33,6 +41,15 @@ public class KettleService {
         return kettleParser.parse(file);
     }
     
+    /**
+     * 解析Kettle文件，引用的共享连接优先取本次导入的 shared.xml
+     */
+    public KettleTransformation parseKettleFile(File file,
+                                                Map<String, KettleConnection> sharedConnections) throws Exception {
+        log.info("解析Kettle文件: {}", file.getName());
+        return kettleParser.parse(file, sharedConnections);
+    }
+    
     /**
      * 解析上传的Kettle文件
      */
@@ -41,6 +58,21 @@ public class KettleService {
         return kettleParser.parse(file.getInputStream());
     }
     
+    /**
+     * 解析Kettle文件流（不关闭流）
+     */
+    public KettleTransformation parseKettleFile(InputStream inputStream) throws Exception {
+        return kettleParser.parse(inputStream);
+    }
+    
+    /**
+     * 解析Kettle文件流（不关闭流），引用的共享连接优先取本次导入的 shared.xml
+     */
+    public KettleTransformation parseKettleFile(InputStream inputStream,
+                                                Map<String, KettleConnection> sharedConnections) throws Exception {
+        return kettleParser.parse(inputStream, sharedConnections);
+    }
+    
     /**
      * 提取SQL语句
      */
@@ -48,6 +80,13 @@ public class KettleService {
         return kettleSqlExtractor.extractSqls(transformation);
     }
     
+    /**
+     * 解析字段级血缘（沿步骤连接传递）
+     */
+    public List<KettleFieldLineage> extractFieldLineage(KettleTransformation transformation) {
+        return fieldLineageResolver.resolve(transformation);
+    }
+    
     /**
      * 解析并提取SQL（一步到位）
      */
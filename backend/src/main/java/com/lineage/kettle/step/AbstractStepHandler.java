@@ -0,0 +1,97 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.KettleStep;
+import com.lineage.kettle.model.step.DatabaseTableStep;
+import org.dom4j.Element;
+
+/**
+ * 步骤处理器公共方法
+ */
+public abstract class AbstractStepHandler<T extends KettleStep> implements KettleStepHandler<T> {
+    
+    /**
+     * 读取目标表：表输出类步骤在步骤下，查询/更新类步骤在 &lt;lookup&gt; 下
+     */
+    protected void parseTable(Element stepElement, DatabaseTableStep step) {
+        Element lookup = stepElement.element("lookup");
+        String table = KettleXml.text(stepElement, "table");
+        String schema = KettleXml.text(stepElement, "schema");
+        step.setTable(table != null ? table : KettleXml.text(lookup, "table"));
+        step.setSchema(schema != null ? schema : KettleXml.text(lookup, "schema"));
+    }
+    
+    /**
+     * 以步骤基本信息初始化SQL信息
+     */
+    protected KettleSqlInfo sqlInfo(KettleStep step) {
+        KettleSqlInfo info = new KettleSqlInfo();
+        info.setStepName(step.getName());
+        info.setStepType(step.getType());
+        info.setConnectionName(step.getConnection());
+        return info;
+    }
+    
+    /**
+     * 查询类步骤的SQL信息（SQL + 来源表），未配置SQL时返回 null
+     */
+    protected KettleSqlInfo queryInfo(KettleStep step, String sql) {
+        if (sql == null) {
+            return null;
+        }
+        KettleSqlInfo info = sqlInfo(step);
+        info.setSql(cleanSql(sql));
+        info.setSourceTable(extractTableNameFromSql(sql));
+        return info;
+    }
+    
+    /**
+     * 表写入类步骤的SQL信息（目标表 + 描述性SQL），未配置表名时返回 null
+     */
+    protected KettleSqlInfo targetTableInfo(DatabaseTableStep step, String sqlPrefix) {
+        if (step.getTable() == null || step.getTable().isEmpty()) {
+            return null;
+        }
+        KettleSqlInfo info = sqlInfo(step);
+        info.setTargetTable(step.getTable());
+        info.setSchemaName(step.getSchema());
+        info.setSql(sqlPrefix + step.getQualifiedTable());
+        return info;
+    }
+    
+    /**
+     * 清理SQL（去除多余空白）
+     */
+    protected static String cleanSql(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        
+        return sql.trim()
+                .replaceAll("\\s+", " ")
+                .replaceAll("\\n+", " ");
+    }
+    
+    /**
+     * 从SQL中提取表名（简单实现）
+     */
+    protected static String extractTableNameFromSql(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return null;
+        }
+        
+        String upperSql = sql.toUpperCase();
+        
+        // 尝试提取 FROM 后面的表名
+        int fromIndex = upperSql.indexOf(" FROM ");
+        if (fromIndex != -1) {
+            String afterFrom = sql.substring(fromIndex + 6).trim();
+            String[] parts = afterFrom.split("\\s+");
+            if (parts.length > 0) {
+                return parts[0].replaceAll("[,;]", "");
+            }
+        }
+        
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleCalculation;
+import com.lineage.kettle.model.step.CalculatorStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Calculator 计算器
+ */
+@Component
+public class CalculatorStepHandler extends AbstractStepHandler<CalculatorStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("Calculator");
+    }
+    
+    @Override
+    public CalculatorStep parse(Element stepElement) {
+        CalculatorStep step = new CalculatorStep();
+        for (Element element : stepElement.elements("calculation")) {
+            String fieldName = KettleXml.text(element, "field_name");
+            if (fieldName == null) {
+                continue;
+            }
+            KettleCalculation calculation = new KettleCalculation();
+            calculation.setFieldName(fieldName);
+            calculation.setCalcType(KettleXml.text(element, "calc_type"));
+            calculation.setFieldA(KettleXml.text(element, "field_a"));
+            calculation.setFieldB(KettleXml.text(element, "field_b"));
+            calculation.setFieldC(KettleXml.text(element, "field_c"));
+            calculation.setRemove(KettleXml.flag(element, "remove"));
+            step.getCalculations().add(calculation);
+        }
+        return step;
+    }
+}
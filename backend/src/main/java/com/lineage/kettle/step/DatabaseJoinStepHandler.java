@@ -0,0 +1,43 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.step.DatabaseJoinStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DBJoin 数据库连接
+ */
+@Component
+public class DatabaseJoinStepHandler extends AbstractStepHandler<DatabaseJoinStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("DBJoin");
+    }
+    
+    @Override
+    public DatabaseJoinStep parse(Element stepElement) {
+        DatabaseJoinStep step = new DatabaseJoinStep();
+        step.setSql(KettleXml.text(stepElement, "sql"));
+        step.setOuterJoin(KettleXml.flag(stepElement, "outer_join"));
+        Element parameter = stepElement.element("parameter");
+        if (parameter != null) {
+            for (Element field : parameter.elements("field")) {
+                String name = KettleXml.text(field, "name");
+                if (name != null) {
+                    step.getParameters().add(name);
+                }
+            }
+        }
+        return step;
+    }
+    
+    @Override
+    public KettleSqlInfo extractSql(DatabaseJoinStep step) {
+        return queryInfo(step, step.getSql());
+    }
+}
@@ -0,0 +1,109 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleField;
+import com.lineage.kettle.model.KettleLookupKey;
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.step.DatabaseLookupStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * DBLookup 数据库查询
+ */
+@Component
+public class DatabaseLookupStepHandler extends AbstractStepHandler<DatabaseLookupStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("DBLookup");
+    }
+    
+    @Override
+    public DatabaseLookupStep parse(Element stepElement) {
+        DatabaseLookupStep step = new DatabaseLookupStep();
+        parseTable(stepElement, step);
+        Element lookup = stepElement.element("lookup");
+        step.setKeys(keys(lookup));
+        step.setReturnFields(KettleXml.fields(lookup, "value", "name", "rename"));
+        return step;
+    }
+    
+    /**
+     * 按查询条件和返回字段生成等价的参数化查询：SELECT 返回字段 FROM 表 WHERE 条件字段 比较符 ?
+     */
+    @Override
+    public KettleSqlInfo extractSql(DatabaseLookupStep step) {
+        if (step.getTable() == null) {
+            return null;
+        }
+        StringJoiner columns = new StringJoiner(", ");
+        for (KettleField field : step.getReturnFields()) {
+            columns.add(field.getRename() == null ? field.getName() : field.getName() + " AS " + field.getRename());
+        }
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(columns.length() == 0 ? "*" : columns.toString())
+                .append(" FROM ").append(step.getQualifiedTable());
+        StringJoiner conditions = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        for (KettleLookupKey key : step.getKeys()) {
+            conditions.add(predicate(key));
+        }
+        sql.append(conditions);
+        
+        KettleSqlInfo info = sqlInfo(step);
+        info.setSql(sql.toString());
+        info.setSourceTable(step.getTable());
+        info.setSchemaName(step.getSchema());
+        return info;
+    }
+    
+    /**
+     * 查询条件的谓词，无法识别的比较符按 = 处理
+     */
+    private static String predicate(KettleLookupKey key) {
+        String column = key.getColumn();
+        String condition = key.getCondition() == null ? "="
+                : key.getCondition().trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+        switch (condition) {
+            case "<>":
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+            case "LIKE":
+                return column + " " + condition + " ?";
+            case "BETWEEN":
+                return column + " BETWEEN ? AND ?";
+            case "IS NULL":
+            case "IS NOT NULL":
+                return column + " " + condition;
+            case "= ~NULL":
+            case "=~NULL":
+                // 相等或同为空
+                return "(" + column + " = ? OR " + column + " IS NULL)";
+            default:
+                return column + " = ?";
+        }
+    }
+    
+    private static List<KettleLookupKey> keys(Element lookup) {
+        List<KettleLookupKey> keys = new ArrayList<>();
+        if (lookup == null) {
+            return keys;
+        }
+        for (Element element : lookup.elements("key")) {
+            String column = KettleXml.text(element, "field");
+            if (column != null) {
+                String stream = KettleXml.text(element, "name");
+                keys.add(new KettleLookupKey(column, stream == null ? column : stream,
+                        KettleXml.text(element, "condition"), KettleXml.text(element, "name2")));
+            }
+        }
+        return keys;
+    }
+}
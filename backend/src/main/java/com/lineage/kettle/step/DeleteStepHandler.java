@@ -0,0 +1,34 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.step.DeleteStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Delete 删除
+ */
+@Component
+public class DeleteStepHandler extends AbstractStepHandler<DeleteStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("Delete");
+    }
+    
+    @Override
+    public DeleteStep parse(Element stepElement) {
+        DeleteStep step = new DeleteStep();
+        parseTable(stepElement, step);
+        step.setKeys(KettleXml.mappings(stepElement.element("lookup"), "key", "field", "name"));
+        return step;
+    }
+    
+    @Override
+    public KettleSqlInfo extractSql(DeleteStep step) {
+        return targetTableInfo(step, " DELETE ");
+    }
+}
@@ -0,0 +1,37 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.step.DynamicSqlRowStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DynamicSQLRow 动态SQL
+ *
+ * 实际执行的SQL来自输入行字段，只能提取模板SQL
+ */
+@Component
+public class DynamicSqlRowStepHandler extends AbstractStepHandler<DynamicSqlRowStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("DynamicSQLRow");
+    }
+    
+    @Override
+    public DynamicSqlRowStep parse(Element stepElement) {
+        DynamicSqlRowStep step = new DynamicSqlRowStep();
+        step.setSql(KettleXml.text(stepElement, "sql"));
+        step.setSqlField(KettleXml.text(stepElement, "sql_fieldname"));
+        step.setOuterJoin(KettleXml.flag(stepElement, "outer_join"));
+        return step;
+    }
+    
+    @Override
+    public KettleSqlInfo extractSql(DynamicSqlRowStep step) {
+        return queryInfo(step, step.getSql());
+    }
+}
@@ -0,0 +1,38 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.step.ExecSqlStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ExecSQL 执行SQL脚本
+ */
+@Component
+public class ExecSqlStepHandler extends AbstractStepHandler<ExecSqlStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("ExecSQL");
+    }
+    
+    @Override
+    public ExecSqlStep parse(Element stepElement) {
+        ExecSqlStep step = new ExecSqlStep();
+        step.setSql(KettleXml.text(stepElement, "sql"));
+        return step;
+    }
+    
+    @Override
+    public KettleSqlInfo extractSql(ExecSqlStep step) {
+        if (step.getSql() == null) {
+            return null;
+        }
+        KettleSqlInfo info = sqlInfo(step);
+        info.setSql(cleanSql(step.getSql()));
+        return info;
+    }
+}
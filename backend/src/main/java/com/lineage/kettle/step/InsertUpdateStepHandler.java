@@ -0,0 +1,37 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.step.InsertUpdateStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * InsertUpdate 插入/更新、Update 更新
+ */
+@Component
+public class InsertUpdateStepHandler extends AbstractStepHandler<InsertUpdateStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Arrays.asList("InsertUpdate", "Update");
+    }
+    
+    @Override
+    public InsertUpdateStep parse(Element stepElement) {
+        InsertUpdateStep step = new InsertUpdateStep();
+        parseTable(stepElement, step);
+        Element lookup = stepElement.element("lookup");
+        step.setKeys(KettleXml.mappings(lookup, "key", "field", "name"));
+        step.setUpdateFields(KettleXml.mappings(lookup, "value", "name", "rename"));
+        return step;
+    }
+    
+    @Override
+    public KettleSqlInfo extractSql(InsertUpdateStep step) {
+        String operation = step.getType().replace("Update", " UPDATE ");
+        return targetTableInfo(step, operation);
+    }
+}
@@ -0,0 +1,35 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.KettleStep;
+import org.dom4j.Element;
+
+import java.util.List;
+
+/**
+ * 步骤类型处理器：把 &lt;step&gt; 元素解析为类型化的步骤模型，并从中提取SQL信息
+ *
+ * 实现类注册为 Spring Bean 即可由 {@link KettleStepRegistry} 自动收集，
+ * 新增步骤类型无需修改解析器和SQL提取器
+ *
+ * @param <T> 步骤模型类型
+ */
+public interface KettleStepHandler<T extends KettleStep> {
+    
+    /**
+     * 处理的步骤类型（&lt;type&gt; 的取值）
+     */
+    List<String> getStepTypes();
+    
+    /**
+     * 解析类型专有属性（名称、类型、连接由注册表统一设置）
+     */
+    T parse(Element stepElement);
+    
+    /**
+     * 提取SQL信息，步骤不涉及SQL时返回 null
+     */
+    default KettleSqlInfo extractSql(T step) {
+        return null;
+    }
+}
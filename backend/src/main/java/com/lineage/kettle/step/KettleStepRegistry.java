@@ -0,0 +1,71 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.KettleStep;
+import lombok.extern.slf4j.Slf4j;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 步骤类型注册表
+ *
+ * 收集全部 {@link KettleStepHandler} Bean，按步骤类型分派解析和SQL提取；
+ * 未注册的类型解析为只含名称、类型、连接的 {@link KettleStep}
+ */
+@Slf4j
+@Component
+public class KettleStepRegistry {
+    
+    private final Map<String, KettleStepHandler<?>> handlers = new HashMap<>();
+    
+    public KettleStepRegistry(List<KettleStepHandler<?>> handlers) {
+        handlers.forEach(this::register);
+    }
+    
+    /**
+     * 注册处理器，同一类型后注册者覆盖先注册者
+     */
+    public void register(KettleStepHandler<?> handler) {
+        for (String type : handler.getStepTypes()) {
+            KettleStepHandler<?> previous = handlers.put(type, handler);
+            if (previous != null && previous != handler) {
+                log.warn("步骤类型处理器被覆盖: type={}, previous={}, current={}",
+                        type, previous.getClass().getSimpleName(), handler.getClass().getSimpleName());
+            }
+        }
+    }
+    
+    /**
+     * 已注册的步骤类型
+     */
+    public Set<String> getStepTypes() {
+        return handlers.keySet();
+    }
+    
+    /**
+     * 解析步骤元素
+     */
+    public KettleStep parse(Element stepElement) {
+        String type = KettleXml.text(stepElement, "type");
+        KettleStepHandler<?> handler = type == null ? null : handlers.get(type);
+        KettleStep step = handler == null ? new KettleStep() : handler.parse(stepElement);
+        step.setName(KettleXml.text(stepElement, "name"));
+        step.setType(type);
+        step.setConnection(KettleXml.text(stepElement, "connection"));
+        return step;
+    }
+    
+    /**
+     * 提取步骤的SQL信息，未注册类型或不涉及SQL时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public KettleSqlInfo extractSql(KettleStep step) {
+        KettleStepHandler<KettleStep> handler = (KettleStepHandler<KettleStep>) handlers.get(step.getType());
+        return handler == null ? null : handler.extractSql(step);
+    }
+}
@@ -0,0 +1,94 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleField;
+import com.lineage.kettle.model.KettleFieldMapping;
+import org.dom4j.Element;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kettle XML读取工具
+ */
+public final class KettleXml {
+    
+    private KettleXml() {
+    }
+    
+    /**
+     * 获取子元素文本（处理CDATA），不存在或为空时返回 null
+     */
+    public static String text(Element parent, String elementName) {
+        if (parent == null) {
+            return null;
+        }
+        
+        Element element = parent.element(elementName);
+        if (element == null) {
+            return null;
+        }
+        
+        String text = element.getTextTrim();
+        return text.isEmpty() ? null : text;
+    }
+    
+    /**
+     * Y / true 视为真
+     */
+    public static boolean flag(Element parent, String elementName) {
+        String text = text(parent, elementName);
+        return "Y".equalsIgnoreCase(text) || "true".equalsIgnoreCase(text);
+    }
+    
+    /**
+     * 读取重复子元素中的字段（如 &lt;fields&gt;&lt;field&gt;&lt;name/&gt;&lt;rename/&gt;）
+     */
+    public static List<KettleField> fields(Element parent, String childName, String nameTag, String renameTag) {
+        List<KettleField> fields = new ArrayList<>();
+        if (parent == null) {
+            return fields;
+        }
+        for (Element child : parent.elements(childName)) {
+            String name = text(child, nameTag);
+            if (name != null) {
+                fields.add(new KettleField(name, text(child, renameTag)));
+            }
+        }
+        return fields;
+    }
+    
+    /**
+     * 读取重复子元素中的表字段/流字段映射，流字段缺省时与表字段同名
+     */
+    public static List<KettleFieldMapping> mappings(Element parent, String childName, String columnTag, String streamTag) {
+        List<KettleFieldMapping> mappings = new ArrayList<>();
+        if (parent == null) {
+            return mappings;
+        }
+        for (Element child : parent.elements(childName)) {
+            String column = text(child, columnTag);
+            if (column != null) {
+                String stream = text(child, streamTag);
+                mappings.add(new KettleFieldMapping(column, stream == null ? column : stream));
+            }
+        }
+        return mappings;
+    }
+    
+    /**
+     * 读取重复子元素的文本列表
+     */
+    public static List<String> texts(Element parent, String childName) {
+        List<String> texts = new ArrayList<>();
+        if (parent == null) {
+            return texts;
+        }
+        for (Element child : parent.elements(childName)) {
+            String text = child.getTextTrim();
+            if (!text.isEmpty()) {
+                texts.add(text);
+            }
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,31 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.step.MergeJoinStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MergeJoin 记录集连接
+ */
+@Component
+public class MergeJoinStepHandler extends AbstractStepHandler<MergeJoinStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("MergeJoin");
+    }
+    
+    @Override
+    public MergeJoinStep parse(Element stepElement) {
+        MergeJoinStep step = new MergeJoinStep();
+        step.setJoinType(KettleXml.text(stepElement, "join_type"));
+        step.setLeftStep(KettleXml.text(stepElement, "step1"));
+        step.setRightStep(KettleXml.text(stepElement, "step2"));
+        step.setLeftKeys(KettleXml.texts(stepElement.element("keys_1"), "key"));
+        step.setRightKeys(KettleXml.texts(stepElement.element("keys_2"), "key"));
+        return step;
+    }
+}
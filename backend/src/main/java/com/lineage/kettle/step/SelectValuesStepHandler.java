@@ -0,0 +1,33 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleField;
+import com.lineage.kettle.model.step.SelectValuesStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SelectValues 字段选择
+ */
+@Component
+public class SelectValuesStepHandler extends AbstractStepHandler<SelectValuesStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("SelectValues");
+    }
+    
+    @Override
+    public SelectValuesStep parse(Element stepElement) {
+        SelectValuesStep step = new SelectValuesStep();
+        Element fields = stepElement.element("fields");
+        step.setFields(KettleXml.fields(fields, "field", "name", "rename"));
+        for (KettleField removed : KettleXml.fields(fields, "remove", "name", "rename")) {
+            step.getRemovedFields().add(removed.getName());
+        }
+        step.setSelectUnspecified(KettleXml.flag(fields, "select_unspecified"));
+        return step;
+    }
+}
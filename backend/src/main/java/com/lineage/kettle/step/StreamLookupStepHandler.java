@@ -0,0 +1,30 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.step.StreamLookupStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * StreamLookup 流查询（不访问数据库，只参与字段级血缘）
+ */
+@Component
+public class StreamLookupStepHandler extends AbstractStepHandler<StreamLookupStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("StreamLookup");
+    }
+    
+    @Override
+    public StreamLookupStep parse(Element stepElement) {
+        StreamLookupStep step = new StreamLookupStep();
+        step.setLookupStep(KettleXml.text(stepElement, "from"));
+        Element lookup = stepElement.element("lookup");
+        step.setKeys(KettleXml.mappings(lookup, "key", "field", "name"));
+        step.setReturnFields(KettleXml.fields(lookup, "value", "name", "rename"));
+        return step;
+    }
+}
@@ -0,0 +1,46 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.step.SynchronizeAfterMergeStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SynchronizeAfterMerge 合并后同步
+ */
+@Component
+public class SynchronizeAfterMergeStepHandler extends AbstractStepHandler<SynchronizeAfterMergeStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("SynchronizeAfterMerge");
+    }
+    
+    @Override
+    public SynchronizeAfterMergeStep parse(Element stepElement) {
+        SynchronizeAfterMergeStep step = new SynchronizeAfterMergeStep();
+        parseTable(stepElement, step);
+        Element lookup = stepElement.element("lookup");
+        step.setKeys(KettleXml.mappings(lookup, "key", "field", "name"));
+        step.setUpdateFields(KettleXml.mappings(lookup, "value", "name", "rename"));
+        step.setOperationOrderField(KettleXml.text(stepElement, "operation_order_field"));
+        if (KettleXml.flag(stepElement, "table_name_in_field")) {
+            step.setTableNameField(KettleXml.text(stepElement, "table_name_field"));
+        }
+        return step;
+    }
+    
+    /**
+     * 目标表名取自流字段时无法静态确定，不提取
+     */
+    @Override
+    public KettleSqlInfo extractSql(SynchronizeAfterMergeStep step) {
+        if (step.getTableNameField() != null) {
+            return null;
+        }
+        return targetTableInfo(step, "MERGE INTO ");
+    }
+}
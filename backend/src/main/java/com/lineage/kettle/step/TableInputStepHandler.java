@@ -0,0 +1,33 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.step.TableInputStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TableInput 表输入
+ */
+@Component
+public class TableInputStepHandler extends AbstractStepHandler<TableInputStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("TableInput");
+    }
+    
+    @Override
+    public TableInputStep parse(Element stepElement) {
+        TableInputStep step = new TableInputStep();
+        step.setSql(KettleXml.text(stepElement, "sql"));
+        return step;
+    }
+    
+    @Override
+    public KettleSqlInfo extractSql(TableInputStep step) {
+        return queryInfo(step, step.getSql());
+    }
+}
@@ -0,0 +1,36 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.step.TableOutputStep;
+import org.dom4j.Element;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TableOutput 表输出
+ */
+@Component
+public class TableOutputStepHandler extends AbstractStepHandler<TableOutputStep> {
+    
+    @Override
+    public List<String> getStepTypes() {
+        return Collections.singletonList("TableOutput");
+    }
+    
+    @Override
+    public TableOutputStep parse(Element stepElement) {
+        TableOutputStep step = new TableOutputStep();
+        parseTable(stepElement, step);
+        step.setSpecifyFields(KettleXml.flag(stepElement, "specify_fields"));
+        step.setFields(KettleXml.mappings(stepElement.element("fields"), "field", "column_name", "stream_name"));
+        return step;
+    }
+    
+    @Override
+    public KettleSqlInfo extractSql(TableOutputStep step) {
+        // TableOutput没有显式SQL，生成描述性说明
+        return targetTableInfo(step, "INSERT INTO ");
+    }
+}
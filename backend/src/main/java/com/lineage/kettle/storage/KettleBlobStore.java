@@ -0,0 +1,484 @@
+package com.lineage.kettle.storage;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.util.concurrent.Striped;
+import com.lineage.config.LineageProperties;
+import com.lineage.kettle.entity.KettleFileRecord;
+import com.lineage.kettle.mapper.KettleFileRecordMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Kettle文件内容寻址存储
+ *
+ * 上传内容边写临时文件边计算 SHA-256，完成后按哈希移入分片目录
+ * （blobs/ab/cd/abcd...），相同内容只保存一份。
+ * 引用计数即未删除的文件记录中引用该哈希的条数；记录删除后异步回收，
+ * 另有定期任务回收无引用的内容和遗留临时文件。
+ * 新写入或被复用的内容在宽限期内不回收；保存后到记录写入（{@link #unpin}）之前的内容
+ * 另记为导入中，不论耗时多久都不回收。同一哈希的保存与回收按哈希分段加锁串行执行
+ */
+@Slf4j
+@Component
+public class KettleBlobStore {
+
+    private static final String BLOB_DIR = "blobs";
+
+    private static final String TEMP_DIR = "tmp";
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    @Resource
+    private LineageProperties properties;
+
+    @Resource
+    private KettleFileRecordMapper kettleFileRecordMapper;
+
+    /**
+     * 导入中（已保存、记录尚未写入）的内容哈希，按保存次数计数
+     */
+    private final ConcurrentHashMultiset<String> inFlight = ConcurrentHashMultiset.create();
+
+    /**
+     * 按哈希分段的锁：保存时的复用/移入与回收时的检查/删除互斥
+     */
+    private final Striped<Lock> locks = Striped.lock(64);
+
+    /**
+     * 保存内容：同一遍读取中写临时文件并计算 SHA-256，超过大小限制时删除并报错。
+     * 保存成功的内容记为导入中，调用方写入记录后须调用 {@link #unpin}。
+     * 不关闭输入流（zip 导入时为整个归档流）
+     */
+    public StoredBlob store(InputStream content) throws IOException {
+        try {
+            return store(content, null).getBlob();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 保存内容的同时交给读取方消费（如解析）：读取方读到的每个字节同时写入临时文件并计入哈希，
+     * 读取方返回后把剩余内容读完，整个上传流只读一遍。
+     * 读取方失败或超过大小限制时不保存。保存成功的内容记为导入中，见 {@link #store(InputStream)}。
+     * 不关闭输入流
+     *
+     * @param content 内容流
+     * @param reader  读取方，为空时只保存
+     */
+    public <T> TeeResult<T> store(InputStream content, ContentReader<T> reader) throws Exception {
+        Path tempDir = root().resolve(TEMP_DIR);
+        Files.createDirectories(tempDir);
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+
+        long maxBytes = properties.getKettle().getMaxFileSizeMb() * 1024L * 1024L;
+        HashingInputStream hashing = new HashingInputStream(Hashing.sha256(), content);
+        try {
+            T value = null;
+            long size;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                TeeInputStream tee = new TeeInputStream(hashing, out, maxBytes,
+                        "文件大小超过" + properties.getKettle().getMaxFileSizeMb() + "MB限制");
+                if (reader != null) {
+                    value = reader.read(tee);
+                }
+                tee.drain();
+                size = tee.count;
+            }
+
+            String hash = hashing.hash().toString();
+            Path target = blobPath(hash);
+            boolean deduplicated;
+            Lock lock = locks.get(hash);
+            lock.lock();
+            try {
+                deduplicated = touch(target);
+                if (!deduplicated) {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        deduplicated = touch(target);
+                    }
+                }
+                inFlight.add(hash);
+            } finally {
+                lock.unlock();
+            }
+            if (deduplicated) {
+                log.info("文件内容已存在，复用: {}", target);
+            } else {
+                log.info("文件保存成功: {}", target);
+            }
+            return new TeeResult<>(new StoredBlob(target.toFile(), hash, size, deduplicated), value);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 导入结束（记录已写入或放弃写入）：不再视为导入中，之后按引用和宽限期回收
+     */
+    public void unpin(String hash) {
+        inFlight.remove(hash);
+    }
+
+    /**
+     * 内容哈希对应的存储路径（两级分片目录）
+     */
+    public Path blobPath(String hash) {
+        return root().resolve(BLOB_DIR).resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    /**
+     * 引用该内容的未删除文件记录数
+     */
+    public long referenceCount(String hash) {
+        return kettleFileRecordMapper.selectCount(
+                new LambdaQueryWrapper<KettleFileRecord>().eq(KettleFileRecord::getContentHash, hash));
+    }
+
+    /**
+     * 文件记录删除后异步释放其内容：内容寻址存储中的文件在无引用时回收，
+     * 早期按时间戳命名保存的文件直接删除
+     *
+     * @param hash     内容哈希，早期记录可能为空
+     * @param filePath 记录中的文件路径
+     */
+    @Async
+    public void release(String hash, String filePath) {
+        if (filePath == null) {
+            return;
+        }
+        Path path = Paths.get(filePath);
+        try {
+            if (hash != null && path.toAbsolutePath().normalize().equals(blobPath(hash).toAbsolutePath().normalize())) {
+                collect(hash);
+            } else if (Files.deleteIfExists(path)) {
+                log.info("删除物理文件: {}", path);
+            }
+        } catch (Exception e) {
+            log.warn("释放文件失败: {}", filePath, e);
+        }
+    }
+
+    /**
+     * 内容不在导入中、超过宽限期且无引用时删除
+     *
+     * @return 是否删除
+     */
+    public boolean collect(String hash) throws IOException {
+        Path path = blobPath(hash);
+        Lock lock = locks.get(hash);
+        lock.lock();
+        try {
+            if (inFlight.contains(hash) || !Files.exists(path) || !expired(path) || referenceCount(hash) > 0) {
+                return false;
+            }
+            if (!delete(path)) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.info("回收无引用的文件内容: {}", path);
+        return true;
+    }
+
+    /**
+     * 丢弃本次新写入、但记录未能写入的内容：不在导入中且无引用时立即删除，不等宽限期
+     *
+     * @return 是否删除
+     */
+    public boolean discard(String hash) throws IOException {
+        Path path = blobPath(hash);
+        Lock lock = locks.get(hash);
+        lock.lock();
+        try {
+            if (inFlight.contains(hash) || referenceCount(hash) > 0 || !delete(path)) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.info("丢弃未写入记录的文件内容: {}", path);
+        return true;
+    }
+
+    /**
+     * 定期回收无引用的内容和遗留临时文件
+     */
+    @Scheduled(fixedDelayString = "${lineage.kettle.blob-gc-interval-ms:3600000}")
+    public void scheduledSweep() {
+        sweep();
+    }
+
+    /**
+     * 扫描全部内容，回收无引用的内容和超过宽限期的临时文件
+     *
+     * @return 删除的文件数
+     */
+    public int sweep() {
+        int deleted = 0;
+        Path blobs = root().resolve(BLOB_DIR);
+        if (Files.isDirectory(blobs)) {
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(blobs)) {
+                files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+            } catch (IOException e) {
+                log.warn("扫描文件存储目录失败: {}", blobs, e);
+                files = Collections.emptyList();
+            }
+            for (Path file : files) {
+                String hash = file.getFileName().toString();
+                try {
+                    if (HASH.matcher(hash).matches() && collect(hash)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("回收文件内容失败: {}", file, e);
+                }
+            }
+        }
+
+        Path tempDir = root().resolve(TEMP_DIR);
+        if (Files.isDirectory(tempDir)) {
+            try (DirectoryStream<Path> temps = Files.newDirectoryStream(tempDir)) {
+                for (Path temp : temps) {
+                    if (expired(temp) && Files.deleteIfExists(temp)) {
+                        deleted++;
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("清理临时文件失败: {}", tempDir, e);
+            }
+        }
+
+        if (deleted > 0) {
+            log.info("Kettle文件存储回收完成: deleted={}", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * 复用已有内容：刷新修改时间，使其在宽限期内不被回收
+     *
+     * @return 内容是否存在
+     */
+    private static boolean touch(Path path) throws IOException {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 删除内容及随之变空的分片目录
+     */
+    private static boolean delete(Path path) throws IOException {
+        if (!Files.deleteIfExists(path)) {
+            return false;
+        }
+        deleteIfEmpty(path.getParent());
+        deleteIfEmpty(path.getParent().getParent());
+        return true;
+    }
+
+    private boolean expired(Path path) throws IOException {
+        long graceMillis = TimeUnit.MINUTES.toMillis(properties.getKettle().getBlobGcGraceMinutes());
+        return Files.getLastModifiedTime(path).toMillis() <= System.currentTimeMillis() - graceMillis;
+    }
+
+    private static void deleteIfEmpty(Path dir) {
+        try {
+            Files.deleteIfExists(dir);
+        } catch (DirectoryNotEmptyException e) {
+            // 分片目录仍有其他内容
+        } catch (IOException e) {
+            log.debug("删除空目录失败: {}", dir, e);
+        }
+    }
+
+    private Path root() {
+        return Paths.get(properties.getKettle().getUploadDir());
+    }
+
+    /**
+     * 保存过程中消费内容流的读取方
+     */
+    @FunctionalInterface
+    public interface ContentReader<T> {
+
+        /**
+         * 读取内容（无需读完，也无需关闭）
+         */
+        T read(InputStream in) throws Exception;
+    }
+
+    /**
+     * 保存结果与读取方的返回值
+     */
+    public static final class TeeResult<T> {
+        private final StoredBlob blob;
+        private final T value;
+
+        private TeeResult(StoredBlob blob, T value) {
+            this.blob = blob;
+            this.value = value;
+        }
+
+        public StoredBlob getBlob() {
+            return blob;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * 读到的字节同时写入输出流（跳过也按读取处理），累计超过上限时报错；关闭时不关闭底层流
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+        private final OutputStream out;
+        private final long maxBytes;
+        private final String message;
+        private long count;
+
+        private TeeInputStream(InputStream in, OutputStream out, long maxBytes, String message) {
+            super(in);
+            this.out = out;
+            this.maxBytes = maxBytes;
+            this.message = message;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                count(1);
+                out.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                count(read);
+                out.write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(8192L, Math.max(1L, n))];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read == -1) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // 底层流由调用方关闭
+        }
+
+        /**
+         * 读完剩余内容
+         */
+        void drain() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) != -1) {
+                // 只需写出
+            }
+        }
+
+        private void count(int read) throws IOException {
+            count += read;
+            if (count > maxBytes) {
+                throw new IOException(message);
+            }
+        }
+    }
+
+    /**
+     * 已保存的内容
+     */
+    public static final class StoredBlob {
+        private final File file;
+        private final String contentHash;
+        private final long size;
+        private final boolean deduplicated;
+
+        private StoredBlob(File file, String contentHash, long size, boolean deduplicated) {
+            this.file = file;
+            this.contentHash = contentHash;
+            this.size = size;
+            this.deduplicated = deduplicated;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * 内容此前已存在，本次未新写入
+         */
+        public boolean isDeduplicated() {
+            return deduplicated;
+        }
+    }
+}
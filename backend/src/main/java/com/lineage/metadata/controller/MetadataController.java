@@ -2,6 +2,7 @@ package com.lineage.metadata.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.lineage.dto.response.ApiResponse;
+import com.lineage.dto.response.CursorPage;
 import com.lineage.metadata.dto.ColumnMetadataDTO;
 import com.lineage.metadata.dto.DataSourceDTO;
 import com.lineage.metadata.dto.MetadataImportRequest;
@@ -65,11 +66,27 @@ public class MetadataController {
     public ApiResponse<IPage<DataSource>> listDataSources(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String type) {
-        IPage<DataSource> result = metadataService.listDataSources(page, size, type);
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "true") boolean count) {
+        IPage<DataSource> result = metadataService.listDataSources(page, size, type, count);
         return ApiResponse.success(result);
     }
     
+    /**
+     * 键集分页查询数据源（深翻页，不返回总数）
+     */
+    @GetMapping("/datasource/seek")
+    public ApiResponse<CursorPage<DataSource>> seekDataSources(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String type) {
+        try {
+            return ApiResponse.success(metadataService.seekDataSources(cursor, size, type));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+    
     /**
      * 更新数据源
      */
@@ -123,11 +140,27 @@ public class MetadataController {
     public ApiResponse<IPage<TableMetadata>> listTables(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) Long datasourceId) {
-        IPage<TableMetadata> result = metadataService.listTables(page, size, datasourceId);
+            @RequestParam(required = false) Long datasourceId,
+            @RequestParam(defaultValue = "true") boolean count) {
+        IPage<TableMetadata> result = metadataService.listTables(page, size, datasourceId, count);
         return ApiResponse.success(result);
     }
     
+    /**
+     * 键集分页查询表元数据（深翻页，不返回总数）
+     */
+    @GetMapping("/table/seek")
+    public ApiResponse<CursorPage<TableMetadata>> seekTables(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) Long datasourceId) {
+        try {
+            return ApiResponse.success(metadataService.seekTables(cursor, size, datasourceId));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+    
     /**
      * 更新表元数据
      */
@@ -3,6 +3,9 @@ package com.lineage.metadata.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lineage.dto.response.CursorPage;
+import com.lineage.graph.service.ReanalysisQueueService;
+import com.lineage.kettle.connection.KettleConnectionResolver;
 import com.lineage.metadata.dto.ColumnMetadataDTO;
 import com.lineage.metadata.dto.DataSourceDTO;
 import com.lineage.metadata.dto.TableMetadataDTO;
@@ -12,6 +15,7 @@ import com.lineage.metadata.entity.TableMetadata;
 import com.lineage.metadata.mapper.ColumnMetadataMapper;
 import com.lineage.metadata.mapper.DataSourceMapper;
 import com.lineage.metadata.mapper.TableMetadataMapper;
+import com.lineage.service.KeysetPagination;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
@@ -19,7 +23,12 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -38,6 +47,12 @@ public class MetadataService {
     @Resource
     private ColumnMetadataMapper columnMetadataMapper;
     
+    @Resource
+    private ReanalysisQueueService reanalysisQueueService;
+    
+    @Resource
+    private KettleConnectionResolver connectionResolver;
+    
     // ==================== 数据源管理 ====================
     
     /**
@@ -48,6 +63,7 @@ public class MetadataService {
         DataSource entity = new DataSource();
         BeanUtils.copyProperties(dto, entity);
         dataSourceMapper.insert(entity);
+        connectionResolver.invalidateDataSources();
         log.info("创建数据源成功, id={}, name={}", entity.getId(), entity.getName());
         return entity.getId();
     }
@@ -63,13 +79,37 @@ public class MetadataService {
      * 列表查询数据源（分页）
      */
     public IPage<DataSource> listDataSources(int page, int size, String type) {
-        Page<DataSource> pageParam = new Page<>(page, size);
+        return listDataSources(page, size, type, true);
+    }
+    
+    /**
+     * 列表查询数据源（分页）
+     *
+     * @param searchCount 是否查询总数，不需要总数时省去 COUNT
+     */
+    public IPage<DataSource> listDataSources(int page, int size, String type, boolean searchCount) {
+        Page<DataSource> pageParam = new Page<>(page, size, searchCount);
+        LambdaQueryWrapper<DataSource> wrapper = dataSourceFilter(type);
+        wrapper.orderByDesc(DataSource::getCreateTime).orderByDesc(DataSource::getId);
+        return dataSourceMapper.selectPage(pageParam, wrapper);
+    }
+    
+    /**
+     * 键集分页查询数据源（深翻页）
+     *
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     */
+    public CursorPage<DataSource> seekDataSources(String cursor, int size, String type) {
+        return KeysetPagination.seek(dataSourceMapper, dataSourceFilter(type),
+                DataSource::getCreateTime, DataSource::getId, cursor, size);
+    }
+    
+    private static LambdaQueryWrapper<DataSource> dataSourceFilter(String type) {
         LambdaQueryWrapper<DataSource> wrapper = new LambdaQueryWrapper<>();
         if (type != null && !type.isEmpty()) {
             wrapper.eq(DataSource::getType, type);
         }
-        wrapper.orderByDesc(DataSource::getCreateTime);
-        return dataSourceMapper.selectPage(pageParam, wrapper);
+        return wrapper;
     }
     
     /**
@@ -84,6 +124,7 @@ public class MetadataService {
         BeanUtils.copyProperties(dto, entity);
         entity.setId(id);
         dataSourceMapper.updateById(entity);
+        connectionResolver.invalidateDataSources();
         log.info("更新数据源成功, id={}", id);
     }
     
@@ -93,6 +134,7 @@ public class MetadataService {
     @Transactional(rollbackFor = Exception.class)
     public void deleteDataSource(Long id) {
         dataSourceMapper.deleteById(id);
+        connectionResolver.invalidateDataSources();
         log.info("删除数据源成功, id={}", id);
     }
     
@@ -130,13 +172,37 @@ public class MetadataService {
      * 列表查询表元数据（分页）
      */
     public IPage<TableMetadata> listTables(int page, int size, Long datasourceId) {
-        Page<TableMetadata> pageParam = new Page<>(page, size);
+        return listTables(page, size, datasourceId, true);
+    }
+    
+    /**
+     * 列表查询表元数据（分页）
+     *
+     * @param searchCount 是否查询总数，不需要总数时省去 COUNT
+     */
+    public IPage<TableMetadata> listTables(int page, int size, Long datasourceId, boolean searchCount) {
+        Page<TableMetadata> pageParam = new Page<>(page, size, searchCount);
+        LambdaQueryWrapper<TableMetadata> wrapper = tableFilter(datasourceId);
+        wrapper.orderByDesc(TableMetadata::getCreateTime).orderByDesc(TableMetadata::getId);
+        return tableMetadataMapper.selectPage(pageParam, wrapper);
+    }
+    
+    /**
+     * 键集分页查询表元数据（深翻页）
+     *
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     */
+    public CursorPage<TableMetadata> seekTables(String cursor, int size, Long datasourceId) {
+        return KeysetPagination.seek(tableMetadataMapper, tableFilter(datasourceId),
+                TableMetadata::getCreateTime, TableMetadata::getId, cursor, size);
+    }
+    
+    private static LambdaQueryWrapper<TableMetadata> tableFilter(Long datasourceId) {
         LambdaQueryWrapper<TableMetadata> wrapper = new LambdaQueryWrapper<>();
         if (datasourceId != null) {
             wrapper.eq(TableMetadata::getDatasourceId, datasourceId);
         }
-        wrapper.orderByDesc(TableMetadata::getCreateTime);
-        return tableMetadataMapper.selectPage(pageParam, wrapper);
+        return wrapper;
     }
     
     /**
@@ -195,7 +261,7 @@ public class MetadataService {
     }
     
     /**
-     * 更新字段元数据
+     * 更新字段元数据，字段名或类型变化时受影响的血缘出处进入重新分析队列（开启元数据触发时）
      */
     @Transactional(rollbackFor = Exception.class)
     public void updateColumn(Long id, ColumnMetadataDTO dto) {
@@ -203,18 +269,58 @@ public class MetadataService {
         if (entity == null) {
             throw new RuntimeException("字段元数据不存在: " + id);
         }
+        String oldName = entity.getColumnName();
+        String oldType = entity.getColumnType();
         BeanUtils.copyProperties(dto, entity);
         entity.setId(id);
         columnMetadataMapper.updateById(entity);
         log.debug("更新字段元数据成功, id={}", id);
+        
+        if (!Objects.equals(oldName, entity.getColumnName()) || !Objects.equals(oldType, entity.getColumnType())) {
+            enqueueReanalysis(entity.getTableId(), Arrays.asList(oldName, entity.getColumnName()),
+                    "字段变更: " + oldName + " -> " + entity.getColumnName());
+        }
     }
     
     /**
-     * 删除字段元数据
+     * 删除字段元数据，受影响的血缘出处进入重新分析队列（开启元数据触发时）
      */
     @Transactional(rollbackFor = Exception.class)
     public void deleteColumn(Long id) {
+        ColumnMetadata entity = columnMetadataMapper.selectById(id);
         columnMetadataMapper.deleteById(id);
         log.debug("删除字段元数据成功, id={}", id);
+        
+        if (entity != null) {
+            enqueueReanalysis(entity.getTableId(), Collections.singletonList(entity.getColumnName()),
+                    "字段删除: " + entity.getColumnName());
+        }
+    }
+    
+    /**
+     * 字段对应的血缘节点（表名.字段名 及 schema.表名.字段名）所属出处入队（lineage.reanalysis.metadata-triggers 开启时）
+     */
+    private void enqueueReanalysis(Long tableId, Collection<String> columnNames, String reason) {
+        if (!reanalysisQueueService.isMetadataTriggersEnabled()) {
+            return;
+        }
+        TableMetadata table = tableId == null ? null : tableMetadataMapper.selectById(tableId);
+        if (table == null) {
+            return;
+        }
+        List<String> nodes = new ArrayList<>();
+        for (String column : columnNames) {
+            if (column == null) {
+                continue;
+            }
+            nodes.add(table.getTableName() + "." + column);
+            if (table.getSchemaName() != null && !table.getSchemaName().isEmpty()) {
+                nodes.add(table.getSchemaName() + "." + table.getTableName() + "." + column);
+            }
+        }
+        int queued = reanalysisQueueService.enqueueForNodes(nodes, reason);
+        if (queued > 0) {
+            log.info("字段变更触发重新分析: tableId={}, jobs={}", tableId, queued);
+        }
     }
 }
@@ -3,9 +3,10 @@ package com.lineage.service;
 import com.alibaba.druid.DbType;
 import com.alibaba.druid.sql.SQLUtils;
 import com.alibaba.druid.sql.ast.SQLStatement;
-import com.alibaba.druid.sql.parser.SQLParserUtils;
-import com.alibaba.druid.sql.parser.SQLStatementParser;
+import com.alibaba.druid.sql.parser.SQLParserFeature;
+import com.lineage.config.LineageProperties;
 import com.lineage.core.dialect.DbTypeResolver;
+import com.lineage.core.dialect.DialectProfile;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,9 @@ public class DruidParserService {
     @Autowired
     private DbTypeResolver dbTypeResolver;
 
+    @Autowired
+    private LineageProperties properties;
+
     /**
      * 解析 SQL 为 AST（抽象语法树）
      *
@@ -36,17 +40,12 @@ public class DruidParserService {
     public List<SQLStatement> parseSQL(String sql, String dbType) {
         validateInput(sql, dbType);
 
-        DbType resolvedDbType = dbTypeResolver.resolve(dbType);
-        log.debug("Parsing SQL with database type: {}", resolvedDbType);
+        DialectProfile profile = dbTypeResolver.resolveProfile(dbType);
+        log.debug("Parsing SQL with database type: {}", profile.getDbType());
 
-        try {
-            List<SQLStatement> statements = SQLUtils.parseStatements(sql, resolvedDbType);
-            log.info("Successfully parsed {} SQL statement(s)", statements.size());
-            return statements;
-        } catch (Exception e) {
-            log.error("Failed to parse SQL: {}", sql, e);
-            throw new IllegalArgumentException("SQL parsing failed: " + e.getMessage(), e);
-        }
+        List<SQLStatement> statements = parse(profile.preprocess(sql), profile.getDbType(), profile.getLineageFeatures());
+        log.debug("Successfully parsed {} SQL statement(s)", statements.size());
+        return statements;
     }
 
     /**
@@ -71,9 +70,33 @@ public class DruidParserService {
         return statements.get(0);
     }
 
+    /**
+     * 试探解析单条 SQL（方言自动识别时使用）
+     *
+     * @param sql    SQL 语句
+     * @param dbType 数据库类型字符串
+     * @return 第一个 SQLStatement；该方言无法解析时返回 null，不记录错误日志
+     * @throws IllegalArgumentException SQL 为空、超长或方言不支持
+     */
+    public SQLStatement tryParseSingleSQL(String sql, String dbType) {
+        validateInput(sql, dbType);
+
+        DialectProfile profile = dbTypeResolver.resolveProfile(dbType);
+        try {
+            List<SQLStatement> statements = SQLUtils.parseStatements(
+                    profile.preprocess(sql), profile.getDbType(), profile.getLineageFeatures());
+            return statements.isEmpty() ? null : statements.get(0);
+        } catch (Exception e) {
+            log.debug("Trial parse with {} failed: {}", dbType, e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 格式化 SQL（美化输出）
      *
+     * 与分析相同，先按方言预处理（如 ClickHouse ARRAY JOIN 改写为 UNNEST），输出为预处理后的形式
+     *
      * @param sql    原始 SQL
      * @param dbType 数据库类型字符串
      * @return 格式化后的 SQL
@@ -81,19 +104,30 @@ public class DruidParserService {
     public String formatSQL(String sql, String dbType) {
         validateInput(sql, dbType);
 
-        // 先验证SQL是否可解析
-        parseSQL(sql, dbType);
-
-        DbType resolvedDbType = dbTypeResolver.resolve(dbType);
+        // 只解析一次：解析成功即验证通过，再直接输出格式化结果
+        DialectProfile profile = dbTypeResolver.resolveProfile(dbType);
+        List<SQLStatement> statements = parse(profile.preprocess(sql), profile.getDbType(), profile.getFormatFeatures());
         
         try {
-            return SQLUtils.format(sql, resolvedDbType);
+            return SQLUtils.toSQLString(statements, profile.getDbType(), SQLUtils.DEFAULT_FORMAT_OPTION);
         } catch (Exception e) {
             log.error("Failed to format SQL: {}", sql, e);
             throw new IllegalArgumentException("SQL formatting failed: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 按指定解析特性解析 SQL
+     */
+    private List<SQLStatement> parse(String sql, DbType dbType, SQLParserFeature[] features) {
+        try {
+            return SQLUtils.parseStatements(sql, dbType, features);
+        } catch (Exception e) {
+            log.error("Failed to parse SQL: {}", sql, e);
+            throw new IllegalArgumentException("SQL parsing failed: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 验证输入参数
      */
@@ -104,5 +138,9 @@ public class DruidParserService {
         if (StringUtils.isBlank(dbType)) {
             throw new IllegalArgumentException("Database type cannot be blank");
         }
+        int maxSqlLength = properties.getParser().getMaxSqlLength();
+        if (maxSqlLength > 0 && sql.length() > maxSqlLength) {
+            throw new IllegalArgumentException("SQL length " + sql.length() + " exceeds limit " + maxSqlLength);
+        }
     }
 }
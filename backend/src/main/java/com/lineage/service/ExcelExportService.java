@@ -1,24 +1,53 @@
 package com.lineage.service;
 
 import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
 import com.alibaba.excel.write.style.column.LongestMatchColumnWidthStyleStrategy;
+import com.lineage.config.LineageProperties;
 import com.lineage.core.tracker.FieldDependency;
+import com.lineage.core.tracker.FieldSource;
 import com.lineage.core.tracker.LineageResult;
 import com.lineage.dto.excel.LineageExcelRow;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Excel 导出服务
+ *
+ * 行数超过 lineage.export.spill-threshold-rows 时写入 temp-dir 下的临时文件；
+ * 超过单表行数上限时自动分页到新的工作表
  */
 @Slf4j
 @Service
 public class ExcelExportService {
     
+    /**
+     * 临时导出文件前缀（清理任务按此识别）
+     */
+    public static final String TEMP_FILE_PREFIX = "lineage_export_";
+    
+    private static final String SHEET_NAME = "血缘分析结果";
+    
+    /**
+     * 每批写入的行数
+     */
+    private static final int WRITE_BATCH_SIZE = 1000;
+    
+    @Autowired
+    private LineageProperties properties;
+    
     /**
      * 将血缘分析结果导出为 Excel
      *
@@ -27,82 +56,165 @@ public class ExcelExportService {
      */
     public ByteArrayOutputStream exportToExcel(LineageResult lineageResult) {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeExcel(lineageResult, outputStream);
+        return outputStream;
+    }
+    
+    /**
+     * 将血缘分析结果导出为 temp-dir 下的临时 Excel 文件，调用方负责删除
+     *
+     * @param lineageResult 血缘分析结果
+     * @return 临时文件路径
+     */
+    public Path exportToTempFile(LineageResult lineageResult) throws IOException {
+        Path dir = Paths.get(properties.getExport().getTempDir());
+        Files.createDirectories(dir);
+        Path file = Files.createTempFile(dir, TEMP_FILE_PREFIX, ".xlsx");
+        
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            writeExcel(lineageResult, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        
+        log.info("Spilled Excel export to {} ({} bytes)", file, Files.size(file));
+        return file;
+    }
+    
+    /**
+     * 是否应写入临时文件导出
+     */
+    public boolean shouldSpill(LineageResult lineageResult) {
+        return rowCount(lineageResult) > properties.getExport().getSpillThresholdRows();
+    }
+    
+    /**
+     * 检查导出行数是否超过 max-rows
+     *
+     * @throws IllegalArgumentException 超过上限
+     */
+    public void checkRowLimit(LineageResult lineageResult) {
+        int rows = rowCount(lineageResult);
+        int maxRows = properties.getExport().getMaxRows();
+        if (maxRows > 0 && rows > maxRows) {
+            throw new IllegalArgumentException("Export rows " + rows + " exceed limit " + maxRows);
+        }
+    }
+    
+    /**
+     * 分批写出 Excel，超过单表上限时新建工作表
+     */
+    private void writeExcel(LineageResult lineageResult, OutputStream outputStream) {
+        checkRowLimit(lineageResult);
+        int sheetMaxRows = Math.max(1, properties.getExport().getSheetMaxRows());
         
+        ExcelWriter excelWriter = EasyExcel.write(outputStream, LineageExcelRow.class)
+                .registerWriteHandler(new LongestMatchColumnWidthStyleStrategy())
+                .build();
         try {
-            // 转换数据
-            List<LineageExcelRow> rows = convertToExcelRows(lineageResult);
+            int sheetNo = 0;
+            WriteSheet sheet = EasyExcel.writerSheet(sheetNo, SHEET_NAME).build();
+            List<LineageExcelRow> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+            int rowsInSheet = 0;
+            int index = 0;
             
-            // 使用 EasyExcel 生成 Excel
-            EasyExcel.write(outputStream, LineageExcelRow.class)
-                    .registerWriteHandler(new LongestMatchColumnWidthStyleStrategy())
-                    .sheet("血缘分析结果")
-                    .doWrite(rows);
+            if (lineageResult != null && lineageResult.getFieldDependencies() != null) {
+                for (FieldDependency dep : lineageResult.getFieldDependencies()) {
+                    if (rowsInSheet == sheetMaxRows) {
+                        excelWriter.write(batch, sheet);
+                        batch.clear();
+                        sheetNo++;
+                        sheet = EasyExcel.writerSheet(sheetNo, SHEET_NAME + "_" + (sheetNo + 1)).build();
+                        rowsInSheet = 0;
+                    }
+                    batch.add(convertToExcelRow(dep, ++index));
+                    rowsInSheet++;
+                    if (batch.size() == WRITE_BATCH_SIZE) {
+                        excelWriter.write(batch, sheet);
+                        batch.clear();
+                    }
+                }
+            }
+            // 最后一批（无数据时也写出表头）
+            excelWriter.write(batch, sheet);
             
-            log.info("Generated Excel with {} rows", rows.size());
+            log.info("Generated Excel with {} rows in {} sheet(s)", index, sheetNo + 1);
             
         } catch (Exception e) {
             log.error("Failed to generate Excel", e);
             throw new RuntimeException("Excel generation failed", e);
+        } finally {
+            excelWriter.finish();
         }
-        
-        return outputStream;
+    }
+    
+    private int rowCount(LineageResult lineageResult) {
+        if (lineageResult == null || lineageResult.getFieldDependencies() == null) {
+            return 0;
+        }
+        return lineageResult.getFieldDependencies().size();
     }
     
     /**
-     * 转换 LineageResult 为 Excel 行数据
+     * 转换单个字段依赖为导出行（Excel / CSV / JSON 共用）
      *
-     * @param lineageResult 血缘分析结果
-     * @return Excel 行数据列表
+     * @param dep   字段依赖
+     * @param index 序号（从 1 开始）
+     * @return 导出行
      */
-    private List<LineageExcelRow> convertToExcelRows(LineageResult lineageResult) {
-        List<LineageExcelRow> rows = new ArrayList<>();
+    public LineageExcelRow convertToExcelRow(FieldDependency dep, int index) {
+        LineageExcelRow row = new LineageExcelRow();
         
-        if (lineageResult == null || lineageResult.getFieldDependencies() == null) {
-            return rows;
-        }
+        // 序号
+        row.setIndex(index);
         
-        int index = 1;
-        for (FieldDependency dep : lineageResult.getFieldDependencies()) {
-            LineageExcelRow row = new LineageExcelRow();
-            
-            // 序号
-            row.setIndex(index++);
-            
-            // 目标字段
-            String targetField = dep.getTargetAlias() != null && !dep.getTargetAlias().isEmpty() 
-                    ? dep.getTargetAlias() 
-                    : dep.getTargetField();
-            row.setTargetField(targetField);
-            
-            // 源表
-            String sourceTable = formatTableName(dep.getSourceTable(), dep.getSourceTableAlias());
-            row.setSourceTable(sourceTable);
-            
-            // 源字段
-            String sourceFields = dep.getSourceFields() != null && !dep.getSourceFields().isEmpty()
-                    ? String.join(", ", dep.getSourceFields())
-                    : "直接引用";
-            row.setSourceFields(sourceFields);
-            
-            // 转换逻辑
-            String transformation;
-            if (dep.getExpression() != null && !dep.getExpression().isEmpty()) {
-                transformation = dep.getExpression();
-            } else if (dep.isAggregation()) {
-                transformation = "聚合函数";
-            } else {
-                transformation = "直接映射";
+        // 目标字段
+        String targetField = dep.getTargetAlias() != null && !dep.getTargetAlias().isEmpty() 
+                ? dep.getTargetAlias() 
+                : dep.getTargetField();
+        row.setTargetField(targetField);
+        
+        // 源表
+        String sourceTable = formatTableName(dep.getSourceTable(), dep.getSourceTableAlias());
+        
+        // 源字段
+        String sourceFields = dep.getSourceFields() != null && !dep.getSourceFields().isEmpty()
+                ? String.join(", ", dep.getSourceFields())
+                : "直接引用";
+        
+        // UNION 合并的其他分支来源
+        if (dep.getUnionSources() != null && !dep.getUnionSources().isEmpty()) {
+            StringBuilder tables = new StringBuilder(sourceTable);
+            StringBuilder fields = new StringBuilder(sourceFields);
+            for (FieldSource source : dep.getUnionSources()) {
+                tables.append("; ").append(formatTableName(source.getSourceTable(), source.getSourceTableAlias()));
+                fields.append("; ").append(String.join(", ", source.getSourceFields()));
             }
-            row.setTransformation(transformation);
-            
-            // 依赖层级（简化计算）
-            int dependencyLevel = calculateDependencyLevel(dep);
-            row.setDependencyLevel(dependencyLevel);
-            
-            rows.add(row);
+            sourceTable = tables.toString();
+            sourceFields = fields.toString();
         }
+        row.setSourceTable(sourceTable);
+        row.setSourceFields(sourceFields);
         
-        return rows;
+        // 转换逻辑
+        String transformation;
+        if (dep.getExpression() != null && !dep.getExpression().isEmpty()) {
+            transformation = dep.getExpression();
+        } else if (dep.getTransformationType() != null) {
+            transformation = dep.getTransformationType().getDescription();
+        } else if (dep.isAggregation()) {
+            transformation = "聚合函数";
+        } else {
+            transformation = "直接映射";
+        }
+        row.setTransformation(transformation);
+        
+        // 依赖层级（简化计算）
+        int dependencyLevel = calculateDependencyLevel(dep);
+        row.setDependencyLevel(dependencyLevel);
+        
+        return row;
     }
     
     /**
@@ -123,14 +235,17 @@ public class ExcelExportService {
     }
     
     /**
-     * 计算依赖层级（简化版）
+     * 计算依赖层级
      *
      * @param dep 字段依赖
      * @return 依赖层级
      */
     private int calculateDependencyLevel(FieldDependency dep) {
-        // 简化实现：有表达式或聚合为2层，否则为1层
-        if (dep.getExpression() != null || dep.isAggregation()) {
+        if (dep.getTransformationType() != null) {
+            return dep.getTransformationType().getDependencyLevel();
+        }
+        // 未分类（如外部传入的结果）：有表达式或聚合为2层，否则为1层
+        if (dep.hasExpression() || dep.isAggregation()) {
             return 2;
         }
         return 1;
@@ -0,0 +1,69 @@
+package com.lineage.service;
+
+import com.lineage.config.LineageProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导出临时文件清理任务
+ *
+ * 正常情况下临时文件在传输完成后即被删除，本任务清理传输中断等情况遗留的过期文件
+ */
+@Slf4j
+@Component
+public class ExportTempFileJanitor {
+
+    @Autowired
+    private LineageProperties properties;
+
+    /**
+     * 定期清理超过 temp-file-ttl-minutes 的临时导出文件
+     */
+    @Scheduled(fixedDelayString = "${lineage.export.janitor-interval-ms:600000}")
+    public void scheduledCleanup() {
+        cleanup();
+    }
+
+    /**
+     * 删除过期的临时导出文件
+     *
+     * @return 删除的文件数
+     */
+    public int cleanup() {
+        Path dir = Paths.get(properties.getExport().getTempDir());
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+
+        long expireBefore = System.currentTimeMillis()
+                - TimeUnit.MINUTES.toMillis(properties.getExport().getTempFileTtlMinutes());
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, ExcelExportService.TEMP_FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < expireBefore && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to delete expired export file: {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to scan export temp dir: {}", dir, e);
+        }
+
+        if (deleted > 0) {
+            log.info("Deleted {} expired export temp file(s) from {}", deleted, dir);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,89 @@
+package com.lineage.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.lineage.config.MybatisPlusConfig;
+import com.lineage.dto.response.CursorPage;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 键集分页
+ *
+ * 按 (create_time DESC, id DESC) 排序，游标记录上一页最后一行的 create_time 和 id，
+ * 下一页直接从索引中定位，深翻页时不再扫描并丢弃前面的行，也不需要 COUNT
+ */
+public final class KeysetPagination {
+
+    private static final String SEPARATOR = ",";
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * 查询一页
+     *
+     * @param mapper     实体 Mapper
+     * @param wrapper    业务过滤条件
+     * @param createTime 创建时间列
+     * @param id         主键列
+     * @param cursor     上一页返回的游标，为空时从第一页开始
+     * @param size       每页条数
+     */
+    public static <T> CursorPage<T> seek(BaseMapper<T> mapper, LambdaQueryWrapper<T> wrapper,
+                                         SFunction<T, LocalDateTime> createTime, SFunction<T, Long> id,
+                                         String cursor, int size) {
+        int pageSize = (int) Math.max(1, Math.min(size, MybatisPlusConfig.MAX_PAGE_SIZE));
+
+        if (StringUtils.isNotBlank(cursor)) {
+            Position position = decode(cursor);
+            wrapper.le(createTime, position.createTime)
+                    .and(w -> w.lt(createTime, position.createTime)
+                            .or()
+                            .eq(createTime, position.createTime).lt(id, position.id));
+        }
+        wrapper.orderByDesc(createTime).orderByDesc(id).last("LIMIT " + (pageSize + 1));
+
+        List<T> rows = mapper.selectList(wrapper);
+        CursorPage<T> page = new CursorPage<>();
+        page.setSize(pageSize);
+        page.setHasMore(rows.size() > pageSize);
+        page.setRecords(page.isHasMore() ? rows.subList(0, pageSize) : rows);
+        if (page.isHasMore()) {
+            T last = page.getRecords().get(pageSize - 1);
+            page.setNextCursor(encode(createTime.apply(last), id.apply(last)));
+        }
+        return page;
+    }
+
+    static String encode(LocalDateTime createTime, Long id) {
+        String raw = createTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR);
+            return new Position(LocalDateTime.parse(raw.substring(0, split)), Long.parseLong(raw.substring(split + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    static final class Position {
+        private final LocalDateTime createTime;
+        private final long id;
+
+        private Position(LocalDateTime createTime, long id) {
+            this.createTime = createTime;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.lineage.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.lineage.config.LineageProperties;
+import com.lineage.core.LineageAnalyzer;
+import com.lineage.core.tracker.LineageResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 血缘分析执行服务
+ *
+ * 在有界线程池中执行分析，按 lineage.parser.* 配置施加超时（解析完成后及遍历 AST 期间检查截止时间；解析本身不受超时约束，仅由 max-sql-length 限制其耗时）并缓存成功结果；
+ * 线程池队列满时抛出 {@link RejectedExecutionException}，由调用方转换为 429
+ */
+@Slf4j
+@Service
+public class LineageAnalysisService {
+
+    @Autowired
+    private LineageAnalyzer analyzer;
+
+    @Autowired
+    private LineageProperties properties;
+
+    @Resource(name = "lineageAnalysisExecutor")
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 分析结果缓存（关闭缓存时为 null）
+     */
+    private Cache<String, LineageResult> cache;
+
+    @PostConstruct
+    public void init() {
+        LineageProperties.Parser parser = properties.getParser();
+        if (parser.isEnableCache()) {
+            cache = CacheBuilder.newBuilder()
+                    .maximumSize(parser.getCacheMaxSize())
+                    .expireAfterWrite(parser.getCacheExpireHours(), TimeUnit.HOURS)
+                    .recordStats()
+                    .build();
+            log.info("Lineage result cache enabled: maxSize={}, expireHours={}",
+                     parser.getCacheMaxSize(), parser.getCacheExpireHours());
+        }
+    }
+
+    /**
+     * 分析 SQL 血缘（按配置决定是否采集间接血缘）
+     */
+    public LineageResult analyze(String sql, String dbType) {
+        return analyze(sql, dbType, properties.getParser().isCaptureIndirect());
+    }
+
+    /**
+     * 分析 SQL 血缘
+     *
+     * 返回的结果可能与其他请求共享，调用方不应修改
+     *
+     * @param sql             SQL 语句
+     * @param dbType          数据库类型
+     * @param captureIndirect 是否采集间接血缘
+     * @return 血缘分析结果
+     * @throws RejectedExecutionException 分析队列已满
+     */
+    public LineageResult analyze(String sql, String dbType, boolean captureIndirect) {
+        String key = cache != null ? cacheKey(sql, dbType, captureIndirect) : null;
+        if (key != null) {
+            LineageResult cached = cache.getIfPresent(key);
+            if (cached != null) {
+                log.debug("Lineage cache hit");
+                return cached;
+            }
+        }
+
+        int timeoutSeconds = properties.getParser().getTimeoutSeconds();
+        // 遍历 AST 时按截止时间自行终止，超时后工作线程不会继续占用
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        Future<LineageResult> future = executor.submit(
+                () -> analyzer.analyze(sql, dbType, captureIndirect, deadline));
+
+        LineageResult result;
+        try {
+            result = future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Lineage analysis timed out after {}s", timeoutSeconds);
+            return errorResult(sql, dbType, "Analysis timed out after " + timeoutSeconds + " seconds");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return errorResult(sql, dbType, "Analysis interrupted");
+        } catch (ExecutionException e) {
+            log.error("Lineage analysis failed", e.getCause());
+            return errorResult(sql, dbType, "Analysis failed: " + e.getCause().getMessage());
+        }
+
+        if (key != null && result.isSuccess()) {
+            // 缓存前渲染延迟表达式，释放 AST
+            result.materialize();
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * 当前排队中的分析任务数
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 清空结果缓存
+     */
+    public void clearCache() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private String cacheKey(String sql, String dbType, boolean captureIndirect) {
+        return (dbType == null ? "" : dbType.toLowerCase()) + '\u0000' + captureIndirect + '\u0000' + sql;
+    }
+
+    private LineageResult errorResult(String sql, String dbType, String message) {
+        LineageResult result = new LineageResult();
+        result.setSql(sql);
+        result.setDbType(dbType);
+        result.setError(message);
+        return result;
+    }
+}
@@ -0,0 +1,146 @@
+package com.lineage.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lineage.core.tracker.FieldDependency;
+import com.lineage.core.tracker.LineageResult;
+import com.lineage.dto.excel.LineageExcelRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV / NDJSON 流式导出服务
+ *
+ * 逐条转换字段依赖并直接写出，不在内存中保留整张表；行转换与 Excel 导出共用
+ * {@link ExcelExportService#convertToExcelRow(FieldDependency, int)}
+ */
+@Slf4j
+@Service
+public class StreamingExportService {
+
+    /**
+     * CSV 表头（与 Excel 列一致）
+     */
+    private static final String[] CSV_HEADER = {"序号", "目标字段", "源表", "源字段", "转换逻辑", "依赖层级"};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ExcelExportService excelExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 导出为 CSV（RFC 4180，UTF-8）
+     *
+     * @param lineageResult 血缘分析结果
+     * @param out           输出流（不会被关闭）
+     * @return 写出的数据行数
+     */
+    public int writeCsv(LineageResult lineageResult, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        for (int i = 0; i < CSV_HEADER.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(CSV_HEADER[i]);
+        }
+        writer.write("\r\n");
+
+        int count = 0;
+        if (lineageResult != null && lineageResult.getFieldDependencies() != null) {
+            for (FieldDependency dep : lineageResult.getFieldDependencies()) {
+                LineageExcelRow row = excelExportService.convertToExcelRow(dep, ++count);
+                writer.write(String.valueOf(row.getIndex()));
+                writer.write(',');
+                writeCsvField(writer, row.getTargetField());
+                writer.write(',');
+                writeCsvField(writer, row.getSourceTable());
+                writer.write(',');
+                writeCsvField(writer, row.getSourceFields());
+                writer.write(',');
+                writeCsvField(writer, row.getTransformation());
+                writer.write(',');
+                writer.write(String.valueOf(row.getDependencyLevel()));
+                writer.write("\r\n");
+            }
+        }
+
+        writer.flush();
+        log.info("Streamed CSV with {} rows", count);
+        return count;
+    }
+
+    /**
+     * 导出为 NDJSON（每行一个 JSON 对象）
+     *
+     * @param lineageResult 血缘分析结果
+     * @param out           输出流（不会被关闭）
+     * @return 写出的数据行数
+     */
+    public int writeNdjson(LineageResult lineageResult, OutputStream out) throws IOException {
+        ObjectWriter rowWriter = objectMapper.writerFor(LineageExcelRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // 行分隔符作为根值分隔符，生成 NDJSON
+        generator.setRootValueSeparator(new SerializedString("\n"));
+
+        int count = 0;
+        if (lineageResult != null && lineageResult.getFieldDependencies() != null) {
+            for (FieldDependency dep : lineageResult.getFieldDependencies()) {
+                rowWriter.writeValue(generator, excelExportService.convertToExcelRow(dep, ++count));
+            }
+        }
+        if (count > 0) {
+            generator.writeRaw('\n');
+        }
+
+        generator.close();
+        log.info("Streamed NDJSON with {} rows", count);
+        return count;
+    }
+
+    /**
+     * 写出 CSV 字段，包含逗号、引号或换行时加引号并转义
+     */
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
@@ -15,7 +15,8 @@ CREATE TABLE IF NOT EXISTS datasource (
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     is_deleted INT DEFAULT 0 COMMENT '逻辑删除（0-未删除，1-已删除）',
-    UNIQUE KEY uk_name (name, is_deleted)
+    UNIQUE KEY uk_name (name, is_deleted),
+    KEY idx_datasource_create_time (create_time, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='数据源表';
 
 -- 表元数据表
@@ -30,7 +31,8 @@ CREATE TABLE IF NOT EXISTS table_metadata (
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     is_deleted INT DEFAULT 0 COMMENT '逻辑删除（0-未删除，1-已删除）',
     KEY idx_datasource_id (datasource_id),
-    UNIQUE KEY uk_table (datasource_id, schema_name, table_name, is_deleted)
+    UNIQUE KEY uk_table (datasource_id, schema_name, table_name, is_deleted),
+    KEY idx_table_create_time (create_time, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='表元数据表';
 
 -- 字段元数据表
@@ -57,6 +59,7 @@ CREATE TABLE IF NOT EXISTS kettle_file_record (
     file_name VARCHAR(200) NOT NULL COMMENT '文件名',
     file_path VARCHAR(500) NOT NULL COMMENT '文件路径',
     file_size BIGINT COMMENT '文件大小（字节）',
+    content_hash VARCHAR(64) COMMENT '文件内容 SHA-256',
     transformation_name VARCHAR(200) COMMENT '转换名称',
     transformation_desc VARCHAR(500) COMMENT '转换描述',
     step_count INT DEFAULT 0 COMMENT '步骤数量',
@@ -68,5 +71,58 @@ CREATE TABLE IF NOT EXISTS kettle_file_record (
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     is_deleted INT DEFAULT 0 COMMENT '逻辑删除（0-未删除，1-已删除）',
     KEY idx_status (parse_status),
-    KEY idx_create_time (create_time)
+    KEY idx_create_time (create_time),
+    KEY idx_file_name_hash (file_name, content_hash),
+    KEY idx_content_hash (content_hash)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Kettle文件记录表';
+
+-- 已有开发库补充内容哈希列
+ALTER TABLE kettle_file_record ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64) COMMENT '文件内容 SHA-256' AFTER file_size;
+CREATE INDEX IF NOT EXISTS idx_file_name_hash ON kettle_file_record (file_name, content_hash);
+CREATE INDEX IF NOT EXISTS idx_content_hash ON kettle_file_record (content_hash);
+
+-- 已有开发库补充键集分页索引
+CREATE INDEX IF NOT EXISTS idx_datasource_create_time ON datasource (create_time, id);
+CREATE INDEX IF NOT EXISTS idx_table_create_time ON table_metadata (create_time, id);
+
+-- 字段级血缘边表（节点格式：表名.字段名，小写）
+-- 两个组合索引分别覆盖下游（按来源查目标）和上游（按目标查来源）遍历，无需回表
+CREATE TABLE IF NOT EXISTS lineage_edge (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    source_node VARCHAR(255) NOT NULL COMMENT '来源节点（表名.字段名）',
+    target_node VARCHAR(255) NOT NULL COMMENT '目标节点（表名.字段名）',
+    edge_type VARCHAR(20) NOT NULL COMMENT '转换类型',
+    source_ref VARCHAR(200) COMMENT '血缘出处（如 kettle:12），按出处整体替换',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    KEY idx_source_target (source_node, target_node),
+    KEY idx_target_source (target_node, source_node),
+    KEY idx_source_ref (source_ref)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='字段级血缘边表';
+
+-- 血缘语句表：保存写入血缘边的 SQL，供元数据变化后重新分析
+CREATE TABLE IF NOT EXISTS lineage_statement (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    source_ref VARCHAR(200) NOT NULL COMMENT '血缘出处',
+    target_table VARCHAR(200) NOT NULL COMMENT '查询结果写入的目标表',
+    sql_text MEDIUMTEXT NOT NULL COMMENT 'SQL语句',
+    db_type VARCHAR(20) COMMENT '数据库类型',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_statement_source_ref (source_ref)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='血缘语句表';
+
+-- 重新分析任务队列（按血缘出处）
+-- pending_ref 仅在待执行时等于 source_ref，唯一索引合并同一出处的重复任务；领取后置空，执行期间的新变更另起一条
+CREATE TABLE IF NOT EXISTS reanalysis_job (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    source_ref VARCHAR(200) NOT NULL COMMENT '血缘出处（kettle:文件名 或 SQL 出处）',
+    pending_ref VARCHAR(200) COMMENT '待执行时的出处，用于合并重复任务',
+    status VARCHAR(20) NOT NULL DEFAULT 'pending' COMMENT '状态（pending/running/failed）',
+    reason VARCHAR(200) COMMENT '触发原因',
+    attempts INT DEFAULT 0 COMMENT '已执行次数',
+    error_message TEXT COMMENT '错误信息',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_reanalysis_pending_ref (pending_ref),
+    KEY idx_reanalysis_status (status, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='重新分析任务队列';
@@ -0,0 +1,181 @@
+package com.lineage.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lineage.core.LineageAnalyzer;
+import com.lineage.core.tracker.LineageResult;
+import com.lineage.service.ExcelExportService;
+import com.lineage.service.ExportTempFileJanitor;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "lineage.export.temp-dir=target/test-export",
+        "lineage.export.max-rows=10",
+        "lineage.export.spill-threshold-rows=2",
+        "lineage.export.sheet-max-rows=3"
+})
+@AutoConfigureMockMvc
+class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private LineageAnalyzer analyzer;
+
+    @Autowired
+    private ExportTempFileJanitor janitor;
+
+    @BeforeEach
+    void cleanTempDir() throws Exception {
+        Path dir = Paths.get("target/test-export");
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testExportExcel() throws Exception {
+        LineageResult result = analyzer.analyze("SELECT id, name FROM users", "mysql");
+
+        MvcResult started = mockMvc.perform(post("/api/export/excel")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(result)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString(".xlsx")));
+    }
+
+    @Test
+    void testExportExcelSpillsAndRollsOverSheets() throws Exception {
+        LineageResult result = analyzer.analyze(
+                "SELECT c1, c2, c3, c4, c5, c6, c7 FROM wide_table", "mysql");
+
+        MvcResult started = mockMvc.perform(post("/api/export/excel")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(result)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] bytes = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes))) {
+            // 7 行按每表 3 行分到 3 个工作表
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals(3, workbook.getSheetAt(0).getLastRowNum());
+            assertEquals(1, workbook.getSheetAt(2).getLastRowNum());
+            assertEquals("c7", workbook.getSheetAt(2).getRow(1).getCell(1).getStringCellValue());
+        }
+        // 传输完成后临时文件被删除
+        try (Stream<Path> files = Files.list(Paths.get("target/test-export"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testExportRejectedOverMaxRows() throws Exception {
+        StringBuilder sql = new StringBuilder("SELECT c0");
+        for (int i = 1; i <= 10; i++) {
+            sql.append(", c").append(i);
+        }
+        LineageResult result = analyzer.analyze(sql.append(" FROM wide_table").toString(), "mysql");
+
+        for (String url : new String[]{"/api/export/excel", "/api/export/csv", "/api/export/json"}) {
+            mockMvc.perform(post(url)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(result)))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void testJanitorDeletesExpiredFiles() throws Exception {
+        Path dir = Files.createDirectories(Paths.get("target/test-export"));
+        Path expired = Files.createTempFile(dir, ExcelExportService.TEMP_FILE_PREFIX, ".xlsx");
+        Path fresh = Files.createTempFile(dir, ExcelExportService.TEMP_FILE_PREFIX, ".xlsx");
+        Files.setLastModifiedTime(expired, FileTime.fromMillis(System.currentTimeMillis() - 2 * 3600_000L));
+
+        assertEquals(1, janitor.cleanup());
+        assertFalse(Files.exists(expired));
+        assertTrue(Files.exists(fresh));
+        Files.delete(fresh);
+    }
+
+    @Test
+    void testExportCsv() throws Exception {
+        LineageResult result = analyzer.analyze(
+                "SELECT id, CONCAT(first_name, ',', last_name) AS full_name FROM users", "mysql");
+
+        String csv = exportText("/api/export/csv", result);
+        String[] lines = csv.split("\r\n");
+
+        assertEquals(3, lines.length);
+        assertEquals("序号,目标字段,源表,源字段,转换逻辑,依赖层级", lines[0]);
+        assertEquals("1,id,users,id,直接映射,1", lines[1]);
+        // 含逗号和引号的字段按 RFC 4180 转义
+        assertEquals("2,full_name,users,\"first_name, last_name\",\"CONCAT(first_name, ',', last_name)\",2", lines[2]);
+    }
+
+    @Test
+    void testExportNdjson() throws Exception {
+        LineageResult result = analyzer.analyze("SELECT id, SUM(amount) AS total FROM orders GROUP BY id", "mysql");
+
+        String ndjson = exportText("/api/export/json", result);
+        String[] lines = ndjson.split("\n");
+
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("index").asInt());
+        assertEquals("id", first.get("targetField").asText());
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals("total", second.get("targetField").asText());
+        assertEquals("SUM(amount)", second.get("transformation").asText());
+        assertEquals(3, second.get("dependencyLevel").asInt());
+    }
+
+    private String exportText(String url, LineageResult result) throws Exception {
+        MvcResult started = mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(result)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult completed = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        return completed.getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+}
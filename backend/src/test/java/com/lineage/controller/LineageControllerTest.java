@@ -63,6 +63,21 @@ class LineageControllerTest {
                 .andExpect(jsonPath("$.data.fieldDependencies[0].aggregation").value(true));
     }
 
+    @Test
+    void testAnalyzeWithoutExpressions() throws Exception {
+        AnalyzeRequest request = new AnalyzeRequest();
+        request.setSql("SELECT SUM(amount) AS total FROM orders");
+        request.setDbType("mysql");
+        request.setIncludeExpressions(false);
+
+        mockMvc.perform(post("/api/lineage/analyze")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.fieldDependencies[0].aggregation").value(true))
+                .andExpect(jsonPath("$.data.fieldDependencies[0].expression").doesNotExist());
+    }
+
     @Test
     void testAnalyzeWithBlankSql() throws Exception {
         AnalyzeRequest request = new AnalyzeRequest();
@@ -154,4 +169,24 @@ class LineageControllerTest {
                 .andExpect(jsonPath("$.data.tables[0]").value("users"))
                 .andExpect(jsonPath("$.data.fieldDependencies.length()").value(2));
     }
+
+    @Test
+    void testAnalyzeAutoDialectAndStats() throws Exception {
+        AnalyzeRequest request = new AnalyzeRequest();
+        request.setSql("SELECT id::text AS id_text FROM users");
+        request.setDbType("auto");
+
+        mockMvc.perform(post("/api/lineage/analyze")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.success").value(true))
+                .andExpect(jsonPath("$.data.dbType").value("postgresql"));
+
+        mockMvc.perform(get("/api/lineage/dialect-detection/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.detections").isNumber())
+                .andExpect(jsonPath("$.data.accuracy").isNumber())
+                .andExpect(jsonPath("$.data.parseAttemptsSaved").isNumber());
+    }
 }
@@ -1,7 +1,9 @@
 package com.lineage.core;
 
 import com.lineage.core.tracker.FieldDependency;
+import com.lineage.core.tracker.FieldSource;
 import com.lineage.core.tracker.LineageResult;
+import com.lineage.core.tracker.TransformationType;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -368,8 +370,19 @@ class LineageAnalyzerTest {
         assertEquals(2, result.getTables().size());
         assertTrue(result.getTables().contains("users"));
         assertTrue(result.getTables().contains("customers"));
-        // UNION 合并两个 SELECT，会有 4 个字段依赖（每个 SELECT 2个）
-        assertEquals(4, result.getFieldDependencies().size());
+        // UNION 按输出列位置合并，每列一个依赖，其他分支作为附加来源
+        assertEquals(2, result.getFieldDependencies().size());
+        
+        FieldDependency idDep = result.getFieldDependencies().get(0);
+        assertEquals("id", idDep.getTargetField());
+        assertEquals("users", idDep.getSourceTable());
+        assertEquals(1, idDep.getUnionSources().size());
+        assertEquals("customers", idDep.getUnionSources().get(0).getSourceTable());
+        assertEquals(Arrays.asList("id"), idDep.getUnionSources().get(0).getSourceFields());
+        
+        FieldDependency nameDep = result.getFieldDependencies().get(1);
+        assertEquals("name", nameDep.getTargetField());
+        assertEquals("customers", nameDep.getUnionSources().get(0).getSourceTable());
     }
     
     @Test
@@ -381,7 +394,8 @@ class LineageAnalyzerTest {
         assertEquals(2, result.getTables().size());
         assertTrue(result.getTables().contains("orders_2023"));
         assertTrue(result.getTables().contains("orders_2024"));
-        assertEquals(2, result.getFieldDependencies().size());
+        assertEquals(1, result.getFieldDependencies().size());
+        assertEquals("orders_2024", result.getFieldDependencies().get(0).getUnionSources().get(0).getSourceTable());
     }
     
     @Test
@@ -394,7 +408,12 @@ class LineageAnalyzerTest {
         assertTrue(result.getTables().contains("users"));
         assertTrue(result.getTables().contains("customers"));
         assertTrue(result.getTables().contains("partners"));
-        assertEquals(3, result.getFieldDependencies().size());
+        assertEquals(1, result.getFieldDependencies().size());
+        
+        List<FieldSource> sources = result.getFieldDependencies().get(0).getUnionSources();
+        assertEquals(2, sources.size());
+        assertEquals("customers", sources.get(0).getSourceTable());
+        assertEquals("partners", sources.get(1).getSourceTable());
     }
     
     @Test
@@ -406,7 +425,10 @@ class LineageAnalyzerTest {
 
         assertTrue(result.isSuccess());
         assertEquals(2, result.getTables().size());
-        assertEquals(4, result.getFieldDependencies().size());
+        assertEquals(2, result.getFieldDependencies().size());
+        // 输出列名取第一个分支
+        assertEquals("user_id", result.getFieldDependencies().get(0).getTargetAlias());
+        assertEquals("user_name", result.getFieldDependencies().get(1).getTargetAlias());
     }
     
     @Test
@@ -418,7 +440,51 @@ class LineageAnalyzerTest {
 
         assertTrue(result.isSuccess());
         assertEquals(2, result.getTables().size());
-        assertEquals(4, result.getFieldDependencies().size());
+        assertEquals(2, result.getFieldDependencies().size());
+        assertEquals(2, result.getIndirectDependencies().size());
+    }
+    
+    @Test
+    void testAnalyzeUnionAllSameTableMergesSources() {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT dt, SUM(amount) AS total FROM sales WHERE region_id = ").append(i).append(" GROUP BY dt");
+        }
+        LineageResult result = analyzer.analyze(sql.toString(), "mysql");
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getFieldDependencies().size());
+        
+        FieldDependency totalDep = result.getFieldDependencies().get(1);
+        assertEquals("total", totalDep.getTargetField());
+        assertEquals("sales", totalDep.getSourceTable());
+        assertEquals(Arrays.asList("amount"), totalDep.getSourceFields());
+        assertNull(totalDep.getUnionSources());
+        assertEquals(TransformationType.AGGREGATE, totalDep.getTransformationType());
+        
+        // 各分支的过滤、分组依赖按（来源表, 类型）合并，不随分支数增长
+        assertEquals(2, result.getIndirectDependencies().size());
+        FieldDependency filter = result.getIndirectDependencies().get(0);
+        assertEquals(TransformationType.FILTER, filter.getTransformationType());
+        assertEquals(Arrays.asList("region_id"), filter.getSourceFields());
+        assertEquals(TransformationType.GROUP_BY, result.getIndirectDependencies().get(1).getTransformationType());
+    }
+    
+    @Test
+    void testUnionSourceFieldsDeduplicated() {
+        StringBuilder sql = new StringBuilder("SELECT id FROM users");
+        for (int i = 0; i < 20; i++) {
+            sql.append(" UNION ALL SELECT id FROM customers UNION ALL SELECT code FROM customers");
+        }
+        LineageResult result = analyzer.analyze(sql.toString(), "mysql");
+
+        assertTrue(result.isSuccess());
+        List<FieldSource> sources = result.getFieldDependencies().get(0).getUnionSources();
+        assertEquals(1, sources.size());
+        assertEquals(Arrays.asList("id", "code"), sources.get(0).getSourceFields());
     }
     
     // ==================== Window Function Tests ====================
@@ -533,4 +599,232 @@ class LineageAnalyzerTest {
         assertTrue(rnDep.getSourceFields().contains("team"));
         assertTrue(rnDep.getSourceFields().contains("salary"));
     }
+    
+    // ==================== Transformation Type Tests ====================
+    
+    @Test
+    void testTransformationTypeClassification() {
+        String sql = "SELECT id, name AS user_name, CAST(age AS CHAR) AS age_str, " +
+                    "price * qty AS amount, UPPER(name) AS upper_name, " +
+                    "CASE WHEN age > 18 THEN 'adult' ELSE 'minor' END AS age_group, " +
+                    "1 AS flag FROM users";
+        LineageResult result = analyzer.analyze(sql, "mysql");
+
+        assertTrue(result.isSuccess());
+        List<FieldDependency> deps = result.getFieldDependencies();
+        assertEquals(7, deps.size());
+        assertEquals(TransformationType.DIRECT, deps.get(0).getTransformationType());
+        assertEquals(TransformationType.RENAME, deps.get(1).getTransformationType());
+        assertEquals(TransformationType.CAST, deps.get(2).getTransformationType());
+        assertEquals(TransformationType.ARITHMETIC, deps.get(3).getTransformationType());
+        assertEquals(TransformationType.FUNCTION, deps.get(4).getTransformationType());
+        assertEquals(TransformationType.CASE, deps.get(5).getTransformationType());
+        assertEquals(TransformationType.CONSTANT, deps.get(6).getTransformationType());
+        assertNull(deps.get(0).getExpression());
+        assertNotNull(deps.get(3).getExpression());
+    }
+    
+    @Test
+    void testTransformationTypePromotedByNestedAggregate() {
+        String sql = "SELECT SUM(amount) + 1 AS total, " +
+                    "ROW_NUMBER() OVER (PARTITION BY dept ORDER BY salary) AS rn FROM employees";
+        LineageResult result = analyzer.analyze(sql, "mysql");
+
+        assertTrue(result.isSuccess());
+        assertEquals(TransformationType.AGGREGATE, result.getFieldDependencies().get(0).getTransformationType());
+        assertEquals(TransformationType.WINDOW, result.getFieldDependencies().get(1).getTransformationType());
+        assertEquals("SUM(amount) + 1", result.getFieldDependencies().get(0).getExpression());
+    }
+    
+    @Test
+    void testIndirectLineageFromWhereAndJoin() {
+        String sql = "SELECT u.name, o.amount FROM users u " +
+                    "JOIN orders o ON u.id = o.user_id WHERE o.status = 'PAID' AND u.age > 18";
+        LineageResult result = analyzer.analyze(sql, "mysql");
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getFieldDependencies().size());
+
+        List<FieldDependency> indirect = result.getIndirectDependencies();
+        assertEquals(4, indirect.size());
+
+        FieldDependency joinUsers = indirect.get(0);
+        assertEquals(TransformationType.JOIN_KEY, joinUsers.getTransformationType());
+        assertEquals("users", joinUsers.getSourceTable());
+        assertEquals(Arrays.asList("id"), joinUsers.getSourceFields());
+        assertEquals("u.id = o.user_id", joinUsers.getExpression());
+
+        FieldDependency joinOrders = indirect.get(1);
+        assertEquals(TransformationType.JOIN_KEY, joinOrders.getTransformationType());
+        assertEquals("orders", joinOrders.getSourceTable());
+        assertEquals(Arrays.asList("user_id"), joinOrders.getSourceFields());
+
+        FieldDependency filterOrders = indirect.get(2);
+        assertEquals(TransformationType.FILTER, filterOrders.getTransformationType());
+        assertEquals("orders", filterOrders.getSourceTable());
+        assertEquals(Arrays.asList("status"), filterOrders.getSourceFields());
+
+        FieldDependency filterUsers = indirect.get(3);
+        assertEquals("users", filterUsers.getSourceTable());
+        assertEquals(Arrays.asList("age"), filterUsers.getSourceFields());
+    }
+    
+    @Test
+    void testIndirectLineageFromGroupByAndHaving() {
+        String sql = "SELECT dept, SUM(salary) AS total FROM employees " +
+                    "GROUP BY dept, region HAVING COUNT(id) > 10";
+        LineageResult result = analyzer.analyze(sql, "mysql");
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getFieldDependencies().size());
+
+        List<FieldDependency> indirect = result.getIndirectDependencies();
+        assertEquals(2, indirect.size());
+        assertEquals(TransformationType.GROUP_BY, indirect.get(0).getTransformationType());
+        assertEquals("employees", indirect.get(0).getSourceTable());
+        assertEquals(Arrays.asList("dept", "region"), indirect.get(0).getSourceFields());
+        assertEquals(TransformationType.FILTER, indirect.get(1).getTransformationType());
+        assertEquals(Arrays.asList("id"), indirect.get(1).getSourceFields());
+    }
+    
+    @Test
+    void testIndirectLineageFromSubqueryInWhere() {
+        String sql = "SELECT id, name FROM users WHERE id IN (SELECT user_id FROM orders WHERE amount > 100)";
+        LineageResult result = analyzer.analyze(sql, "mysql");
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getFieldDependencies().size());
+        assertEquals("users", result.getFieldDependencies().get(0).getSourceTable());
+
+        List<FieldDependency> indirect = result.getIndirectDependencies();
+        assertEquals(2, indirect.size());
+        assertEquals("users", indirect.get(0).getSourceTable());
+        assertEquals("orders", indirect.get(1).getSourceTable());
+        assertEquals(Arrays.asList("user_id", "amount"), indirect.get(1).getSourceFields());
+    }
+    
+    @Test
+    void testIndirectLineageDisabled() {
+        String sql = "SELECT name FROM users WHERE age > 18 GROUP BY name";
+        LineageResult result = analyzer.analyze(sql, "mysql", false);
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.getFieldDependencies().size());
+        assertTrue(result.getIndirectDependencies().isEmpty());
+    }
+
+    @Test
+    void testAnalyzeSparkLateralViewExplode() {
+        String sql = "SELECT o.id, item FROM orders o LATERAL VIEW explode(o.items) v AS item";
+        LineageResult result = analyzer.analyze(sql, "spark");
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(Arrays.asList("orders"), result.getTables());
+        assertEquals(2, result.getFieldDependencies().size());
+        
+        FieldDependency item = result.getFieldDependencies().get(1);
+        assertEquals("item", item.getTargetField());
+        assertEquals("orders", item.getSourceTable());
+        assertEquals(Arrays.asList("items"), item.getSourceFields());
+        assertEquals(TransformationType.FUNCTION, item.getTransformationType());
+    }
+    
+    @Test
+    void testLateralViewColumnScopedToQueryBlock() {
+        // 第二个分支的 item 是 returns 表的真实列，不能按第一个分支的生成列展开
+        String sql = "SELECT o.id, item FROM orders o LATERAL VIEW explode(o.items) v AS item "
+                + "UNION ALL SELECT id, item FROM returns";
+        LineageResult result = analyzer.analyze(sql, "spark");
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(2, result.getFieldDependencies().size());
+        
+        FieldDependency item = result.getFieldDependencies().get(1);
+        assertEquals("orders", item.getSourceTable());
+        assertEquals(Arrays.asList("items"), item.getSourceFields());
+        assertEquals(1, item.getUnionSources().size());
+        assertEquals("returns", item.getUnionSources().get(0).getSourceTable());
+        assertEquals(Arrays.asList("item"), item.getUnionSources().get(0).getSourceFields());
+    }
+    
+    @Test
+    void testAnalyzeTrinoUnnest() {
+        String sql = "SELECT o.id, u.sku, u.qty FROM orders o CROSS JOIN UNNEST(o.skus, o.qtys) AS u (sku, qty)";
+        LineageResult result = analyzer.analyze(sql, "trino");
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(Arrays.asList("orders"), result.getTables());
+        assertEquals(3, result.getFieldDependencies().size());
+        
+        FieldDependency sku = result.getFieldDependencies().get(1);
+        assertEquals("orders", sku.getSourceTable());
+        assertEquals(Arrays.asList("skus"), sku.getSourceFields());
+        assertEquals(Arrays.asList("qtys"), result.getFieldDependencies().get(2).getSourceFields());
+    }
+    
+    @Test
+    void testAnalyzeClickHouseArrayJoin() {
+        String sql = "SELECT e.id, tag, n FROM events e ARRAY JOIN e.tags AS tag, e.nums AS n WHERE e.id > 0";
+        LineageResult result = analyzer.analyze(sql, "clickhouse");
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(Arrays.asList("events"), result.getTables());
+        assertEquals(3, result.getFieldDependencies().size());
+        
+        FieldDependency tag = result.getFieldDependencies().get(1);
+        assertEquals("tag", tag.getTargetField());
+        assertEquals("events", tag.getSourceTable());
+        assertEquals(Arrays.asList("tags"), tag.getSourceFields());
+        assertEquals(Arrays.asList("nums"), result.getFieldDependencies().get(2).getSourceFields());
+    }
+    
+    @Test
+    void testAnalyzeClickHouseLeftArrayJoinWithoutAlias() {
+        String sql = "SELECT id, tags FROM events LEFT ARRAY JOIN tags";
+        LineageResult result = analyzer.analyze(sql, "clickhouse");
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(2, result.getFieldDependencies().size());
+        FieldDependency tags = result.getFieldDependencies().get(1);
+        assertEquals("events", tags.getSourceTable());
+        assertEquals(Arrays.asList("tags"), tags.getSourceFields());
+    }
+    
+    @Test
+    void testAnalyzeFlinkWindowQuery() {
+        String sql = "SELECT `user_id`, COUNT(*) AS cnt FROM `clicks` "
+                + "GROUP BY TUMBLE(ts, INTERVAL '1' HOUR), `user_id`";
+        LineageResult result = analyzer.analyze(sql, "flink");
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(2, result.getFieldDependencies().size());
+        assertEquals(TransformationType.AGGREGATE, result.getFieldDependencies().get(1).getTransformationType());
+    }
+
+    @Test
+    void testAnalyzeAutoDetectsDialect() {
+        LineageResult result = analyzer.analyze("SELECT TOP 10 id, name FROM users", "auto");
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals("sqlserver", result.getDbType());
+        assertEquals(2, result.getFieldDependencies().size());
+        
+        result = analyzer.analyze("SELECT id, item FROM orders LATERAL VIEW explode(items) v AS item", "AUTO");
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals("hive", result.getDbType());
+        assertEquals(Arrays.asList("items"), result.getFieldDependencies().get(1).getSourceFields());
+
+        result = analyzer.analyze("SELECT /*+ BROADCAST(u) */ o.id, u.name FROM orders o "
+                + "JOIN users u ON o.user_id = u.id", "auto");
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals("spark", result.getDbType());
+    }
+    
+    @Test
+    void testAnalyzeAutoFailsWhenNoDialectParses() {
+        LineageResult result = analyzer.analyze("SELECT FROM WHERE", "auto");
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getErrorMessage().contains("no dialect matched"));
+    }
 }
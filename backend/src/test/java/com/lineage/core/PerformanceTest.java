@@ -1,6 +1,19 @@
 package com.lineage.core;
 
+import com.lineage.core.tracker.FieldDependency;
 import com.lineage.core.tracker.LineageResult;
+import com.lineage.core.tracker.TransformationType;
+import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.parser.SQLParserFeature;
+import com.lineage.core.dialect.DbTypeResolver;
+import com.lineage.graph.index.ColumnGraph;
+import com.lineage.graph.index.ReachabilityIndex;
+import com.lineage.service.DruidParserService;
+import com.lineage.service.ExcelExportService;
+import com.lineage.service.StreamingExportService;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +27,18 @@ class PerformanceTest {
     @Autowired
     private LineageAnalyzer analyzer;
 
+    @Autowired
+    private DruidParserService parserService;
+
+    @Autowired
+    private DbTypeResolver dbTypeResolver;
+
+    @Autowired
+    private ExcelExportService excelExportService;
+
+    @Autowired
+    private StreamingExportService streamingExportService;
+
     private Runtime runtime;
 
     @BeforeEach
@@ -61,6 +86,224 @@ class PerformanceTest {
         printMemory();
     }
 
+    @Test
+    void testDeeplyNestedExpressions() {
+        int depth = 200;
+        String sql = generateNestedExpressionSQL(depth, 20);
+        
+        // 预热
+        analyzer.analyze(sql, "mysql");
+        
+        long start = System.nanoTime();
+        LineageResult result = analyzer.analyze(sql, "mysql");
+        long visitNanos = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        int rendered = 0;
+        for (FieldDependency dep : result.getFieldDependencies()) {
+            rendered += dep.getTargetField().length();
+            if (dep.getExpression() != null) {
+                rendered += dep.getExpression().length();
+            }
+        }
+        long renderNanos = System.nanoTime() - start;
+        
+        System.out.println("=== Deeply Nested Expressions ===");
+        System.out.println("Depth: " + depth + ", Columns: " + result.getFieldDependencies().size());
+        System.out.println("Analyze: " + visitNanos / 1_000_000 + " ms");
+        System.out.println("Render on demand: " + renderNanos / 1_000_000 + " ms (" + rendered + " chars)");
+        
+        assertTrue(result.isSuccess());
+        assertEquals(40, result.getFieldDependencies().size());
+        FieldDependency first = result.getFieldDependencies().get(0);
+        assertTrue(first.isAggregation());
+        assertTrue(first.getExpression().startsWith("MAX("));
+        assertTrue(first.getSourceFields().contains("c0"));
+        printMemory();
+    }
+
+    @Test
+    void testExportThroughput() throws Exception {
+        int rows = 50_000;
+        LineageResult result = new LineageResult();
+        for (int i = 0; i < rows; i++) {
+            FieldDependency dep = result.newFieldDependency();
+            dep.setTargetField("col" + i);
+            dep.setSourceTable("table" + (i % 100));
+            dep.addSourceField("src" + i);
+            dep.addSourceField("src" + (i + 1));
+            dep.setExpression("CONCAT(src" + i + ", ',', src" + (i + 1) + ")");
+            dep.setTransformationType(TransformationType.FUNCTION);
+            result.addFieldDependency(dep);
+        }
+        
+        // 预热
+        streamingExportService.writeCsv(result, NullOutputStream.NULL_OUTPUT_STREAM);
+        streamingExportService.writeNdjson(result, NullOutputStream.NULL_OUTPUT_STREAM);
+        
+        System.out.println("=== Export Throughput (" + rows + " rows) ===");
+        
+        long start = System.nanoTime();
+        int excelBytes = excelExportService.exportToExcel(result).size();
+        printThroughput("Excel", rows, System.nanoTime() - start, excelBytes);
+        
+        CountingOutputStream csvOut = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        start = System.nanoTime();
+        assertEquals(rows, streamingExportService.writeCsv(result, csvOut));
+        printThroughput("CSV", rows, System.nanoTime() - start, csvOut.getByteCount());
+        
+        CountingOutputStream jsonOut = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        start = System.nanoTime();
+        assertEquals(rows, streamingExportService.writeNdjson(result, jsonOut));
+        printThroughput("NDJSON", rows, System.nanoTime() - start, jsonOut.getByteCount());
+        
+        printMemory();
+    }
+
+    @Test
+    void testParserPerCallOverhead() {
+        String sql = "SELECT o.id, u.name, SUM(o.amount) AS total FROM orders o JOIN users u ON o.user_id = u.id "
+                + "WHERE o.status = 'PAID' AND o.amount > 0 AND u.age > 18 GROUP BY o.id, u.name";
+        int iterations = 20_000;
+        
+        // 预热
+        for (int i = 0; i < 2_000; i++) {
+            SQLUtils.parseStatements(sql, DbType.valueOf(" MySQL ".trim().toLowerCase()));
+            parserService.parseSQL(sql, " MySQL ");
+            SQLUtils.format(sql, DbType.mysql);
+            parserService.formatSQL(sql, " MySQL ");
+        }
+        
+        // 旧路径：每次规范化 dbType + 默认特性解析
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            SQLUtils.parseStatements(sql, DbType.valueOf(" MySQL ".trim().toLowerCase()));
+        }
+        long baselineParse = System.nanoTime() - start;
+        
+        SQLParserFeature[] features = dbTypeResolver.resolveProfile(" MySQL ").getLineageFeatures();
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            SQLUtils.parseStatements(sql, dbTypeResolver.resolveProfile(" MySQL ").getDbType(), features);
+        }
+        long profileParse = System.nanoTime() - start;
+        
+        // 旧路径：先解析验证，再由 SQLUtils.format 解析一次
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            SQLUtils.parseStatements(sql, DbType.mysql);
+            SQLUtils.format(sql, DbType.mysql);
+        }
+        long baselineFormat = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            parserService.formatSQL(sql, " MySQL ");
+        }
+        long singleParseFormat = System.nanoTime() - start;
+        
+        System.out.println("=== Parser Per-Call Overhead (" + iterations + " calls) ===");
+        System.out.println("Parse  baseline: " + baselineParse / iterations / 1000.0 + " us/call");
+        System.out.println("Parse  profile:  " + profileParse / iterations / 1000.0 + " us/call");
+        System.out.println("Format baseline: " + baselineFormat / iterations / 1000.0 + " us/call");
+        System.out.println("Format single:   " + singleParseFormat / iterations / 1000.0 + " us/call");
+        
+        assertTrue(singleParseFormat < baselineFormat, "Single-parse format should beat parse + format");
+    }
+
+    /**
+     * 可达性索引 vs 内存 BFS：约 100 万节点的合成字段血缘图
+     * （1000 棵深 6 层的血缘树，约 5% 的节点额外引用其他树的上层字段）
+     */
+    @Test
+    void testReachabilityIndexVsBfs() {
+        java.util.Random random = new java.util.Random(7);
+        ColumnGraph.Builder builder = ColumnGraph.builder();
+        int trees = 1000;
+        int[] layerWidths = {1, 4, 12, 36, 108, 324, 515};
+        int nodes = 0;
+        for (int t = 0; t < trees; t++) {
+            for (int layer = 1; layer < layerWidths.length; layer++) {
+                for (int i = 0; i < layerWidths[layer]; i++) {
+                    String node = "t" + t + "_l" + layer + ".c" + i;
+                    int parent = i * layerWidths[layer - 1] / layerWidths[layer];
+                    builder.addEdge("t" + t + "_l" + (layer - 1) + ".c" + parent, node);
+                    if (random.nextInt(20) == 0) {
+                        int other = random.nextInt(trees);
+                        builder.addEdge("t" + other + "_l" + (layer - 1) + ".c"
+                                + random.nextInt(layerWidths[layer - 1]), node);
+                    }
+                }
+            }
+            nodes += 1000;
+        }
+        ColumnGraph graph = builder.build();
+
+        long buildStart = System.nanoTime();
+        ReachabilityIndex index = ReachabilityIndex.build(graph);
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        int queries = 2000;
+        String[] samples = new String[queries];
+        for (int i = 0; i < queries; i++) {
+            samples[i] = "t" + random.nextInt(trees) + "_l" + random.nextInt(3) + ".c0";
+        }
+
+        long reached = 0;
+        long bfsStart = System.nanoTime();
+        for (String sample : samples) {
+            reached += graph.bfs(sample, true).size();
+        }
+        long bfsNanos = System.nanoTime() - bfsStart;
+
+        long indexed = 0;
+        long indexStart = System.nanoTime();
+        for (String sample : samples) {
+            indexed += index.descendants(sample).size();
+        }
+        long indexNanos = System.nanoTime() - indexStart;
+
+        System.out.println("=== Reachability Index vs BFS ===");
+        System.out.println("Nodes: " + graph.nodeCount() + ", edges: " + graph.edgeCount()
+                + ", intervals: " + index.intervalCount() + ", build: " + buildMillis + " ms");
+        System.out.println("Avg descendants: " + reached / queries);
+        System.out.printf("BFS:   %.1f us/query%n", bfsNanos / 1000.0 / queries);
+        System.out.printf("Index: %.1f us/query%n", indexNanos / 1000.0 / queries);
+
+        assertEquals(1_000_000, nodes);
+        assertEquals(reached, indexed);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(index.reaches(samples[i], index.descendants(samples[i]).get(0)));
+        }
+    }
+
+    private void printThroughput(String format, int rows, long nanos, long bytes) {
+        long rowsPerSecond = nanos == 0 ? 0 : rows * 1_000_000_000L / nanos;
+        System.out.println(format + ": " + nanos / 1_000_000 + " ms, " + rowsPerSecond + " rows/s, " + bytes + " bytes");
+    }
+
+    private String generateNestedExpressionSQL(int depth, int columns) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int c = 0; c < columns; c++) {
+            // 嵌套聚合
+            StringBuilder agg = new StringBuilder("c").append(c);
+            for (int d = 0; d < depth; d++) {
+                agg.insert(0, d % 2 == 0 ? "SUM(" : "MAX(").append(")");
+            }
+            sql.append(agg).append(" AS agg").append(c).append(", ");
+            
+            // 无别名的嵌套算术表达式
+            StringBuilder arith = new StringBuilder("c").append(c);
+            for (int d = 0; d < depth; d++) {
+                arith.insert(0, "(").append(" + ").append(d).append(")");
+            }
+            sql.append(arith);
+            if (c < columns - 1) sql.append(", ");
+        }
+        sql.append(" FROM wide_table");
+        return sql.toString();
+    }
+
     private String generateLargeSQL(int lines) {
         StringBuilder sql = new StringBuilder("SELECT\n");
         
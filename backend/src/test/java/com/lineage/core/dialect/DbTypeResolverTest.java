@@ -1,6 +1,7 @@
 package com.lineage.core.dialect;
 
 import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.parser.SQLParserFeature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -8,6 +9,8 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -97,8 +100,11 @@ class DbTypeResolverTest {
         assertTrue(resolver.isSupported("MYSQL"));
         assertTrue(resolver.isSupported("hive"));
         assertTrue(resolver.isSupported("postgresql"));
+        assertTrue(resolver.isSupported("spark"));
+        assertTrue(resolver.isSupported("trino"));
+        assertTrue(resolver.isSupported("clickhouse"));
+        assertTrue(resolver.isSupported("flink"));
         
-        assertFalse(resolver.isSupported("spark"));
         assertFalse(resolver.isSupported("unknown"));
         assertFalse(resolver.isSupported("db2"));
         assertFalse(resolver.isSupported(""));
@@ -131,4 +137,28 @@ class DbTypeResolverTest {
         map1.clear();
         assertFalse(resolver.getSupportedTypes().isEmpty());
     }
+
+    @Test
+    void testResolveProfileIsCachedPerRawInput() {
+        DialectProfile first = resolver.resolveProfile(" MySQL ");
+        DialectProfile second = resolver.resolveProfile(" MySQL ");
+
+        assertSame(first, second);
+        assertSame(first, resolver.resolveProfile("mysql"));
+        assertEquals(DbType.mysql, first.getDbType());
+    }
+
+    @Test
+    void testProfileFeatures() {
+        DialectProfile profile = resolver.resolveProfile("hive");
+
+        List<SQLParserFeature> lineage = Arrays.asList(profile.getLineageFeatures());
+        assertTrue(lineage.contains(SQLParserFeature.SkipComments));
+        assertTrue(lineage.contains(SQLParserFeature.KeepSourceLocation));
+        assertFalse(lineage.contains(SQLParserFeature.KeepComments));
+
+        List<SQLParserFeature> format = Arrays.asList(profile.getFormatFeatures());
+        assertTrue(format.contains(SQLParserFeature.KeepComments));
+        assertFalse(format.contains(SQLParserFeature.SkipComments));
+    }
 }
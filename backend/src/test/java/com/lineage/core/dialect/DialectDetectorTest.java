@@ -0,0 +1,79 @@
+package com.lineage.core.dialect;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DialectDetectorTest {
+
+    private DialectDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new DialectDetector();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "SELECT `id` FROM `users`|mysql",
+        "INSERT OVERWRITE TABLE t SELECT id FROM s|hive",
+        "SELECT id, item FROM t LATERAL VIEW explode(items) v AS item|hive",
+        "SELECT TOP 10 id FROM users|sqlserver",
+        "SELECT id::text FROM users|postgresql",
+        "SELECT NVL(name, 'x') FROM users|oracle",
+        "SELECT id, tag FROM events ARRAY JOIN tags AS tag|clickhouse",
+        "SELECT id FROM users|mysql",
+        "CREATE TABLE t (id INT) USING parquet|spark",
+        "CACHE TABLE hot AS SELECT * FROM `events`|spark",
+        "SELECT /*+ BROADCAST(u) */ o.id FROM orders o JOIN users u ON o.uid = u.id|spark",
+        "INSERT OVERWRITE TABLE t SELECT /*+ REPARTITION(4) */ id FROM s|spark",
+        "SELECT a.id FROM a JOIN b USING (json)|mysql"
+    })
+    void testRankFirstCandidate(String sql, String expected) {
+        assertEquals(expected, detector.rank(sql).get(0));
+    }
+
+    @Test
+    void testRankIgnoresSignalsInStringsAndComments() {
+        List<String> candidates = detector.rank("SELECT 'a::b', \"TOP\" FROM t -- LATERAL VIEW\n/* NVL( */");
+        assertEquals(DialectDetector.DEFAULT_ORDER, candidates);
+    }
+
+    @Test
+    void testRankOnlyAddsSignalledExtraDialects() {
+        assertFalse(detector.rank("SELECT id FROM users").contains("clickhouse"));
+        List<String> candidates = detector.rank("SELECT x FROM t CROSS JOIN UNNEST(arr) AS u (x)");
+        assertTrue(candidates.contains("trino"));
+        assertEquals(DialectDetector.DEFAULT_ORDER.size() + 1, candidates.size());
+    }
+
+    @Test
+    void testIsAuto() {
+        assertTrue(DialectDetector.isAuto("auto"));
+        assertTrue(DialectDetector.isAuto(" AUTO "));
+        assertFalse(DialectDetector.isAuto("mysql"));
+        assertFalse(DialectDetector.isAuto(null));
+    }
+
+    @Test
+    void testStats() {
+        detector.recordSuccess("oracle", 1);
+        detector.recordSuccess("mysql", 2);
+        detector.recordFailure(5);
+
+        Map<String, Object> stats = detector.getStats();
+        assertEquals(3L, stats.get("detections"));
+        assertEquals(1L, stats.get("firstCandidateHits"));
+        assertEquals(1L, stats.get("failures"));
+        assertEquals(8L, stats.get("parseAttempts"));
+        // oracle 按默认顺序需 4 次，节省 3 次；mysql 多用 1 次；失败与基准持平
+        assertEquals(2L, stats.get("parseAttemptsSaved"));
+        assertEquals(1.0 / 3, (Double) stats.get("accuracy"), 1e-9);
+    }
+}
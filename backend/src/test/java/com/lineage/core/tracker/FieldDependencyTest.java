@@ -0,0 +1,91 @@
+package com.lineage.core.tracker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldDependencyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testSourceFieldsKeepInsertionOrderAndDeduplicate() {
+        FieldDependency dep = new FieldDependency(new SymbolTable());
+        dep.addSourceField("b");
+        dep.addSourceField("a");
+        dep.addSourceField("b");
+        dep.addSourceField(null);
+
+        assertEquals(Arrays.asList("b", "a"), dep.getSourceFields());
+    }
+
+    @Test
+    void testWideExpressionDeduplicate() {
+        FieldDependency dep = new FieldDependency(new SymbolTable());
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 500; i++) {
+                dep.addSourceField("col" + i);
+            }
+        }
+
+        List<String> fields = dep.getSourceFields();
+        assertEquals(500, fields.size());
+        assertEquals("col0", fields.get(0));
+        assertEquals("col499", fields.get(499));
+    }
+
+    @Test
+    void testIdentifiersSharedWithinAnalysis() {
+        LineageResult result = new LineageResult();
+        FieldDependency dep1 = result.newFieldDependency();
+        FieldDependency dep2 = result.newFieldDependency();
+
+        dep1.setSourceTable(new String("users"));
+        dep2.setSourceTable(new String("users"));
+        dep1.addSourceField("id");
+        dep2.addSourceField("id");
+
+        assertSame(dep1.getSourceTable(), dep2.getSourceTable());
+        assertSame(dep1.getSourceFields().get(0), dep2.getSourceFields().get(0));
+        assertEquals(2, result.getSymbolTable().size());
+    }
+
+    @Test
+    void testJsonShapeUnchanged() throws Exception {
+        LineageResult result = new LineageResult();
+        FieldDependency dep = result.newFieldDependency();
+        dep.setTargetField("total");
+        dep.setSourceTable("orders");
+        dep.addSourceField("amount");
+        dep.setExpression("SUM(amount)");
+        dep.setAggregation(true);
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(dep));
+
+        assertEquals("total", json.get("targetField").asText());
+        assertEquals("orders", json.get("sourceTable").asText());
+        assertEquals("amount", json.get("sourceFields").get(0).asText());
+        assertEquals("SUM(amount)", json.get("expression").asText());
+        assertTrue(json.get("aggregation").asBoolean());
+        assertFalse(json.has("symbols"));
+        assertFalse(json.has("sourceFieldIds"));
+        assertFalse(json.has("expressionNode"));
+    }
+
+    @Test
+    void testJsonRoundTrip() throws Exception {
+        String json = "{\"targetField\":\"id\",\"sourceFields\":[\"id\",\"id\",\"uid\"],\"aggregation\":false}";
+
+        FieldDependency dep = objectMapper.readValue(json, FieldDependency.class);
+
+        assertEquals("id", dep.getTargetField());
+        assertEquals(Arrays.asList("id", "uid"), dep.getSourceFields());
+        assertNull(dep.getExpression());
+        assertFalse(dep.hasExpression());
+    }
+}
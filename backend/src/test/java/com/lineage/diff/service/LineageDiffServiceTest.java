@@ -0,0 +1,134 @@
+package com.lineage.diff.service;
+
+import com.lineage.core.tracker.TransformationType;
+import com.lineage.diff.dto.LineageDiffResult;
+import com.lineage.kettle.dto.BatchUploadResponse;
+import com.lineage.kettle.service.KettleFileService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 血缘差异服务测试
+ */
+@SpringBootTest
+@Transactional
+class LineageDiffServiceTest {
+
+    @Resource
+    private LineageDiffService lineageDiffService;
+
+    @Resource
+    private KettleFileService kettleFileService;
+
+    @Test
+    void testDiffSql() {
+        LineageDiffResult result = lineageDiffService.diffSql(
+                "SELECT o.id, o.amount, u.name AS user_name FROM orders o JOIN users u ON o.user_id = u.id",
+                "SELECT o.id, o.amount * o.rate AS amount, o.region FROM orders o",
+                "mysql", "dw.ORDERS_WIDE");
+
+        assertEquals(Arrays.asList("orders.rate", "orders.region"),
+                Arrays.asList(result.getAdded().get(0).getSourceNode(), result.getAdded().get(1).getSourceNode()));
+        assertEquals(3, result.getRemoved().size());
+        assertEquals("users.name", result.getRemoved().get(2).getSourceNode());
+        assertEquals("dw.orders_wide.user_name", result.getRemoved().get(2).getTargetNode());
+
+        // 连接键作为间接血缘指向整个目标表
+        LineageDiffResult.EdgeChange joinKey = result.getRemoved().get(0);
+        assertEquals("orders.user_id", joinKey.getSourceNode());
+        assertEquals("dw.orders_wide.*", joinKey.getTargetNode());
+        assertEquals(TransformationType.JOIN_KEY, joinKey.getBaseType());
+        assertEquals("users.id", result.getRemoved().get(1).getSourceNode());
+
+        LineageDiffResult.EdgeChange amount = result.getChanged().get(0);
+        assertEquals("orders.amount", amount.getSourceNode());
+        assertEquals(TransformationType.DIRECT, amount.getBaseType());
+        assertEquals(TransformationType.ARITHMETIC, amount.getHeadType());
+        assertEquals(1, result.getUnchangedCount());
+
+        // 新增的 region 字段不影响已有下游
+        assertEquals(Arrays.asList("dw.orders_wide.*", "dw.orders_wide.amount", "dw.orders_wide.user_name"),
+                result.getImpactedNodes());
+        assertTrue(result.isImpactful());
+    }
+
+    @Test
+    void testDiffSqlIndirectDependencies() {
+        LineageDiffResult result = lineageDiffService.diffSql(
+                "SELECT region, SUM(amount) AS total FROM orders WHERE status = 'paid' GROUP BY region",
+                "SELECT region, SUM(amount) AS total FROM orders WHERE paid_at IS NOT NULL GROUP BY region",
+                "mysql", "dw.sales");
+
+        assertEquals(1, result.getAdded().size());
+        assertEquals("orders.paid_at", result.getAdded().get(0).getSourceNode());
+        assertEquals("dw.sales.*", result.getAdded().get(0).getTargetNode());
+        assertEquals(TransformationType.FILTER, result.getAdded().get(0).getHeadType());
+        assertEquals(1, result.getRemoved().size());
+        assertEquals("orders.status", result.getRemoved().get(0).getSourceNode());
+        assertEquals(TransformationType.FILTER, result.getRemoved().get(0).getBaseType());
+        assertTrue(result.getChanged().isEmpty());
+        // region 的直接映射与分组键、amount 的聚合
+        assertEquals(3, result.getUnchangedCount());
+        assertEquals(Collections.singletonList("dw.sales.*"), result.getImpactedNodes());
+    }
+
+    @Test
+    void testDiffSqlWithOnlyNewColumns() {
+        LineageDiffResult result = lineageDiffService.diffSql(
+                "SELECT id FROM users", "SELECT id, UPPER(name) AS name FROM users", "mysql", null);
+        assertEquals(1, result.getAdded().size());
+        assertEquals("name", result.getAdded().get(0).getTargetNode());
+        assertTrue(result.getRemoved().isEmpty());
+        assertFalse(result.isImpactful());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> lineageDiffService.diffSql("SELECT id FROM users", "SELEC id FROM", "mysql", null));
+    }
+
+    @Test
+    void testDiffKettleVersions() throws Exception {
+        String fileName = "diff-" + UUID.randomUUID() + ".ktr";
+        BatchUploadResponse.FileUploadResult base = upload(fileName, "SELECT id, name FROM users");
+        BatchUploadResponse.FileUploadResult head = upload(fileName, "SELECT id, nickname AS name FROM users");
+
+        LineageDiffResult result = lineageDiffService.diffKettleFiles(base.getFileId(), head.getFileId());
+        assertEquals("users.name", result.getRemoved().get(0).getSourceNode());
+        assertEquals("users.nickname", result.getAdded().get(0).getSourceNode());
+        assertEquals(Collections.singletonList("users_copy.name"), result.getImpactedNodes());
+        assertEquals(1, result.getUnchangedCount());
+
+        LineageDiffResult latest = lineageDiffService.diffKettleLatest(fileName);
+        assertEquals(result.getImpactedNodes(), latest.getImpactedNodes());
+
+        // 同一版本：内容相同时没有差异，全部边计为未变化
+        LineageDiffResult same = lineageDiffService.diffKettleFiles(head.getFileId(), head.getFileId());
+        assertFalse(same.isImpactful());
+        assertTrue(same.getAdded().isEmpty());
+        assertEquals(2, same.getUnchangedCount());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> lineageDiffService.diffKettleLatest("missing-" + UUID.randomUUID() + ".ktr"));
+    }
+
+    private BatchUploadResponse.FileUploadResult upload(String fileName, String sql) throws Exception {
+        String ktr = "<transformation>\n"
+                + "  <step><name>in</name><type>TableInput</type><sql>" + sql + "</sql></step>\n"
+                + "  <step><name>out</name><type>TableOutput</type><table>users_copy</table></step>\n"
+                + "  <order><hop><from>in</from><to>out</to><enabled>Y</enabled></hop></order>\n"
+                + "</transformation>";
+        BatchUploadResponse.FileUploadResult result = kettleFileService.uploadFile(
+                new MockMultipartFile("file", fileName, "text/xml", ktr.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("success", result.getStatus());
+        return result;
+    }
+}
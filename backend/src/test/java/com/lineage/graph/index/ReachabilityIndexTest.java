@@ -0,0 +1,93 @@
+package com.lineage.graph.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilityIndexTest {
+
+    @Test
+    void testDescendantsAndAncestors() {
+        ColumnGraph graph = ColumnGraph.builder()
+                .addEdge("ods.a", "dw.a")
+                .addEdge("ods.b", "dw.a")
+                .addEdge("dw.a", "ads.x")
+                .addEdge("dw.a", "ads.y")
+                .addEdge("ods.b", "ads.y")
+                .build();
+        ReachabilityIndex index = ReachabilityIndex.build(graph);
+
+        assertEquals(set("dw.a", "ads.x", "ads.y"), new HashSet<>(index.descendants("ods.a")));
+        assertEquals(set("ods.a", "ods.b", "dw.a"), new HashSet<>(index.ancestors("ads.y")));
+        assertTrue(index.reaches("ods.b", "ads.x"));
+        assertFalse(index.reaches("ads.x", "ods.b"));
+        assertFalse(index.reaches("ods.a", "ods.a"));
+        assertTrue(index.descendants("missing").isEmpty());
+    }
+
+    @Test
+    void testCycleCollapsedIntoComponent() {
+        ColumnGraph graph = ColumnGraph.builder()
+                .addEdge("t.a", "t.b")
+                .addEdge("t.b", "t.c")
+                .addEdge("t.c", "t.a")
+                .addEdge("t.c", "t.d")
+                .build();
+        ReachabilityIndex index = ReachabilityIndex.build(graph);
+
+        assertEquals(2, index.componentCount());
+        assertEquals(set("t.a", "t.c", "t.d"), new HashSet<>(index.descendants("t.b")));
+        assertEquals(set("t.a", "t.b", "t.c"), new HashSet<>(index.ancestors("t.d")));
+        assertTrue(index.reaches("t.a", "t.a"));
+    }
+
+    @Test
+    void testIncrementalAddEdge() {
+        ReachabilityIndex index = ReachabilityIndex.build(ColumnGraph.builder()
+                .addEdge("t.a", "t.b")
+                .addEdge("t.c", "t.d")
+                .build());
+
+        assertTrue(index.addEdge("t.b", "t.c"));
+        assertTrue(index.addEdge("t.d", "t.e"));
+        assertEquals(set("t.b", "t.c", "t.d", "t.e"), new HashSet<>(index.descendants("t.a")));
+        assertEquals(set("t.a", "t.b", "t.c", "t.d"), new HashSet<>(index.ancestors("t.e")));
+
+        // 形成环的边需要整体重建
+        assertFalse(index.addEdge("t.e", "t.a"));
+        assertFalse(index.reaches("t.e", "t.a"));
+        assertEquals(5, index.nodeCount());
+        assertEquals(5, index.componentCount());
+    }
+
+    @Test
+    void testMatchesBfsOnRandomGraph() {
+        Random random = new Random(42);
+        ColumnGraph.Builder builder = ColumnGraph.builder();
+        for (int i = 0; i < 3000; i++) {
+            int source = random.nextInt(800);
+            // 大部分边指向编号更大的节点，少量回边制造环
+            int target = random.nextInt(10) == 0 ? random.nextInt(800) : source + 1 + random.nextInt(30);
+            builder.addEdge("n" + source, "n" + target);
+        }
+        ColumnGraph graph = builder.build();
+        ReachabilityIndex index = ReachabilityIndex.build(graph);
+
+        for (int i = 0; i < 200; i++) {
+            String node = graph.name(random.nextInt(graph.nodeCount()));
+            assertEquals(new HashSet<>(graph.bfs(node, true)), new HashSet<>(index.descendants(node)), node);
+            assertEquals(new HashSet<>(graph.bfs(node, false)), new HashSet<>(index.ancestors(node)), node);
+        }
+    }
+
+    private static HashSet<String> set(String... values) {
+        HashSet<String> set = new HashSet<>();
+        for (String value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,138 @@
+package com.lineage.graph.service;
+
+import com.lineage.config.LineageProperties;
+import com.lineage.core.LineageAnalyzer;
+import com.lineage.graph.dto.LineageTraversalResult;
+import com.lineage.graph.dto.ReachabilityResult;
+import com.lineage.graph.entity.LineageEdge;
+import com.lineage.graph.model.TraversalDirection;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 血缘图服务测试
+ */
+@SpringBootTest
+@Transactional
+class LineageGraphServiceTest {
+
+    @Resource
+    private LineageGraphService lineageGraphService;
+
+    @Resource
+    private LineageAnalyzer analyzer;
+
+    @Resource
+    private ReachabilityIndexService reachabilityIndexService;
+
+    @Resource
+    private LineageProperties properties;
+
+    @Test
+    void testSaveLineageAndTraverse() {
+        int saved = lineageGraphService.saveLineage("dw_orders",
+                analyzer.analyze("SELECT o.id AS order_id, o.amount * 100 AS amount, u.rate AS rate "
+                        + "FROM ods_orders o JOIN ods_users u ON o.user_id = u.id", "mysql"), null);
+        assertEquals(3, saved);
+        lineageGraphService.saveLineage("ads_report",
+                analyzer.analyze("SELECT SUM(amount * rate) AS total FROM dw_orders", "mysql"), null);
+
+        LineageTraversalResult downstream = lineageGraphService.downstream("ODS_ORDERS.amount", 5);
+        assertEquals(Integer.valueOf(1), downstream.getNodes().get("dw_orders.amount"));
+        assertEquals(Integer.valueOf(2), downstream.getNodes().get("ads_report.total"));
+        assertEquals(2, downstream.getDepthReached());
+        assertFalse(downstream.isCycleDetected());
+
+        LineageTraversalResult upstream = lineageGraphService.upstream("ads_report.total", 0);
+        assertTrue(upstream.getNodes().containsKey("ods_orders.amount"));
+        assertTrue(upstream.getNodes().containsKey("ods_users.rate"));
+        assertFalse(upstream.getNodes().containsKey("ods_orders.id"));
+    }
+
+    @Test
+    void testSaveLineageReplacesSameSourceRef() {
+        lineageGraphService.saveLineage("t2", analyzer.analyze("SELECT a, b FROM t1", "mysql"), "job:1");
+        lineageGraphService.saveLineage("t2", analyzer.analyze("SELECT a FROM t1", "mysql"), "job:1");
+
+        LineageTraversalResult result = lineageGraphService.upstream("t2.b", 1);
+        assertEquals(1, result.getNodes().size());
+    }
+
+    @Test
+    void testTraverseDepthLimitAndBatches() {
+        // n0 -> n1..n5 -> m1..m5 -> ...
+        List<LineageEdge> edges = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            edges.add(edge("t.n0", "t.n" + i));
+            edges.add(edge("t.n" + i, "t.m" + i));
+            edges.add(edge("t.m" + i, "t.k" + i));
+        }
+        lineageGraphService.replaceEdges("test", edges);
+
+        LineageTraversalResult result = lineageGraphService.downstream("t.n0", 2);
+        assertEquals(11, result.getNodes().size());
+        assertEquals(2, result.getDepthReached());
+        assertNull(result.getNodes().get("t.k1"));
+        assertEquals(2, result.getQueryCount());
+    }
+
+    @Test
+    void testTraverseTerminatesOnCycle() {
+        List<LineageEdge> edges = new ArrayList<>();
+        edges.add(edge("t.a", "t.b"));
+        edges.add(edge("t.b", "t.c"));
+        edges.add(edge("t.c", "t.a"));
+        lineageGraphService.replaceEdges("cycle", edges);
+
+        LineageTraversalResult result = lineageGraphService.downstream("t.a", 10);
+        assertEquals(3, result.getNodes().size());
+        assertTrue(result.isCycleDetected());
+        assertEquals(1, result.getRevisitedEdgeCount());
+        assertEquals(3, result.getQueryCount());
+    }
+
+    private LineageEdge edge(String source, String target) {
+        LineageEdge edge = new LineageEdge();
+        edge.setSourceNode(source);
+        edge.setTargetNode(target);
+        edge.setEdgeType("DIRECT");
+        edge.setSourceRef("test");
+        return edge;
+    }
+
+    @Test
+    void testReachableUsesIndexWhenEnabled() {
+        List<LineageEdge> edges = new ArrayList<>();
+        edges.add(edge("t.a", "t.b"));
+        edges.add(edge("t.b", "t.c"));
+        edges.add(edge("t.x", "t.c"));
+        lineageGraphService.replaceEdges("test", edges);
+
+        ReachabilityResult fallback = lineageGraphService.reachable("t.a", TraversalDirection.DOWNSTREAM);
+        assertFalse(fallback.isIndexed());
+        assertEquals(new HashSet<>(Arrays.asList("t.b", "t.c")), new HashSet<>(fallback.getNodes()));
+
+        properties.getGraph().setReachabilityIndexEnabled(true);
+        try {
+            reachabilityIndexService.rebuild();
+            ReachabilityResult indexed = lineageGraphService.reachable("T.C", TraversalDirection.UPSTREAM);
+            assertTrue(indexed.isIndexed());
+            assertEquals(new HashSet<>(Arrays.asList("t.a", "t.b", "t.x")), new HashSet<>(indexed.getNodes()));
+
+            // 新增边增量合并
+            reachabilityIndexService.onEdgesReplaced(Arrays.asList(edge("t.c", "t.d")), false);
+            assertTrue(lineageGraphService.reachable("t.x", TraversalDirection.DOWNSTREAM).getNodes().contains("t.d"));
+        } finally {
+            properties.getGraph().setReachabilityIndexEnabled(false);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.lineage.graph.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lineage.config.LineageProperties;
+import com.lineage.core.LineageAnalyzer;
+import com.lineage.graph.entity.LineageEdge;
+import com.lineage.graph.entity.LineageStatement;
+import com.lineage.graph.entity.ReanalysisJob;
+import com.lineage.graph.mapper.LineageEdgeMapper;
+import com.lineage.graph.mapper.LineageStatementMapper;
+import com.lineage.graph.mapper.ReanalysisJobMapper;
+import com.lineage.kettle.dto.BatchUploadResponse;
+import com.lineage.kettle.service.KettleFileService;
+import com.lineage.metadata.dto.ColumnMetadataDTO;
+import com.lineage.metadata.dto.TableMetadataDTO;
+import com.lineage.metadata.entity.ColumnMetadata;
+import com.lineage.metadata.service.MetadataService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 重新分析队列测试
+ */
+@SpringBootTest
+@Transactional
+class ReanalysisQueueServiceTest {
+
+    @Resource
+    private ReanalysisQueueService reanalysisQueueService;
+
+    @Resource
+    private LineageGraphService lineageGraphService;
+
+    @Resource
+    private MetadataService metadataService;
+
+    @Resource
+    private KettleFileService kettleFileService;
+
+    @Resource
+    private LineageAnalyzer analyzer;
+
+    @Resource
+    private ReanalysisJobMapper reanalysisJobMapper;
+
+    @Resource
+    private LineageEdgeMapper lineageEdgeMapper;
+
+    @Resource
+    private LineageStatementMapper lineageStatementMapper;
+
+    @Resource
+    private LineageProperties properties;
+
+    @Test
+    void testEnqueueCoalescesPendingJobs() {
+        String ref = "ref-" + UUID.randomUUID();
+        assertEquals(1, reanalysisQueueService.enqueue(Arrays.asList(ref, ref), "test"));
+        assertEquals(0, reanalysisQueueService.enqueue(Collections.singletonList(ref), "test again"));
+
+        List<ReanalysisJob> jobs = jobs(ref);
+        assertEquals(1, jobs.size());
+        assertEquals("pending", jobs.get(0).getStatus());
+        assertEquals(ref, jobs.get(0).getPendingRef());
+    }
+
+    @Test
+    void testUnclaimRestoresPendingJob() {
+        String ref = "ref-" + UUID.randomUUID();
+        reanalysisQueueService.enqueue(Collections.singletonList(ref), "test");
+        ReanalysisJob job = jobs(ref).get(0);
+        assertEquals(1, reanalysisJobMapper.claim(job.getId(), LocalDateTime.now()));
+
+        // 线程池拒绝时撤销领取：恢复待执行，不计入执行次数
+        assertEquals(1, reanalysisJobMapper.unclaim(job.getId(), LocalDateTime.now()));
+        ReanalysisJob restored = jobs(ref).get(0);
+        assertEquals("pending", restored.getStatus());
+        assertEquals(ref, restored.getPendingRef());
+        assertEquals(0, restored.getAttempts());
+    }
+
+    @Test
+    void testColumnChangeEnqueuesAffectedStatements() throws Exception {
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+        String source = "src_" + suffix;
+        String ref = "stmt-" + suffix;
+        lineageGraphService.saveLineage("dw_" + suffix,
+                analyzer.analyze("SELECT id, name AS user_name FROM " + source, "mysql"), ref);
+        assertEquals("SELECT id, name AS user_name FROM " + source, lineageGraphService.getStatement(ref).getSqlText());
+
+        TableMetadataDTO table = new TableMetadataDTO();
+        table.setDatasourceId(1L);
+        table.setTableName(source);
+        ColumnMetadataDTO column = new ColumnMetadataDTO();
+        column.setColumnName("name");
+        column.setColumnType("VARCHAR");
+        table.setColumns(Collections.singletonList(column));
+        Long tableId = metadataService.createTable(table);
+        ColumnMetadata created = metadataService.listColumnsByTableId(tableId).get(0);
+
+        // 默认不因字段元数据变化入队
+        column.setTableId(tableId);
+        column.setColumnType("TEXT");
+        metadataService.updateColumn(created.getId(), column);
+        assertTrue(jobs(ref).isEmpty());
+
+        boolean metadataTriggers = properties.getReanalysis().isMetadataTriggers();
+        properties.getReanalysis().setMetadataTriggers(true);
+        try {
+            // 只改注释不入队
+            column.setColumnComment("用户名");
+            metadataService.updateColumn(created.getId(), column);
+            assertTrue(jobs(ref).isEmpty());
+
+            column.setColumnName("user_name");
+            metadataService.updateColumn(created.getId(), column);
+            assertEquals(1, jobs(ref).size());
+        } finally {
+            properties.getReanalysis().setMetadataTriggers(metadataTriggers);
+        }
+
+        // 重新分析按保存的 SQL 替换该出处的边
+        lineageEdgeMapper.delete(new LambdaQueryWrapper<LineageEdge>().eq(LineageEdge::getSourceRef, ref));
+        assertEquals(2, reanalysisQueueService.reanalyze(ref));
+        assertEquals(2, edges(ref).size());
+    }
+
+    @Test
+    void testKettleUploadEnqueuesFile() throws Exception {
+        String fileName = "reanalysis-" + UUID.randomUUID() + ".ktr";
+        String ref = ReanalysisQueueService.kettleRef(fileName);
+        String ktr = "<transformation>\n"
+                + "  <step><name>in</name><type>TableInput</type><sql>SELECT id, name FROM users</sql></step>\n"
+                + "  <step><name>out</name><type>TableOutput</type><table>users_copy</table></step>\n"
+                + "  <order><hop><from>in</from><to>out</to><enabled>Y</enabled></hop></order>\n"
+                + "</transformation>";
+        BatchUploadResponse.FileUploadResult result = kettleFileService.uploadFile(
+                new MockMultipartFile("file", fileName, "text/xml", ktr.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, jobs(ref).size());
+
+        assertEquals(2, reanalysisQueueService.reanalyze(ref));
+        assertTrue(edges(ref).stream().anyMatch(edge ->
+                "users.name".equals(edge.getSourceNode()) && "users_copy.name".equals(edge.getTargetNode())));
+
+        // 文件删除后边随之清除
+        kettleFileService.deleteFileRecord(result.getFileId());
+        assertEquals(0, reanalysisQueueService.reanalyze(ref));
+        assertTrue(edges(ref).isEmpty());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testCommittedJobsRunInBackground() throws Exception {
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+        String ref = "bg-" + suffix;
+        try {
+            lineageGraphService.saveLineage("dw_" + suffix,
+                    analyzer.analyze("SELECT id, amount FROM src_" + suffix, "mysql"), ref);
+            lineageEdgeMapper.delete(new LambdaQueryWrapper<LineageEdge>().eq(LineageEdge::getSourceRef, ref));
+
+            assertEquals(1, reanalysisQueueService.enqueue(Collections.singletonList(ref), "test"));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!jobs(ref).isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(jobs(ref).isEmpty());
+            assertEquals(2, edges(ref).size());
+        } finally {
+            lineageEdgeMapper.delete(new LambdaQueryWrapper<LineageEdge>().eq(LineageEdge::getSourceRef, ref));
+            lineageStatementMapper.delete(new LambdaQueryWrapper<LineageStatement>()
+                    .eq(LineageStatement::getSourceRef, ref));
+            reanalysisJobMapper.delete(new LambdaQueryWrapper<ReanalysisJob>().eq(ReanalysisJob::getSourceRef, ref));
+        }
+    }
+
+    private List<ReanalysisJob> jobs(String ref) {
+        return reanalysisJobMapper.selectList(new LambdaQueryWrapper<ReanalysisJob>()
+                .eq(ReanalysisJob::getSourceRef, ref));
+    }
+
+    private List<LineageEdge> edges(String ref) {
+        return lineageEdgeMapper.selectList(new LambdaQueryWrapper<LineageEdge>()
+                .eq(LineageEdge::getSourceRef, ref));
+    }
+}
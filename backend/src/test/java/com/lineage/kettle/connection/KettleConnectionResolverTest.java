@@ -0,0 +1,145 @@
+package com.lineage.kettle.connection;
+
+import com.lineage.kettle.extractor.KettleSqlExtractor;
+import com.lineage.kettle.model.KettleConnection;
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.KettleTransformation;
+import com.lineage.kettle.parser.KettleParser;
+import com.lineage.metadata.entity.DataSource;
+import com.lineage.metadata.mapper.DataSourceMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kettle数据库连接解析测试
+ */
+@SpringBootTest
+@Transactional
+class KettleConnectionResolverTest {
+
+    @Resource
+    private KettleConnectionResolver connectionResolver;
+
+    @Resource
+    private KettleParser kettleParser;
+
+    @Resource
+    private KettleSqlExtractor kettleSqlExtractor;
+
+    @Resource
+    private DataSourceMapper dataSourceMapper;
+
+    @AfterEach
+    void resetShared() throws Exception {
+        connectionResolver.loadShared(stream("<sharedobjects/>"));
+    }
+
+    @Test
+    void testResolveLocalAndSharedConnections() throws Exception {
+        String prefix = UUID.randomUUID().toString().substring(0, 8);
+        Long mysqlId = insertDataSource(prefix + "_ods", "mysql", "jdbc:mysql://10.0.0.1:3306/ods", "ods");
+        Long hiveId = insertDataSource(prefix + "_warehouse", "hive", "jdbc:hive2://hive-host:10000/" + prefix, prefix);
+        // 直接写入 mapper 绕过了 MetadataService，需手动丢弃数据源缓存
+        connectionResolver.invalidateDataSources();
+
+        connectionResolver.loadShared(stream("<sharedobjects>"
+                + "<connection><name>dw</name><type>HIVE2</type><server>hive-host</server>"
+                + "<database>" + prefix + "</database></connection>"
+                + "<connection><name>unused</name><type>ORACLE</type></connection>"
+                + "</sharedobjects>"));
+
+        KettleTransformation transformation = kettleParser.parse(stream("<transformation>"
+                + "<connection><name>" + prefix + "_ods</name><type>MYSQL</type><server>${DB_HOST}</server>"
+                + "<database>ods</database></connection>"
+                + "<connection><name>legacy</name><type>INFOBRIGHT</type></connection>"
+                + "<step><name>in</name><type>TableInput</type><connection>" + prefix + "_ods</connection>"
+                + "<sql>SELECT id FROM users</sql></step>"
+                + "<step><name>out</name><type>TableOutput</type><connection>dw</connection>"
+                + "<table>users</table></step>"
+                + "<step><name>legacy_in</name><type>TableInput</type><connection>legacy</connection>"
+                + "<sql>SELECT 1</sql></step>"
+                + "</transformation>"));
+
+        // 只补全被引用的共享连接
+        assertEquals(3, transformation.getConnections().size());
+        assertNull(transformation.getConnection("unused"));
+
+        KettleConnection ods = transformation.getConnection(prefix + "_ods");
+        assertFalse(ods.isShared());
+        assertEquals("mysql", ods.getDbType());
+        assertEquals(mysqlId, ods.getDatasourceId());
+
+        KettleConnection dw = transformation.getConnection("dw");
+        assertTrue(dw.isShared());
+        assertEquals("hive", dw.getDbType());
+        assertEquals(hiveId, dw.getDatasourceId());
+
+        KettleConnection legacy = transformation.getConnection("legacy");
+        assertNull(legacy.getDbType());
+        assertNull(legacy.getDatasourceId());
+
+        List<KettleSqlInfo> sqls = kettleSqlExtractor.extractSqls(transformation);
+        assertEquals("mysql", sqls.get(0).getDbType());
+        assertEquals(mysqlId, sqls.get(0).getDatasourceId());
+        assertEquals("hive", sqls.get(1).getDbType());
+        assertNull(sqls.get(2).getDbType());
+    }
+
+    @Test
+    void testImportScopedSharedConnections() throws Exception {
+        connectionResolver.loadShared(stream("<sharedobjects>"
+                + "<connection><name>dw</name><type>ORACLE</type></connection></sharedobjects>"));
+        Map<String, KettleConnection> scoped = KettleConnectionResolver.readShared(stream("<sharedobjects>"
+                + "<connection><name>dw</name><type>HIVE2</type></connection>"
+                + "<connection><name>ods</name><type>MYSQL</type></connection></sharedobjects>"));
+        String ktr = "<transformation>"
+                + "<step><name>in</name><type>TableInput</type><connection>ods</connection><sql>SELECT 1</sql></step>"
+                + "<step><name>out</name><type>TableOutput</type><connection>dw</connection><table>t</table></step>"
+                + "</transformation>";
+
+        // 导入自带的共享连接优先，且不改变全局默认共享连接
+        KettleTransformation imported = kettleParser.parse(stream(ktr), scoped);
+        assertEquals("hive", imported.getConnection("dw").getDbType());
+        assertEquals("mysql", imported.getConnection("ods").getDbType());
+        assertEquals(1, connectionResolver.getSharedConnections().size());
+
+        KettleTransformation standalone = kettleParser.parse(stream(ktr));
+        assertEquals("oracle", standalone.getConnection("dw").getDbType());
+        assertNull(standalone.getConnection("ods"));
+    }
+
+    @Test
+    void testDialectMapping() {
+        assertEquals("sqlserver", connectionResolver.dialect("MSSQLNATIVE"));
+        assertEquals("postgresql", connectionResolver.dialect("greenplum"));
+        assertEquals("clickhouse", connectionResolver.dialect("CLICKHOUSE"));
+        assertNull(connectionResolver.dialect("GENERIC"));
+        assertNull(connectionResolver.dialect(null));
+    }
+
+    private Long insertDataSource(String name, String type, String url, String database) {
+        DataSource dataSource = new DataSource();
+        dataSource.setName(name);
+        dataSource.setType(type);
+        dataSource.setUrl(url);
+        dataSource.setDatabaseName(database);
+        dataSourceMapper.insert(dataSource);
+        return dataSource.getId();
+    }
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,205 @@
+package com.lineage.kettle.lineage;
+
+import com.lineage.core.tracker.TransformationType;
+import com.lineage.kettle.model.KettleFieldLineage;
+import com.lineage.kettle.model.KettleTransformation;
+import com.lineage.kettle.parser.KettleParser;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kettle字段级血缘解析测试
+ */
+@SpringBootTest
+class KettleFieldLineageResolverTest {
+
+    /**
+     * 步骤顺序故意打乱：输出步骤在前，验证按连接拓扑顺序解析
+     */
+    private static final String TRANSFORMATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<transformation>\n"
+            + "  <info><name>field-lineage</name></info>\n"
+            + "  <step>\n"
+            + "    <name>表输出</name><type>TableOutput</type>\n"
+            + "    <schema>dw</schema><table>user_orders</table>\n"
+            + "    <specify_fields>Y</specify_fields>\n"
+            + "    <fields>\n"
+            + "      <field><column_name>user_id</column_name><stream_name>id</stream_name></field>\n"
+            + "      <field><column_name>user_name</column_name><stream_name>user_name</stream_name></field>\n"
+            + "      <field><column_name>total</column_name><stream_name>total</stream_name></field>\n"
+            + "    </fields>\n"
+            + "  </step>\n"
+            + "  <step>\n"
+            + "    <name>计算</name><type>Calculator</type>\n"
+            + "    <calculation><field_name>tmp</field_name><calc_type>MULTIPLY</calc_type>"
+            + "<field_a>amount</field_a><field_b>amount</field_b><remove>Y</remove></calculation>\n"
+            + "    <calculation><field_name>total</field_name><calc_type>ADD</calc_type>"
+            + "<field_a>tmp</field_a><field_b>fee</field_b><remove>N</remove></calculation>\n"
+            + "  </step>\n"
+            + "  <step>\n"
+            + "    <name>表输入</name><type>TableInput</type>\n"
+            + "    <sql><![CDATA[SELECT u.id, u.name, o.amount, o.fee FROM users u"
+            + " JOIN orders o ON u.id = o.user_id WHERE o.dt = '${biz_date}']]></sql>\n"
+            + "  </step>\n"
+            + "  <step>\n"
+            + "    <name>字段选择</name><type>SelectValues</type>\n"
+            + "    <fields>\n"
+            + "      <field><name>id</name></field>\n"
+            + "      <field><name>name</name><rename>user_name</rename></field>\n"
+            + "      <field><name>amount</name></field>\n"
+            + "      <field><name>fee</name></field>\n"
+            + "    </fields>\n"
+            + "  </step>\n"
+            + "  <step>\n"
+            + "    <name>插入更新</name><type>InsertUpdate</type>\n"
+            + "    <lookup><schema>dw</schema><table>user_dim</table>\n"
+            + "      <value><name>display_name</name><rename>user_name</rename><update>Y</update></value>\n"
+            + "    </lookup>\n"
+            + "  </step>\n"
+            + "  <step>\n"
+            + "    <name>禁用输出</name><type>TableOutput</type><table>unused</table>\n"
+            + "  </step>\n"
+            + "  <order>\n"
+            + "    <hop><from>表输入</from><to>字段选择</to><enabled>Y</enabled></hop>\n"
+            + "    <hop><from>字段选择</from><to>计算</to><enabled>Y</enabled></hop>\n"
+            + "    <hop><from>计算</from><to>表输出</to><enabled>Y</enabled></hop>\n"
+            + "    <hop><from>字段选择</from><to>插入更新</to><enabled>Y</enabled></hop>\n"
+            + "    <hop><from>字段选择</from><to>禁用输出</to><enabled>N</enabled></hop>\n"
+            + "  </order>\n"
+            + "</transformation>";
+
+    @Resource
+    private KettleParser kettleParser;
+
+    @Resource
+    private KettleFieldLineageResolver resolver;
+
+    @Test
+    void testLineageThroughSteps() throws Exception {
+        List<KettleFieldLineage> lineages = resolve(TRANSFORMATION);
+
+        KettleFieldLineage userId = find(lineages, "dw.user_orders", "user_id");
+        assertEquals(Collections.singletonList("users.id"), userId.getSourceFields());
+        assertEquals(TransformationType.RENAME, userId.getTransformationType());
+
+        KettleFieldLineage userName = find(lineages, "dw.user_orders", "user_name");
+        assertEquals(Collections.singletonList("users.name"), userName.getSourceFields());
+        assertEquals(TransformationType.RENAME, userName.getTransformationType());
+
+        // total = amount * amount + fee（临时字段 tmp 不写出）
+        KettleFieldLineage total = find(lineages, "dw.user_orders", "total");
+        assertEquals(Arrays.asList("orders.amount", "orders.fee"), total.getSourceFields());
+        assertEquals(TransformationType.ARITHMETIC, total.getTransformationType());
+        assertEquals("表输出", total.getStepName());
+
+        // 同一上游分出的 InsertUpdate 分支
+        KettleFieldLineage displayName = find(lineages, "dw.user_dim", "display_name");
+        assertEquals(Collections.singletonList("users.name"), displayName.getSourceFields());
+
+        // 禁用连接后的步骤没有输入
+        assertTrue(lineages.stream().noneMatch(l -> "unused".equals(l.getTargetTable())));
+        assertEquals(4, lineages.size());
+    }
+
+    @Test
+    void testTableOutputWithoutFieldMapping() throws Exception {
+        String ktr = "<transformation>\n"
+                + "  <step><name>in</name><type>TableInput</type>"
+                + "<sql>SELECT id, UPPER(name) AS name FROM users</sql></step>\n"
+                + "  <step><name>out</name><type>TableOutput</type><table>users_copy</table></step>\n"
+                + "  <order><hop><from>in</from><to>out</to><enabled>Y</enabled></hop></order>\n"
+                + "</transformation>";
+        List<KettleFieldLineage> lineages = resolve(ktr);
+
+        assertEquals(2, lineages.size());
+        assertEquals(TransformationType.DIRECT, find(lineages, "users_copy", "id").getTransformationType());
+        assertEquals(TransformationType.FUNCTION, find(lineages, "users_copy", "name").getTransformationType());
+    }
+
+    @Test
+    void testLookupSteps() throws Exception {
+        String ktr = "<transformation>\n"
+                + "  <step><name>orders</name><type>TableInput</type>"
+                + "<sql>SELECT id, user_id, region_id FROM orders</sql></step>\n"
+                + "  <step><name>regions</name><type>TableInput</type>"
+                + "<sql>SELECT id, region_name FROM regions</sql></step>\n"
+                + "  <step><name>user</name><type>DBLookup</type>"
+                + "<lookup><schema>dim</schema><table>users</table><key><name>user_id</name><field>id</field></key>"
+                + "<value><name>name</name><rename>user_name</rename></value></lookup></step>\n"
+                + "  <step><name>region</name><type>StreamLookup</type><from>regions</from>"
+                + "<lookup><key><name>region_id</name><field>id</field></key>"
+                + "<value><name>region_name</name></value></lookup></step>\n"
+                + "  <step><name>join</name><type>DBJoin</type>"
+                + "<sql>SELECT amount FROM payments WHERE order_id = ?</sql></step>\n"
+                + "  <step><name>sync</name><type>SynchronizeAfterMerge</type>"
+                + "<lookup><table>order_wide</table><value><name>id</name><rename>id</rename></value>"
+                + "<value><name>user_name</name><rename>user_name</rename></value>"
+                + "<value><name>region</name><rename>region_name</rename></value>"
+                + "<value><name>amount</name><rename>amount</rename></value></lookup></step>\n"
+                + "  <order>\n"
+                + "    <hop><from>orders</from><to>user</to><enabled>Y</enabled></hop>\n"
+                + "    <hop><from>user</from><to>region</to><enabled>Y</enabled></hop>\n"
+                + "    <hop><from>regions</from><to>region</to><enabled>Y</enabled></hop>\n"
+                + "    <hop><from>region</from><to>join</to><enabled>Y</enabled></hop>\n"
+                + "    <hop><from>join</from><to>sync</to><enabled>Y</enabled></hop>\n"
+                + "  </order>\n"
+                + "</transformation>";
+        List<KettleFieldLineage> lineages = resolve(ktr);
+
+        // 查询步骤的 id 不并入主输入行
+        assertEquals(Collections.singletonList("orders.id"), find(lineages, "order_wide", "id").getSourceFields());
+
+        KettleFieldLineage userName = find(lineages, "order_wide", "user_name");
+        assertEquals(Collections.singletonList("dim.users.name"), userName.getSourceFields());
+        assertEquals(TransformationType.RENAME, userName.getTransformationType());
+
+        KettleFieldLineage region = find(lineages, "order_wide", "region");
+        assertEquals(Collections.singletonList("regions.region_name"), region.getSourceFields());
+        assertEquals(TransformationType.RENAME, region.getTransformationType());
+
+        assertEquals(Collections.singletonList("payments.amount"),
+                find(lineages, "order_wide", "amount").getSourceFields());
+        assertEquals("sync", find(lineages, "order_wide", "amount").getStepName());
+    }
+
+    @Test
+    void testCycleDoesNotHang() throws Exception {
+        String ktr = "<transformation>\n"
+                + "  <step><name>a</name><type>Dummy</type></step>\n"
+                + "  <step><name>b</name><type>Dummy</type></step>\n"
+                + "  <order>\n"
+                + "    <hop><from>a</from><to>b</to><enabled>Y</enabled></hop>\n"
+                + "    <hop><from>b</from><to>a</to><enabled>Y</enabled></hop>\n"
+                + "  </order>\n"
+                + "</transformation>";
+        assertTrue(resolve(ktr).isEmpty());
+    }
+
+    @Test
+    void testReplaceVariables() {
+        assertEquals("SELECT * FROM ods.t WHERE dt = 'biz_date'",
+                KettleFieldLineageResolver.replaceVariables("SELECT * FROM ${ods}.t WHERE dt = '%%biz_date%%'"));
+    }
+
+    private List<KettleFieldLineage> resolve(String ktr) throws Exception {
+        KettleTransformation transformation = kettleParser.parse(
+                new ByteArrayInputStream(ktr.getBytes(StandardCharsets.UTF_8)));
+        return resolver.resolve(transformation);
+    }
+
+    private static KettleFieldLineage find(List<KettleFieldLineage> lineages, String table, String field) {
+        return lineages.stream()
+                .filter(l -> table.equals(l.getTargetTable()) && field.equals(l.getTargetField()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("missing lineage " + table + "." + field + " in " + lineages));
+    }
+}
@@ -1,18 +1,43 @@
 package com.lineage.kettle.service;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.google.common.hash.Hashing;
+import com.lineage.config.LineageProperties;
+import com.lineage.kettle.connection.KettleConnectionResolver;
 import com.lineage.kettle.dto.BatchUploadResponse;
 import com.lineage.kettle.entity.KettleFileRecord;
+import com.lineage.kettle.mapper.KettleFileRecordMapper;
+import com.lineage.kettle.model.KettleConnection;
+import com.lineage.kettle.storage.KettleBlobStore;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +51,21 @@ class KettleFileServiceTest {
     @Resource
     private KettleFileService kettleFileService;
     
+    @Resource
+    private LineageProperties properties;
+    
+    @Resource
+    private KettleConnectionResolver connectionResolver;
+    
+    @Resource
+    private KettleBlobStore blobStore;
+    
+    @Resource
+    private KettleFileRecordMapper kettleFileRecordMapper;
+    
+    @Resource(name = "kettleImportExecutor")
+    private ThreadPoolExecutor importExecutor;
+    
     @Test
     void testUploadFile() throws Exception {
         // 加载测试文件
@@ -88,6 +128,40 @@ class KettleFileServiceTest {
         assertNotNull(response.getResults());
     }
     
+    @Test
+    void testBatchUploadInsertsInChunks() throws Exception {
+        byte[] content = StreamUtils.copyToByteArray(
+                getClass().getClassLoader().getResourceAsStream("test-transformation.ktr"));
+        String prefix = UUID.randomUUID().toString().substring(0, 8);
+        List<MultipartFile> files = Arrays.asList(
+                new MockMultipartFile("files", prefix + "-1.ktr", "text/xml", content),
+                new MockMultipartFile("files", prefix + "-2.ktr", "text/xml", content),
+                new MockMultipartFile("files", prefix + "-3.ktr", "text/xml", content),
+                new MockMultipartFile("files", prefix + "-bad.ktr", "text/xml", "<not-xml".getBytes(StandardCharsets.UTF_8)));
+        
+        int batchSize = properties.getKettle().getInsertBatchSize();
+        properties.getKettle().setInsertBatchSize(2);
+        BatchUploadResponse response;
+        try {
+            response = kettleFileService.batchUpload(files);
+        } finally {
+            properties.getKettle().setInsertBatchSize(batchSize);
+        }
+        
+        assertEquals(3, response.getSuccessCount());
+        assertEquals(1, response.getFailedCount());
+        assertEquals(2, response.getPersistBatches());
+        assertTrue(response.getConnectionHoldMillis() >= 0);
+        for (int i = 0; i < 3; i++) {
+            BatchUploadResponse.FileUploadResult result = response.getResults().get(i);
+            KettleFileRecord record = kettleFileService.getFileRecord(result.getFileId());
+            assertEquals(result.getFileName(), record.getFileName());
+            assertEquals(result.getSqlCount(), record.getSqlCount());
+            assertNotNull(record.getCreateTime());
+        }
+        assertNull(response.getResults().get(3).getFileId());
+    }
+    
     @Test
     void testListFileRecords() throws Exception {
         // 上传测试文件
@@ -131,4 +205,268 @@ class KettleFileServiceTest {
         KettleFileRecord deleted = kettleFileService.getFileRecord(fileId);
         assertNull(deleted);
     }
+    
+    @Test
+    void testReuploadUnchangedFileSkipsParsing() throws Exception {
+        byte[] content = readTestFile();
+        
+        BatchUploadResponse.FileUploadResult first = kettleFileService.uploadFile(
+                new MockMultipartFile("file", "unchanged.ktr", "text/xml", content));
+        assertEquals("success", first.getStatus());
+        assertFalse(first.isUnchanged());
+        
+        KettleFileRecord record = kettleFileService.getFileRecord(first.getFileId());
+        assertNotNull(record.getContentHash());
+        assertEquals(64, record.getContentHash().length());
+        
+        // 同名同内容：复用已有记录
+        BatchUploadResponse.FileUploadResult second = kettleFileService.uploadFile(
+                new MockMultipartFile("file", "unchanged.ktr", "text/xml", content));
+        assertEquals("success", second.getStatus());
+        assertTrue(second.isUnchanged());
+        assertEquals(first.getFileId(), second.getFileId());
+        assertEquals(first.getSqlCount(), second.getSqlCount());
+        
+        // 内容变化：重新解析
+        byte[] changed = new String(content, StandardCharsets.UTF_8)
+                .replace("</transformation>", "<!-- changed --></transformation>")
+                .getBytes(StandardCharsets.UTF_8);
+        BatchUploadResponse.FileUploadResult third = kettleFileService.uploadFile(
+                new MockMultipartFile("file", "unchanged.ktr", "text/xml", changed));
+        assertEquals("success", third.getStatus());
+        assertFalse(third.isUnchanged());
+        assertNotEquals(first.getFileId(), third.getFileId());
+        assertNotEquals(record.getContentHash(), kettleFileService.getFileRecord(third.getFileId()).getContentHash());
+    }
+    
+    @Test
+    void testUnchangedReuploadDoesNotParse() throws Exception {
+        // 内容无法解析：只要调用了解析器就会失败
+        byte[] content = ("not a transformation " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        String fileName = "unparsed-" + UUID.randomUUID() + ".ktr";
+        String hash = Hashing.sha256().hashBytes(content).toString();
+        KettleFileRecord record = new KettleFileRecord();
+        record.setFileName(fileName);
+        record.setFilePath(blobStore.blobPath(hash).toString());
+        record.setContentHash(hash);
+        record.setParseStatus("success");
+        record.setSqlCount(3);
+        kettleFileRecordMapper.insert(record);
+        
+        BatchUploadResponse.FileUploadResult result = kettleFileService.uploadFile(
+                new MockMultipartFile("file", fileName, "text/xml", content));
+        
+        assertEquals("success", result.getStatus());
+        assertTrue(result.isUnchanged());
+        assertEquals(record.getId(), result.getFileId());
+        assertEquals(3, result.getSqlCount());
+    }
+    
+    @Test
+    void testNewFileParsedWhileSaving() throws Exception {
+        byte[] content = ("not a transformation " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        
+        // 没有同名记录：保存时一并解析，解析失败则不保存
+        BatchUploadResponse.FileUploadResult result = kettleFileService.uploadFile(
+                new MockMultipartFile("file", "new-" + UUID.randomUUID() + ".ktr", "text/xml", content));
+        
+        assertEquals("failed", result.getStatus());
+        assertFalse(Files.exists(blobStore.blobPath(Hashing.sha256().hashBytes(content).toString())));
+    }
+    
+    @Test
+    void testBatchUploadCountsUnchanged() throws Exception {
+        byte[] content = readTestFile();
+        kettleFileService.uploadFile(new MockMultipartFile("files", "repo-a.ktr", "text/xml", content));
+        
+        List<MultipartFile> files = Arrays.asList(
+                new MockMultipartFile("files", "repo-a.ktr", "text/xml", content),
+                new MockMultipartFile("files", "repo-b.ktr", "text/xml", content));
+        BatchUploadResponse response = kettleFileService.batchUpload(files);
+        
+        assertEquals(2, response.getSuccessCount());
+        assertEquals(1, response.getUnchangedCount());
+        assertTrue(response.getResults().get(0).isUnchanged());
+        assertFalse(response.getResults().get(1).isUnchanged());
+    }
+    
+    @Test
+    void testBatchUploadDeduplicatesSameFile() throws Exception {
+        byte[] content = readTestFile();
+        String fileName = "dup-" + UUID.randomUUID() + ".ktr";
+        
+        List<MultipartFile> files = Arrays.asList(
+                new MockMultipartFile("files", fileName, "text/xml", content),
+                new MockMultipartFile("files", fileName, "text/xml", content));
+        BatchUploadResponse response = kettleFileService.batchUpload(files);
+        
+        assertEquals(2, response.getSuccessCount());
+        assertEquals(1, response.getUnchangedCount());
+        assertFalse(response.getResults().get(0).isUnchanged());
+        assertTrue(response.getResults().get(1).isUnchanged());
+        assertEquals(response.getResults().get(0).getFileId(), response.getResults().get(1).getFileId());
+        assertEquals(1, kettleFileRecordMapper.selectCount(new LambdaQueryWrapper<KettleFileRecord>()
+                .eq(KettleFileRecord::getFileName, fileName)));
+    }
+    
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testFailedInsertDiscardsStoredContent() throws Exception {
+        byte[] content = new String(readTestFile(), StandardCharsets.UTF_8)
+                .replace("</transformation>", "<!-- " + UUID.randomUUID() + " --></transformation>")
+                .getBytes(StandardCharsets.UTF_8);
+        // 文件名超过字段长度，记录写入失败
+        String fileName = StringUtils.repeat("x", 250) + ".ktr";
+        
+        BatchUploadResponse.FileUploadResult result = kettleFileService.uploadFile(
+                new MockMultipartFile("file", fileName, "text/xml", content));
+        
+        assertEquals("failed", result.getStatus());
+        assertNull(result.getFileId());
+        assertFalse(Files.exists(blobStore.blobPath(Hashing.sha256().hashBytes(content).toString())));
+    }
+    
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testImportZip() throws Exception {
+        byte[] content = readTestFile();
+        String prefix = "zip-" + UUID.randomUUID() + "/";
+        
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(buffer)) {
+            zip.putNextEntry(new ZipEntry(prefix));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry(prefix + "a.ktr"));
+            zip.write(content);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry(prefix + "readme.txt"));
+            zip.write("ignored".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry(prefix + "sub/b.ktr"));
+            zip.write(content);
+            zip.closeEntry();
+            // 共享连接只作用于本次导入，不论位于归档中的哪个位置
+            zip.putNextEntry(new ZipEntry(prefix + "shared.xml"));
+            zip.write("<sharedobjects><connection><name>dw</name><type>HIVE2</type></connection></sharedobjects>"
+                    .getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        List<KettleConnection> defaults = connectionResolver.getSharedConnections();
+        
+        BatchUploadResponse response = kettleFileService.importZip(new ByteArrayInputStream(buffer.toByteArray()));
+        try {
+            assertEquals(2, response.getTotalFiles());
+            assertEquals(2, response.getSuccessCount());
+            assertEquals(prefix + "a.ktr", response.getResults().get(0).getFileName());
+            assertEquals(prefix + "sub/b.ktr", response.getResults().get(1).getFileName());
+            assertTrue(response.getResults().get(0).getSqlCount() > 0);
+            assertEquals(defaults, connectionResolver.getSharedConnections());
+            
+            // 再次导入同一仓库：全部未变化
+            BatchUploadResponse again = kettleFileService.importZip(new ByteArrayInputStream(buffer.toByteArray()));
+            assertEquals(2, again.getUnchangedCount());
+        } finally {
+            cleanUp(response);
+        }
+    }
+    
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testImportZipParsesWhileReading() throws Exception {
+        byte[] content = readTestFile();
+        String prefix = "zip-" + UUID.randomUUID() + "/";
+        byte[] padding = new byte[64 * 1024];
+        new Random().nextBytes(padding);
+        
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(buffer)) {
+            zip.putNextEntry(new ZipEntry(prefix + "a.ktr"));
+            zip.write(content);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry(prefix + "b.ktr"));
+            zip.write(content);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry(prefix + "padding.bin"));
+            zip.write(padding);
+            zip.closeEntry();
+        }
+        byte[] archive = buffer.toByteArray();
+        
+        // 读到归档后半部分（末尾的大条目）时，前面的条目应已交给线程池
+        long before = importExecutor.getTaskCount();
+        AtomicLong submittedWhileReading = new AtomicLong(-1);
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(archive)) {
+            private long position;
+            
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                position += Math.max(read, 0);
+                if (position > archive.length / 2) {
+                    submittedWhileReading.compareAndSet(-1, importExecutor.getTaskCount() - before);
+                }
+                return read;
+            }
+        };
+        
+        BatchUploadResponse response = kettleFileService.importZip(in);
+        try {
+            assertEquals(2, response.getSuccessCount());
+            assertTrue(submittedWhileReading.get() >= 2);
+        } finally {
+            cleanUp(response);
+        }
+    }
+    
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testImportDirectory() throws Exception {
+        Path root = Files.createTempDirectory("kettle-repo");
+        Path repo = Files.createDirectories(root.resolve("repo-" + UUID.randomUUID()));
+        Files.write(Files.createDirectories(repo.resolve("etl")).resolve("c.ktr"), readTestFile());
+        Files.write(repo.resolve("notes.txt"), "ignored".getBytes(StandardCharsets.UTF_8));
+        // 指向允许范围之外的符号链接不导入
+        Path outside = Files.createTempDirectory("kettle-outside");
+        Files.write(outside.resolve("secret.ktr"), readTestFile());
+        Files.createSymbolicLink(repo.resolve("leak.ktr"), outside.resolve("secret.ktr"));
+        Files.createSymbolicLink(repo.resolve("linked"), outside);
+        
+        List<String> originalRoots = properties.getKettle().getImportRoots();
+        BatchUploadResponse response = null;
+        try {
+            assertThrows(IllegalArgumentException.class, () -> kettleFileService.importDirectory(repo.toString()));
+            
+            properties.getKettle().setImportRoots(Collections.singletonList(root.toString()));
+            response = kettleFileService.importDirectory(repo.toString());
+            assertEquals(1, response.getTotalFiles());
+            assertEquals(1, response.getSuccessCount());
+            assertEquals("etl/c.ktr", response.getResults().get(0).getFileName());
+        } finally {
+            properties.getKettle().setImportRoots(originalRoots);
+            if (response != null) {
+                cleanUp(response);
+            }
+            FileSystemUtils.deleteRecursively(root);
+            FileSystemUtils.deleteRecursively(outside);
+        }
+    }
+    
+    /**
+     * 导入在线程池中逐条提交，不受测试事务控制，需手动清理
+     */
+    private void cleanUp(BatchUploadResponse response) {
+        for (BatchUploadResponse.FileUploadResult result : response.getResults()) {
+            if (result.getFileId() != null) {
+                kettleFileService.deleteFileRecord(result.getFileId());
+            }
+        }
+    }
+    
+    private byte[] readTestFile() throws Exception {
+        try (InputStream inputStream = getClass().getClassLoader()
+                .getResourceAsStream("test-transformation.ktr")) {
+            assertNotNull(inputStream);
+            return StreamUtils.copyToByteArray(inputStream);
+        }
+    }
 }
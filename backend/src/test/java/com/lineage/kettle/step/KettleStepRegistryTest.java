@@ -0,0 +1,223 @@
+package com.lineage.kettle.step;
+
+import com.lineage.kettle.model.KettleFieldMapping;
+import com.lineage.kettle.model.KettleSqlInfo;
+import com.lineage.kettle.model.KettleStep;
+import com.lineage.kettle.model.KettleTransformation;
+import com.lineage.kettle.model.step.CalculatorStep;
+import com.lineage.kettle.model.step.DatabaseJoinStep;
+import com.lineage.kettle.model.step.DatabaseLookupStep;
+import com.lineage.kettle.model.step.DynamicSqlRowStep;
+import com.lineage.kettle.model.step.InsertUpdateStep;
+import com.lineage.kettle.model.step.MergeJoinStep;
+import com.lineage.kettle.model.step.SelectValuesStep;
+import com.lineage.kettle.model.step.StreamLookupStep;
+import com.lineage.kettle.model.step.SynchronizeAfterMergeStep;
+import com.lineage.kettle.model.step.TableOutputStep;
+import com.lineage.kettle.parser.KettleParser;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 步骤类型注册表测试
+ */
+@SpringBootTest
+class KettleStepRegistryTest {
+
+    private static final String TRANSFORMATION = "<transformation>\n"
+            + "  <step><name>out</name><type>TableOutput</type><connection>dw</connection>"
+            + "<schema>dw</schema><table>t_out</table><specify_fields>Y</specify_fields>"
+            + "<fields><field><column_name>c1</column_name><stream_name>s1</stream_name></field></fields></step>\n"
+            + "  <step><name>upsert</name><type>InsertUpdate</type>"
+            + "<lookup><schema>dw</schema><table>t_dim</table>"
+            + "<key><name>s_id</name><field>id</field><condition>=</condition></key>"
+            + "<value><name>v</name><rename>s_v</rename><update>Y</update></value></lookup></step>\n"
+            + "  <step><name>lookup</name><type>DBLookup</type>"
+            + "<lookup><table>t_ref</table><key><name>s_id</name><field>ref_id</field></key>"
+            + "<value><name>label</name><rename>ref_label</rename></value></lookup></step>\n"
+            + "  <step><name>select</name><type>SelectValues</type><fields>"
+            + "<field><name>a</name><rename>b</rename></field><select_unspecified>Y</select_unspecified>"
+            + "<remove><name>c</name></remove></fields></step>\n"
+            + "  <step><name>calc</name><type>Calculator</type><calculation><field_name>x</field_name>"
+            + "<calc_type>ADD</calc_type><field_a>a</field_a><field_b>b</field_b><remove>Y</remove></calculation></step>\n"
+            + "  <step><name>join</name><type>MergeJoin</type><join_type>LEFT OUTER</join_type>"
+            + "<step1>left</step1><step2>right</step2><keys_1><key>id</key></keys_1><keys_2><key>ref_id</key></keys_2></step>\n"
+            + "  <step><name>dummy</name><type>Dummy</type></step>\n"
+            + "</transformation>";
+
+    @Resource
+    private KettleParser kettleParser;
+
+    @Resource
+    private KettleStepRegistry stepRegistry;
+
+    @Resource
+    private List<KettleStepHandler<?>> handlers;
+
+    @Test
+    void testParseTypedSteps() throws Exception {
+        List<KettleStep> steps = parse(TRANSFORMATION).getSteps();
+
+        TableOutputStep output = (TableOutputStep) steps.get(0);
+        assertEquals("dw", output.getConnection());
+        assertEquals("dw.t_out", output.getQualifiedTable());
+        assertTrue(output.isSpecifyFields());
+        assertEquals(Collections.singletonList(new KettleFieldMapping("c1", "s1")), output.getFields());
+
+        InsertUpdateStep upsert = (InsertUpdateStep) steps.get(1);
+        assertEquals("dw.t_dim", upsert.getQualifiedTable());
+        assertEquals(Collections.singletonList(new KettleFieldMapping("id", "s_id")), upsert.getKeys());
+        assertEquals(Collections.singletonList(new KettleFieldMapping("v", "s_v")), upsert.getUpdateFields());
+
+        DatabaseLookupStep lookup = (DatabaseLookupStep) steps.get(2);
+        assertEquals("t_ref", lookup.getTable());
+        assertEquals("ref_label", lookup.getReturnFields().get(0).getRename());
+
+        SelectValuesStep select = (SelectValuesStep) steps.get(3);
+        assertEquals("b", select.getFields().get(0).getRename());
+        assertTrue(select.isSelectUnspecified());
+        assertEquals(Collections.singletonList("c"), select.getRemovedFields());
+
+        CalculatorStep calc = (CalculatorStep) steps.get(4);
+        assertTrue(calc.getCalculations().get(0).isRemove());
+
+        MergeJoinStep join = (MergeJoinStep) steps.get(5);
+        assertEquals("LEFT OUTER", join.getJoinType());
+        assertEquals(Arrays.asList("left", "right"), Arrays.asList(join.getLeftStep(), join.getRightStep()));
+        assertEquals(Collections.singletonList("ref_id"), join.getRightKeys());
+
+        // 未注册类型
+        KettleStep dummy = steps.get(6);
+        assertEquals(KettleStep.class, dummy.getClass());
+        assertEquals("Dummy", dummy.getType());
+        assertNull(stepRegistry.extractSql(dummy));
+    }
+
+    @Test
+    void testExtractLookupAndJoinSteps() throws Exception {
+        KettleTransformation transformation = parse("<transformation>\n"
+                + "  <step><name>lookup</name><type>DBLookup</type><connection>dw</connection>"
+                + "<lookup><schema>dim</schema><table>t_ref</table>"
+                + "<key><name>s_id</name><field>ref_id</field><condition>=</condition></key>"
+                + "<key><name>s_dt</name><field>dt</field><condition>=</condition></key>"
+                + "<value><name>label</name><rename>ref_label</rename></value>"
+                + "<value><name>code</name></value></lookup></step>\n"
+                + "  <step><name>join</name><type>DBJoin</type><outer_join>Y</outer_join>"
+                + "<sql>SELECT name FROM   users\n WHERE id = ?</sql>"
+                + "<parameter><field><name>user_id</name><type>Integer</type></field></parameter></step>\n"
+                + "  <step><name>dynamic</name><type>DynamicSQLRow</type><sql_fieldname>q</sql_fieldname>"
+                + "<sql>SELECT amount FROM orders</sql></step>\n"
+                + "  <step><name>sync</name><type>SynchronizeAfterMerge</type><operation_order_field>flag</operation_order_field>"
+                + "<lookup><schema>dw</schema><table>t_sync</table><key><name>id</name><field>id</field></key>"
+                + "<value><name>v</name><rename>s_v</rename></value></lookup></step>\n"
+                + "  <step><name>sync_dynamic</name><type>SynchronizeAfterMerge</type>"
+                + "<table_name_in_field>Y</table_name_in_field><table_name_field>tbl</table_name_field></step>\n"
+                + "  <step><name>stream</name><type>StreamLookup</type><from>ref</from>"
+                + "<lookup><key><name>s_id</name><field>id</field></key>"
+                + "<value><name>label</name><rename>ref_label</rename></value></lookup></step>\n"
+                + "</transformation>");
+        List<KettleStep> steps = transformation.getSteps();
+
+        KettleSqlInfo lookup = stepRegistry.extractSql(steps.get(0));
+        assertEquals("SELECT label AS ref_label, code FROM dim.t_ref WHERE ref_id = ? AND dt = ?", lookup.getSql());
+        assertEquals("t_ref", lookup.getSourceTable());
+        assertEquals("dim", lookup.getSchemaName());
+        assertEquals("dw", lookup.getConnectionName());
+
+        DatabaseJoinStep join = (DatabaseJoinStep) steps.get(1);
+        assertTrue(join.isOuterJoin());
+        assertEquals(Collections.singletonList("user_id"), join.getParameters());
+        KettleSqlInfo joinSql = stepRegistry.extractSql(join);
+        assertEquals("SELECT name FROM users WHERE id = ?", joinSql.getSql());
+        assertEquals("users", joinSql.getSourceTable());
+
+        DynamicSqlRowStep dynamic = (DynamicSqlRowStep) steps.get(2);
+        assertEquals("q", dynamic.getSqlField());
+        assertEquals("orders", stepRegistry.extractSql(dynamic).getSourceTable());
+
+        SynchronizeAfterMergeStep sync = (SynchronizeAfterMergeStep) steps.get(3);
+        assertEquals("flag", sync.getOperationOrderField());
+        assertEquals(Collections.singletonList(new KettleFieldMapping("v", "s_v")), sync.getUpdateFields());
+        KettleSqlInfo syncSql = stepRegistry.extractSql(sync);
+        assertEquals("MERGE INTO dw.t_sync", syncSql.getSql());
+        assertEquals("t_sync", syncSql.getTargetTable());
+
+        // 表名取自流字段时无法静态确定
+        assertNull(stepRegistry.extractSql(steps.get(4)));
+
+        StreamLookupStep stream = (StreamLookupStep) steps.get(5);
+        assertEquals("ref", stream.getLookupStep());
+        assertEquals("ref_label", stream.getReturnFields().get(0).getRename());
+        assertNull(stepRegistry.extractSql(stream));
+    }
+
+    @Test
+    void testLookupKeyConditions() throws Exception {
+        KettleTransformation transformation = parse("<transformation>\n"
+                + "  <step><name>lookup</name><type>DBLookup</type><lookup><table>rates</table>"
+                + "<key><name>cur</name><field>currency</field><condition>&lt;&gt;</condition></key>"
+                + "<key><name>dt</name><field>valid_from</field><condition>&lt;=</condition></key>"
+                + "<key><name>lo</name><field>amount</field><condition>BETWEEN</condition><name2>hi</name2></key>"
+                + "<key><name>pat</name><field>code</field><condition>like</condition></key>"
+                + "<key><name>x</name><field>deleted_at</field><condition>IS NULL</condition></key>"
+                + "<key><name>y</name><field>rate</field><condition>IS NOT NULL</condition></key>"
+                + "<key><name>z</name><field>region</field><condition>= ~NULL</condition></key>"
+                + "<value><name>rate</name></value></lookup></step>\n"
+                + "</transformation>");
+
+        DatabaseLookupStep step = (DatabaseLookupStep) transformation.getSteps().get(0);
+        assertEquals("hi", step.getKeys().get(2).getStream2());
+        assertEquals("SELECT rate FROM rates WHERE currency <> ? AND valid_from <= ? AND amount BETWEEN ? AND ?"
+                        + " AND code LIKE ? AND deleted_at IS NULL AND rate IS NOT NULL"
+                        + " AND (region = ? OR region IS NULL)",
+                stepRegistry.extractSql(step).getSql());
+    }
+
+    @Test
+    void testRegisterCustomHandler() throws Exception {
+        // 在独立的注册表上注册，不影响共享上下文中的单例
+        KettleStepRegistry registry = new KettleStepRegistry(handlers);
+        registry.register(new AbstractStepHandler<KettleStep>() {
+            @Override
+            public List<String> getStepTypes() {
+                return Collections.singletonList("CustomSql");
+            }
+
+            @Override
+            public KettleStep parse(Element stepElement) {
+                return new KettleStep();
+            }
+
+            @Override
+            public KettleSqlInfo extractSql(KettleStep step) {
+                KettleSqlInfo info = sqlInfo(step);
+                info.setSql("SELECT 1");
+                return info;
+            }
+        });
+
+        Element stepElement = DocumentHelper.parseText(
+                "<step><name>custom</name><type>CustomSql</type><connection>c</connection></step>").getRootElement();
+        KettleSqlInfo info = registry.extractSql(registry.parse(stepElement));
+        assertEquals("custom", info.getStepName());
+        assertEquals("c", info.getConnectionName());
+        assertEquals("SELECT 1", info.getSql());
+        assertTrue(registry.getStepTypes().containsAll(stepRegistry.getStepTypes()));
+        assertFalse(stepRegistry.getStepTypes().contains("CustomSql"));
+    }
+
+    private KettleTransformation parse(String ktr) throws Exception {
+        return kettleParser.parse(new ByteArrayInputStream(ktr.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,177 @@
+package com.lineage.kettle.storage;
+
+import com.lineage.config.LineageProperties;
+import com.lineage.kettle.entity.KettleFileRecord;
+import com.lineage.kettle.mapper.KettleFileRecordMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kettle文件内容寻址存储测试
+ */
+@SpringBootTest
+@Transactional
+class KettleBlobStoreTest {
+
+    @Resource
+    private KettleBlobStore blobStore;
+
+    @Resource
+    private KettleFileRecordMapper kettleFileRecordMapper;
+
+    @Resource
+    private LineageProperties properties;
+
+    private int graceMinutes;
+
+    @BeforeEach
+    void setUp() {
+        graceMinutes = properties.getKettle().getBlobGcGraceMinutes();
+    }
+
+    @AfterEach
+    void tearDown() {
+        properties.getKettle().setBlobGcGraceMinutes(graceMinutes);
+    }
+
+    @Test
+    void testStoreDeduplicatesBySharding() throws Exception {
+        byte[] content = uniqueContent();
+
+        KettleBlobStore.StoredBlob first = blobStore.store(new ByteArrayInputStream(content));
+        KettleBlobStore.StoredBlob second = blobStore.store(new ByteArrayInputStream(content));
+
+        assertFalse(first.isDeduplicated());
+        assertTrue(second.isDeduplicated());
+        assertEquals(first.getFile(), second.getFile());
+        assertEquals(content.length, second.getSize());
+
+        String hash = first.getContentHash();
+        Path path = first.getFile().toPath();
+        assertEquals(hash, path.getFileName().toString());
+        assertEquals(hash.substring(2, 4), path.getParent().getFileName().toString());
+        assertEquals(hash.substring(0, 2), path.getParent().getParent().getFileName().toString());
+        assertArrayEquals(content, Files.readAllBytes(path));
+    }
+
+    @Test
+    void testStoreWhileReading() throws Exception {
+        byte[] content = uniqueContent();
+
+        // 读取方只读前 10 个字节，其余内容仍需完整保存
+        KettleBlobStore.TeeResult<String> partial = blobStore.store(new ByteArrayInputStream(content), in -> {
+            byte[] head = new byte[10];
+            int read = in.read(head);
+            in.close();
+            return new String(head, 0, read, StandardCharsets.UTF_8);
+        });
+        assertEquals("<transform", partial.getValue());
+        assertArrayEquals(content, Files.readAllBytes(partial.getBlob().getFile().toPath()));
+
+        KettleBlobStore.StoredBlob plain = blobStore.store(new ByteArrayInputStream(content));
+        assertEquals(partial.getBlob().getContentHash(), plain.getContentHash());
+        assertTrue(plain.isDeduplicated());
+
+        // 读取方失败时不保存
+        byte[] other = uniqueContent();
+        assertThrows(IllegalStateException.class, () -> blobStore.store(new ByteArrayInputStream(other), in -> {
+            throw new IllegalStateException("parse failed");
+        }));
+    }
+
+    @Test
+    void testStoreRejectsOversizedContent() {
+        int maxFileSizeMb = properties.getKettle().getMaxFileSizeMb();
+        properties.getKettle().setMaxFileSizeMb(0);
+        try {
+            assertThrows(IOException.class, () -> blobStore.store(new ByteArrayInputStream(uniqueContent())));
+        } finally {
+            properties.getKettle().setMaxFileSizeMb(maxFileSizeMb);
+        }
+    }
+
+    @Test
+    void testCollectOnlyUnreferencedExpiredBlobs() throws Exception {
+        KettleBlobStore.StoredBlob blob = blobStore.store(new ByteArrayInputStream(uniqueContent()));
+        String hash = blob.getContentHash();
+
+        // 宽限期内不回收
+        assertFalse(blobStore.collect(hash));
+
+        // 导入中（记录尚未写入）的内容超过宽限期也不回收
+        properties.getKettle().setBlobGcGraceMinutes(0);
+        assertFalse(blobStore.collect(hash));
+        assertFalse(blobStore.discard(hash));
+        assertTrue(blob.getFile().exists());
+        blobStore.unpin(hash);
+
+        KettleFileRecord record = new KettleFileRecord();
+        record.setFileName("blob-ref.ktr");
+        record.setFilePath(blob.getFile().getAbsolutePath());
+        record.setContentHash(hash);
+        kettleFileRecordMapper.insert(record);
+
+        // 仍有引用
+        assertEquals(1, blobStore.referenceCount(hash));
+        assertFalse(blobStore.collect(hash));
+        assertTrue(blob.getFile().exists());
+
+        kettleFileRecordMapper.deleteById(record.getId());
+        assertEquals(0, blobStore.referenceCount(hash));
+        assertTrue(blobStore.collect(hash));
+        assertFalse(blob.getFile().exists());
+    }
+
+    @Test
+    void testSweepRemovesOrphans() throws Exception {
+        KettleBlobStore.StoredBlob blob = blobStore.store(new ByteArrayInputStream(uniqueContent()));
+        properties.getKettle().setBlobGcGraceMinutes(0);
+
+        // 导入中的内容跳过
+        blobStore.sweep();
+        assertTrue(blob.getFile().exists());
+        blobStore.unpin(blob.getContentHash());
+
+        Path tempDir = Paths.get(properties.getKettle().getUploadDir(), "tmp");
+        Path leftover = Files.createTempFile(tempDir, "upload-", ".tmp");
+        Files.setLastModifiedTime(leftover, FileTime.fromMillis(System.currentTimeMillis() - 60_000L));
+        assertTrue(blobStore.sweep() >= 2);
+        assertFalse(blob.getFile().exists());
+        assertFalse(Files.exists(leftover));
+    }
+
+    @Test
+    void testReleaseDeletesLegacyFile() throws Exception {
+        Path legacy = Paths.get(properties.getKettle().getUploadDir(), UUID.randomUUID() + ".ktr");
+        Files.write(legacy, uniqueContent());
+
+        // 异步执行
+        blobStore.release(null, legacy.toString());
+
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (Files.exists(legacy) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20L);
+        }
+        assertFalse(Files.exists(legacy));
+    }
+
+    private static byte[] uniqueContent() {
+        return ("<transformation><!-- " + UUID.randomUUID() + " --></transformation>")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,7 @@
 package com.lineage.metadata.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.lineage.dto.response.CursorPage;
 import com.lineage.metadata.dto.ColumnMetadataDTO;
 import com.lineage.metadata.dto.DataSourceDTO;
 import com.lineage.metadata.dto.TableMetadataDTO;
@@ -12,7 +13,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -69,4 +72,44 @@ class MetadataServiceTest {
         List<ColumnMetadata> columns = metadataService.listColumnsByTableId(tableId);
         assertEquals(1, columns.size());
     }
+    
+    @Test
+    void testListTablesPagingAndSeek() {
+        DataSourceDTO dsDto = new DataSourceDTO();
+        dsDto.setName("分页数据源");
+        dsDto.setType("mysql");
+        dsDto.setUrl("jdbc:mysql://localhost:3306/test");
+        Long dsId = metadataService.createDataSource(dsDto);
+        
+        for (int i = 0; i < 5; i++) {
+            TableMetadataDTO tableDto = new TableMetadataDTO();
+            tableDto.setDatasourceId(dsId);
+            tableDto.setTableName("t_page_" + i);
+            metadataService.createTable(tableDto);
+        }
+        
+        // 数据库端分页
+        IPage<TableMetadata> page = metadataService.listTables(2, 2, dsId);
+        assertEquals(5, page.getTotal());
+        assertEquals(2, page.getRecords().size());
+        
+        // 不查总数
+        IPage<TableMetadata> noCount = metadataService.listTables(1, 2, dsId, false);
+        assertEquals(0, noCount.getTotal());
+        assertEquals(2, noCount.getRecords().size());
+        
+        // 键集分页：创建时间相同时按 id 继续翻页，不重不漏
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        CursorPage<TableMetadata> seek;
+        do {
+            seek = metadataService.seekTables(cursor, 2, dsId);
+            seek.getRecords().forEach(table -> seen.add(table.getId()));
+            cursor = seek.getNextCursor();
+        } while (seek.isHasMore());
+        assertEquals(5, seen.size());
+        assertEquals(5, new HashSet<>(seen).size());
+        
+        assertThrows(IllegalArgumentException.class, () -> metadataService.seekTables("not-a-cursor", 2, dsId));
+    }
 }
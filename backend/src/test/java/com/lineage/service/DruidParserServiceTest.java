@@ -1,5 +1,6 @@
 package com.lineage.service;
 
+import com.alibaba.druid.sql.SQLUtils;
 import com.alibaba.druid.sql.ast.SQLStatement;
 import com.alibaba.druid.sql.ast.statement.SQLSelectStatement;
 import com.lineage.core.dialect.DbTypeResolver;
@@ -192,6 +193,16 @@ class DruidParserServiceTest {
         assertNotNull(postgresFormatted);
     }
 
+    @Test
+    void testFormatClickHouseArrayJoin() {
+        String sql = "SELECT id, tag FROM events ARRAY JOIN tags AS tag";
+        assertDoesNotThrow(() -> parserService.parseSQL(sql, "clickhouse"));
+
+        String formatted = parserService.formatSQL(sql, "clickhouse");
+        assertTrue(formatted.contains("UNNEST"));
+        assertTrue(formatted.contains("events"));
+    }
+
     @ParameterizedTest
     @NullAndEmptySource
     void testFormatWithBlankSQL(String sql) {
@@ -216,4 +227,15 @@ class DruidParserServiceTest {
         assertDoesNotThrow(() -> parserService.parseSQL(sql, "HIVE"));
         assertDoesNotThrow(() -> parserService.parseSQL(sql, "PostgreSQL"));
     }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "mysql|select a, b from t where x = 1 and y = 2 and z = 3",
+        "hive|-- 注释{NL}select a from t /* inline */ where b > 0",
+        "postgresql|select a::int from t union all select b from u"
+    })
+    void testFormatMatchesDruidFormat(String dbType, String sql) {
+        sql = sql.replace("{NL}", "\n");
+        assertEquals(SQLUtils.format(sql, dbTypeResolver.resolve(dbType)), parserService.formatSQL(sql, dbType));
+    }
 }
@@ -0,0 +1,141 @@
+package com.lineage.service;
+
+import com.lineage.core.LineageAnalyzer;
+import com.lineage.core.tracker.LineageResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "lineage.parser.enable-cache=true",
+        "lineage.parser.max-sql-length=2000",
+        "lineage.parser.max-recursion-depth=5"
+})
+class LineageAnalysisServiceTest {
+
+    @Autowired
+    private LineageAnalysisService analysisService;
+
+    @Autowired
+    private LineageAnalyzer analyzer;
+
+    @AfterEach
+    void tearDown() {
+        analysisService.clearCache();
+    }
+
+    @Test
+    void testCachedResultIsShared() {
+        String sql = "SELECT id, SUM(amount) AS total FROM orders GROUP BY id";
+
+        LineageResult first = analysisService.analyze(sql, "mysql");
+        LineageResult second = analysisService.analyze(sql, "MySQL");
+
+        assertTrue(first.isSuccess());
+        assertSame(first, second);
+        assertEquals("SUM(amount)", first.getFieldDependencies().get(1).getExpression());
+        assertNull(first.getFieldDependencies().get(1).getExpressionNode());
+    }
+
+    @Test
+    void testWithoutExpressionsLeavesCachedResultIntact() {
+        String sql = "SELECT UPPER(name) AS n FROM users";
+
+        LineageResult cached = analysisService.analyze(sql, "mysql");
+        LineageResult stripped = cached.withoutExpressions();
+
+        assertNull(stripped.getFieldDependencies().get(0).getExpression());
+        assertEquals("UPPER(name)", cached.getFieldDependencies().get(0).getExpression());
+        assertSame(cached, analysisService.analyze(sql, "mysql"));
+    }
+
+    @Test
+    void testFailedAnalysisNotCached() {
+        String sql = "SELECT FROM WHERE";
+
+        LineageResult first = analysisService.analyze(sql, "mysql");
+        LineageResult second = analysisService.analyze(sql, "mysql");
+
+        assertFalse(first.isSuccess());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void testMaxSqlLengthEnforced() {
+        StringBuilder sql = new StringBuilder("SELECT id");
+        while (sql.length() <= 2000) {
+            sql.append(", col").append(sql.length());
+        }
+        sql.append(" FROM t");
+
+        LineageResult result = analysisService.analyze(sql.toString(), "mysql");
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getErrorMessage().contains("exceeds limit 2000"));
+    }
+
+    @Test
+    void testMaxRecursionDepthEnforced() {
+        String sql = "SELECT id FROM users";
+        for (int i = 0; i < 6; i++) {
+            sql = "SELECT id FROM (" + sql + ") t" + i;
+        }
+
+        LineageResult result = analysisService.analyze(sql, "mysql");
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getErrorMessage().contains("nesting depth exceeds limit 5"));
+    }
+
+    @Test
+    void testAnalyzerStopsAfterDeadline() {
+        StringBuilder sql = new StringBuilder("SELECT id, name FROM users");
+        for (int i = 0; i < 30; i++) {
+            sql.append(" UNION ALL SELECT id, name FROM u").append(i);
+        }
+
+        // 已过截止时间：遍历中途终止，不会继续占用分析线程
+        LineageResult expired = analyzer.analyze(sql.toString(), "mysql", false, System.nanoTime() - 1);
+        assertFalse(expired.isSuccess());
+        assertTrue(expired.getErrorMessage().contains("deadline exceeded"));
+
+        // 节点数不足一个检查间隔的短语句：解析完成后即检查截止时间
+        LineageResult expiredShort = analyzer.analyze("SELECT id FROM users", "mysql", false, System.nanoTime() - 1);
+        assertFalse(expiredShort.isSuccess());
+        assertTrue(expiredShort.getErrorMessage().contains("deadline exceeded"));
+
+        LineageResult unlimited = analyzer.analyze(sql.toString(), "mysql", false, 0L);
+        assertTrue(unlimited.isSuccess());
+    }
+
+    @Test
+    void testRejectedWhenQueueFull() throws Exception {
+        ThreadPoolExecutor original = (ThreadPoolExecutor) ReflectionTestUtils.getField(analysisService, "executor");
+        ThreadPoolExecutor small = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            ReflectionTestUtils.setField(analysisService, "executor", small);
+            // 占满唯一的线程和队列
+            small.submit(() -> release.await(10, TimeUnit.SECONDS));
+            small.submit(() -> release.await(10, TimeUnit.SECONDS));
+
+            assertThrows(RejectedExecutionException.class,
+                    () -> analysisService.analyze("SELECT id FROM users WHERE 1 = 1", "mysql"));
+        } finally {
+            release.countDown();
+            small.shutdown();
+            ReflectionTestUtils.setField(analysisService, "executor", original);
+        }
+    }
+}